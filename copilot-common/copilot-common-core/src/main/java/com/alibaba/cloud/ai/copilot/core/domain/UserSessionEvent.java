@@ -0,0 +1,39 @@
+package com.alibaba.cloud.ai.copilot.core.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * 用户会话事件
+ * 在登录或 token 续期时发布，供业务模块预热用户相关资源
+ *
+ * @author yzm
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSessionEvent implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 登录ID（与 StpUtil.getLoginIdAsString() 一致）
+     */
+    private String loginId;
+
+    /**
+     * token值
+     */
+    private String tokenValue;
+
+    /**
+     * 是否为 token 续期触发
+     */
+    private boolean renewal;
+
+}
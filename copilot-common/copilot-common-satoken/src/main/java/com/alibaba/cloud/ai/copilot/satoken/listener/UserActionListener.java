@@ -6,10 +6,12 @@ import cn.dev33.satoken.stp.SaLoginModel;
 import cn.hutool.http.useragent.UserAgent;
 import cn.hutool.http.useragent.UserAgentUtil;
 import com.alibaba.cloud.ai.copilot.core.constant.CacheConstants;
+import com.alibaba.cloud.ai.copilot.core.domain.UserSessionEvent;
 import com.alibaba.cloud.ai.copilot.core.domain.dto.UserOnlineDTO;
 import com.alibaba.cloud.ai.copilot.core.domain.model.LoginUser;
 import com.alibaba.cloud.ai.copilot.core.enums.UserType;
 import com.alibaba.cloud.ai.copilot.core.utils.ServletUtils;
+import com.alibaba.cloud.ai.copilot.core.utils.SpringUtils;
 import com.alibaba.cloud.ai.copilot.redis.utils.RedisUtils;
 import com.alibaba.cloud.ai.copilot.satoken.utils.LoginHelper;
 import lombok.RequiredArgsConstructor;
@@ -57,6 +59,8 @@ public class UserActionListener implements SaTokenListener {
         } else if (userType == UserType.APP_USER) {
             // app端 自行根据业务编写
         }
+        // 通知业务模块异步预热会话资源
+        SpringUtils.context().publishEvent(new UserSessionEvent(loginId.toString(), tokenValue, false));
     }
 
     /**
@@ -133,5 +137,6 @@ public class UserActionListener implements SaTokenListener {
      */
     @Override
     public void doRenewTimeout(String tokenValue, Object loginId, long timeout) {
+        SpringUtils.context().publishEvent(new UserSessionEvent(loginId.toString(), tokenValue, true));
     }
 }
@@ -1,7 +1,12 @@
 package com.alibaba.cloud.ai.copilot.config;
 
-import org.springframework.ai.chat.memory.ChatMemory;
-import org.springframework.ai.chat.memory.MessageWindowChatMemory;
+import com.alibaba.cloud.ai.copilot.service.ContentCompressionService;
+import com.alibaba.cloud.ai.copilot.service.impl.BranchingChatMemory;
+import com.alibaba.cloud.ai.copilot.service.impl.CompressingChatMemoryRepository;
+import com.alibaba.cloud.ai.copilot.service.impl.ConversationBranchStore;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,13 +20,18 @@ public class ChatMemoryConfig {
 
     /**
      * 配置ChatMemory
-     * Spring AI 1.0.0会自动配置JdbcChatMemoryRepository作为底层存储
+     * 底层使用自动配置的 ChatMemoryRepository（JdbcChatMemoryRepository），并在其外层透明压缩消息内容；
+     * 分支会话只保存分叉后的新消息，读取时与父会话前缀拼接
      */
     @Bean
     @ConditionalOnMissingBean
-    public ChatMemory chatMemory() {
-        return MessageWindowChatMemory.builder()
-                .maxMessages(20) // 保留最近20条消息
-                .build();
+    public BranchingChatMemory chatMemory(ObjectProvider<ChatMemoryRepository> chatMemoryRepository,
+                                          ContentCompressionService compressionService,
+                                          ConversationBranchStore branchStore) {
+        ChatMemoryRepository delegate = chatMemoryRepository.getIfAvailable(InMemoryChatMemoryRepository::new);
+        return new BranchingChatMemory(
+                new CompressingChatMemoryRepository(delegate, compressionService),
+                branchStore,
+                20); // 保留最近20条消息
     }
 }
@@ -0,0 +1,55 @@
+package com.alibaba.cloud.ai.copilot.config;
+
+import com.alibaba.cloud.ai.copilot.context.api.ContextManager;
+import com.alibaba.cloud.ai.copilot.context.api.ContextStore;
+import com.alibaba.cloud.ai.copilot.context.application.ContextManagerImpl;
+import com.alibaba.cloud.ai.copilot.context.infrastructure.InMemoryContextStore;
+import com.alibaba.cloud.ai.copilot.context.infrastructure.RedisContextStore;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 上下文管理配置类
+ * 根据配置选择内存或 Redis Hash 存储
+ */
+@Configuration
+public class ContextManagerConfiguration {
+
+    @Value("${copilot.context.storage.type:memory}")
+    private String contextStorageType;
+
+    @Value("${copilot.context.temporary-ttl-minutes:30}")
+    private long temporaryTtlMinutes;
+
+    @Value("${copilot.context.session-idle-ttl-minutes:120}")
+    private long sessionIdleTtlMinutes;
+
+    /**
+     * 上下文存储
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ContextStore contextStore(ObjectProvider<RedissonClient> redissonClient) {
+        if ("redis".equalsIgnoreCase(contextStorageType)) {
+            return new RedisContextStore(redissonClient.getObject());
+        } else {
+            return new InMemoryContextStore();
+        }
+    }
+
+    /**
+     * 上下文管理器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ContextManager contextManager(ContextStore contextStore) {
+        return new ContextManagerImpl(contextStore, Duration.ofMinutes(temporaryTtlMinutes),
+                Duration.ofMinutes(sessionIdleTtlMinutes));
+    }
+}
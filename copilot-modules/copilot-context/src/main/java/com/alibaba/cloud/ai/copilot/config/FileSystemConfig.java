@@ -1,10 +1,15 @@
 package com.alibaba.cloud.ai.copilot.config;
 
 import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.service.impl.ContentAddressedStore;
 import com.alibaba.cloud.ai.copilot.service.impl.FileSystemServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 /**
  * 文件系统配置类
  */
@@ -15,4 +20,14 @@ public class FileSystemConfig {
     public FileSystemService fileSystemService() {
         return new FileSystemServiceImpl();
     }
+
+    /**
+     * 全局唯一的内容存储，文件写入、快照与生命周期回收共用同一把锁
+     * 与工作目录位于同一文件系统，硬链接才能生效
+     */
+    @Bean
+    public ContentAddressedStore contentAddressedStore(
+            @Value("${app.workspace.root-directory:./workspace}") String workspaceRoot) throws IOException {
+        return new ContentAddressedStore(Paths.get(workspaceRoot, ".blobs").toAbsolutePath().normalize());
+    }
 }
\ No newline at end of file
@@ -1,13 +1,21 @@
 package com.alibaba.cloud.ai.copilot.config;
 
+import com.alibaba.cloud.ai.copilot.service.SseEventService;
+import com.alibaba.cloud.ai.copilot.service.impl.SseTaskEventListener;
 import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool;
 import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.*;
+import com.alibaba.cloud.ai.copilot.tools.service.RedisTaskPersistenceManager;
+import com.alibaba.cloud.ai.copilot.tools.service.RedisTaskScheduler;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * 任务工具配置类
  * 提供任务持久化、依赖管理、调度等组件的配置
@@ -21,14 +29,52 @@ public class TaskToolConfiguration {
     @Value("${copilot.task.storage.type:memory}")
     private String taskStorageType;
 
+    @Value("${copilot.task.scheduler.type:local}")
+    private String taskSchedulerType;
+
+    @Value("${copilot.task.scheduler.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${copilot.task.scheduler.recover-delay-ms:1000}")
+    private long recoverDelayMs;
+
+    @Value("${copilot.task.scheduler.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    @Value("${copilot.task.engine.parallelism:4}")
+    private int parallelism;
+
+    @Value("${copilot.task.engine.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${copilot.task.engine.finished-ttl-minutes:30}")
+    private long finishedTtlMinutes;
+
+    @Value("${copilot.task.engine.idle-ttl-hours:24}")
+    private long idleTtlHours;
+
+    @Value("${copilot.task.engine.max-cached-tasks:1000}")
+    private int maxCachedTasks;
+
+    @Value("${copilot.task.engine.step-parallelism:4}")
+    private int stepParallelism;
+
+    @Value("${copilot.task.engine.step-max-retries:1}")
+    private int stepMaxRetries;
+
+    @Value("${copilot.task.engine.step-retry-backoff-ms:500}")
+    private long stepRetryBackoffMs;
+
     /**
      * 任务持久化管理器
-     * 根据配置选择内存或文件系统存储
+     * 根据配置选择内存、文件系统或 Redis 存储
      */
     @Bean
     @ConditionalOnMissingBean
-    public TaskPersistenceManager taskPersistenceManager() {
-        if ("filesystem".equalsIgnoreCase(taskStorageType)) {
+    public TaskPersistenceManager taskPersistenceManager(ObjectProvider<RedissonClient> redissonClient) {
+        if ("redis".equalsIgnoreCase(taskStorageType)) {
+            return new RedisTaskPersistenceManager(redissonClient.getObject(), Duration.ofMinutes(finishedTtlMinutes));
+        } else if ("filesystem".equalsIgnoreCase(taskStorageType)) {
             return new FileSystemTaskPersistenceManager(taskStoragePath);
         } else {
             return new InMemoryTaskPersistenceManager();
@@ -46,20 +92,35 @@ public class TaskToolConfiguration {
 
     /**
      * 任务调度器
+     * redis 类型在多个节点间共享队列，任务可能在任意节点执行，必须配合 redis 任务存储使用
      */
     @Bean
     @ConditionalOnMissingBean
-    public TaskScheduler copilotTaskScheduler() {
-        return new PriorityTaskScheduler();
+    public TaskScheduler copilotTaskScheduler(ObjectProvider<RedissonClient> redissonClient) {
+        if ("redis".equalsIgnoreCase(taskSchedulerType)) {
+            if (!"redis".equalsIgnoreCase(taskStorageType)) {
+                throw new IllegalStateException("copilot.task.scheduler.type=redis requires copilot.task.storage.type=redis, "
+                    + "but storage type is " + taskStorageType);
+            }
+            return new RedisTaskScheduler(redissonClient.getObject(),
+                Duration.ofSeconds(leaseSeconds), Duration.ofMillis(recoverDelayMs));
+        } else {
+            return new PriorityTaskScheduler();
+        }
     }
 
     /**
-     * 任务事件监听器
+     * 任务事件监听器，把任务进度推送给订阅的 SSE 连接
+     * redis 调度时事件经 Redis Topic 广播，订阅连接所在的节点都能收到
      */
     @Bean
-    @ConditionalOnMissingBean
-    public TaskEventListener taskEventListener() {
-        return new DefaultTaskEventListener();
+    @ConditionalOnMissingBean(TaskEventListener.class)
+    public SseTaskEventListener taskEventListener(SseEventService sseEventService,
+                                                  ObjectProvider<RedissonClient> redissonClient) {
+        if ("redis".equalsIgnoreCase(taskSchedulerType)) {
+            return new SseTaskEventListener(sseEventService, redissonClient.getObject());
+        }
+        return new SseTaskEventListener(sseEventService);
     }
 
     /**
@@ -70,8 +131,19 @@ public class TaskToolConfiguration {
     public ContinuousTaskTool continuousTaskTool(
             TaskPersistenceManager persistenceManager,
             TaskDependencyManager dependencyManager,
-            TaskScheduler taskScheduler) {
-        return new ContinuousTaskTool(persistenceManager, dependencyManager, taskScheduler);
+            TaskScheduler taskScheduler,
+            TaskEventListener taskEventListener) {
+        TaskEngineSettings settings = new TaskEngineSettings();
+        settings.setParallelism(parallelism);
+        settings.setQueueCapacity(queueCapacity);
+        settings.setFinishedTtl(Duration.ofMinutes(finishedTtlMinutes));
+        settings.setIdleTtl(Duration.ofHours(idleTtlHours));
+        settings.setMaxCachedTasks(maxCachedTasks);
+        settings.setStepParallelism(stepParallelism);
+        settings.setStepMaxRetries(stepMaxRetries);
+        settings.setStepRetryBackoff(Duration.ofMillis(stepRetryBackoffMs));
+        settings.setPollInterval(Duration.ofMillis(pollIntervalMs));
+        return new ContinuousTaskTool(persistenceManager, dependencyManager, taskScheduler, taskEventListener, settings);
     }
 }
 
@@ -0,0 +1,57 @@
+package com.alibaba.cloud.ai.copilot.context.api;
+
+import com.alibaba.cloud.ai.copilot.context.domain.ConversationContext;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * 上下文存储接口
+ * 保存不可变的上下文快照，写操作以写时复制的方式整体替换快照
+ *
+ * @author Alibaba Cloud AI Team
+ */
+public interface ContextStore {
+
+    /**
+     * 读取上下文快照
+     *
+     * @param contextId 上下文ID
+     * @return 上下文快照，不存在时返回 null
+     */
+    ConversationContext load(String contextId);
+
+    /**
+     * 保存新的上下文快照
+     *
+     * @param context 上下文快照
+     * @return 上下文ID已存在时返回 false
+     */
+    boolean create(ConversationContext context);
+
+    /**
+     * 原子地替换上下文快照
+     * 同一上下文的并发写操作串行执行，读操作不受影响
+     *
+     * @param contextId 上下文ID
+     * @param mutator 基于当前快照生成新快照的函数
+     * @return 新的快照，上下文不存在时返回 null
+     */
+    ConversationContext update(String contextId, UnaryOperator<ConversationContext> mutator);
+
+    /**
+     * 删除上下文
+     *
+     * @param contextId 上下文ID
+     * @return 被删除的快照，不存在时返回 null
+     */
+    ConversationContext delete(String contextId);
+
+    /**
+     * 获取用户的上下文ID列表
+     *
+     * @param userId 用户ID
+     * @return 上下文ID列表
+     */
+    List<String> listContextIds(String userId);
+}
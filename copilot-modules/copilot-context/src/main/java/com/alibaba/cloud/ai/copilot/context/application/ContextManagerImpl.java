@@ -0,0 +1,414 @@
+package com.alibaba.cloud.ai.copilot.context.application;
+
+import com.alibaba.cloud.ai.copilot.context.api.ContextManager;
+import com.alibaba.cloud.ai.copilot.context.api.ContextStore;
+import com.alibaba.cloud.ai.copilot.context.domain.ContextScope;
+import com.alibaba.cloud.ai.copilot.context.domain.ConversationContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 上下文管理器实现
+ * <p>
+ * 上下文以不可变快照的形式保存，每次写操作复制当前快照并生成新版本（写时复制），
+ * 读操作直接返回快照引用，无需加锁。批量更新在一次快照替换中完成，对读者原子可见。
+ * 调用方不应直接修改返回的快照，所有修改需通过本管理器完成。
+ * <p>
+ * 统计信息由增量维护的计数器提供，{@link #getContextStats(String)} 不扫描上下文数据。
+ * 本节点访问过的上下文连同计数器记录在本地索引中，{@link #evictExpired()} 定期清理：
+ * 过期的临时上下文、空闲超过 {@code sessionIdleTtl} 的会话上下文会从存储中删除；
+ * 其他节点创建的上下文空闲超时后只移除本地计数器。已被 Redis TTL 删除的上下文同样从索引中移除，
+ * 使计数器与存储保持一致。
+ *
+ * @author Alibaba Cloud AI Team
+ */
+@Slf4j
+public class ContextManagerImpl implements ContextManager {
+
+    private static final String META_VERSION = "version";
+    private static final String META_MERGED_FROM = "mergedFrom";
+    private static final String META_SWITCHED_FROM = "switchedFrom";
+
+    private final ContextStore contextStore;
+    private final Duration temporaryTtl;
+    private final Duration sessionIdleTtl;
+
+    /**
+     * 本节点访问过的上下文 -> 本地跟踪信息（计数器、过期时间、最后访问时间）
+     */
+    private final Map<String, TrackedContext> tracked = new ConcurrentHashMap<>();
+
+    /**
+     * 本地索引中由本节点创建的上下文数量，跟踪时加一、移出索引时减一
+     */
+    private final AtomicInteger ownedContexts = new AtomicInteger();
+
+    public ContextManagerImpl(ContextStore contextStore, Duration temporaryTtl, Duration sessionIdleTtl) {
+        this.contextStore = contextStore;
+        this.temporaryTtl = temporaryTtl;
+        this.sessionIdleTtl = sessionIdleTtl;
+    }
+
+    @Override
+    public String createContext(String sessionId, String userId, ContextScope scope) {
+        String contextId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        ContextScope effectiveScope = scope != null ? scope : ContextScope.SESSION;
+
+        ConversationContext context = ConversationContext.builder()
+                .contextId(contextId)
+                .sessionId(sessionId)
+                .userId(userId)
+                .scope(effectiveScope)
+                .status(ConversationContext.ContextStatus.ACTIVE)
+                .data(Collections.emptyMap())
+                .variables(Collections.emptyMap())
+                .metadata(Map.of(META_VERSION, 0L))
+                .createdAt(now)
+                .updatedAt(now)
+                .lastAccessedAt(now)
+                .expiresAt(effectiveScope == ContextScope.TEMPORARY ? now.plus(temporaryTtl) : null)
+                .build();
+
+        if (!contextStore.create(context)) {
+            throw new IllegalStateException("Context already exists: " + contextId);
+        }
+        TrackedContext previous = tracked.put(contextId, new TrackedContext(effectiveScope, true, context.getExpiresAt()));
+        if (previous == null || !previous.owned) {
+            ownedContexts.incrementAndGet();
+        }
+
+        log.debug("Created context: contextId={}, sessionId={}, userId={}, scope={}",
+                contextId, sessionId, userId, effectiveScope);
+        return contextId;
+    }
+
+    @Override
+    public ConversationContext getContext(String contextId) {
+        ConversationContext context = contextStore.load(contextId);
+        if (context == null) {
+            forget(contextId);
+            return null;
+        }
+        if (context.isExpired()) {
+            expire(context);
+            return null;
+        }
+        trackedOf(context).reads.increment();
+        return context;
+    }
+
+    @Override
+    public void updateContext(String contextId, String key, Object value) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(key, value);
+        updateContext(contextId, updates);
+    }
+
+    /**
+     * 批量更新上下文数据，值为 null 的键会被移除
+     * 所有更新在同一个新快照中生效
+     */
+    @Override
+    public void updateContext(String contextId, Map<String, Object> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return;
+        }
+        ConversationContext updated = contextStore.update(contextId, current -> {
+            Map<String, Object> data = new HashMap<>(current.getData());
+            updates.forEach((key, value) -> {
+                if (value == null) {
+                    data.remove(key);
+                } else {
+                    data.put(key, value);
+                }
+            });
+            return nextVersion(current, current.toBuilder().data(Collections.unmodifiableMap(data)));
+        });
+        if (updated == null) {
+            throw new IllegalArgumentException("Context not found: " + contextId);
+        }
+        TrackedContext contextCounters = trackedOf(updated);
+        contextCounters.writes.increment();
+        contextCounters.updatedKeys.add(updates.size());
+    }
+
+    @Override
+    public void clearContext(String contextId) {
+        ConversationContext removed = contextStore.delete(contextId);
+        forget(contextId);
+        if (removed != null) {
+            log.debug("Cleared context: contextId={}", contextId);
+        }
+    }
+
+    @Override
+    public List<ConversationContext> getUserContexts(String userId) {
+        List<ConversationContext> result = new ArrayList<>();
+        for (String contextId : contextStore.listContextIds(userId)) {
+            ConversationContext context = getContext(contextId);
+            if (context != null) {
+                result.add(context);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void switchContext(String fromContextId, String toContextId) {
+        if (Objects.equals(fromContextId, toContextId)) {
+            return;
+        }
+        if (fromContextId != null) {
+            contextStore.update(fromContextId, current -> nextVersion(current, current.toBuilder()
+                    .status(ConversationContext.ContextStatus.INACTIVE)));
+        }
+        ConversationContext target = contextStore.update(toContextId, current -> {
+            Map<String, Object> metadata = new HashMap<>(current.getMetadata());
+            if (fromContextId != null) {
+                metadata.put(META_SWITCHED_FROM, fromContextId);
+            }
+            return nextVersion(current, current.toBuilder()
+                    .status(ConversationContext.ContextStatus.ACTIVE)
+                    .metadata(metadata)
+                    .lastAccessedAt(LocalDateTime.now()));
+        });
+        if (target == null) {
+            throw new IllegalArgumentException("Context not found: " + toContextId);
+        }
+        trackedOf(target).switches.increment();
+    }
+
+    /**
+     * 合并上下文：按列表顺序将源上下文的数据和变量写入目标上下文，后者覆盖前者
+     * 源上下文保持不变，合并结果在一次快照替换中生效
+     */
+    @Override
+    public void mergeContexts(List<String> sourceContextIds, String targetContextId) {
+        List<ConversationContext> sources = new ArrayList<>();
+        for (String sourceId : sourceContextIds) {
+            if (sourceId.equals(targetContextId)) {
+                continue;
+            }
+            ConversationContext source = getContext(sourceId);
+            if (source == null) {
+                log.warn("Skip missing source context during merge: {}", sourceId);
+                continue;
+            }
+            sources.add(source);
+        }
+
+        ConversationContext merged = contextStore.update(targetContextId, current -> {
+            Map<String, Object> data = new HashMap<>(current.getData());
+            Map<String, String> variables = new HashMap<>(current.getVariables());
+            Map<String, Object> metadata = new HashMap<>(current.getMetadata());
+            List<String> mergedFrom = new ArrayList<>();
+            for (ConversationContext source : sources) {
+                data.putAll(source.getData());
+                variables.putAll(source.getVariables());
+                mergedFrom.add(source.getContextId());
+            }
+            metadata.put(META_MERGED_FROM, mergedFrom);
+            return nextVersion(current, current.toBuilder()
+                    .data(Collections.unmodifiableMap(data))
+                    .variables(Collections.unmodifiableMap(variables))
+                    .metadata(metadata));
+        });
+        if (merged == null) {
+            throw new IllegalArgumentException("Context not found: " + targetContextId);
+        }
+        trackedOf(merged).merges.increment();
+    }
+
+    @Override
+    public boolean contextExists(String contextId) {
+        ConversationContext context = contextStore.load(contextId);
+        return context != null && !context.isExpired();
+    }
+
+    @Override
+    public Map<String, Object> getContextStats(String contextId) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeContexts", ownedContexts.get());
+
+        ConversationContext context = contextStore.load(contextId);
+        if (context == null) {
+            stats.put("exists", false);
+            return stats;
+        }
+        TrackedContext contextCounters = tracked.get(contextId);
+        if (contextCounters == null) {
+            // 只读统计不建立跟踪，避免为未被本节点使用的上下文留下计数器
+            contextCounters = new TrackedContext(context.getScope(), false, context.getExpiresAt());
+        }
+        stats.put("exists", true);
+        stats.put("contextId", contextId);
+        stats.put("scope", context.getScope() != null ? context.getScope().getCode() : null);
+        stats.put("status", context.getStatus() != null ? context.getStatus().getCode() : null);
+        stats.put("version", context.getMetadata().getOrDefault(META_VERSION, 0L));
+        stats.put("dataSize", context.getData().size());
+        stats.put("variableSize", context.getVariables().size());
+        stats.put("reads", contextCounters.reads.sum());
+        stats.put("writes", contextCounters.writes.sum());
+        stats.put("updatedKeys", contextCounters.updatedKeys.sum());
+        stats.put("switches", contextCounters.switches.sum());
+        stats.put("merges", contextCounters.merges.sum());
+        stats.put("createdAt", context.getCreatedAt());
+        stats.put("updatedAt", context.getUpdatedAt());
+        stats.put("expiresAt", context.getExpiresAt());
+        return stats;
+    }
+
+    private ConversationContext nextVersion(ConversationContext current,
+                                            ConversationContext.ConversationContextBuilder builder) {
+        ConversationContext next = builder.updatedAt(LocalDateTime.now()).build();
+        Map<String, Object> metadata = new HashMap<>(next.getMetadata());
+        Object version = current.getMetadata().get(META_VERSION);
+        metadata.put(META_VERSION, version instanceof Number n ? n.longValue() + 1 : 1L);
+        next.setMetadata(Collections.unmodifiableMap(metadata));
+        return next;
+    }
+
+    /**
+     * 清理本地索引中过期或空闲的上下文
+     * 临时上下文不被访问时不会在读取路径上过期，由定时任务删除；
+     * 会话上下文空闲超过 {@code sessionIdleTtl} 后删除，删除前重新读取存储，
+     * 其他节点在此期间更新过的上下文只刷新本地访问时间；
+     * 其他节点创建的上下文空闲超时后只移除本地计数器，不删除存储；
+     * Redis 存储中已被 TTL 删除的上下文在这里同步移除本地计数器
+     *
+     * @return 从存储中清理的上下文数量
+     */
+    @Scheduled(fixedDelayString = "${copilot.context.eviction-interval-ms:60000}")
+    public int evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime idleBefore = now.minus(sessionIdleTtl);
+        int evicted = 0;
+        for (Map.Entry<String, TrackedContext> entry : tracked.entrySet()) {
+            String contextId = entry.getKey();
+            TrackedContext state = entry.getValue();
+            if (state.expiresAt != null) {
+                if (now.isAfter(state.expiresAt)) {
+                    contextStore.delete(contextId);
+                    if (forget(contextId)) {
+                        evicted++;
+                    }
+                }
+                continue;
+            }
+            if (!state.lastAccessedAt.isBefore(idleBefore)) {
+                continue;
+            }
+            if (!state.owned || state.scope != ContextScope.SESSION) {
+                if (!state.owned) {
+                    tracked.remove(contextId, state);
+                }
+                continue;
+            }
+            ConversationContext current = contextStore.load(contextId);
+            if (current == null) {
+                forget(contextId);
+                continue;
+            }
+            LocalDateTime lastActivity = latest(current.getUpdatedAt(), current.getLastAccessedAt());
+            if (lastActivity != null && !lastActivity.isBefore(idleBefore)) {
+                state.touch(lastActivity);
+                continue;
+            }
+            contextStore.delete(contextId);
+            if (forget(contextId)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} expired contexts", evicted);
+        }
+        return evicted;
+    }
+
+    private void expire(ConversationContext context) {
+        contextStore.delete(context.getContextId());
+        if (forget(context.getContextId())) {
+            log.debug("Expired context removed: contextId={}", context.getContextId());
+        }
+    }
+
+    /**
+     * 移除上下文的本地计数器和索引
+     *
+     * @return 是否为本节点创建且尚未移除的上下文
+     */
+    private boolean forget(String contextId) {
+        TrackedContext removed = tracked.remove(contextId);
+        if (removed == null || !removed.owned) {
+            return false;
+        }
+        ownedContexts.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * 本节点创建的上下文在创建时建立跟踪；其他节点创建的上下文在首次访问时补建，
+     * 并与本节点创建的上下文一样由 {@link #evictExpired()} 回收，计数器不会无限增长
+     */
+    private TrackedContext trackedOf(ConversationContext context) {
+        TrackedContext state = tracked.computeIfAbsent(context.getContextId(),
+                id -> new TrackedContext(context.getScope(), false, context.getExpiresAt()));
+        state.touch(LocalDateTime.now());
+        return state;
+    }
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first.isAfter(second) ? first : second;
+    }
+
+    /**
+     * 单个上下文的本地跟踪信息和操作计数器
+     */
+    private static class TrackedContext {
+        private final ContextScope scope;
+        /**
+         * 是否由本节点创建
+         */
+        private final boolean owned;
+        /**
+         * 临时上下文的过期时间，其他范围为 null
+         */
+        private final LocalDateTime expiresAt;
+        private volatile LocalDateTime lastAccessedAt = LocalDateTime.now();
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder writes = new LongAdder();
+        private final LongAdder updatedKeys = new LongAdder();
+        private final LongAdder switches = new LongAdder();
+        private final LongAdder merges = new LongAdder();
+
+        private TrackedContext(ContextScope scope, boolean owned, LocalDateTime expiresAt) {
+            this.scope = scope;
+            this.owned = owned;
+            this.expiresAt = expiresAt;
+        }
+
+        private void touch(LocalDateTime time) {
+            if (time.isAfter(lastAccessedAt)) {
+                lastAccessedAt = time;
+            }
+        }
+    }
+}
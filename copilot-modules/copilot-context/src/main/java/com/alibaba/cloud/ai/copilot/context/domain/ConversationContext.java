@@ -6,6 +6,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -18,7 +20,7 @@ import java.util.concurrent.ConcurrentHashMap;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ConversationContext {
 
     /**
@@ -112,12 +114,15 @@ public class ConversationContext {
 
     /**
      * 设置上下文数据
+     * 上下文管理器返回的是不可变快照，这里复制后替换，不修改原有的映射
      *
      * @param key 键
      * @param value 值
      */
     public void setData(String key, Object value) {
-        this.data.put(key, value);
+        Map<String, Object> copy = new HashMap<>(this.data);
+        copy.put(key, value);
+        this.data = Collections.unmodifiableMap(copy);
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -134,12 +139,15 @@ public class ConversationContext {
 
     /**
      * 设置上下文变量
+     * 与 {@link #setData(String, Object)} 相同，复制后替换
      *
      * @param key 键
      * @param value 值
      */
     public void setVariable(String key, String value) {
-        this.variables.put(key, value);
+        Map<String, String> copy = new HashMap<>(this.variables);
+        copy.put(key, value);
+        this.variables = Collections.unmodifiableMap(copy);
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -0,0 +1,64 @@
+package com.alibaba.cloud.ai.copilot.context.infrastructure;
+
+import com.alibaba.cloud.ai.copilot.context.api.ContextStore;
+import com.alibaba.cloud.ai.copilot.context.domain.ConversationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * 基于内存的上下文存储
+ * 快照引用保存在 ConcurrentHashMap 中，读操作无锁，写操作通过 computeIfPresent 原子替换。
+ * 读取返回快照的浅拷贝（共享不可变的数据映射），调用方对返回对象的修改不会影响存储
+ *
+ * @author Alibaba Cloud AI Team
+ */
+public class InMemoryContextStore implements ContextStore {
+
+    private final Map<String, ConversationContext> contexts = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> userContexts = new ConcurrentHashMap<>();
+
+    @Override
+    public ConversationContext load(String contextId) {
+        ConversationContext context = contexts.get(contextId);
+        return context != null ? context.toBuilder().build() : null;
+    }
+
+    @Override
+    public boolean create(ConversationContext context) {
+        if (contexts.putIfAbsent(context.getContextId(), context) != null) {
+            return false;
+        }
+        if (context.getUserId() != null) {
+            userContexts.computeIfAbsent(context.getUserId(), k -> ConcurrentHashMap.newKeySet())
+                    .add(context.getContextId());
+        }
+        return true;
+    }
+
+    @Override
+    public ConversationContext update(String contextId, UnaryOperator<ConversationContext> mutator) {
+        return contexts.computeIfPresent(contextId, (id, current) -> mutator.apply(current));
+    }
+
+    @Override
+    public ConversationContext delete(String contextId) {
+        ConversationContext removed = contexts.remove(contextId);
+        if (removed != null && removed.getUserId() != null) {
+            userContexts.computeIfPresent(removed.getUserId(), (userId, ids) -> {
+                ids.remove(contextId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        return removed;
+    }
+
+    @Override
+    public List<String> listContextIds(String userId) {
+        Set<String> ids = userContexts.get(userId);
+        return ids != null ? List.copyOf(ids) : List.of();
+    }
+}
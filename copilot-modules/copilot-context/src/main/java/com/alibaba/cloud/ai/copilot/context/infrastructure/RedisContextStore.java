@@ -0,0 +1,208 @@
+package com.alibaba.cloud.ai.copilot.context.infrastructure;
+
+import com.alibaba.cloud.ai.copilot.context.api.ContextStore;
+import com.alibaba.cloud.ai.copilot.context.domain.ConversationContext;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
+import org.redisson.api.RBatch;
+import org.redisson.api.RLock;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * 基于 Redis Hash 的上下文存储
+ * 每个上下文对应一个 Hash，字段布局如下：
+ * <ul>
+ *   <li>{@code @header} - 上下文基本信息（不含数据）</li>
+ *   <li>{@code d:<key>} - 上下文数据</li>
+ *   <li>{@code v:<key>} - 上下文变量</li>
+ *   <li>{@code m:<key>} - 上下文元数据</li>
+ * </ul>
+ * 写操作在分布式锁内只提交变化的字段，并通过 MULTI/EXEC 原子执行
+ *
+ * @author Alibaba Cloud AI Team
+ */
+@Slf4j
+public class RedisContextStore implements ContextStore {
+
+    private static final String CONTEXT_KEY_PREFIX = "copilot:context:";
+    private static final String USER_CONTEXTS_KEY_PREFIX = "copilot:context:user:";
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final String HEADER_FIELD = "@header";
+    private static final String DATA_PREFIX = "d:";
+    private static final String VARIABLE_PREFIX = "v:";
+    private static final String METADATA_PREFIX = "m:";
+    private static final long LOCK_LEASE_SECONDS = 10;
+
+    private final RedissonClient redissonClient;
+
+    public RedisContextStore(RedissonClient redissonClient) {
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    public ConversationContext load(String contextId) {
+        RMap<String, Object> map = redissonClient.getMap(CONTEXT_KEY_PREFIX + contextId);
+        return fromFields(map.readAllMap());
+    }
+
+    @Override
+    public boolean create(ConversationContext context) {
+        String key = CONTEXT_KEY_PREFIX + context.getContextId();
+        RMap<String, Object> map = redissonClient.getMap(key);
+        if (!map.fastPutIfAbsent(HEADER_FIELD, header(context))) {
+            return false;
+        }
+
+        RBatch batch = redissonClient.createBatch(atomicBatch());
+        RMapAsync<String, Object> mapAsync = batch.getMap(key);
+        Map<String, Object> fields = toFields(context);
+        if (!fields.isEmpty()) {
+            mapAsync.putAllAsync(fields);
+        }
+        applyExpiry(mapAsync, context);
+        if (context.getUserId() != null) {
+            batch.getSet(USER_CONTEXTS_KEY_PREFIX + context.getUserId()).addAsync(context.getContextId());
+        }
+        batch.execute();
+        return true;
+    }
+
+    @Override
+    public ConversationContext update(String contextId, UnaryOperator<ConversationContext> mutator) {
+        String key = CONTEXT_KEY_PREFIX + contextId;
+        RLock lock = redissonClient.getLock(key + LOCK_SUFFIX);
+        lock.lock(LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
+        try {
+            RMap<String, Object> map = redissonClient.getMap(key);
+            ConversationContext current = fromFields(map.readAllMap());
+            if (current == null) {
+                return null;
+            }
+            ConversationContext next = mutator.apply(current);
+
+            Map<String, Object> oldFields = toFields(current);
+            Map<String, Object> newFields = toFields(next);
+            Map<String, Object> changed = new HashMap<>();
+            newFields.forEach((field, value) -> {
+                if (!Objects.equals(oldFields.get(field), value)) {
+                    changed.put(field, value);
+                }
+            });
+            changed.put(HEADER_FIELD, header(next));
+            List<String> removed = new ArrayList<>();
+            for (String field : oldFields.keySet()) {
+                if (!newFields.containsKey(field)) {
+                    removed.add(field);
+                }
+            }
+
+            RBatch batch = redissonClient.createBatch(atomicBatch());
+            RMapAsync<String, Object> mapAsync = batch.getMap(key);
+            mapAsync.putAllAsync(changed);
+            if (!removed.isEmpty()) {
+                mapAsync.fastRemoveAsync(removed.toArray(new String[0]));
+            }
+            applyExpiry(mapAsync, next);
+            batch.execute();
+            return next;
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public ConversationContext delete(String contextId) {
+        ConversationContext removed = load(contextId);
+        if (removed == null) {
+            return null;
+        }
+        RBatch batch = redissonClient.createBatch(atomicBatch());
+        batch.getMap(CONTEXT_KEY_PREFIX + contextId).deleteAsync();
+        if (removed.getUserId() != null) {
+            batch.getSet(USER_CONTEXTS_KEY_PREFIX + removed.getUserId()).removeAsync(contextId);
+        }
+        batch.execute();
+        return removed;
+    }
+
+    @Override
+    public List<String> listContextIds(String userId) {
+        Set<Object> ids = redissonClient.getSet(USER_CONTEXTS_KEY_PREFIX + userId).readAll();
+        return ids.stream().map(String::valueOf).toList();
+    }
+
+    private BatchOptions atomicBatch() {
+        return BatchOptions.defaults().executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC);
+    }
+
+    private void applyExpiry(RMapAsync<String, Object> mapAsync, ConversationContext context) {
+        if (context.getExpiresAt() != null) {
+            Duration ttl = Duration.between(LocalDateTime.now(), context.getExpiresAt());
+            mapAsync.expireAsync(ttl.isNegative() ? Duration.ofSeconds(1) : ttl);
+        }
+    }
+
+    /**
+     * 上下文基本信息，数据部分单独按字段存储
+     */
+    private ConversationContext header(ConversationContext context) {
+        return context.toBuilder()
+                .data(new HashMap<>())
+                .variables(new HashMap<>())
+                .metadata(new HashMap<>())
+                .build();
+    }
+
+    private Map<String, Object> toFields(ConversationContext context) {
+        Map<String, Object> fields = new HashMap<>();
+        context.getData().forEach((k, v) -> fields.put(DATA_PREFIX + k, v));
+        context.getVariables().forEach((k, v) -> fields.put(VARIABLE_PREFIX + k, v));
+        context.getMetadata().forEach((k, v) -> fields.put(METADATA_PREFIX + k, v));
+        return fields;
+    }
+
+    private ConversationContext fromFields(Map<String, Object> fields) {
+        Object header = fields.get(HEADER_FIELD);
+        if (!(header instanceof ConversationContext)) {
+            if (header != null) {
+                log.warn("Unexpected context header type: {}", header.getClass().getName());
+            }
+            return null;
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        Map<String, String> variables = new HashMap<>();
+        Map<String, Object> metadata = new HashMap<>();
+        fields.forEach((field, value) -> {
+            if (field.startsWith(DATA_PREFIX)) {
+                data.put(field.substring(DATA_PREFIX.length()), value);
+            } else if (field.startsWith(VARIABLE_PREFIX)) {
+                variables.put(field.substring(VARIABLE_PREFIX.length()), String.valueOf(value));
+            } else if (field.startsWith(METADATA_PREFIX)) {
+                metadata.put(field.substring(METADATA_PREFIX.length()), value);
+            }
+        });
+
+        return ((ConversationContext) header).toBuilder()
+                .data(Collections.unmodifiableMap(data))
+                .variables(Collections.unmodifiableMap(variables))
+                .metadata(Collections.unmodifiableMap(metadata))
+                .build();
+    }
+}
@@ -1,12 +1,26 @@
 package com.alibaba.cloud.ai.copilot.controller;
 
+import cn.dev33.satoken.stp.StpUtil;
+import com.alibaba.cloud.ai.copilot.dto.ChatHistoryPage;
 import com.alibaba.cloud.ai.copilot.model.ChatMessage;
+import com.alibaba.cloud.ai.copilot.model.ConversationBranch;
+import com.alibaba.cloud.ai.copilot.service.ChatMemoryMigrationService;
+import com.alibaba.cloud.ai.copilot.service.ContentCompressionService;
+import com.alibaba.cloud.ai.copilot.service.ConversationBranchService;
 import com.alibaba.cloud.ai.copilot.service.ConversationService;
 import com.alibaba.cloud.ai.copilot.service.SimpleChatMemoryService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,14 +33,28 @@ import java.util.Map;
 @RequestMapping("/api/chat/memory")
 public class ChatMemoryController {
 
+    private static final int STREAM_FLUSH_INTERVAL = 50;
+
     private final ConversationService conversationService;
     private final SimpleChatMemoryService chatMemoryService;
+    private final ObjectMapper objectMapper;
+    private final ContentCompressionService compressionService;
+    private final ChatMemoryMigrationService migrationService;
+    private final ConversationBranchService branchService;
 
     public ChatMemoryController(
             @Qualifier("chatMemoryConversationService") ConversationService conversationService,
-            SimpleChatMemoryService chatMemoryService) {
+            SimpleChatMemoryService chatMemoryService,
+            ObjectMapper objectMapper,
+            ContentCompressionService compressionService,
+            ChatMemoryMigrationService migrationService,
+            ConversationBranchService branchService) {
         this.conversationService = conversationService;
         this.chatMemoryService = chatMemoryService;
+        this.objectMapper = objectMapper;
+        this.compressionService = compressionService;
+        this.migrationService = migrationService;
+        this.branchService = branchService;
     }
 
     /**
@@ -62,6 +90,53 @@ public class ChatMemoryController {
         return chatMemoryService.getConversationHistory(userId, limit);
     }
 
+    /**
+     * 游标分页获取用户的会话历史
+     * before/after 为消息ID，均为空时返回最近一页；includeContent=false 时省略消息内容
+     */
+    @GetMapping("/users/{userId}/messages/page")
+    public ChatHistoryPage getConversationHistoryPage(
+            @PathVariable String userId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean includeContent) {
+        return chatMemoryService.getConversationHistoryPage(userId, before, after, limit, includeContent);
+    }
+
+    /**
+     * 以流式 JSON 数组返回用户的完整会话历史，消息逐条写出不在内存中聚合
+     */
+    @GetMapping("/users/{userId}/messages/stream")
+    public ResponseEntity<StreamingResponseBody> streamConversationHistory(
+            @PathVariable String userId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "true") boolean includeContent) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                int[] written = {0};
+                chatMemoryService.streamConversationHistory(userId, after, includeContent, message -> {
+                    try {
+                        generator.writeObject(message);
+                        if (++written[0] % STREAM_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                log.warn("Conversation history stream aborted for user {}: {}", userId, e.getMessage());
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     /**
      * 删除会话
      */
@@ -106,4 +181,63 @@ public class ChatMemoryController {
         String conversationId = conversationService.getOrCreateConversationId(userId);
         return Map.of("conversationId", conversationId);
     }
+
+    /**
+     * 从当前登录用户会话的指定位置分叉出新分支
+     * 请求体可包含 forkIndex（保留的消息条数，缺省为全部）与 title
+     */
+    @PostMapping("/conversations/{conversationId}/branches")
+    public ConversationBranch forkConversation(@PathVariable String conversationId,
+                                               @RequestBody(required = false) Map<String, Object> request) {
+        Integer forkIndex = null;
+        String title = null;
+        if (request != null) {
+            if (request.get("forkIndex") instanceof Number number) {
+                forkIndex = number.intValue();
+            }
+            if (request.get("title") != null) {
+                title = request.get("title").toString();
+            }
+        }
+        return branchService.fork(StpUtil.getLoginIdAsString(), conversationId, forkIndex, title);
+    }
+
+    /**
+     * 列出当前登录用户会话所在分支树的全部分支
+     */
+    @GetMapping("/conversations/{conversationId}/branches")
+    public List<ConversationBranch> listBranches(@PathVariable String conversationId) {
+        return branchService.listBranches(StpUtil.getLoginIdAsString(), conversationId);
+    }
+
+    /**
+     * 切换当前登录用户的当前会话到指定分支
+     */
+    @PostMapping("/branches/{branchId}/switch")
+    public Map<String, String> switchBranch(@PathVariable String branchId) {
+        branchService.switchBranch(StpUtil.getLoginIdAsString(), branchId);
+        return Map.of("status", "switched", "conversationId", branchId);
+    }
+
+    /**
+     * 获取消息压缩统计信息
+     */
+    @GetMapping("/compression/stats")
+    public Map<String, Object> getCompressionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(compressionService.getStats());
+        stats.put("migrationRunning", migrationService.isRunning());
+        return stats;
+    }
+
+    /**
+     * 启动已有消息的压缩迁移任务
+     */
+    @PostMapping("/compression/migrate")
+    public Map<String, String> migrateToCompressedStorage() {
+        if (migrationService.isRunning()) {
+            return Map.of("status", "already_running");
+        }
+        migrationService.compressExistingMessages();
+        return Map.of("status", "started");
+    }
 }
@@ -1,11 +1,29 @@
 package com.alibaba.cloud.ai.copilot.controller;
 
+import com.alibaba.cloud.ai.copilot.model.WorkspaceSnapshot;
+import com.alibaba.cloud.ai.copilot.model.WorkspaceLifecycleReport;
 import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceLifecycleService;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,6 +38,12 @@ public class FileSystemController {
     @Autowired
     private FileSystemService fileSystemService;
 
+    @Autowired
+    private WorkspaceSnapshotService snapshotService;
+
+    @Autowired
+    private WorkspaceLifecycleService lifecycleService;
+
     /**
      * 获取工作空间中的文件列表
      */
@@ -72,6 +96,52 @@ public class FileSystemController {
         }
     }
 
+    /**
+     * 以原始字节流读取工作空间中的文件，不解码为字符串
+     * 返回 {@link Resource}，由框架按 ETag / Last-Modified 处理 If-None-Match 与 If-Modified-Since（返回 304），
+     * 并处理 Range 请求（返回 206）。ETag 由文件大小和修改时间组成，不读取文件内容；
+     * 出错时只返回状态码，不写响应体
+     */
+    @GetMapping("/workspace/{workspacePath:.*}/raw/{filePath:.*}")
+    public ResponseEntity<Resource> downloadWorkspaceFile(
+            @PathVariable String workspacePath,
+            @PathVariable String filePath) {
+        try {
+            // 解码路径参数
+            String decodedWorkspacePath = workspacePath.replace("|", "/");
+            String decodedFilePath = filePath.replace("|", "/");
+
+            Path file = fileSystemService.resolveFile(decodedWorkspacePath, decodedFilePath);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!attrs.isRegularFile()) {
+                return ResponseEntity.notFound().build();
+            }
+
+            long lastModified = attrs.lastModifiedTime().toMillis();
+            String etag = "\"" + Long.toHexString(attrs.size()) + "-" + Long.toHexString(lastModified) + "\"";
+            MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+            return ResponseEntity.ok()
+                .contentType(mediaType)
+                .eTag(etag)
+                .lastModified(lastModified)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .body(new FileSystemResource(file));
+        } catch (SecurityException e) {
+            log.warn("Rejected workspace file download: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        } catch (Exception e) {
+            log.error("Error reading workspace file: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * 保存文件到工作空间
      */
@@ -132,6 +202,33 @@ public class FileSystemController {
         }
     }
 
+    /**
+     * 获取工作空间中指定版本之后变更的文件
+     */
+    @GetMapping("/workspace/{workspacePath:.*}/changes")
+    public ResponseEntity<?> getWorkspaceChanges(
+            @PathVariable String workspacePath,
+            @RequestParam(defaultValue = "0") long since) {
+        try {
+            // 解码路径参数
+            String decodedPath = workspacePath.replace("|", "/");
+            FileSystemService.WorkspaceChanges changes = fileSystemService.getChangesSince(decodedPath, since);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "version", changes.getCurrentVersion(),
+                "resync", changes.isResync(),
+                "changes", changes.getChanges()
+            ));
+        } catch (Exception e) {
+            log.error("Error getting workspace changes: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
     /**
      * 批量保存文件到工作空间
      */
@@ -159,6 +256,167 @@ public class FileSystemController {
         }
     }
 
+    /**
+     * 获取工作空间清单（路径 → 内容哈希）
+     */
+    @GetMapping("/workspace/{workspacePath:.*}/manifest")
+    public ResponseEntity<?> getWorkspaceManifest(@PathVariable String workspacePath) {
+        try {
+            // 解码路径参数
+            String decodedPath = workspacePath.replace("|", "/");
+            Map<String, String> manifest = fileSystemService.getManifest(decodedPath);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "manifest", manifest,
+                "fileCount", manifest.size()
+            ));
+        } catch (Exception e) {
+            log.error("Error getting workspace manifest: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 获取工作空间的快照记录
+     */
+    @GetMapping("/workspace/{workspacePath:.*}/snapshots")
+    public ResponseEntity<?> listWorkspaceSnapshots(@PathVariable String workspacePath) {
+        try {
+            // 解码路径参数
+            String decodedPath = workspacePath.replace("|", "/");
+            List<WorkspaceSnapshot> snapshots = snapshotService.listSnapshots(decodedPath);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "snapshots", snapshots
+            ));
+        } catch (Exception e) {
+            log.error("Error listing workspace snapshots: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 将工作空间回滚到指定快照之前的状态
+     */
+    @PostMapping("/workspace/{workspacePath:.*}/snapshots/{snapshotId}/rollback")
+    public ResponseEntity<?> rollbackWorkspace(
+            @PathVariable String workspacePath,
+            @PathVariable long snapshotId) {
+        try {
+            // 解码路径参数
+            String decodedPath = workspacePath.replace("|", "/");
+            int restored = snapshotService.rollback(decodedPath, snapshotId);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Workspace rolled back successfully",
+                "fileCount", restored
+            ));
+        } catch (Exception e) {
+            log.error("Error rolling back workspace: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 以 ZIP 格式流式导出整个工作空间
+     * 出错时只返回状态码，不写响应体
+     */
+    @GetMapping("/workspace/{workspacePath:.*}/archive")
+    public ResponseEntity<StreamingResponseBody> exportWorkspaceArchive(@PathVariable String workspacePath) {
+        try {
+            // 解码路径参数
+            String decodedPath = workspacePath.replace("|", "/");
+            String fileName = Path.of(decodedPath).getFileName() + ".zip";
+
+            StreamingResponseBody body = outputStream -> fileSystemService.exportArchive(decodedPath, outputStream);
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+        } catch (Exception e) {
+            log.error("Error exporting workspace archive: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 上传 ZIP 并解压到工作空间
+     */
+    @PostMapping("/workspace/{workspacePath:.*}/archive")
+    public ResponseEntity<?> importWorkspaceArchive(
+            @PathVariable String workspacePath,
+            @RequestParam("file") MultipartFile file) {
+        try {
+            // 解码路径参数
+            String decodedPath = workspacePath.replace("|", "/");
+
+            int fileCount;
+            try (InputStream inputStream = file.getInputStream()) {
+                fileCount = fileSystemService.importArchive(decodedPath, inputStream);
+            }
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Archive imported successfully",
+                "fileCount", fileCount
+            ));
+        } catch (Exception e) {
+            log.error("Error importing workspace archive: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "error", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * 获取最近一次工作空间回收报告
+     */
+    @GetMapping("/lifecycle/report")
+    public ResponseEntity<?> getLifecycleReport() {
+        WorkspaceLifecycleReport report = lifecycleService.getLastReport();
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "running", lifecycleService.isRunning(),
+            "report", report != null ? report : Map.of()
+        ));
+    }
+
+    /**
+     * 立即在后台执行一次工作空间回收
+     */
+    @PostMapping("/lifecycle/run")
+    public ResponseEntity<?> runLifecycle() {
+        if (!lifecycleService.runAsync()) {
+            return ResponseEntity.ok(Map.of("success", true, "status", "already_running"));
+        }
+        return ResponseEntity.ok(Map.of("success", true, "status", "started"));
+    }
+
+    /**
+     * 获取用户的工作空间磁盘占用
+     */
+    @GetMapping("/users/{userId}/usage")
+    public ResponseEntity<?> getUserUsage(@PathVariable String userId) {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "userId", userId,
+            "bytes", lifecycleService.getUserUsage(userId)
+        ));
+    }
+
     /**
      * 检查文件系统功能是否启用
      */
@@ -0,0 +1,168 @@
+package com.alibaba.cloud.ai.copilot.controller;
+
+import com.alibaba.cloud.ai.copilot.service.ToolOrchestrationService;
+import com.alibaba.cloud.ai.copilot.service.impl.SseTaskEventListener;
+import com.alibaba.cloud.ai.copilot.service.impl.ToolResultCache;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskExecutionParams;
+import cn.dev33.satoken.stp.StpUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 工具编排控制器
+ * 查看已注册的工具、按请求筛选工具的统计和工具结果缓存的统计，
+ * 以及连续任务的提交、进度订阅和取消（只能操作当前登录用户自己的任务）
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/tools")
+public class ToolController {
+
+    private final ToolOrchestrationService toolOrchestrationService;
+    private final ToolResultCache toolResultCache;
+    private final ObjectProvider<ContinuousTaskTool> continuousTaskTool;
+    private final ObjectProvider<SseTaskEventListener> taskEventListener;
+
+    @Value("${copilot.task.events.max-timeout-ms:1800000}")
+    private long maxEventTimeoutMs;
+
+    public ToolController(ToolOrchestrationService toolOrchestrationService,
+                          ToolResultCache toolResultCache,
+                          ObjectProvider<ContinuousTaskTool> continuousTaskTool,
+                          ObjectProvider<SseTaskEventListener> taskEventListener) {
+        this.toolOrchestrationService = toolOrchestrationService;
+        this.toolResultCache = toolResultCache;
+        this.continuousTaskTool = continuousTaskTool;
+        this.taskEventListener = taskEventListener;
+    }
+
+    /**
+     * 获取已注册的工具名称
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listTools() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "data", toolOrchestrationService.getAllToolNames(),
+            "callbacks", toolOrchestrationService.getToolSchemas().keySet()
+        ));
+    }
+
+    /**
+     * 获取工具筛选统计（跳过的工具数、节省的 token 数）
+     */
+    @GetMapping("/selection/stats")
+    public ResponseEntity<Map<String, Object>> getSelectionStats() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "data", toolOrchestrationService.getToolSelectionStats()
+        ));
+    }
+
+    /**
+     * 获取工具结果缓存统计（命中、合并、未命中、失效次数）
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "data", toolResultCache.getStats()
+        ));
+    }
+
+    /**
+     * 获取任务引擎统计（工作线程、排队调用、缓存任务数、拒绝和取消次数）
+     */
+    @GetMapping("/tasks/stats")
+    public ResponseEntity<Map<String, Object>> getTaskStats() {
+        ContinuousTaskTool tool = continuousTaskTool.getIfAvailable();
+        if (tool == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "data", tool.getEngineStats()
+        ));
+    }
+
+    /**
+     * 提交任务调用（规划、执行、暂停、恢复等）
+     * 任务所有者始终取当前登录用户，请求体中的 ownerId 被忽略；已存在的任务只有其所有者可以继续操作
+     */
+    @PostMapping("/tasks")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> submitTask(@RequestBody TaskExecutionParams params) {
+        ContinuousTaskTool tool = continuousTaskTool.getIfAvailable();
+        if (tool == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        params.setOwnerId(StpUtil.getLoginIdAsString());
+        if (params.getTaskId() != null && tool.getTaskState(params.getTaskId()) != null) {
+            checkOwner(tool, params.getTaskId());
+        }
+        return tool.execute(params).thenApply(result -> {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("success", result.isSuccess());
+            body.put("taskId", params.getTaskId());
+            body.put("message", result.isSuccess() ? result.getLlmContent() : result.getErrorMessage());
+            return ResponseEntity.ok(body);
+        });
+    }
+
+    /**
+     * 订阅任务进度事件，任务结束后连接自动关闭
+     * @param timeoutMs 连接超时时间，不超过 copilot.task.events.max-timeout-ms，小于等于 0 时取该上限
+     */
+    @GetMapping(value = "/tasks/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeTaskEvents(@PathVariable String taskId,
+                                                          @RequestParam(defaultValue = "600000") long timeoutMs) {
+        ContinuousTaskTool tool = continuousTaskTool.getIfAvailable();
+        SseTaskEventListener listener = taskEventListener.getIfAvailable();
+        if (tool == null || listener == null || tool.getTaskState(taskId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        checkOwner(tool, taskId);
+        long timeout = timeoutMs > 0 ? Math.min(timeoutMs, maxEventTimeoutMs) : maxEventTimeoutMs;
+        return ResponseEntity.ok(listener.subscribe(taskId, timeout));
+    }
+
+    /**
+     * 取消任务，中断正在执行的步骤并移出调度队列
+     */
+    @PostMapping("/tasks/{taskId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelTask(@PathVariable String taskId) {
+        ContinuousTaskTool tool = continuousTaskTool.getIfAvailable();
+        if (tool == null || tool.getTaskState(taskId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        checkOwner(tool, taskId);
+        if (!tool.cancel(taskId)) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("Task {} cancelled via API", taskId);
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
+    private void checkOwner(ContinuousTaskTool tool, String taskId) {
+        String userId = StpUtil.getLoginIdAsString();
+        if (!tool.isOwnedBy(taskId, userId)) {
+            log.warn("User {} attempted to access task {} owned by another user", userId, taskId);
+            throw new SecurityException("No permission to access task: " + taskId);
+        }
+    }
+}
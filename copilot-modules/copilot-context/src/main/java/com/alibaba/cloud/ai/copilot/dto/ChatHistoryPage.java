@@ -0,0 +1,35 @@
+package com.alibaba.cloud.ai.copilot.dto;
+
+import com.alibaba.cloud.ai.copilot.model.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 会话历史分页响应 DTO
+ * 基于消息ID的游标分页，消息按时间升序排列
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatHistoryPage {
+
+    private List<ChatMessage> messages;
+
+    /**
+     * 获取更早消息的游标（作为 before 参数传入）
+     */
+    private Long beforeCursor;
+
+    /**
+     * 获取更新消息的游标（作为 after 参数传入）
+     */
+    private Long afterCursor;
+
+    /**
+     * 翻页方向上是否还有更多消息
+     */
+    private boolean hasMore;
+}
@@ -21,6 +21,13 @@ public class GlobalExceptionHandler {
         return R.fail(HttpStatus.BAD_REQUEST.value(), e.getMessage());
     }
 
+    @ExceptionHandler(SecurityException.class)
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    public R<Void> handleSecurityException(SecurityException e) {
+        log.warn("Access denied: {}", e.getMessage());
+        return R.fail(HttpStatus.FORBIDDEN.value(), e.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public R<Void> handleRuntimeException(RuntimeException e) {
         log.error("Runtime exception", e);
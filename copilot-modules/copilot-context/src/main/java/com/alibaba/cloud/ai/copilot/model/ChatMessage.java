@@ -1,10 +1,16 @@
 package com.alibaba.cloud.ai.copilot.model;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.function.UnaryOperator;
 
 /**
  * 聊天消息数据类
@@ -34,6 +40,31 @@ public class ChatMessage {
      * 会话ID
      */
     private String conversationId;
+
+    /**
+     * 消息ID，用于游标分页
+     */
+    private Long id;
+
+    /**
+     * 消息内容长度（字符数），仅在省略内容的投影查询中返回
+     */
+    private Integer contentLength;
+
+    /**
+     * 尚未解码的存储内容，首次读取内容时才解码
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient String storedContent;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient UnaryOperator<String> contentDecoder;
     
     /**
      * 构造函数 - 不包含会话ID
@@ -43,4 +74,32 @@ public class ChatMessage {
         this.content = content;
         this.createdAt = createdAt;
     }
+
+    /**
+     * 构造函数 - 内容延迟解码
+     * @param storedContent 存储的（可能已压缩的）内容
+     * @param contentDecoder 解码函数，在首次调用 {@link #getContent()} 时执行
+     */
+    public ChatMessage(String role, String storedContent, UnaryOperator<String> contentDecoder,
+                       LocalDateTime createdAt) {
+        this.role = role;
+        this.storedContent = storedContent;
+        this.contentDecoder = contentDecoder;
+        this.createdAt = createdAt;
+    }
+
+    public String getContent() {
+        if (contentDecoder != null) {
+            content = contentDecoder.apply(storedContent);
+            contentDecoder = null;
+            storedContent = null;
+        }
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        this.contentDecoder = null;
+        this.storedContent = null;
+    }
 }
@@ -0,0 +1,54 @@
+package com.alibaba.cloud.ai.copilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 会话分支数据类
+ * 分支通过指针引用父会话的消息前缀，自身只存储分叉之后的新消息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationBranch {
+
+    /**
+     * 分支会话ID
+     */
+    private String branchId;
+
+    /**
+     * 父会话ID，根会话为空
+     */
+    private String parentId;
+
+    /**
+     * 根会话ID
+     */
+    private String rootId;
+
+    /**
+     * 分叉位置：共享父会话完整历史中的前 forkIndex 条消息
+     */
+    private int forkIndex;
+
+    /**
+     * 分支标题
+     */
+    private String title;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 是否为根会话
+     */
+    public boolean isRoot() {
+        return parentId == null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.alibaba.cloud.ai.copilot.model;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工作目录生命周期任务报告
+ */
+@Data
+public class WorkspaceLifecycleReport {
+
+    /**
+     * 开始时间（毫秒）
+     */
+    private long startedAt;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long durationMs;
+
+    /**
+     * 扫描的工作目录数
+     */
+    private int scannedWorkspaces;
+
+    /**
+     * 因会话过期被回收的工作目录数
+     */
+    private int expiredWorkspaces;
+
+    /**
+     * 因超出配额被回收的工作目录数
+     */
+    private int quotaEvictedWorkspaces;
+
+    /**
+     * 被回收工作目录的逻辑大小
+     */
+    private long evictedBytes;
+
+    /**
+     * 实际释放的磁盘空间（独占文件 + 无引用的 blob）
+     */
+    private long reclaimedBytes;
+
+    /**
+     * 回收后各用户的磁盘占用
+     */
+    private Map<String, Long> userUsage = new LinkedHashMap<>();
+}
@@ -0,0 +1,40 @@
+package com.alibaba.cloud.ai.copilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 工作目录快照记录
+ * 每次工具修改文件前记录该文件修改前的内容哈希，回滚时按记录逆序恢复
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkspaceSnapshot {
+
+    /**
+     * 快照序号，在工作目录内递增
+     */
+    private long id;
+
+    /**
+     * 创建时间（毫秒）
+     */
+    private long timestamp;
+
+    /**
+     * 被修改文件的相对路径
+     */
+    private String filePath;
+
+    /**
+     * 修改前的内容哈希，文件原本不存在时为空
+     */
+    private String hash;
+
+    /**
+     * 描述（触发修改的工具等）
+     */
+    private String label;
+}
@@ -0,0 +1,24 @@
+package com.alibaba.cloud.ai.copilot.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 聊天记忆迁移服务接口
+ * 负责将已有的未压缩消息转换为压缩存储
+ */
+public interface ChatMemoryMigrationService {
+
+    /**
+     * 异步压缩已有的聊天记录（chat_messages 表与 Spring AI 记忆仓库）
+     * 同一时间只允许一个迁移任务运行
+     * @return 迁移结果统计
+     */
+    CompletableFuture<Map<String, Object>> compressExistingMessages();
+
+    /**
+     * 迁移任务是否正在运行
+     * @return 是否运行中
+     */
+    boolean isRunning();
+}
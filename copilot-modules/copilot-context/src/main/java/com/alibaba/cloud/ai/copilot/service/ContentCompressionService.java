@@ -0,0 +1,39 @@
+package com.alibaba.cloud.ai.copilot.service;
+
+import java.util.Map;
+
+/**
+ * 消息内容压缩服务接口
+ * 为持久化的聊天内容提供透明压缩，未压缩的历史数据可原样读取
+ */
+public interface ContentCompressionService {
+
+    /**
+     * 压缩内容
+     * 内容过短或压缩无收益时原样返回
+     * @param content 原始内容
+     * @return 压缩编码后的内容
+     */
+    String compress(String content);
+
+    /**
+     * 解压内容
+     * 未压缩的内容原样返回
+     * @param stored 存储中的内容
+     * @return 原始内容
+     */
+    String decompress(String stored);
+
+    /**
+     * 判断内容是否为压缩格式
+     * @param stored 存储中的内容
+     * @return 是否已压缩
+     */
+    boolean isCompressed(String stored);
+
+    /**
+     * 获取压缩统计信息（压缩率、解压耗时等）
+     * @return 统计信息
+     */
+    Map<String, Object> getStats();
+}
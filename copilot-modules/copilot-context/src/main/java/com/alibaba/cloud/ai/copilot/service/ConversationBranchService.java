@@ -0,0 +1,40 @@
+package com.alibaba.cloud.ai.copilot.service;
+
+import com.alibaba.cloud.ai.copilot.model.ConversationBranch;
+
+import java.util.List;
+
+/**
+ * 会话分支服务接口
+ * 从已有会话的任意位置分叉出新会话，分支共享父会话的消息前缀
+ */
+public interface ConversationBranchService {
+
+    /**
+     * 从指定会话分叉出新分支，并设置为用户的当前会话
+     * @param userId 用户ID
+     * @param conversationId 被分叉的会话ID
+     * @param forkIndex 分叉位置（保留前 forkIndex 条消息），为空时从末尾分叉
+     * @param title 分支标题
+     * @return 新分支
+     * @throws SecurityException 会话不属于该用户
+     */
+    ConversationBranch fork(String userId, String conversationId, Integer forkIndex, String title);
+
+    /**
+     * 列出会话所在分支树中的全部分支（包含根会话）
+     * @param userId 用户ID
+     * @param conversationId 树中任意会话ID
+     * @return 分支列表，按层级顺序排列
+     * @throws SecurityException 会话不属于该用户
+     */
+    List<ConversationBranch> listBranches(String userId, String conversationId);
+
+    /**
+     * 切换用户的当前会话到指定分支
+     * @param userId 用户ID
+     * @param branchId 分支会话ID
+     * @throws SecurityException 分支不属于该用户
+     */
+    void switchBranch(String userId, String branchId);
+}
@@ -22,6 +22,13 @@ public interface ConversationService {
      */
     String createNewConversation(String userId);
     
+    /**
+     * 将指定会话设置为用户的当前会话
+     * @param userId 用户ID
+     * @param conversationId 会话ID
+     */
+    void switchConversation(String userId, String conversationId);
+    
     /**
      * 获取用户的所有会话ID
      * @param userId 用户ID
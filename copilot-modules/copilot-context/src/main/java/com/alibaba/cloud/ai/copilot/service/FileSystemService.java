@@ -1,5 +1,8 @@
 package com.alibaba.cloud.ai.copilot.service;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -29,11 +32,38 @@ public interface FileSystemService {
      */
     String readFile(String workspacePath, String filePath);
 
+    /**
+     * 解析工作目录内文件的实际路径（做越界检查，不读取内容）
+     */
+    Path resolveFile(String workspacePath, String filePath);
+
     /**
      * 获取工作目录下的所有文件
      */
     Map<String, String> getAllFiles(String workspacePath);
 
+    /**
+     * 将工作目录以 ZIP 格式流式写出，边读文件边写入条目
+     */
+    void exportArchive(String workspacePath, OutputStream outputStream);
+
+    /**
+     * 从 ZIP 流导入文件到工作目录，条目直接解压到磁盘
+     * @return 导入的文件数
+     */
+    int importArchive(String workspacePath, InputStream inputStream);
+
+    /**
+     * 获取工作目录清单（相对路径 → 内容哈希）
+     */
+    Map<String, String> getManifest(String workspacePath);
+
+    /**
+     * 按清单克隆工作目录到新会话，相同内容以硬链接共享存储
+     * @return 新工作目录路径
+     */
+    String cloneWorkspace(String sourceWorkspacePath, String conversationId, String userId);
+
     /**
      * 删除工作目录
      */
@@ -44,6 +74,17 @@ public interface FileSystemService {
      */
     WorkspaceInfo getWorkspaceInfo(String workspacePath);
 
+    /**
+     * 获取单个文件的索引信息（大小、修改时间、内容哈希），文件不存在时返回 null
+     */
+    FileEntry getFileEntry(String workspacePath, String filePath);
+
+    /**
+     * 获取指定版本之后发生变更的文件（包含已删除的文件）
+     * 游标过旧、部分删除记录已被清除时返回全部现存文件，并标记需要全量同步
+     */
+    WorkspaceChanges getChangesSince(String workspacePath, long sinceVersion);
+
     /**
      * 检查文件系统功能是否启用
      */
@@ -57,12 +98,18 @@ public interface FileSystemService {
         private final List<String> files;
         private final long totalSize;
         private final long createTime;
+        private final long version;
 
         public WorkspaceInfo(String path, List<String> files, long totalSize, long createTime) {
+            this(path, files, totalSize, createTime, 0);
+        }
+
+        public WorkspaceInfo(String path, List<String> files, long totalSize, long createTime, long version) {
             this.path = path;
             this.files = files;
             this.totalSize = totalSize;
             this.createTime = createTime;
+            this.version = version;
         }
 
         public String getPath() {
@@ -80,5 +127,94 @@ public interface FileSystemService {
         public long getCreateTime() {
             return createTime;
         }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * 文件索引信息
+     */
+    class FileEntry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+        private final long version;
+        private final boolean deleted;
+
+        public FileEntry(String path, long size, long lastModified, String hash, long version, boolean deleted) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.version = version;
+            this.deleted = deleted;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public boolean isDeleted() {
+            return deleted;
+        }
+    }
+
+    /**
+     * 工作目录增量变更
+     */
+    class WorkspaceChanges {
+        private final long sinceVersion;
+        private final long currentVersion;
+        private final List<FileEntry> changes;
+        private final boolean resync;
+
+        public WorkspaceChanges(long sinceVersion, long currentVersion, List<FileEntry> changes) {
+            this(sinceVersion, currentVersion, changes, false);
+        }
+
+        public WorkspaceChanges(long sinceVersion, long currentVersion, List<FileEntry> changes, boolean resync) {
+            this.sinceVersion = sinceVersion;
+            this.currentVersion = currentVersion;
+            this.changes = changes;
+            this.resync = resync;
+        }
+
+        public long getSinceVersion() {
+            return sinceVersion;
+        }
+
+        public long getCurrentVersion() {
+            return currentVersion;
+        }
+
+        public List<FileEntry> getChanges() {
+            return changes;
+        }
+
+        /**
+         * 为 true 时 changes 是全部现存文件，客户端应以此替换本地文件列表
+         */
+        public boolean isResync() {
+            return resync;
+        }
     }
 }
\ No newline at end of file
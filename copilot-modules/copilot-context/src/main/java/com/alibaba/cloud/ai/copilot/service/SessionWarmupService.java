@@ -0,0 +1,21 @@
+package com.alibaba.cloud.ai.copilot.service;
+
+/**
+ * 会话预热服务接口
+ * 在用户登录或续期时提前加载会话窗口、模型实例和工作空间，降低首次对话延迟
+ */
+public interface SessionWarmupService {
+
+    /**
+     * 预热用户会话资源
+     * @param userId 用户ID
+     */
+    void warmUp(String userId);
+
+    /**
+     * 记录用户最近使用的模型，作为下次预热的默认模型
+     * @param userId 用户ID
+     * @param model 模型键
+     */
+    void rememberModel(String userId, String model);
+}
@@ -1,8 +1,10 @@
 package com.alibaba.cloud.ai.copilot.service;
 
+import com.alibaba.cloud.ai.copilot.dto.ChatHistoryPage;
 import com.alibaba.cloud.ai.copilot.model.ChatMessage;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 简单聊天记忆服务接口
@@ -39,13 +41,36 @@ public interface SimpleChatMemoryService {
     List<ChatMessage> getConversationHistory(String userId);
     
     /**
-     * 获取用户的对话历史（限制数量）
+     * 获取用户最近的对话历史（限制数量）
      * @param userId 用户ID
      * @param limit 限制数量
-     * @return 对话历史列表
+     * @return 对话历史列表，按时间升序
      */
     List<ChatMessage> getConversationHistory(String userId, int limit);
     
+    /**
+     * 基于消息ID游标分页获取对话历史
+     * before 与 after 均为空时返回最近一页
+     * @param userId 用户ID
+     * @param beforeId 仅返回ID小于该值的消息
+     * @param afterId 仅返回ID大于该值的消息
+     * @param limit 每页数量
+     * @param includeContent 是否返回消息内容，为 false 时仅返回内容长度
+     * @return 分页结果，消息按时间升序
+     */
+    ChatHistoryPage getConversationHistoryPage(String userId, Long beforeId, Long afterId,
+                                               int limit, boolean includeContent);
+    
+    /**
+     * 逐条流式读取对话历史，不在内存中聚合结果
+     * @param userId 用户ID
+     * @param afterId 仅返回ID大于该值的消息，可为空
+     * @param includeContent 是否返回消息内容
+     * @param consumer 消息处理器，按时间升序回调
+     */
+    void streamConversationHistory(String userId, Long afterId, boolean includeContent,
+                                   Consumer<ChatMessage> consumer);
+    
     /**
      * 清除用户的对话历史
      * @param userId 用户ID
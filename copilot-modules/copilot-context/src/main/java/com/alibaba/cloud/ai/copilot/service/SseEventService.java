@@ -75,6 +75,11 @@ public interface SseEventService {
      */
     void sendError(SseEmitter emitter, String messageId, String operationId, String errorMessage);
 
+    /**
+     * 发送任务事件（状态变化、步骤完成、任务结束）
+     */
+    void sendTaskEvent(SseEmitter emitter, String taskId, String type, Map<String, Object> payload);
+
     /**
      * 发送完成事件
      */
@@ -4,6 +4,7 @@ import com.alibaba.cloud.ai.copilot.tools.BaseTool;
 import org.springframework.ai.tool.ToolCallback;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 工具编排服务接口
@@ -18,6 +19,29 @@ public interface ToolOrchestrationService {
      */
     List<ToolCallback> getAllToolCallbacks();
 
+    /**
+     * 按当前请求选出相关的工具回调，只把这些工具的 Schema 发送给模型
+     *
+     * @param userMessage 当前用户消息
+     * @param conversationContext 最近的对话内容，可为空
+     * @return 相关的ToolCallback列表
+     */
+    List<ToolCallback> selectToolCallbacks(String userMessage, String conversationContext);
+
+    /**
+     * 获取工具筛选的累计统计（筛选次数、跳过的工具数、节省的 token 数）
+     *
+     * @return 统计信息
+     */
+    Map<String, Object> getToolSelectionStats();
+
+    /**
+     * 获取所有工具回调的输入 JSON Schema
+     *
+     * @return 回调名称到 JSON Schema 的映射
+     */
+    Map<String, String> getToolSchemas();
+
     /**
      * 根据名称获取工具
      *
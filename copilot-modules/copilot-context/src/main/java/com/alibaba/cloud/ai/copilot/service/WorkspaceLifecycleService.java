@@ -0,0 +1,40 @@
+package com.alibaba.cloud.ai.copilot.service;
+
+import com.alibaba.cloud.ai.copilot.model.WorkspaceLifecycleReport;
+
+/**
+ * 工作目录生命周期服务接口
+ * 统计用户磁盘占用，回收过期会话与超出配额的工作目录
+ */
+public interface WorkspaceLifecycleService {
+
+    /**
+     * 执行一次回收，已有任务在执行时直接返回上一次的报告
+     * @return 回收报告
+     */
+    WorkspaceLifecycleReport runOnce();
+
+    /**
+     * 在生命周期专用线程中执行一次回收
+     * @return 已有任务在执行时返回 false
+     */
+    boolean runAsync();
+
+    /**
+     * 获取最近一次回收报告
+     * @return 回收报告，尚未执行时为 null
+     */
+    WorkspaceLifecycleReport getLastReport();
+
+    /**
+     * 获取用户的磁盘占用（最近一次扫描的结果）
+     * @param userId 用户ID（登录ID）
+     * @return 字节数
+     */
+    long getUserUsage(String userId);
+
+    /**
+     * 回收任务是否正在执行
+     */
+    boolean isRunning();
+}
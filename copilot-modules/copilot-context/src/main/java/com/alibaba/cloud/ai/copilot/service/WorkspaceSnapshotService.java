@@ -0,0 +1,66 @@
+package com.alibaba.cloud.ai.copilot.service;
+
+import com.alibaba.cloud.ai.copilot.model.WorkspaceSnapshot;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 工作目录快照服务接口
+ * 在文件被修改前保存其原始内容（内容寻址，存放在工作目录之外），支持回滚到任意一次修改之前
+ */
+public interface WorkspaceSnapshotService {
+
+    /**
+     * 在文件即将被修改前记录当前内容，只处理被修改的文件
+     * @param file 即将被修改的文件（绝对路径）
+     * @param label 描述
+     * @return 快照序号，文件不在工作目录内时返回 -1
+     */
+    long recordBeforeWrite(Path file, String label);
+
+    /**
+     * 记录调用方已持有的修改前内容，用于批量写入整体成功后再补记快照
+     * @param file 被修改的文件（绝对路径）
+     * @param content 修改前的内容
+     * @param label 描述
+     * @return 快照序号，文件不在工作目录内时返回 -1
+     */
+    long recordContent(Path file, byte[] content, String label);
+
+    /**
+     * 列出工作目录的快照记录
+     * @param workspacePath 工作目录
+     * @return 按序号升序排列的快照
+     */
+    List<WorkspaceSnapshot> listSnapshots(String workspacePath);
+
+    /**
+     * 回滚到指定快照之前的状态，回滚本身也会记录快照，可以再次撤销
+     * @param workspacePath 工作目录
+     * @param snapshotId 快照序号
+     * @return 恢复的文件数
+     * @throws IllegalArgumentException 快照不存在或已被裁剪
+     */
+    int rollback(String workspacePath, long snapshotId);
+
+    /**
+     * 按保留数量与时长裁剪工作目录的快照
+     * @param workspacePath 工作目录
+     * @return 删除的快照记录数
+     */
+    int prune(String workspacePath);
+
+    /**
+     * 快照仍引用的内容哈希，作为内容存储垃圾回收的根
+     * @return 内容哈希集合
+     */
+    Set<String> referencedHashes();
+
+    /**
+     * 删除工作目录的全部快照
+     * @param workspacePath 工作目录
+     */
+    void deleteSnapshots(String workspacePath);
+}
@@ -0,0 +1,287 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.ConversationBranch;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.memory.ChatMemory;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 支持分支的聊天记忆
+ * <p>
+ * 每个会话在仓库中只保存自己的消息段。分支会话通过 {@link ConversationBranch} 指向父会话的前缀，
+ * 读取时沿父指针拼接各段，并按消息窗口返回系统消息与最近的 maxMessages 条消息。
+ * 一旦窗口已填满，中间祖先段不再加载，只从根会话读取系统提示词，因此读取成本与新增内容成正比。
+ * <p>
+ * 没有子分支的会话段按窗口大小裁剪（与 MessageWindowChatMemory 行为一致）；
+ * 被分支引用的会话段保持只追加，保证前缀指针稳定。被引用的会话段按 maxMessages 条分块存储，
+ * 第 0 块使用会话ID本身，后续块为 {@code <会话ID>#<序号>}，追加时只重写最后一块。
+ * <p>
+ * 同一会话的读改写（追加、清空、存量压缩）在按会话ID分段的锁内串行执行，避免相互覆盖。
+ */
+@Slf4j
+public class BranchingChatMemory implements ChatMemory {
+
+    private static final int MAX_BRANCH_DEPTH = 64;
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_CACHED_BRANCHES = 10_000;
+    private static final String CHUNK_SEPARATOR = "#";
+
+    private final ChatMemoryRepository repository;
+    private final ConversationBranchStore branchStore;
+    private final int maxMessages;
+
+    // 分支元数据创建后不再变化，可安全缓存；按最近访问淘汰，数量有上限
+    private final Map<String, ConversationBranch> branchCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ConversationBranch> eldest) {
+                    return size() > MAX_CACHED_BRANCHES;
+                }
+            });
+
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public BranchingChatMemory(ChatMemoryRepository repository, ConversationBranchStore branchStore, int maxMessages) {
+        this.repository = repository;
+        this.branchStore = branchStore;
+        this.maxMessages = maxMessages;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void add(String conversationId, List<Message> messages) {
+        withLock(conversationId, () -> {
+            ConversationBranchStore.SegmentInfo info = branchStore.getSegment(conversationId);
+            if (!branchStore.hasChildren(conversationId)) {
+                // 未被引用的会话段整体按窗口裁剪；子分支已过期的分块会话段在这里合并回单块
+                List<Message> segment = new ArrayList<>(info != null
+                        ? readSegment(conversationId, info)
+                        : repository.findByConversationId(conversationId));
+                segment.addAll(messages);
+                if (info != null) {
+                    deleteChunks(conversationId, info, 1);
+                    branchStore.deleteSegment(conversationId);
+                }
+                repository.saveAll(conversationId, window(segment));
+                return null;
+            }
+
+            // 被引用的会话段只追加：只读取并重写最后一块，写满后开始新块
+            int chunks = info != null ? info.chunks() : 1;
+            List<Message> tail = new ArrayList<>(repository.findByConversationId(chunkId(conversationId, chunks - 1)));
+            int size = info != null ? info.size() : tail.size();
+            if (!tail.isEmpty() && tail.size() + messages.size() > maxMessages) {
+                tail.clear();
+                chunks++;
+            }
+            tail.addAll(messages);
+            repository.saveAll(chunkId(conversationId, chunks - 1), tail);
+            branchStore.saveSegment(conversationId,
+                    new ConversationBranchStore.SegmentInfo(chunks, size + messages.size()));
+            return null;
+        });
+    }
+
+    @Override
+    public List<Message> get(String conversationId) {
+        Deque<List<Message>> segments = new ArrayDeque<>();
+        int collected = 0;
+        int upperBound = Integer.MAX_VALUE;
+        String current = conversationId;
+
+        for (int depth = 0; current != null && depth < MAX_BRANCH_DEPTH; depth++) {
+            ConversationBranch branch = getBranch(current);
+
+            if (collected >= maxMessages && branch != null) {
+                // 窗口已满，跳过中间祖先，仅补充根会话的系统提示词
+                segments.addFirst(repository.findByConversationId(branch.getRootId()).stream()
+                        .filter(SystemMessage.class::isInstance)
+                        .toList());
+                break;
+            }
+
+            int base = branch != null ? branch.getForkIndex() : 0;
+            List<Message> segment = segment(current);
+            long visible = (long) upperBound - base;
+            if (segment.size() > visible) {
+                segment = segment.subList(0, (int) Math.max(0, visible));
+            }
+            segments.addFirst(segment);
+            collected += (int) segment.stream().filter(m -> !(m instanceof SystemMessage)).count();
+
+            if (branch == null) {
+                break;
+            }
+            upperBound = branch.getForkIndex();
+            current = branch.getParentId();
+        }
+
+        List<Message> history = new ArrayList<>();
+        segments.forEach(history::addAll);
+        return window(history);
+    }
+
+    /**
+     * 清空会话
+     * 只删除没有子分支引用的消息：被引用的会话段保留到最后一个分叉点为止，之后的消息被删除
+     */
+    @Override
+    public void clear(String conversationId) {
+        withLock(conversationId, () -> {
+            ConversationBranch branch = getBranch(conversationId);
+            int base = branch != null ? branch.getForkIndex() : 0;
+            int referenced = 0;
+            for (String childId : branchStore.getChildren(conversationId)) {
+                ConversationBranch child = getBranch(childId);
+                if (child != null) {
+                    referenced = Math.max(referenced, child.getForkIndex() - base);
+                }
+            }
+
+            ConversationBranchStore.SegmentInfo info = branchStore.getSegment(conversationId);
+            if (referenced <= 0) {
+                if (info != null) {
+                    deleteChunks(conversationId, info, 1);
+                    branchStore.deleteSegment(conversationId);
+                }
+                repository.deleteByConversationId(conversationId);
+                return null;
+            }
+
+            List<Message> segment = info != null
+                    ? readSegment(conversationId, info)
+                    : repository.findByConversationId(conversationId);
+            if (segment.size() <= referenced) {
+                return null;
+            }
+            List<Message> kept = new ArrayList<>(segment.subList(0, referenced));
+            if (info != null) {
+                deleteChunks(conversationId, info, 0);
+            }
+            int chunks = 0;
+            for (int from = 0; from < kept.size(); from += maxMessages) {
+                repository.saveAll(chunkId(conversationId, chunks++),
+                        kept.subList(from, Math.min(kept.size(), from + maxMessages)));
+            }
+            branchStore.saveSegment(conversationId, new ConversationBranchStore.SegmentInfo(chunks, kept.size()));
+            log.info("Cleared conversation {} down to {} messages shared by branches", conversationId, kept.size());
+            return null;
+        });
+    }
+
+    /**
+     * 压缩会话段中尚未压缩的消息，与追加操作持有同一把会话锁，不会覆盖并发写入的消息
+     * @param conversationId 会话ID或会话段分块ID
+     * @return 本次新压缩的消息数量
+     */
+    public int compressExisting(String conversationId) {
+        if (!(repository instanceof CompressingChatMemoryRepository compressing)) {
+            return 0;
+        }
+        return withLock(conversationId, () -> compressing.compressExisting(conversationId));
+    }
+
+    /**
+     * 全部会话ID（包括会话段分块ID）
+     */
+    public List<String> findConversationIds() {
+        return repository.findConversationIds();
+    }
+
+    /**
+     * 获取会话完整历史的长度（父前缀 + 自身消息段），用于校验分叉位置
+     * @param conversationId 会话ID
+     * @return 消息条数
+     */
+    public int historyLength(String conversationId) {
+        ConversationBranch branch = getBranch(conversationId);
+        int base = branch != null ? branch.getForkIndex() : 0;
+        ConversationBranchStore.SegmentInfo info = branchStore.getSegment(conversationId);
+        return base + (info != null ? info.size() : repository.findByConversationId(conversationId).size());
+    }
+
+    /**
+     * 获取分支元数据，非分支会话返回 null
+     */
+    public ConversationBranch getBranch(String conversationId) {
+        ConversationBranch cached = branchCache.get(conversationId);
+        if (cached != null) {
+            return cached;
+        }
+        ConversationBranch branch = branchStore.get(conversationId);
+        if (branch != null) {
+            branchCache.put(conversationId, branch);
+        }
+        return branch;
+    }
+
+    /**
+     * 读取会话自身的完整消息段
+     */
+    private List<Message> segment(String conversationId) {
+        ConversationBranchStore.SegmentInfo info = branchStore.getSegment(conversationId);
+        return info != null ? readSegment(conversationId, info) : repository.findByConversationId(conversationId);
+    }
+
+    private List<Message> readSegment(String conversationId, ConversationBranchStore.SegmentInfo info) {
+        List<Message> segment = new ArrayList<>(info.size());
+        for (int chunk = 0; chunk < info.chunks(); chunk++) {
+            segment.addAll(repository.findByConversationId(chunkId(conversationId, chunk)));
+        }
+        return segment;
+    }
+
+    private void deleteChunks(String conversationId, ConversationBranchStore.SegmentInfo info, int fromChunk) {
+        for (int chunk = fromChunk; chunk < info.chunks(); chunk++) {
+            repository.deleteByConversationId(chunkId(conversationId, chunk));
+        }
+    }
+
+    private String chunkId(String conversationId, int chunk) {
+        return chunk == 0 ? conversationId : conversationId + CHUNK_SEPARATOR + chunk;
+    }
+
+    /**
+     * 按会话加锁，会话段分块与所属会话共用同一把锁
+     */
+    private <T> T withLock(String conversationId, Supplier<T> action) {
+        int separator = conversationId.indexOf(CHUNK_SEPARATOR);
+        String lockKey = separator >= 0 ? conversationId.substring(0, separator) : conversationId;
+        ReentrantLock lock = locks[Math.floorMod(lockKey.hashCode(), locks.length)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 保留全部系统消息与最近的非系统消息，总数不超过 maxMessages
+     */
+    private List<Message> window(List<Message> messages) {
+        if (messages.size() <= maxMessages) {
+            return messages;
+        }
+        List<Message> systemMessages = messages.stream().filter(SystemMessage.class::isInstance).toList();
+        List<Message> others = messages.stream().filter(m -> !(m instanceof SystemMessage)).toList();
+        int keep = Math.max(0, maxMessages - systemMessages.size());
+        List<Message> result = new ArrayList<>(systemMessages);
+        result.addAll(others.subList(Math.max(0, others.size() - keep), others.size()));
+        return result;
+    }
+}
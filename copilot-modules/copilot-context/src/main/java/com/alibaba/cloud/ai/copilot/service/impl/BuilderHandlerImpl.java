@@ -31,6 +31,8 @@ import java.util.regex.Pattern;
 @Service
 public class BuilderHandlerImpl implements BuilderHandler {
 
+    private static final int RECENT_MESSAGES_FOR_TOOL_SELECTION = 6;
+
     private final TokenService tokenService;
     private final FileProcessorService fileProcessorService;
     private final DynamicModelService dynamicModelService;
@@ -163,9 +165,10 @@ public class BuilderHandlerImpl implements BuilderHandler {
                 // 生成消息ID用于SSE事件追踪
                 String messageId = UUID.randomUUID().toString();
 
-                // 获取所有工具的ToolCallback列表用于Spring AI 1.1工具调用
+                // 按当前问题和最近对话筛选相关工具，只发送这些工具的Schema
                 List<org.springframework.ai.tool.ToolCallback> toolCallbacks =
-                    toolOrchestrationService.getAllToolCallbacks();
+                    toolOrchestrationService.selectToolCallbacks(originalUserQuestion,
+                        recentConversation(memoryMessages));
 
                 // 创建包含工具的Prompt
                 // Spring AI 1.1 会自动处理 @Tool 注解的方法，我们只需要传递 ToolCallback
@@ -173,9 +176,13 @@ public class BuilderHandlerImpl implements BuilderHandler {
                 org.springframework.ai.model.tool.ToolCallingChatOptions toolOptions =
                     org.springframework.ai.model.tool.ToolCallingChatOptions.builder()
                         .toolCallbacks(toolCallbacks)
+                        // 会话ID和消息ID标识这一轮工具调用，用于隔离只读工具结果缓存
+                        .toolContext(Map.of(
+                            ParallelToolCallingManager.CONVERSATION_ID, conversationId,
+                            ParallelToolCallingManager.MESSAGE_ID, messageId))
                         .build();
 
-                log.info("Configured {} tool callbacks for conversation {}",
+                log.debug("Configured {} tool callbacks for conversation {}",
                     toolCallbacks.size(), conversationId);
 
                 // 创建包含历史记忆和工具的Prompt
@@ -285,6 +292,20 @@ public class BuilderHandlerImpl implements BuilderHandler {
         }
     }
 
+    /**
+     * 拼接最近几条非系统消息，作为工具筛选的对话上下文
+     */
+    private String recentConversation(List<org.springframework.ai.chat.messages.Message> memoryMessages) {
+        StringBuilder context = new StringBuilder();
+        int from = Math.max(0, memoryMessages.size() - RECENT_MESSAGES_FOR_TOOL_SELECTION);
+        for (org.springframework.ai.chat.messages.Message message : memoryMessages.subList(from, memoryMessages.size())) {
+            if (!(message instanceof SystemMessage) && message.getText() != null) {
+                context.append(message.getText()).append('\n');
+            }
+        }
+        return context.toString();
+    }
+
     private String determineFileType(Set<String> filePaths) {
         // Simple file type detection based on file extensions
         for (String path : filePaths) {
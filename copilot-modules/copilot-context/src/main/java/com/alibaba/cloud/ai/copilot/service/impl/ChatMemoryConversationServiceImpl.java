@@ -60,6 +60,19 @@ public class ChatMemoryConversationServiceImpl implements ConversationService {
         return conversationId;
     }
     
+    @Override
+    public void switchConversation(String userId, String conversationId) {
+        String userConversationsKey = USER_CONVERSATION_KEY_PREFIX + userId;
+        String currentConversationKey = CURRENT_CONVERSATION_KEY_PREFIX + userId;
+        
+        redisTemplate.opsForSet().add(userConversationsKey, conversationId);
+        redisTemplate.expire(userConversationsKey, CONVERSATION_EXPIRE_HOURS, TimeUnit.HOURS);
+        redisTemplate.opsForValue().set(currentConversationKey, conversationId, 
+                                      CONVERSATION_EXPIRE_HOURS, TimeUnit.HOURS);
+        
+        log.info("Switched user {} to conversation {}", userId, conversationId);
+    }
+    
     @Override
     public List<String> getUserConversations(String userId) {
         String userConversationsKey = USER_CONVERSATION_KEY_PREFIX + userId;
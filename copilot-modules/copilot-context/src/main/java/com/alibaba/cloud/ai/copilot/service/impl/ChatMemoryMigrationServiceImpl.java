@@ -0,0 +1,135 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.ChatMemoryMigrationService;
+import com.alibaba.cloud.ai.copilot.service.ContentCompressionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 聊天记忆迁移服务实现
+ * 按主键分批扫描 chat_messages 表并回写压缩内容，同时补齐旧数据的原文长度（content_length），
+ * 随后逐个会话压缩 Spring AI 记忆仓库
+ */
+@Slf4j
+@Service
+public class ChatMemoryMigrationServiceImpl implements ChatMemoryMigrationService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentCompressionService compressionService;
+    private final ObjectProvider<BranchingChatMemory> chatMemory;
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public ChatMemoryMigrationServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            ContentCompressionService compressionService,
+            ObjectProvider<BranchingChatMemory> chatMemory,
+            @Value("${copilot.chat-memory.compression.migration-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compressionService = compressionService;
+        this.chatMemory = chatMemory;
+        this.batchSize = batchSize;
+    }
+
+    @Async
+    @Override
+    public CompletableFuture<Map<String, Object>> compressExistingMessages() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(Map.of("status", "already_running"));
+        }
+
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = new LinkedHashMap<>();
+        try {
+            result.put("chatMessages", compressChatMessagesTable());
+            result.put("chatMemoryRepository", compressChatMemoryRepository());
+            result.put("status", "completed");
+        } catch (Exception e) {
+            log.error("Chat memory compression migration failed", e);
+            result.put("status", "failed");
+            result.put("error", e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        log.info("Chat memory compression migration finished: {}", result);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private int compressChatMessagesTable() {
+        long lastId = 0;
+        int compressed = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, content, content_length FROM chat_messages WHERE id > ? ORDER BY id ASC LIMIT ?",
+                lastId, batchSize
+            );
+            if (rows.isEmpty()) {
+                return compressed;
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            List<Object[]> lengths = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                long id = ((Number) row.get("id")).longValue();
+                String content = (String) row.get("content");
+                lastId = id;
+                if (content == null) {
+                    continue;
+                }
+                boolean alreadyCompressed = compressionService.isCompressed(content);
+                if (row.get("content_length") == null) {
+                    // 补齐旧数据的原文长度，已压缩的内容先解压
+                    String original = alreadyCompressed ? compressionService.decompress(content) : content;
+                    lengths.add(new Object[]{SimpleChatMemoryServiceImpl.contentLength(original), id});
+                }
+                if (alreadyCompressed) {
+                    continue;
+                }
+                String stored = compressionService.compress(content);
+                if (compressionService.isCompressed(stored)) {
+                    updates.add(new Object[]{stored, id});
+                }
+            }
+            if (!lengths.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE chat_messages SET content_length = ? WHERE id = ?", lengths);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE chat_messages SET content = ? WHERE id = ?", updates);
+                compressed += updates.size();
+            }
+        }
+    }
+
+    /**
+     * 逐个会话压缩记忆仓库，每个会话在会话锁内读改写，不会覆盖迁移期间追加的消息
+     */
+    private int compressChatMemoryRepository() {
+        BranchingChatMemory memory = chatMemory.getIfAvailable();
+        if (memory == null) {
+            return 0;
+        }
+        int compressed = 0;
+        for (String conversationId : memory.findConversationIds()) {
+            compressed += memory.compressExisting(conversationId);
+        }
+        return compressed;
+    }
+}
@@ -4,6 +4,7 @@ import com.alibaba.cloud.ai.copilot.dto.ChatRequest;
 import com.alibaba.cloud.ai.copilot.service.BuilderHandler;
 import com.alibaba.cloud.ai.copilot.service.ChatHandler;
 import com.alibaba.cloud.ai.copilot.service.ChatService;
+import com.alibaba.cloud.ai.copilot.service.SessionWarmupService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -18,15 +19,19 @@ public class ChatServiceImpl implements ChatService {
 
     private final ChatHandler chatHandler;
     private final BuilderHandler builderHandler;
+    private final SessionWarmupService sessionWarmupService;
 
     public ChatServiceImpl(ChatHandler chatHandler,
-                          BuilderHandler builderHandler) {
+                          BuilderHandler builderHandler,
+                          SessionWarmupService sessionWarmupService) {
         this.chatHandler = chatHandler;
         this.builderHandler = builderHandler;
+        this.sessionWarmupService = sessionWarmupService;
     }
 
     @Override
     public void handleChatMode(ChatRequest request, String userId, SseEmitter emitter) {
+        sessionWarmupService.rememberModel(userId, request.getModel());
         try {
             chatHandler.handle(request.getMessages(), request.getModel(), userId, request.getTools(), emitter);
         } catch (Exception e) {
@@ -41,6 +46,7 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public void handleBuilderMode(ChatRequest request, String userId, SseEmitter emitter) {
+        sessionWarmupService.rememberModel(userId, request.getModel());
         try {
             builderHandler.handle(
                 request.getMessages(),
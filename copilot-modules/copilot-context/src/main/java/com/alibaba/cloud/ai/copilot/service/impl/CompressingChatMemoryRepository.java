@@ -0,0 +1,117 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.ContentCompressionService;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带压缩的聊天记忆仓库
+ * 包装底层 ChatMemoryRepository，写入时压缩消息文本，读取时解压
+ * 只处理纯文本消息，带工具调用或多媒体的消息原样透传
+ */
+public class CompressingChatMemoryRepository implements ChatMemoryRepository {
+
+    private final ChatMemoryRepository delegate;
+    private final ContentCompressionService compressionService;
+
+    public CompressingChatMemoryRepository(ChatMemoryRepository delegate,
+                                           ContentCompressionService compressionService) {
+        this.delegate = delegate;
+        this.compressionService = compressionService;
+    }
+
+    @Override
+    public List<String> findConversationIds() {
+        return delegate.findConversationIds();
+    }
+
+    @Override
+    public List<Message> findByConversationId(String conversationId) {
+        return delegate.findByConversationId(conversationId).stream()
+                .map(this::decompress)
+                .toList();
+    }
+
+    @Override
+    public void saveAll(String conversationId, List<Message> messages) {
+        delegate.saveAll(conversationId, messages.stream()
+                .map(this::compress)
+                .toList());
+    }
+
+    @Override
+    public void deleteByConversationId(String conversationId) {
+        delegate.deleteByConversationId(conversationId);
+    }
+
+    /**
+     * 压缩底层仓库中已有的会话记录
+     * 读取后整体回写，调用方需持有会话锁，见 {@link BranchingChatMemory#compressExisting(String)}
+     *
+     * @param conversationId 会话ID
+     * @return 本次新压缩的消息数量
+     */
+    public int compressExisting(String conversationId) {
+        List<Message> stored = delegate.findByConversationId(conversationId);
+        List<Message> compressed = stored.stream().map(this::compress).toList();
+        int changed = 0;
+        for (int i = 0; i < stored.size(); i++) {
+            if (compressed.get(i) != stored.get(i)) {
+                changed++;
+            }
+        }
+        if (changed > 0) {
+            delegate.saveAll(conversationId, compressed);
+        }
+        return changed;
+    }
+
+    private Message compress(Message message) {
+        if (!isPlainText(message)) {
+            return message;
+        }
+        String text = message.getText();
+        String compressed = compressionService.compress(text);
+        return compressed == text ? message : withText(message, compressed);
+    }
+
+    private Message decompress(Message message) {
+        if (!isPlainText(message) || !compressionService.isCompressed(message.getText())) {
+            return message;
+        }
+        return withText(message, compressionService.decompress(message.getText()));
+    }
+
+    private boolean isPlainText(Message message) {
+        if (message.getText() == null) {
+            return false;
+        }
+        if (message instanceof UserMessage userMessage) {
+            return userMessage.getMedia().isEmpty();
+        }
+        if (message instanceof AssistantMessage assistantMessage) {
+            return !assistantMessage.hasToolCalls() && assistantMessage.getMedia().isEmpty();
+        }
+        return message instanceof SystemMessage;
+    }
+
+    /**
+     * 替换消息文本，保留原消息的元数据
+     */
+    private Message withText(Message message, String text) {
+        Map<String, Object> metadata = message.getMetadata();
+        if (message instanceof UserMessage) {
+            return UserMessage.builder().text(text).metadata(metadata).build();
+        }
+        if (message instanceof AssistantMessage) {
+            return AssistantMessage.builder().content(text).properties(metadata).build();
+        }
+        return SystemMessage.builder().text(text).metadata(metadata).build();
+    }
+}
@@ -0,0 +1,235 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 内容寻址的文件存储
+ * 以内容的 SHA-256 为键保存文件（blobs/ab/abcdef...），工作目录中的文件通过硬链接指向同一份内容，
+ * 文件系统不支持硬链接时退化为复制。硬链接计数即引用计数，计数为 1 的 blob 已没有工作目录引用，可以回收。
+ * <p>
+ * 整个应用共用一个实例：put / materialize 持有读锁，垃圾回收持有写锁，
+ * 需要先 put 再 materialize 的调用方通过 {@link #atomically} 组合，blob 不会在落到工作目录之前被回收
+ */
+@Slf4j
+public class ContentAddressedStore {
+
+    private static final String TEMP_DIRECTORY = ".tmp";
+
+    private final Path blobRoot;
+    private final Path tempRoot;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean linkSupported = true;
+
+    public ContentAddressedStore(Path blobRoot) throws IOException {
+        this.blobRoot = blobRoot;
+        this.tempRoot = blobRoot.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(tempRoot);
+    }
+
+    public boolean contains(String hash) {
+        return hash != null && Files.isRegularFile(blobPath(hash));
+    }
+
+    /**
+     * 在读锁内执行一组存储操作，期间垃圾回收不会运行
+     */
+    public <T> T atomically(StoreOperation<T> operation) throws IOException {
+        lock.readLock().lock();
+        try {
+            return operation.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 保存内容，已存在相同内容时不重复写入
+     * @return 内容哈希
+     */
+    public String put(byte[] content) throws IOException {
+        return atomically(() -> {
+            String hash = HexFormat.of().formatHex(sha256().digest(content));
+            if (!contains(hash)) {
+                Path temp = newTempFile();
+                Files.write(temp, content);
+                publish(temp, hash);
+            }
+            return hash;
+        });
+    }
+
+    /**
+     * 将磁盘文件收入存储，边复制边计算哈希，避免文件在两次读取之间变化导致内容与键不一致
+     * @return 内容哈希
+     */
+    public String put(Path file) throws IOException {
+        return atomically(() -> {
+            Path temp = newTempFile();
+            MessageDigest digest = sha256();
+            try (InputStream in = Files.newInputStream(file);
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (contains(hash)) {
+                Files.deleteIfExists(temp);
+            } else {
+                publish(temp, hash);
+            }
+            return hash;
+        });
+    }
+
+    /**
+     * 将 blob 链接（或复制）到目标位置，原子替换已有文件
+     */
+    public void materialize(String hash, Path target) throws IOException {
+        atomically(() -> {
+            Path blob = blobPath(hash);
+            Path temp = tempRoot.resolve(UUID.randomUUID().toString());
+            if (!linkSupported || !tryLink(temp, blob)) {
+                Files.copy(blob, temp);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return null;
+        });
+    }
+
+    /**
+     * 回收没有工作目录引用的 blob
+     * @return 释放的字节数
+     */
+    public long collectGarbage() {
+        return collectGarbage(Set::of);
+    }
+
+    /**
+     * 回收既没有硬链接引用、也不在根集合中的 blob，持有写锁，与 put / materialize 互斥。
+     * 根集合在写锁内获取，无法获取硬链接数的 blob 无法判断是否被引用，一律保留
+     * @param roots 仍被引用的内容哈希（如快照），复制模式下硬链接计数无法反映这些引用
+     * @return 释放的字节数
+     */
+    public long collectGarbage(Supplier<Set<String>> roots) {
+        lock.writeLock().lock();
+        try {
+            return sweep(roots.get());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long sweep(Set<String> roots) {
+        int removed = 0;
+        long reclaimedBytes = 0;
+        try (Stream<Path> paths = Files.walk(blobRoot)) {
+            for (Path blob : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                if (blob.startsWith(tempRoot) || roots.contains(blob.getFileName().toString())) {
+                    continue;
+                }
+                if (HardLinkUtils.linkCount(blob) == 1) {
+                    long size = Files.size(blob);
+                    if (Files.deleteIfExists(blob)) {
+                        removed++;
+                        reclaimedBytes += size;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to collect unreferenced blobs in {}: {}", blobRoot, e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("Removed {} unreferenced blobs ({} bytes) from {}", removed, reclaimedBytes, blobRoot);
+        }
+        return reclaimedBytes;
+    }
+
+    private Path blobPath(String hash) {
+        return blobRoot.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path newTempFile() throws IOException {
+        return Files.createTempFile(tempRoot, "blob", ".tmp");
+    }
+
+    private void publish(Path temp, String hash) throws IOException {
+        Path blob = blobPath(hash);
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 并发写入了相同内容
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 建立硬链接，失败时本次退化为复制；只有文件系统不支持硬链接或跨设备时才永久关闭硬链接，
+     * 链接数达到上限等临时错误不影响后续文件
+     */
+    private boolean tryLink(Path link, Path blob) {
+        try {
+            Files.createLink(link, blob);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            log.warn("Hard links unsupported under {}, falling back to copies", blobRoot);
+            linkSupported = false;
+            return false;
+        } catch (IOException e) {
+            if (isCrossDevice(e)) {
+                log.warn("Hard links cross devices under {}, falling back to copies: {}", blobRoot, e.getMessage());
+                linkSupported = false;
+            } else {
+                log.debug("Failed to link {}, copying instead: {}", blob, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    private static boolean isCrossDevice(IOException e) {
+        String reason = e instanceof FileSystemException fse ? fse.getReason() : e.getMessage();
+        if (reason == null) {
+            return false;
+        }
+        String lower = reason.toLowerCase(Locale.ROOT);
+        // Linux: "Invalid cross-device link"，Windows: "The system cannot move the file to a different disk drive"
+        return lower.contains("cross-device") || lower.contains("different disk drive");
+    }
+
+    /**
+     * 在读锁内执行的存储操作
+     */
+    @FunctionalInterface
+    public interface StoreOperation<T> {
+        T run() throws IOException;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
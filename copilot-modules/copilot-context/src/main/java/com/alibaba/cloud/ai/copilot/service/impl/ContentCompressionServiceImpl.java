@@ -0,0 +1,158 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.ContentCompressionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 消息内容压缩服务实现
+ * 使用 Deflate 算法配合预置的共享字典（包含 boltArtifact 与常见项目模板片段），
+ * 压缩结果以 {@code dz1:} 前缀加 Base64 的形式保存在原有文本列中。
+ * 字典内容参与编码，修改字典时必须同时升级前缀版本，否则已有数据无法解压
+ */
+@Slf4j
+@Service
+public class ContentCompressionServiceImpl implements ContentCompressionService {
+
+    private static final String MARKER = "dz1:";
+    private static final String DICTIONARY_LOCATION = "compression/bolt-artifact.dict";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final boolean enabled;
+    private final int minSize;
+    private final byte[] dictionary;
+
+    private final LongAdder compressedMessages = new LongAdder();
+    private final LongAdder skippedMessages = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder decodedMessages = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    public ContentCompressionServiceImpl(
+            @Value("${copilot.chat-memory.compression.enabled:true}") boolean enabled,
+            @Value("${copilot.chat-memory.compression.min-size:1024}") int minSize) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.dictionary = loadDictionary();
+    }
+
+    @Override
+    public String compress(String content) {
+        if (!enabled || content == null || content.length() < minSize || isCompressed(content)) {
+            return content;
+        }
+
+        byte[] input = content.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+
+            String encoded = MARKER + Base64.getEncoder().encodeToString(out.toByteArray());
+            if (encoded.length() >= content.length()) {
+                skippedMessages.increment();
+                return content;
+            }
+            compressedMessages.increment();
+            rawBytes.add(input.length);
+            storedBytes.add(encoded.length());
+            return encoded;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public String decompress(String stored) {
+        if (!isCompressed(stored)) {
+            return stored;
+        }
+
+        long start = System.nanoTime();
+        byte[] input = Base64.getDecoder().decode(stored.substring(MARKER.length()));
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalStateException("Truncated compressed content");
+                    }
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed content", e);
+        } finally {
+            inflater.end();
+            decodedMessages.increment();
+            decodeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean isCompressed(String stored) {
+        return stored != null && stored.startsWith(MARKER);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long raw = rawBytes.sum();
+        long compressed = storedBytes.sum();
+        long decoded = decodedMessages.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("minSize", minSize);
+        stats.put("dictionarySize", dictionary.length);
+        stats.put("compressedMessages", compressedMessages.sum());
+        stats.put("skippedMessages", skippedMessages.sum());
+        stats.put("rawBytes", raw);
+        stats.put("storedBytes", compressed);
+        stats.put("compressionRatio", compressed > 0 ? (double) raw / compressed : 0.0);
+        stats.put("decodedMessages", decoded);
+        stats.put("avgDecodeMicros", decoded > 0 ? decodeNanos.sum() / decoded / 1000.0 : 0.0);
+        return stats;
+    }
+
+    private byte[] loadDictionary() {
+        ClassPathResource resource = new ClassPathResource(DICTIONARY_LOCATION);
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            log.warn("Compression dictionary not found, falling back to plain deflate: {}", e.getMessage());
+            return new byte[0];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.ConversationBranch;
+import com.alibaba.cloud.ai.copilot.service.ConversationBranchService;
+import com.alibaba.cloud.ai.copilot.service.ConversationService;
+import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 会话分支服务实现
+ * 分支只保存父指针与分叉位置，消息前缀由 {@link BranchingChatMemory} 在读取时拼接
+ */
+@Slf4j
+@Service
+public class ConversationBranchServiceImpl implements ConversationBranchService {
+
+    private final ConversationService conversationService;
+    private final ConversationBranchStore branchStore;
+    private final BranchingChatMemory chatMemory;
+    private final FileSystemService fileSystemService;
+
+    public ConversationBranchServiceImpl(
+            @Qualifier("chatMemoryConversationService") ConversationService conversationService,
+            ConversationBranchStore branchStore,
+            BranchingChatMemory chatMemory,
+            FileSystemService fileSystemService) {
+        this.conversationService = conversationService;
+        this.branchStore = branchStore;
+        this.chatMemory = chatMemory;
+        this.fileSystemService = fileSystemService;
+    }
+
+    @Override
+    public ConversationBranch fork(String userId, String conversationId, Integer forkIndex, String title) {
+        requireOwner(userId, conversationId);
+        int length = chatMemory.historyLength(conversationId);
+        int index = forkIndex != null ? forkIndex : length;
+        if (index < 0 || index > length) {
+            throw new IllegalArgumentException(
+                    "Fork index " + index + " out of range [0, " + length + "] for conversation " + conversationId);
+        }
+
+        // 分叉点落在继承的前缀内时，直接挂到拥有该前缀的祖先上，避免链路过长
+        String parentId = conversationId;
+        ConversationBranch parent = chatMemory.getBranch(parentId);
+        while (parent != null && index <= parent.getForkIndex()) {
+            parentId = parent.getParentId();
+            parent = chatMemory.getBranch(parentId);
+        }
+        String rootId = parent != null ? parent.getRootId() : parentId;
+
+        String branchId = conversationService.createNewConversation(userId);
+        ConversationBranch branch = new ConversationBranch(
+                branchId, parentId, rootId, index,
+                title != null ? title : "Branch at message " + index,
+                LocalDateTime.now());
+        branchStore.save(branch);
+
+        // 分支沿用被分叉会话当前的工作目录文件，内容通过存储共享，不复制数据
+        try {
+            String sourceWorkspace = fileSystemService.createSessionWorkspace(conversationId, userId);
+            fileSystemService.cloneWorkspace(sourceWorkspace, branchId, userId);
+        } catch (Exception e) {
+            log.warn("Failed to clone workspace for branch {}: {}", branchId, e.getMessage());
+        }
+
+        log.info("Forked conversation {} at {} into branch {} for user {}", parentId, index, branchId, userId);
+        return branch;
+    }
+
+    @Override
+    public List<ConversationBranch> listBranches(String userId, String conversationId) {
+        requireOwner(userId, conversationId);
+        ConversationBranch current = chatMemory.getBranch(conversationId);
+        String rootId = current != null ? current.getRootId() : conversationId;
+
+        List<ConversationBranch> branches = new ArrayList<>();
+        branches.add(new ConversationBranch(rootId, null, rootId, 0, null, null));
+
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(rootId);
+        while (!queue.isEmpty()) {
+            for (String childId : branchStore.getChildren(queue.poll())) {
+                ConversationBranch child = chatMemory.getBranch(childId);
+                if (child != null) {
+                    branches.add(child);
+                    queue.add(childId);
+                }
+            }
+        }
+        return branches;
+    }
+
+    @Override
+    public void switchBranch(String userId, String branchId) {
+        requireOwner(userId, branchId);
+        conversationService.switchConversation(userId, branchId);
+    }
+
+    /**
+     * 校验会话在用户的会话列表中
+     * 不按会话ID前缀判断：用户ID可能包含下划线，前缀会与其他用户的会话ID冲突
+     */
+    private void requireOwner(String userId, String conversationId) {
+        if (userId == null || conversationId == null) {
+            throw new SecurityException("Conversation does not belong to user");
+        }
+        if (conversationService.getUserConversations(userId).contains(conversationId)) {
+            return;
+        }
+        throw new SecurityException("Conversation " + conversationId + " does not belong to user " + userId);
+    }
+}
@@ -0,0 +1,150 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.ConversationBranch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 会话分支元数据存储
+ * 每个分支一个 Redis Hash 保存父指针与分叉位置，子分支ID集合与被共享会话段的分块信息单独保存。
+ * 所有键都带有过期时间，每次写入时续期
+ */
+@Component
+public class ConversationBranchStore {
+
+    private static final String BRANCH_KEY_PREFIX = "conversation:branch:";
+    private static final String CHILDREN_KEY_PREFIX = "conversation:branch:children:";
+    private static final String SEGMENT_KEY_PREFIX = "conversation:branch:segment:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final Duration ttl;
+
+    public ConversationBranchStore(RedisTemplate<String, String> redisTemplate,
+                                   @Value("${copilot.chat-memory.branch.ttl-days:30}") long ttlDays) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofDays(ttlDays);
+    }
+
+    /**
+     * 获取分支元数据
+     * @param conversationId 会话ID
+     * @return 分支元数据，根会话或普通会话返回 null
+     */
+    public ConversationBranch get(String conversationId) {
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        Map<String, String> fields = hash.entries(BRANCH_KEY_PREFIX + conversationId);
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return new ConversationBranch(
+            conversationId,
+            fields.get("parentId"),
+            fields.get("rootId"),
+            Integer.parseInt(fields.getOrDefault("forkIndex", "0")),
+            fields.get("title"),
+            fields.containsKey("createdAt") ? LocalDateTime.parse(fields.get("createdAt")) : null
+        );
+    }
+
+    /**
+     * 保存分支元数据并登记到父会话的子分支集合
+     * @param branch 分支
+     */
+    public void save(ConversationBranch branch) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("parentId", branch.getParentId());
+        fields.put("rootId", branch.getRootId());
+        fields.put("forkIndex", String.valueOf(branch.getForkIndex()));
+        if (branch.getTitle() != null) {
+            fields.put("title", branch.getTitle());
+        }
+        if (branch.getCreatedAt() != null) {
+            fields.put("createdAt", branch.getCreatedAt().toString());
+        }
+        String branchKey = BRANCH_KEY_PREFIX + branch.getBranchId();
+        String childrenKey = CHILDREN_KEY_PREFIX + branch.getParentId();
+        redisTemplate.opsForHash().putAll(branchKey, fields);
+        redisTemplate.opsForSet().add(childrenKey, branch.getBranchId());
+        redisTemplate.expire(branchKey, ttl);
+        redisTemplate.expire(childrenKey, ttl);
+        // 父会话自身若也是分支，一并续期，保证子分支存活期间前缀链完整
+        redisTemplate.expire(BRANCH_KEY_PREFIX + branch.getParentId(), ttl);
+    }
+
+    /**
+     * 获取直接子分支ID
+     * @param conversationId 会话ID
+     * @return 子分支ID集合
+     */
+    public Set<String> getChildren(String conversationId) {
+        Set<String> children = redisTemplate.opsForSet().members(CHILDREN_KEY_PREFIX + conversationId);
+        return children != null ? children : Set.of();
+    }
+
+    /**
+     * 会话是否已被分支引用；被引用的会话消息不能再被裁剪
+     * @param conversationId 会话ID
+     * @return 是否存在子分支
+     */
+    public boolean hasChildren(String conversationId) {
+        Long size = redisTemplate.opsForSet().size(CHILDREN_KEY_PREFIX + conversationId);
+        return size != null && size > 0;
+    }
+
+    /**
+     * 获取被共享会话段的分块信息
+     * @param conversationId 会话ID
+     * @return 分块信息，会话段未分块时返回 null
+     */
+    public SegmentInfo getSegment(String conversationId) {
+        HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+        Map<String, String> fields = hash.entries(SEGMENT_KEY_PREFIX + conversationId);
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return new SegmentInfo(
+            Integer.parseInt(fields.getOrDefault("chunks", "1")),
+            Integer.parseInt(fields.getOrDefault("size", "0"))
+        );
+    }
+
+    /**
+     * 保存会话段的分块信息，并续期会话的分支相关键
+     * @param conversationId 会话ID
+     * @param segment 分块信息
+     */
+    public void saveSegment(String conversationId, SegmentInfo segment) {
+        String segmentKey = SEGMENT_KEY_PREFIX + conversationId;
+        redisTemplate.opsForHash().putAll(segmentKey, Map.of(
+            "chunks", String.valueOf(segment.chunks()),
+            "size", String.valueOf(segment.size())
+        ));
+        redisTemplate.expire(segmentKey, ttl);
+        redisTemplate.expire(CHILDREN_KEY_PREFIX + conversationId, ttl);
+        redisTemplate.expire(BRANCH_KEY_PREFIX + conversationId, ttl);
+    }
+
+    /**
+     * 删除会话段的分块信息
+     * @param conversationId 会话ID
+     */
+    public void deleteSegment(String conversationId) {
+        redisTemplate.delete(SEGMENT_KEY_PREFIX + conversationId);
+    }
+
+    /**
+     * 被共享会话段的分块信息
+     * @param chunks 分块数量，第 0 块以会话ID本身存储
+     * @param size 会话段的消息总数
+     */
+    public record SegmentInfo(int chunks, int size) {
+    }
+}
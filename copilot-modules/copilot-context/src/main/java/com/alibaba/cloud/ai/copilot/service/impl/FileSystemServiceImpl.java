@@ -1,18 +1,46 @@
 package com.alibaba.cloud.ai.copilot.service.impl;
 
 import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.tools.service.ProjectAnalysisCache;
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 /**
  * 文件系统服务实现类
+ * 每个工作目录维护一份内存索引（{@link WorkspaceIndex}），写入时直通更新，
+ * 工具直接写磁盘的改动由 {@link WorkspaceWatcher} 同步。
+ * 空闲超过 {@code app.workspace.index-idle-minutes} 的索引连同其监听一起回收，再次访问时重新扫描
  */
 @Slf4j
 @Service
@@ -21,6 +49,54 @@ public class FileSystemServiceImpl implements FileSystemService {
     @Value("${app.workspace.root-directory:./workspace}")
     private String workspaceRoot;
 
+    @Value("${app.workspace.watch-enabled:true}")
+    private boolean watchEnabled = true;
+
+    @Value("${app.workspace.index-idle-minutes:30}")
+    private long indexIdleMinutes = 30;
+
+    @Value("${app.workspace.max-file-size:10485760}")
+    private long maxFileSize = 10485760;
+
+    @Value("${app.workspace.dedup-enabled:true}")
+    private boolean dedupEnabled = true;
+
+    @Value("${app.workspace.archive.max-entries:10000}")
+    private int maxArchiveEntries = 10000;
+
+    @Value("${app.workspace.archive.max-total-size:209715200}")
+    private long maxArchiveTotalSize = 209715200;
+
+    /**
+     * 小于该大小的归档条目先读入内存再并行落盘，更大的条目在读取线程中直接流式写入
+     */
+    private static final int PARALLEL_ENTRY_LIMIT = 1024 * 1024;
+    private static final int MAX_PENDING_WRITES = 8;
+    private static final int IO_THREADS = 4;
+
+    /**
+     * 用户目录下记录原始用户ID（登录ID）的文件，目录名经过清洗后无法还原
+     */
+    static final String OWNER_FILE = ".owner";
+
+    /**
+     * 直接写入工作目录文件时不跟随符号链接，避免通过预先放置的链接写到工作目录之外
+     */
+    private static final OpenOption[] WRITE_NO_FOLLOW = {
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+        LinkOption.NOFOLLOW_LINKS
+    };
+
+    private final Map<Path, WorkspaceIndex> indexes = new ConcurrentHashMap<>();
+    private volatile WorkspaceWatcher watcher;
+    private volatile ExecutorService ioExecutor;
+
+    @Autowired(required = false)
+    private ContentAddressedStore blobStore;
+
+    @Autowired(required = false)
+    private ProjectAnalysisCache analysisCache;
+
     @Override
     public String createSessionWorkspace(String conversationId, String userId) {
         try {
@@ -43,6 +119,7 @@ public class FileSystemServiceImpl implements FileSystemService {
                     throw new RuntimeException("Failed to create workspace directory: " + workspacePath);
                 }
             }
+            recordOwner(Paths.get(workspaceRoot, userDir), safeUserId);
 
             if (!safeUserId.equals(userDir) || !safeConversationId.equals(conversationDir)) {
                 log.debug("Sanitized workspace path segments. userId='{}'->'{}', conversationId='{}'->'{}'",
@@ -64,7 +141,7 @@ public class FileSystemServiceImpl implements FileSystemService {
      * - 去除结尾的点和空格（Windows 不允许）
      * - 为空时退化为 "unnamed"
      */
-    private String sanitizePathSegment(String input) {
+    static String sanitizePathSegment(String input) {
         String s = (input == null) ? "" : input;
         // 替换非法字符
         s = s.replaceAll("[\\\\/:*?\"<>|]", "_");
@@ -79,6 +156,21 @@ public class FileSystemServiceImpl implements FileSystemService {
         return s;
     }
 
+    /**
+     * 在用户目录中记录原始用户ID，供生命周期任务按登录ID查询会话
+     */
+    private void recordOwner(Path userDir, String userId) throws IOException {
+        Path owner = userDir.resolve(OWNER_FILE);
+        if (Files.exists(owner)) {
+            return;
+        }
+        try {
+            Files.writeString(owner, userId, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
+        } catch (FileAlreadyExistsException e) {
+            // 并发创建
+        }
+    }
+
     @Override
     public void saveFile(String workspacePath, String filePath, String content) {
         try {
@@ -100,9 +192,14 @@ public class FileSystemServiceImpl implements FileSystemService {
                 }
             }
 
-            // 写入文件内容
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(targetFile))) {
-                writer.write(content);
+            // 写入文件内容并同步索引
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            String hash = writeContent(targetFile.toPath(), bytes);
+            WorkspaceIndex index = indexes.get(normalize(workspacePath));
+            if (index != null) {
+                index.touch();
+                index.recordWrite(index.relativize(targetFile.toPath().toAbsolutePath().normalize()),
+                    bytes.length, targetFile.lastModified(), hash);
             }
 
             log.debug("Saved file: {} to workspace: {}", filePath, workspacePath);
@@ -142,6 +239,22 @@ public class FileSystemServiceImpl implements FileSystemService {
         }
     }
 
+    @Override
+    public Path resolveFile(String workspacePath, String filePath) {
+        try {
+            File workspaceDir = new File(workspacePath);
+            File targetFile = new File(workspaceDir, filePath);
+
+            // 安全检查
+            if (!targetFile.getCanonicalPath().startsWith(workspaceDir.getCanonicalPath())) {
+                throw new SecurityException("File path is outside workspace: " + filePath);
+            }
+            return targetFile.toPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to resolve file " + filePath, e);
+        }
+    }
+
     @Override
     public Map<String, String> getAllFiles(String workspacePath) {
         try {
@@ -150,37 +263,249 @@ public class FileSystemServiceImpl implements FileSystemService {
                 return Collections.emptyMap();
             }
 
-            Map<String, String> files = new HashMap<>();
-
-            // 递归获取所有文件
-            try (var paths = Files.walk(workspaceDir.toPath())) {
-                paths.filter(Files::isRegularFile)
-                    .forEach(path -> {
-                        try {
-                            String relativePath = workspaceDir.toPath().relativize(path).toString();
-                            String content = Files.readString(path);
-                            files.put(relativePath, content);
-                        } catch (IOException e) {
-                            log.error("Error reading file {}: {}", path, e.getMessage());
-                        }
-                    });
-            }
-
-            return files;
+            // 文件列表来自索引，内容在访问时才读取
+            WorkspaceIndex index = getIndex(workspacePath);
+            return new LazyContentMap(index.getRoot(), index.listFiles());
         } catch (Exception e) {
             log.error("Error getting all files from workspace {}: {}", workspacePath, e.getMessage());
             throw new RuntimeException("Failed to get all files", e);
         }
     }
 
+    @Override
+    public void exportArchive(String workspacePath, OutputStream outputStream) {
+        WorkspaceIndex index = getIndex(workspacePath);
+        try {
+            ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(outputStream));
+            for (String relativePath : index.listFiles()) {
+                Path file = index.getRoot().resolve(relativePath);
+                try (InputStream in = Files.newInputStream(file)) {
+                    ZipEntry entry = new ZipEntry(relativePath.replace(File.separatorChar, '/'));
+                    entry.setTime(Files.getLastModifiedTime(file).toMillis());
+                    zip.putNextEntry(entry);
+                    in.transferTo(zip);
+                    zip.closeEntry();
+                } catch (NoSuchFileException e) {
+                    // 导出过程中被删除的文件直接跳过
+                    log.debug("Skipping file removed during export: {}", relativePath);
+                }
+            }
+            // 不关闭调用方的输出流
+            zip.finish();
+            zip.flush();
+            log.info("Exported {} files from workspace: {}", index.getFileCount(), workspacePath);
+        } catch (IOException e) {
+            log.error("Error exporting workspace {}: {}", workspacePath, e.getMessage());
+            throw new UncheckedIOException("Failed to export workspace", e);
+        }
+    }
+
+    @Override
+    public int importArchive(String workspacePath, InputStream inputStream) {
+        Path root = normalize(workspacePath);
+        ExecutorService executor = getIoExecutor();
+        Semaphore pendingWrites = new Semaphore(MAX_PENDING_WRITES);
+        List<Future<?>> writes = new ArrayList<>();
+        AtomicInteger imported = new AtomicInteger();
+        AtomicBoolean aborted = new AtomicBoolean();
+        int entries = 0;
+        long totalBytes = 0;
+
+        try {
+            Files.createDirectories(root);
+            Path realRoot = root.toRealPath();
+
+            try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(inputStream))) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    // 条目数和解压后的总大小都有上限，防止压缩炸弹
+                    if (++entries > maxArchiveEntries) {
+                        throw new IllegalArgumentException("Archive has more than " + maxArchiveEntries + " entries");
+                    }
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    Path target = resolveArchiveEntry(root, realRoot, entry.getName());
+
+                    byte[] head = zip.readNBytes(PARALLEL_ENTRY_LIMIT + 1);
+                    totalBytes += head.length;
+                    if (totalBytes > maxArchiveTotalSize) {
+                        throw new IllegalArgumentException("Archive exceeds max total size of " + maxArchiveTotalSize + " bytes");
+                    }
+                    if (head.length <= PARALLEL_ENTRY_LIMIT) {
+                        // 小文件交给 IO 线程并行写入，待写队列有上限，内存占用可控
+                        pendingWrites.acquire();
+                        writes.add(executor.submit(() -> {
+                            try {
+                                if (!aborted.get()) {
+                                    writeContent(target, head);
+                                    imported.incrementAndGet();
+                                }
+                            } finally {
+                                pendingWrites.release();
+                            }
+                            return null;
+                        }));
+                    } else {
+                        totalBytes += writeLargeEntry(zip, target, head, maxArchiveTotalSize - totalBytes);
+                        imported.incrementAndGet();
+                    }
+                }
+            }
+
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } catch (ExecutionException e) {
+            log.error("Error importing archive into workspace {}: {}", workspacePath, e.getCause().getMessage());
+            throw new RuntimeException("Failed to import archive", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Archive import interrupted", e);
+        } catch (IOException e) {
+            log.error("Error importing archive into workspace {}: {}", workspacePath, e.getMessage());
+            throw new UncheckedIOException("Failed to import archive", e);
+        } finally {
+            // 导入失败时跳过尚未开始的写入，并等待已开始的写入结束，方法返回后不会再有文件写入
+            aborted.set(true);
+            awaitWrites(writes);
+        }
+
+        WorkspaceIndex index = indexes.get(root);
+        if (index != null) {
+            index.rescan();
+        }
+        log.info("Imported {} files into workspace: {}", imported.get(), workspacePath);
+        return imported.get();
+    }
+
+    private static void awaitWrites(List<Future<?>> writes) {
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException | CancellationException e) {
+                // 失败原因已在导入流程中处理
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 校验归档条目路径，拒绝绝对路径、上级目录以及通过符号链接逃逸的路径；
+     * 目标位置已经是符号链接时同样拒绝，写入时也不跟随链接
+     */
+    private Path resolveArchiveEntry(Path root, Path realRoot, String name) throws IOException {
+        String entryName = name.replace('\\', '/');
+        Path target = root.resolve(entryName).normalize();
+        if (entryName.startsWith("/") || !target.startsWith(root) || target.equals(root)) {
+            throw new SecurityException("Archive entry is outside workspace: " + name);
+        }
+        Path parent = Files.createDirectories(target.getParent());
+        if (!parent.toRealPath().startsWith(realRoot)) {
+            throw new SecurityException("Archive entry is outside workspace: " + name);
+        }
+        if (Files.isSymbolicLink(target)) {
+            throw new SecurityException("Archive entry targets a symbolic link: " + name);
+        }
+        return target;
+    }
+
+    /**
+     * 流式写入大条目
+     * @param remainingTotal 归档剩余可解压的字节数
+     * @return 本条目在 head 之外写入的字节数
+     */
+    private long writeLargeEntry(ZipInputStream zip, Path target, byte[] head, long remainingTotal)
+            throws IOException {
+        long written = head.length;
+        HardLinkUtils.detach(target);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target, WRITE_NO_FOLLOW))) {
+            out.write(head);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = zip.read(buffer)) != -1) {
+                written += read;
+                if (written > maxFileSize) {
+                    throw new IllegalArgumentException("Archive entry exceeds max file size: " + target.getFileName());
+                }
+                if (written - head.length > remainingTotal) {
+                    throw new IllegalArgumentException("Archive exceeds max total size of " + maxArchiveTotalSize + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IllegalArgumentException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return written - head.length;
+    }
+
+    @Override
+    public Map<String, String> getManifest(String workspacePath) {
+        WorkspaceIndex index = getIndex(workspacePath);
+        Map<String, String> manifest = new TreeMap<>();
+        for (String relativePath : index.listFiles()) {
+            FileEntry entry = index.get(relativePath);
+            if (entry != null && entry.getHash() != null) {
+                manifest.put(relativePath, entry.getHash());
+            }
+        }
+        return manifest;
+    }
+
+    @Override
+    public String cloneWorkspace(String sourceWorkspacePath, String conversationId, String userId) {
+        String targetWorkspacePath = createSessionWorkspace(conversationId, userId);
+        Path sourceRoot = normalize(sourceWorkspacePath);
+        Path targetRoot = normalize(targetWorkspacePath);
+        if (!Files.isDirectory(sourceRoot) || sourceRoot.equals(targetRoot)) {
+            return targetWorkspacePath;
+        }
+
+        try {
+            ContentAddressedStore store = getBlobStore();
+            Map<String, String> manifest = getManifest(sourceWorkspacePath);
+            for (Map.Entry<String, String> entry : manifest.entrySet()) {
+                Path source = sourceRoot.resolve(entry.getKey());
+                Path target = targetRoot.resolve(entry.getKey());
+                if (store == null) {
+                    Files.createDirectories(target.getParent());
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    continue;
+                }
+                // 已入库的内容只需建立链接，未入库的文件先收入存储
+                store.atomically(() -> {
+                    String hash = store.contains(entry.getValue()) ? entry.getValue() : store.put(source);
+                    store.materialize(hash, target);
+                    return hash;
+                });
+            }
+            log.info("Cloned {} files from workspace {} to {}", manifest.size(), sourceWorkspacePath, targetWorkspacePath);
+            return targetWorkspacePath;
+        } catch (IOException e) {
+            log.error("Error cloning workspace {}: {}", sourceWorkspacePath, e.getMessage());
+            throw new UncheckedIOException("Failed to clone workspace", e);
+        }
+    }
+
     @Override
     public void deleteWorkspace(String workspacePath) {
         try {
             File workspaceDir = new File(workspacePath);
+            WorkspaceIndex index = indexes.remove(normalize(workspacePath));
+            if (index != null && watcher != null) {
+                watcher.unregister(index);
+            }
             if (workspaceDir.exists()) {
                 deleteDirectoryRecursively(workspaceDir);
                 log.info("Deleted workspace: {}", workspacePath);
             }
+            // 手动删除和生命周期回收都经过这里，一并清理工作目录内项目的分析缓存
+            if (analysisCache != null) {
+                analysisCache.invalidate(Paths.get(workspacePath));
+            }
         } catch (Exception e) {
             log.error("Error deleting workspace {}: {}", workspacePath, e.getMessage());
             throw new RuntimeException("Failed to delete workspace", e);
@@ -195,34 +520,79 @@ public class FileSystemServiceImpl implements FileSystemService {
                 return new WorkspaceInfo(workspacePath, Collections.emptyList(), 0, 0);
             }
 
-            List<String> files = new ArrayList<>();
-            long totalSize = 0;
-
-            try (var paths = Files.walk(workspaceDir.toPath())) {
-                files = paths.filter(Files::isRegularFile)
-                    .map(path -> workspaceDir.toPath().relativize(path).toString())
-                    .collect(Collectors.toList());
-
-                totalSize = paths.filter(Files::isRegularFile)
-                    .mapToLong(path -> {
-                        try {
-                            return Files.size(path);
-                        } catch (IOException e) {
-                            return 0;
-                        }
-                    })
-                    .sum();
-            }
-
+            WorkspaceIndex index = getIndex(workspacePath);
             long createTime = workspaceDir.lastModified();
 
-            return new WorkspaceInfo(workspacePath, files, totalSize, createTime);
+            return new WorkspaceInfo(workspacePath, index.listFiles(), index.getTotalSize(), createTime,
+                index.getVersion());
         } catch (Exception e) {
             log.error("Error getting workspace info for {}: {}", workspacePath, e.getMessage());
             throw new RuntimeException("Failed to get workspace info", e);
         }
     }
 
+    @Override
+    public FileEntry getFileEntry(String workspacePath, String filePath) {
+        try {
+            File workspaceDir = new File(workspacePath);
+            File targetFile = new File(workspaceDir, filePath);
+
+            // 安全检查
+            if (!targetFile.getCanonicalPath().startsWith(workspaceDir.getCanonicalPath())) {
+                throw new SecurityException("File path is outside workspace: " + filePath);
+            }
+
+            WorkspaceIndex index = getIndex(workspacePath);
+            String relativePath = index.relativize(targetFile.toPath().toAbsolutePath().normalize());
+            // 单文件 stat 校验，避免监听事件尚未到达时返回旧的元数据
+            index.refresh(relativePath);
+            return index.get(relativePath);
+        } catch (SecurityException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error getting file entry {} from workspace {}: {}", filePath, workspacePath, e.getMessage());
+            throw new RuntimeException("Failed to get file entry", e);
+        }
+    }
+
+    @Override
+    public WorkspaceChanges getChangesSince(String workspacePath, long sinceVersion) {
+        WorkspaceIndex index = getIndex(workspacePath);
+        long currentVersion = index.getVersion();
+        if (index.requiresResync(sinceVersion)) {
+            return new WorkspaceChanges(sinceVersion, currentVersion, index.snapshot(), true);
+        }
+        List<FileEntry> changes = index.changesSince(sinceVersion);
+        // 调用方已拿到游标之前的删除，对应的删除标记不再需要
+        index.purgeTombstones(sinceVersion);
+        return new WorkspaceChanges(sinceVersion, currentVersion, changes);
+    }
+
+    /**
+     * 回收空闲的工作目录索引并取消其目录监听
+     *
+     * @return 回收的索引数量
+     */
+    @Scheduled(fixedDelayString = "${app.workspace.index-eviction-interval-ms:300000}")
+    public int evictIdleIndexes() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(indexIdleMinutes);
+        int evicted = 0;
+        for (Map.Entry<Path, WorkspaceIndex> entry : indexes.entrySet()) {
+            WorkspaceIndex index = entry.getValue();
+            if (index.getLastAccessed() > idleBefore || !indexes.remove(entry.getKey(), index)) {
+                continue;
+            }
+            if (watcher != null) {
+                watcher.unregister(index);
+            }
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle workspace indexes", evicted);
+        }
+        return evicted;
+    }
+
     @Override
     public boolean isFileSystemEnabled() {
         try {
@@ -242,6 +612,169 @@ public class FileSystemServiceImpl implements FileSystemService {
         }
     }
 
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * 获取工作目录索引，首次访问时扫描目录并注册监听
+     */
+    private WorkspaceIndex getIndex(String workspacePath) {
+        WorkspaceIndex workspaceIndex = indexes.computeIfAbsent(normalize(workspacePath), root -> {
+            WorkspaceIndex index = new WorkspaceIndex(root);
+            WorkspaceWatcher workspaceWatcher = getWatcher();
+            if (workspaceWatcher != null) {
+                // 先注册监听再扫描，扫描期间的改动不会丢失
+                workspaceWatcher.register(index);
+            }
+            index.rescan();
+            log.debug("Indexed workspace {}: {} files, {} bytes", root, index.getFileCount(), index.getTotalSize());
+            return index;
+        });
+        workspaceIndex.touch();
+        return workspaceIndex;
+    }
+
+    private WorkspaceWatcher getWatcher() {
+        if (!watchEnabled) {
+            return null;
+        }
+        if (watcher == null) {
+            synchronized (this) {
+                if (watcher == null) {
+                    try {
+                        watcher = new WorkspaceWatcher();
+                    } catch (IOException e) {
+                        log.warn("WatchService unavailable, workspace index relies on write-through only: {}",
+                            e.getMessage());
+                        watchEnabled = false;
+                    }
+                }
+            }
+        }
+        return watcher;
+    }
+
+    /**
+     * 写入文件内容：启用去重时内容写入存储并以硬链接落到工作目录，否则断开可能存在的硬链接后直接写入
+     * @return 内容哈希，未去重时返回 null
+     */
+    private String writeContent(Path target, byte[] content) throws IOException {
+        ContentAddressedStore store = getBlobStore();
+        if (store != null) {
+            return store.atomically(() -> {
+                String hash = store.put(content);
+                store.materialize(hash, target);
+                return hash;
+            });
+        }
+        HardLinkUtils.detach(target);
+        Files.write(target, content, WRITE_NO_FOLLOW);
+        return null;
+    }
+
+    private ContentAddressedStore getBlobStore() {
+        return dedupEnabled ? blobStore : null;
+    }
+
+    private ExecutorService getIoExecutor() {
+        if (ioExecutor == null) {
+            synchronized (this) {
+                if (ioExecutor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    ioExecutor = Executors.newFixedThreadPool(IO_THREADS, runnable -> {
+                        Thread thread = new Thread(runnable, "workspace-io-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return ioExecutor;
+    }
+
+    private Path normalize(String workspacePath) {
+        return Paths.get(workspacePath).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 按需读取内容的文件映射，迭代或 get 时才从磁盘加载，加载过的内容在本映射内缓存
+     */
+    static class LazyContentMap extends AbstractMap<String, String> {
+
+        private final Path root;
+        private final Set<String> files;
+        private final Map<String, String> loaded = new ConcurrentHashMap<>();
+
+        LazyContentMap(Path root, List<String> files) {
+            this.root = root;
+            this.files = new LinkedHashSet<>(files);
+        }
+
+        @Override
+        public int size() {
+            return files.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return files.contains(key);
+        }
+
+        @Override
+        public String get(Object key) {
+            return key instanceof String path && files.contains(path) ? load(path) : null;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    Iterator<String> paths = files.iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return paths.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            String path = paths.next();
+                            return new SimpleImmutableEntry<>(path, load(path));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return files.size();
+                }
+            };
+        }
+
+        private String load(String path) {
+            String cached = loaded.get(path);
+            if (cached != null) {
+                return cached;
+            }
+            try {
+                String content = Files.readString(root.resolve(path));
+                loaded.put(path, content);
+                return content;
+            } catch (IOException e) {
+                log.error("Error reading file {}: {}", path, e.getMessage());
+                return null;
+            }
+        }
+    }
+
     /**
      * 递归删除目录
      */
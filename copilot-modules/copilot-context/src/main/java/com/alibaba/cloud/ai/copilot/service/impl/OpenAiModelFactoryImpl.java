@@ -7,7 +7,6 @@ import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.model.ChatModel;
-import org.springframework.ai.model.tool.ToolCallingManager;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
@@ -24,6 +23,7 @@ import org.springframework.stereotype.Service;
 public class OpenAiModelFactoryImpl implements OpenAiModelFactory {
 
     private final ModelConfigService modelConfigService;
+    private final ParallelToolCallingManager toolCallingManager;
 
     // 默认配置常量 - 根据不同模型设置合理的token限制
     private static final int DEFAULT_MAX_TOKENS = 64000;  // 通用默认值，适用于大多数模型
@@ -60,8 +60,7 @@ public class OpenAiModelFactoryImpl implements OpenAiModelFactory {
             // 创建默认的ChatOptions
             OpenAiChatOptions defaultOptions = createDefaultChatOptions(modelName);
 
-            // 创建必需的组件
-            ToolCallingManager toolCallingManager = ToolCallingManager.builder().build();
+            // 创建必需的组件，工具调用使用共享的并行调用管理器
             RetryTemplate retryTemplate = RetryTemplate.builder().build();
             ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
 
@@ -0,0 +1,326 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.ToolOrchestrationService;
+import com.alibaba.cloud.ai.copilot.tools.BaseTool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.DefaultToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并行工具调用管理器
+ * 模型一次返回多个工具调用时，按原顺序切分为连续的只读调用段和写入调用段：
+ * 只读段内的调用在有界线程池上并发执行；写入段按工作目录分组，不同工作目录并发、同一工作目录内按顺序执行。
+ * 段与段之间保持原顺序，先读后写、先写后读的语义不变；工具结果始终按模型给出的顺序返回。
+ * 只读调用的结果在同一轮对话内经 {@link ToolResultCache} 复用，写入调用完成后按其路径参数失效缓存。
+ * 一轮对话由调用方在 toolContext 中传入的会话ID和消息ID标识，未传入时不使用缓存
+ */
+@Slf4j
+@Component
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    /**
+     * toolContext 中的会话ID
+     */
+    public static final String CONVERSATION_ID = "conversationId";
+
+    /**
+     * toolContext 中的消息ID，同一次用户请求内的多轮工具调用共用
+     */
+    public static final String MESSAGE_ID = "messageId";
+
+    private static final String GLOBAL_WORKSPACE = "";
+    private static final List<String> PATH_ARGUMENTS = List.of(
+        "filePath", "file_path", "absolutePath", "absolute_path", "projectPath", "project_path", "path");
+
+    private final ToolCallingManager delegate = ToolCallingManager.builder().build();
+    private final ToolExecutionExceptionProcessor exceptionProcessor = DefaultToolExecutionExceptionProcessor.builder().build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ToolOrchestrationService toolOrchestrationService;
+    private final ToolResultCache resultCache;
+    private final Path workspaceRoot;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelToolCallingManager(
+            ToolOrchestrationService toolOrchestrationService,
+            ToolResultCache resultCache,
+            @Value("${app.workspace.root-directory:./workspace}") String workspaceRoot,
+            @Value("${copilot.tool-execution.parallelism:4}") int parallelism,
+            @Value("${copilot.tool-execution.queue-capacity:64}") int queueCapacity) {
+        this.toolOrchestrationService = toolOrchestrationService;
+        this.resultCache = resultCache;
+        this.workspaceRoot = Paths.get(workspaceRoot).toAbsolutePath().normalize();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread thread = new Thread(r, "tool-call-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // 队列满时由调用线程执行，保证调用不会被拒绝
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return delegate.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        Generation toolCallGeneration = chatResponse.getResults().stream()
+            .filter(g -> g.getOutput().getToolCalls() != null && !g.getOutput().getToolCalls().isEmpty())
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+
+        AssistantMessage assistantMessage = toolCallGeneration.getOutput();
+        List<AssistantMessage.ToolCall> toolCalls = assistantMessage.getToolCalls();
+        List<ToolCallback> callbacks = prompt.getOptions() instanceof ToolCallingChatOptions options
+            ? options.getToolCallbacks() : List.of();
+        ToolContext toolContext = buildToolContext(prompt, assistantMessage);
+        String turnKey = turnKey(prompt);
+
+        // 解析每个调用对应的回调，找不到回调时与默认实现一样直接失败
+        List<PlannedCall> plannedCalls = new ArrayList<>(toolCalls.size());
+        boolean returnDirect = true;
+        for (int i = 0; i < toolCalls.size(); i++) {
+            AssistantMessage.ToolCall toolCall = toolCalls.get(i);
+            ToolCallback callback = callbacks.stream()
+                .filter(c -> c.getToolDefinition().name().equals(toolCall.name()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No ToolCallback found for tool name: " + toolCall.name()));
+            returnDirect &= callback.getToolMetadata().returnDirect();
+            String arguments = toolCall.arguments() == null || toolCall.arguments().isBlank() ? "{}" : toolCall.arguments();
+            plannedCalls.add(new PlannedCall(i, toolCall, callback, arguments, isReadOnly(toolCall.name()), turnKey));
+        }
+
+        ToolResponseMessage.ToolResponse[] responses = new ToolResponseMessage.ToolResponse[plannedCalls.size()];
+        int segmentStart = 0;
+        while (segmentStart < plannedCalls.size()) {
+            boolean readOnly = plannedCalls.get(segmentStart).readOnly();
+            int segmentEnd = segmentStart;
+            while (segmentEnd < plannedCalls.size() && plannedCalls.get(segmentEnd).readOnly() == readOnly) {
+                segmentEnd++;
+            }
+            List<PlannedCall> segment = plannedCalls.subList(segmentStart, segmentEnd);
+            if (readOnly) {
+                runConcurrently(segment, toolContext, responses);
+            } else {
+                runPerWorkspace(segment, toolContext, responses);
+            }
+            segmentStart = segmentEnd;
+        }
+
+        ToolResponseMessage toolResponseMessage = ToolResponseMessage.builder().responses(List.of(responses)).build();
+        List<Message> conversationHistory = new ArrayList<>(prompt.copy().getInstructions());
+        conversationHistory.add(assistantMessage);
+        conversationHistory.add(toolResponseMessage);
+
+        return ToolExecutionResult.builder()
+            .conversationHistory(conversationHistory)
+            .returnDirect(returnDirect)
+            .build();
+    }
+
+    private void runConcurrently(List<PlannedCall> calls, ToolContext toolContext,
+                                 ToolResponseMessage.ToolResponse[] responses) {
+        if (calls.size() == 1) {
+            PlannedCall call = calls.get(0);
+            responses[call.index()] = invoke(call, toolContext);
+            return;
+        }
+        awaitAll(calls.stream()
+            .map(call -> CompletableFuture.runAsync(() -> responses[call.index()] = invoke(call, toolContext), executor))
+            .toList());
+        log.debug("Executed {} read-only tool calls concurrently", calls.size());
+    }
+
+    private void runPerWorkspace(List<PlannedCall> calls, ToolContext toolContext,
+                                 ToolResponseMessage.ToolResponse[] responses) {
+        Map<String, List<PlannedCall>> byWorkspace = new LinkedHashMap<>();
+        for (PlannedCall call : calls) {
+            byWorkspace.computeIfAbsent(workspaceKey(call.arguments()), k -> new ArrayList<>()).add(call);
+        }
+        if (byWorkspace.size() == 1) {
+            for (PlannedCall call : calls) {
+                responses[call.index()] = invoke(call, toolContext);
+            }
+            return;
+        }
+        awaitAll(byWorkspace.values().stream()
+            .map(group -> CompletableFuture.runAsync(() -> {
+                for (PlannedCall call : group) {
+                    responses[call.index()] = invoke(call, toolContext);
+                }
+            }, executor))
+            .toList());
+    }
+
+    private ToolResponseMessage.ToolResponse invoke(PlannedCall call, ToolContext toolContext) {
+        String result;
+        if (call.readOnly() && call.turnKey() != null) {
+            List<Path> paths = argumentPaths(call.arguments());
+            result = resultCache.getOrCompute(call.turnKey(), call.toolCall().name(), call.arguments(),
+                paths.isEmpty() ? null : paths.get(0), () -> call(call, toolContext));
+        } else if (call.readOnly()) {
+            result = call(call, toolContext);
+        } else {
+            try {
+                result = call(call, toolContext);
+            } finally {
+                invalidate(call);
+            }
+        }
+        return new ToolResponseMessage.ToolResponse(call.toolCall().id(), call.toolCall().name(), result);
+    }
+
+    private String call(PlannedCall call, ToolContext toolContext) {
+        try {
+            return call.callback().call(call.arguments(), toolContext);
+        } catch (ToolExecutionException e) {
+            return exceptionProcessor.process(e);
+        }
+    }
+
+    /**
+     * 写入调用完成后失效其涉及路径的缓存，无法确定路径时清空本轮缓存
+     */
+    private void invalidate(PlannedCall call) {
+        if (call.turnKey() == null) {
+            return;
+        }
+        List<Path> paths = argumentPaths(call.arguments());
+        if (paths.isEmpty()) {
+            resultCache.invalidateTurn(call.turnKey());
+        } else {
+            paths.forEach(path -> resultCache.invalidate(call.turnKey(), path));
+        }
+    }
+
+    private void awaitAll(List<CompletableFuture<Void>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isReadOnly(String toolName) {
+        BaseTool<?> tool = toolOrchestrationService.getTool(toolName);
+        return tool != null && tool.isReadOnly();
+    }
+
+    /**
+     * 从参数中的路径推断工作目录 {root}/{userId}/{conversationId}，无法判断时归入同一个全局分组
+     */
+    private String workspaceKey(String arguments) {
+        List<Path> paths = argumentPaths(arguments);
+        if (!paths.isEmpty()) {
+            Path path = paths.get(0);
+            if (path.startsWith(workspaceRoot) && workspaceRoot.relativize(path).getNameCount() >= 2) {
+                return workspaceRoot.resolve(workspaceRoot.relativize(path).subpath(0, 2)).toString();
+            }
+        }
+        return GLOBAL_WORKSPACE;
+    }
+
+    /**
+     * 提取参数中的路径，包括批量编辑中每个编辑的路径
+     */
+    private List<Path> argumentPaths(String arguments) {
+        List<Path> paths = new ArrayList<>();
+        try {
+            JsonNode node = objectMapper.readTree(arguments);
+            collectPaths(node, paths);
+            JsonNode edits = node.get("edits");
+            if (edits != null && edits.isArray()) {
+                edits.forEach(edit -> collectPaths(edit, paths));
+            }
+        } catch (Exception e) {
+            log.debug("Could not read paths from tool arguments: {}", e.getMessage());
+        }
+        return paths;
+    }
+
+    private void collectPaths(JsonNode node, List<Path> paths) {
+        for (String name : PATH_ARGUMENTS) {
+            JsonNode value = node.get(name);
+            if (value != null && value.isTextual() && !value.asText().isBlank()) {
+                paths.add(Paths.get(value.asText()).toAbsolutePath().normalize());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 以 toolContext 中的会话ID和消息ID标识一轮对话，缺少任一项时返回 null（不缓存）
+     */
+    private String turnKey(Prompt prompt) {
+        if (!(prompt.getOptions() instanceof ToolCallingChatOptions options) || options.getToolContext() == null) {
+            return null;
+        }
+        Object conversationId = options.getToolContext().get(CONVERSATION_ID);
+        Object messageId = options.getToolContext().get(MESSAGE_ID);
+        if (conversationId == null || messageId == null) {
+            return null;
+        }
+        return conversationId + ":" + messageId;
+    }
+
+    private ToolContext buildToolContext(Prompt prompt, AssistantMessage assistantMessage) {
+        Map<String, Object> toolContextMap = Map.of();
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options
+                && options.getToolContext() != null && !options.getToolContext().isEmpty()) {
+            toolContextMap = new HashMap<>(options.getToolContext());
+            List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+            history.add(assistantMessage);
+            toolContextMap.put(ToolContext.TOOL_CALL_HISTORY, history);
+        }
+        return new ToolContext(toolContextMap);
+    }
+
+    private record PlannedCall(int index, AssistantMessage.ToolCall toolCall, ToolCallback callback,
+                               String arguments, boolean readOnly, String turnKey) {
+    }
+}
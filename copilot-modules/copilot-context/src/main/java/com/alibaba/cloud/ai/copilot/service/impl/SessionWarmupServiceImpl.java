@@ -0,0 +1,143 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.context.domain.ModelConfig;
+import com.alibaba.cloud.ai.copilot.core.domain.UserSessionEvent;
+import com.alibaba.cloud.ai.copilot.service.ConversationService;
+import com.alibaba.cloud.ai.copilot.service.DynamicModelService;
+import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.service.ModelConfigService;
+import com.alibaba.cloud.ai.copilot.service.SessionWarmupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 会话预热服务实现
+ * 监听登录/续期事件，在异步线程中依次预热：当前会话ID、默认模型实例、会话工作空间。
+ * 聊天记忆前面没有缓存，提前读取不会缩短首次对话的加载，因此不在预热范围内
+ */
+@Slf4j
+@Service
+public class SessionWarmupServiceImpl implements SessionWarmupService {
+
+    private static final String LAST_MODEL_KEY_PREFIX = "user:last:model:";
+    private static final long LAST_MODEL_EXPIRE_DAYS = 30;
+    private static final int MAX_TRACKED_USERS = 10_000;
+
+    private final ConversationService conversationService;
+    private final DynamicModelService dynamicModelService;
+    private final ModelConfigService modelConfigService;
+    private final FileSystemService fileSystemService;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final long minIntervalMillis;
+
+    // 最近一次预热时间，避免频繁续期导致重复预热；按最近访问淘汰，数量有上限
+    private final Map<String, Long> lastWarmup = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > MAX_TRACKED_USERS;
+            }
+        });
+
+    public SessionWarmupServiceImpl(
+            @Qualifier("chatMemoryConversationService") ConversationService conversationService,
+            DynamicModelService dynamicModelService,
+            ModelConfigService modelConfigService,
+            FileSystemService fileSystemService,
+            RedisTemplate<String, String> redisTemplate,
+            @Value("${copilot.warmup.min-interval-seconds:300}") long minIntervalSeconds) {
+        this.conversationService = conversationService;
+        this.dynamicModelService = dynamicModelService;
+        this.modelConfigService = modelConfigService;
+        this.fileSystemService = fileSystemService;
+        this.redisTemplate = redisTemplate;
+        this.minIntervalMillis = TimeUnit.SECONDS.toMillis(minIntervalSeconds);
+    }
+
+    /**
+     * 登录或 token 续期时异步触发预热
+     */
+    @Async
+    @EventListener
+    public void onUserSession(UserSessionEvent event) {
+        if (event.getLoginId() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // 间隔内的续期不重新预热，保留上一次的预热时间
+        AtomicBoolean due = new AtomicBoolean();
+        lastWarmup.compute(event.getLoginId(), (loginId, previous) -> {
+            if (event.isRenewal() && previous != null && now - previous < minIntervalMillis) {
+                return previous;
+            }
+            due.set(true);
+            return now;
+        });
+        if (!due.get()) {
+            return;
+        }
+        warmUp(event.getLoginId());
+    }
+
+    @Override
+    public void warmUp(String userId) {
+        long start = System.currentTimeMillis();
+        try {
+            String conversationId = conversationService.getOrCreateConversationId(userId);
+
+            String model = resolveDefaultModel(userId);
+            if (model != null) {
+                dynamicModelService.getChatModel(model, userId);
+            }
+
+            fileSystemService.createSessionWorkspace(conversationId, userId);
+
+            log.info("Warmed up session for user {} in {}ms: conversation={}, model={}",
+                userId, System.currentTimeMillis() - start, conversationId, model);
+        } catch (Exception e) {
+            // 预热失败不影响正常请求，首次对话时会按原路径重新加载
+            log.warn("Session warm-up failed for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void rememberModel(String userId, String model) {
+        if (userId == null || model == null || model.isBlank()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(LAST_MODEL_KEY_PREFIX + userId, model,
+                LAST_MODEL_EXPIRE_DAYS, TimeUnit.DAYS);
+        } catch (Exception e) {
+            log.debug("Failed to remember model for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析用户默认模型：优先使用最近一次使用的模型，否则与前端一致取第一个启用的模型
+     */
+    private String resolveDefaultModel(String userId) {
+        String lastModel = redisTemplate.opsForValue().get(LAST_MODEL_KEY_PREFIX + userId);
+        if (lastModel != null && !lastModel.isBlank()) {
+            return lastModel;
+        }
+        List<ModelConfig> enabledModels = modelConfigService.getEnabledModelConfigs();
+        return enabledModels.stream()
+            .map(ModelConfig::getModelKey)
+            .filter(key -> key != null && !key.isBlank())
+            .findFirst()
+            .orElse(null);
+    }
+}
@@ -1,17 +1,26 @@
 package com.alibaba.cloud.ai.copilot.service.impl;
 
+import com.alibaba.cloud.ai.copilot.dto.ChatHistoryPage;
 import com.alibaba.cloud.ai.copilot.model.ChatMessage;
+import com.alibaba.cloud.ai.copilot.service.ContentCompressionService;
 import com.alibaba.cloud.ai.copilot.service.ConversationService;
 import com.alibaba.cloud.ai.copilot.service.SimpleChatMemoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 简单聊天记忆服务实现
@@ -24,8 +33,17 @@ public class SimpleChatMemoryServiceImpl implements SimpleChatMemoryService {
 
     private final JdbcTemplate jdbcTemplate;
     private final ConversationService conversationService;
+    private final ContentCompressionService compressionService;
 
     private static final int DEFAULT_MESSAGE_LIMIT = 20;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private static final String FULL_COLUMNS = "id, conversation_id, role, content, created_at";
+    // 投影查询读取写入时记录的原文长度，不读取也不解压内容；
+    // 只有未记录长度的旧数据才取出内容，解压后计算长度
+    private static final String PROJECTED_COLUMNS =
+        "id, conversation_id, role, content_length, " +
+        "CASE WHEN content_length IS NULL THEN content END AS legacy_content, created_at";
 
     @Override
     public void addUserMessage(String userId, String content) {
@@ -48,8 +66,10 @@ public class SimpleChatMemoryServiceImpl implements SimpleChatMemoryService {
 
         try {
             jdbcTemplate.update(
-                "INSERT INTO chat_messages (conversation_id, role, content, created_at) VALUES (?, ?, ?, ?)",
-                conversationId, role, content, Timestamp.valueOf(LocalDateTime.now())
+                "INSERT INTO chat_messages (conversation_id, role, content, content_length, created_at) " +
+                "VALUES (?, ?, ?, ?, ?)",
+                conversationId, role, compressionService.compress(content), contentLength(content),
+                Timestamp.valueOf(LocalDateTime.now())
             );
 
             log.debug("Added {} message to conversation {}: {}", role, conversationId,
@@ -74,22 +94,86 @@ public class SimpleChatMemoryServiceImpl implements SimpleChatMemoryService {
         String conversationId = conversationService.getOrCreateConversationId(userId);
 
         try {
-            return jdbcTemplate.query(
-                "SELECT role, content, created_at FROM chat_messages " +
-                "WHERE conversation_id = ? ORDER BY created_at ASC LIMIT ?",
-                new Object[]{conversationId, limit},
-                (rs, rowNum) -> new ChatMessage(
-                    rs.getString("role"),
-                    rs.getString("content"),
-                    rs.getTimestamp("created_at").toLocalDateTime()
-                )
-            );
+            // 倒序取最近的 limit 条，再翻转为升序
+            List<ChatMessage> messages = new ArrayList<>(jdbcTemplate.query(
+                "SELECT " + FULL_COLUMNS + " FROM chat_messages " +
+                "WHERE conversation_id = ? ORDER BY id DESC LIMIT ?",
+                messageRowMapper(true),
+                conversationId, limit
+            ));
+            Collections.reverse(messages);
+            return messages;
         } catch (Exception e) {
             log.error("Failed to get conversation history for {}: {}", conversationId, e.getMessage());
             return List.of();
         }
     }
 
+    @Override
+    public ChatHistoryPage getConversationHistoryPage(String userId, Long beforeId, Long afterId,
+                                                      int limit, boolean includeContent) {
+        String conversationId = conversationService.getOrCreateConversationId(userId);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String columns = includeContent ? FULL_COLUMNS : PROJECTED_COLUMNS;
+        boolean forward = afterId != null && beforeId == null;
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns)
+            .append(" FROM chat_messages WHERE conversation_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(conversationId);
+        if (beforeId != null) {
+            sql.append(" AND id < ?");
+            args.add(beforeId);
+        }
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            args.add(afterId);
+        }
+        // 多取一条用于判断是否还有下一页
+        sql.append(forward ? " ORDER BY id ASC" : " ORDER BY id DESC").append(" LIMIT ?");
+        args.add(pageSize + 1);
+
+        try {
+            List<ChatMessage> messages = new ArrayList<>(
+                jdbcTemplate.query(sql.toString(), messageRowMapper(includeContent), args.toArray()));
+            boolean hasMore = messages.size() > pageSize;
+            if (hasMore) {
+                messages.remove(messages.size() - 1);
+            }
+            if (!forward) {
+                Collections.reverse(messages);
+            }
+
+            Long beforeCursor = messages.isEmpty() ? beforeId : messages.get(0).getId();
+            Long afterCursor = messages.isEmpty() ? afterId : messages.get(messages.size() - 1).getId();
+            return new ChatHistoryPage(messages, beforeCursor, afterCursor, hasMore);
+        } catch (Exception e) {
+            log.error("Failed to get conversation history page for {}: {}", conversationId, e.getMessage());
+            return new ChatHistoryPage(List.of(), beforeId, afterId, false);
+        }
+    }
+
+    @Override
+    public void streamConversationHistory(String userId, Long afterId, boolean includeContent,
+                                          Consumer<ChatMessage> consumer) {
+        String conversationId = conversationService.getOrCreateConversationId(userId);
+        String sql = "SELECT " + (includeContent ? FULL_COLUMNS : PROJECTED_COLUMNS) +
+            " FROM chat_messages WHERE conversation_id = ? AND id > ? ORDER BY id ASC";
+        RowMapper<ChatMessage> rowMapper = messageRowMapper(includeContent);
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL 驱动在 Integer.MIN_VALUE 时逐行流式返回结果，避免一次性加载到内存
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setString(1, conversationId);
+            ps.setLong(2, afterId != null ? afterId : 0L);
+            return ps;
+        }, rs -> {
+            consumer.accept(rowMapper.mapRow(rs, rs.getRow()));
+        });
+    }
+
     @Override
     @Transactional
     public void clearConversationHistory(String userId) {
@@ -124,6 +208,38 @@ public class SimpleChatMemoryServiceImpl implements SimpleChatMemoryService {
         }
     }
 
+    private RowMapper<ChatMessage> messageRowMapper(boolean includeContent) {
+        return (rs, rowNum) -> toChatMessage(rs, includeContent);
+    }
+
+    /**
+     * 映射一行消息；内容在首次读取时才解压，行映射本身不做解压
+     */
+    private ChatMessage toChatMessage(ResultSet rs, boolean includeContent) throws SQLException {
+        ChatMessage message = new ChatMessage(
+            rs.getString("role"),
+            includeContent ? rs.getString("content") : null,
+            includeContent ? compressionService::decompress : null,
+            rs.getTimestamp("created_at").toLocalDateTime()
+        );
+        message.setId(rs.getLong("id"));
+        message.setConversationId(rs.getString("conversation_id"));
+        if (!includeContent) {
+            int length = rs.getInt("content_length");
+            message.setContentLength(rs.wasNull()
+                ? contentLength(compressionService.decompress(rs.getString("legacy_content")))
+                : length);
+        }
+        return message;
+    }
+
+    /**
+     * 原文长度，按字符（码点）计算，与 MySQL 的 CHAR_LENGTH 一致
+     */
+    static Integer contentLength(String content) {
+        return content != null ? content.codePointCount(0, content.length()) : null;
+    }
+
     /**
      * 清理超出限制的旧消息
      * 保留最近的消息，删除超出限制的旧消息
@@ -137,7 +253,7 @@ public class SimpleChatMemoryServiceImpl implements SimpleChatMemoryService {
                 "  SELECT id FROM (" +
                 "    SELECT id FROM chat_messages " +
                 "    WHERE conversation_id = ? " +
-                "    ORDER BY created_at DESC " +
+                "    ORDER BY id DESC " +
                 "    LIMIT ?" +
                 "  ) t" +
                 ")",
@@ -206,6 +206,16 @@ public class SseEventServiceImpl implements SseEventService {
         sendSseEvent(emitter, "error", data);
     }
 
+    @Override
+    public void sendTaskEvent(SseEmitter emitter, String taskId, String type, Map<String, Object> payload) {
+        Map<String, Object> eventData = new HashMap<>(payload);
+        eventData.put("type", type);
+        Map<String, Object> data = new HashMap<>();
+        data.put("taskId", taskId);
+        data.put("data", eventData);
+        sendSseEvent(emitter, "task", data);
+    }
+
     @Override
     public void sendComplete(SseEmitter emitter) {
         try {
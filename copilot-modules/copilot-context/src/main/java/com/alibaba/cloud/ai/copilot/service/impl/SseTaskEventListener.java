@@ -0,0 +1,181 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.SseEventService;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.DefaultTaskEventListener;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskExecutionResult;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskStep;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 把任务事件推送给订阅了该任务的 SSE 连接
+ * 任务结束（完成、失败、取消）后发送完成事件并关闭连接。
+ * 分布式调度时任务可能在其他节点执行，而 SSE 连接只在建立它的节点上，事件经 Redis Topic 广播给所有节点，
+ * 由持有连接的节点推送
+ */
+@Slf4j
+public class SseTaskEventListener extends DefaultTaskEventListener {
+
+    private static final String EVENT_TOPIC = "copilot:task:events";
+
+    private final SseEventService sseEventService;
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RTopic eventTopic;
+    private final int eventListenerId;
+
+    public SseTaskEventListener(SseEventService sseEventService) {
+        this(sseEventService, null);
+    }
+
+    /**
+     * @param redissonClient 不为 null 时经 Redis Topic 在节点间广播事件
+     */
+    public SseTaskEventListener(SseEventService sseEventService, RedissonClient redissonClient) {
+        this.sseEventService = sseEventService;
+        if (redissonClient != null) {
+            this.eventTopic = redissonClient.getTopic(EVENT_TOPIC);
+            this.eventListenerId = eventTopic.addListener(String.class, (channel, message) -> onRemoteEvent(message));
+        } else {
+            this.eventTopic = null;
+            this.eventListenerId = -1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (eventTopic != null) {
+            eventTopic.removeListener(eventListenerId);
+        }
+    }
+
+    /**
+     * 订阅任务事件
+     * @param taskId 任务ID
+     * @param timeoutMillis 连接超时时间
+     */
+    public SseEmitter subscribe(String taskId, long timeoutMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribers.computeIfAbsent(taskId, k -> new CopyOnWriteArrayList<>()).add(emitter);
+        Runnable remove = () -> unsubscribe(taskId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(List::size).sum();
+    }
+
+    @Override
+    public void onTaskStateChanged(String taskId, String oldState, String newState) {
+        super.onTaskStateChanged(taskId, oldState, newState);
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("oldState", oldState);
+        payload.put("newState", newState);
+        publish(taskId, "state-changed", payload, "cancelled".equals(newState));
+    }
+
+    @Override
+    public void onStepCompleted(String taskId, int stepIndex, TaskStep step) {
+        super.onStepCompleted(taskId, stepIndex, step);
+        publish(taskId, "step-completed", Map.of(
+            "stepIndex", stepIndex,
+            "description", step.getDescription()
+        ), false);
+    }
+
+    @Override
+    public void onTaskCompleted(String taskId, TaskExecutionResult result) {
+        super.onTaskCompleted(taskId, result);
+        publish(taskId, "completed", Map.of("feedback", result.getFeedback()), true);
+    }
+
+    @Override
+    public void onTaskFailed(String taskId, String error) {
+        super.onTaskFailed(taskId, error);
+        publish(taskId, "failed", Map.of("error", error != null ? error : ""), true);
+    }
+
+    /**
+     * 发布任务事件，分布式时广播给所有节点，否则直接推送给本节点的连接
+     * @param close 推送后是否关闭连接
+     */
+    private void publish(String taskId, String type, Map<String, Object> payload, boolean close) {
+        if (eventTopic == null) {
+            deliver(taskId, type, payload, close);
+            return;
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("taskId", taskId);
+        event.put("type", type);
+        event.put("payload", payload);
+        event.put("close", close);
+        try {
+            eventTopic.publish(objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // 广播失败时至少推送给本节点的连接
+            log.warn("Failed to broadcast task event {} for task {}", type, taskId, e);
+            deliver(taskId, type, payload, close);
+        }
+    }
+
+    private void onRemoteEvent(String message) {
+        try {
+            Map<String, Object> event = objectMapper.readValue(message, new TypeReference<>() {});
+            @SuppressWarnings("unchecked")
+            Map<String, Object> payload = (Map<String, Object>) event.get("payload");
+            deliver((String) event.get("taskId"), (String) event.get("type"),
+                payload != null ? payload : Map.of(), Boolean.TRUE.equals(event.get("close")));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring malformed task event: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 推送给本节点上订阅了该任务的连接
+     */
+    private void deliver(String taskId, String type, Map<String, Object> payload, boolean close) {
+        List<SseEmitter> emitters = taskId != null ? subscribers.get(taskId) : null;
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            sseEventService.sendTaskEvent(emitter, taskId, type, payload);
+        }
+        if (close) {
+            completeAll(taskId);
+        }
+    }
+
+    private void completeAll(String taskId) {
+        List<SseEmitter> emitters = subscribers.remove(taskId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            sseEventService.sendComplete(emitter);
+        }
+        log.debug("Closed {} task event subscribers for task {}", emitters.size(), taskId);
+    }
+
+    private void unsubscribe(String taskId, SseEmitter emitter) {
+        subscribers.computeIfPresent(taskId, (k, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
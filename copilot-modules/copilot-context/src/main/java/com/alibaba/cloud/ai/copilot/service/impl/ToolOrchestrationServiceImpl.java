@@ -12,17 +12,21 @@ import java.util.*;
 
 /**
  * 工具编排服务实现类
- * 负责将所有工具注册并转换为Spring AI的ToolCallback格式
+ * 负责将所有工具注册并转换为Spring AI的ToolCallback格式。
+ * 回调列表和 JSON Schema 在注册时一次性生成，保存在不可变快照中；注册新工具时整体替换快照，
+ * 请求路径上只读取快照引用，不再反射扫描 @Tool 方法
  */
 @Slf4j
 @Service
 public class ToolOrchestrationServiceImpl implements ToolOrchestrationService {
 
-    private final Map<String, BaseTool<?>> toolRegistry = new HashMap<>();
     private final ApplicationContext applicationContext;
+    private final ToolRelevanceRanker relevanceRanker;
+    private volatile ToolCatalog catalog = ToolCatalog.EMPTY;
 
-    public ToolOrchestrationServiceImpl(ApplicationContext applicationContext) {
+    public ToolOrchestrationServiceImpl(ApplicationContext applicationContext, ToolRelevanceRanker relevanceRanker) {
         this.applicationContext = applicationContext;
+        this.relevanceRanker = relevanceRanker;
         // 自动注册所有工具
         initializeTools();
     }
@@ -34,10 +38,14 @@ public class ToolOrchestrationServiceImpl implements ToolOrchestrationService {
         try {
             // 从Spring容器获取所有工具Bean
             Map<String, BaseTool> toolBeans = applicationContext.getBeansOfType(BaseTool.class);
+            List<BaseTool<?>> tools = new ArrayList<>();
             for (BaseTool<?> tool : toolBeans.values()) {
-                registerTool(tool);
+                tools.add(tool);
             }
-            log.info("Registered {} tools: {}", toolRegistry.size(), toolRegistry.keySet());
+            registerTools(tools);
+            ToolCatalog snapshot = catalog;
+            log.info("Registered {} tools with {} callbacks: {}",
+                snapshot.tools().size(), snapshot.callbacks().size(), snapshot.tools().keySet());
         } catch (Exception e) {
             log.error("Error initializing tools", e);
         }
@@ -45,37 +53,86 @@ public class ToolOrchestrationServiceImpl implements ToolOrchestrationService {
 
     @Override
     public List<ToolCallback> getAllToolCallbacks() {
-        List<ToolCallback> callbacks = new ArrayList<>();
+        return catalog.callbacks();
+    }
 
-        // 从所有工具类中提取@Tool注解的方法并转换为ToolCallback
-        for (BaseTool<?> tool : toolRegistry.values()) {
-            try {
-                // 使用 ToolCallbacks.from() 从工具实例中提取所有@Tool注解的方法
-                List<ToolCallback> toolCallbacks = List.of(ToolCallbacks.from(tool));
-                callbacks.addAll(toolCallbacks);
-                log.debug("Extracted {} callbacks from tool: {}", toolCallbacks.size(), tool.getName());
-            } catch (Exception e) {
-                log.error("Error extracting callbacks from tool: {}", tool.getName(), e);
-            }
-        }
+    @Override
+    public List<ToolCallback> selectToolCallbacks(String userMessage, String conversationContext) {
+        return relevanceRanker.select(catalog.callbacks(), userMessage, conversationContext);
+    }
 
-        log.info("Created {} tool callbacks in total", callbacks.size());
-        return callbacks;
+    @Override
+    public Map<String, Object> getToolSelectionStats() {
+        return relevanceRanker.getStats();
+    }
+
+    @Override
+    public Map<String, String> getToolSchemas() {
+        return catalog.schemas();
     }
 
     @Override
     public BaseTool<?> getTool(String toolName) {
-        return toolRegistry.get(toolName);
+        return catalog.tools().get(toolName);
     }
 
     @Override
     public void registerTool(BaseTool<?> tool) {
-        toolRegistry.put(tool.getName(), tool);
+        registerTools(List.of(tool));
         log.debug("Registered tool: {}", tool.getName());
     }
 
     @Override
     public List<String> getAllToolNames() {
-        return new ArrayList<>(toolRegistry.keySet());
+        return new ArrayList<>(catalog.tools().keySet());
+    }
+
+    /**
+     * 基于当前快照生成包含新工具的快照并替换；注册操作之间互斥，读取无需加锁
+     */
+    private synchronized void registerTools(List<BaseTool<?>> newTools) {
+        ToolCatalog current = catalog;
+        Map<String, BaseTool<?>> tools = new LinkedHashMap<>(current.tools());
+        Map<String, List<ToolCallback>> callbacksByTool = new LinkedHashMap<>(current.callbacksByTool());
+
+        for (BaseTool<?> tool : newTools) {
+            // 工具本身总是注册，没有 @Tool 方法的工具（只通过 execute 调用）不提供回调
+            tools.put(tool.getName(), tool);
+            try {
+                // 使用 ToolCallbacks.from() 从工具实例中提取所有@Tool注解的方法
+                List<ToolCallback> toolCallbacks = List.of(ToolCallbacks.from(tool));
+                callbacksByTool.put(tool.getName(), toolCallbacks);
+                log.debug("Extracted {} callbacks from tool: {}", toolCallbacks.size(), tool.getName());
+            } catch (Exception e) {
+                callbacksByTool.remove(tool.getName());
+                log.debug("Tool {} exposes no @Tool callbacks: {}", tool.getName(), e.getMessage());
+            }
+        }
+
+        List<ToolCallback> callbacks = new ArrayList<>();
+        Map<String, String> schemas = new LinkedHashMap<>();
+        for (List<ToolCallback> toolCallbacks : callbacksByTool.values()) {
+            for (ToolCallback callback : toolCallbacks) {
+                callbacks.add(callback);
+                schemas.put(callback.getToolDefinition().name(), callback.getToolDefinition().inputSchema());
+            }
+        }
+
+        catalog = new ToolCatalog(
+            Collections.unmodifiableMap(tools),
+            Collections.unmodifiableMap(callbacksByTool),
+            List.copyOf(callbacks),
+            Collections.unmodifiableMap(schemas));
+    }
+
+    /**
+     * 工具快照，创建后不再修改
+     */
+    private record ToolCatalog(Map<String, BaseTool<?>> tools,
+                               Map<String, List<ToolCallback>> callbacksByTool,
+                               List<ToolCallback> callbacks,
+                               Map<String, String> schemas) {
+
+        static final ToolCatalog EMPTY = new ToolCatalog(Map.of(), Map.of(), List.of(), Map.of());
     }
 }
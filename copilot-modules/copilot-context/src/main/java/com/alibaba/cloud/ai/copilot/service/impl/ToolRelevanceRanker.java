@@ -0,0 +1,255 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.TokenService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工具相关度排序
+ * 按当前用户消息和最近的对话内容为工具打分：关键词规则命中、与工具描述的词汇重合，
+ * 以及可选的向量相似度；只把常驻工具和得分最高的 K 个工具发送给模型，并统计节省的 token。
+ * 得分为 0 的工具不发送，没有任何工具命中时只发送常驻工具
+ */
+@Slf4j
+@Component
+public class ToolRelevanceRanker {
+
+    private static final Map<String, List<String>> KEYWORD_RULES = Map.of(
+        "read_file", List.of("read", "open", "view", "show", "look", "content", "查看", "读取", "打开", "内容"),
+        "write_file", List.of("create", "write", "new file", "add", "generate", "创建", "新建", "写入", "生成", "添加"),
+        "edit_file", List.of("edit", "modify", "change", "fix", "update", "replace", "修改", "编辑", "修复", "更新", "替换"),
+        "multi_edit", List.of("rename", "refactor", "across", "all files", "every", "batch", "重命名", "重构", "批量", "所有文件"),
+        "scaffold_project", List.of("scaffold", "new project", "init", "bootstrap", "template", "脚手架", "新项目", "初始化", "模板"),
+        "smart_edit", List.of("project-wide", "intelligent", "describe", "whole project", "智能", "整个项目", "全局")
+    );
+
+    private static final double KEYWORD_SCORE = 2.0;
+    private static final double CONTEXT_KEYWORD_SCORE = 1.0;
+    private static final double LEXICAL_SCORE = 0.5;
+    private static final double MAX_LEXICAL_SCORE = 2.0;
+
+    private final ObjectProvider<EmbeddingModel> embeddingModelProvider;
+    private final TokenService tokenService;
+
+    @Value("${copilot.tool-selection.enabled:true}")
+    private boolean enabled;
+
+    @Value("${copilot.tool-selection.top-k:3}")
+    private int topK;
+
+    @Value("${copilot.tool-selection.always-include:read_file,write_file,edit_file,multi_edit}")
+    private List<String> alwaysInclude;
+
+    @Value("${copilot.tool-selection.embedding.enabled:false}")
+    private boolean embeddingEnabled;
+
+    @Value("${copilot.tool-selection.embedding.weight:3.0}")
+    private double embeddingWeight;
+
+    private final Map<String, float[]> toolEmbeddings = new ConcurrentHashMap<>();
+    private final Map<String, Integer> toolTokens = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> toolTerms = new ConcurrentHashMap<>();
+
+    private final AtomicLong selections = new AtomicLong();
+    private final AtomicLong skippedTools = new AtomicLong();
+    private final AtomicLong savedTokens = new AtomicLong();
+
+    public ToolRelevanceRanker(ObjectProvider<EmbeddingModel> embeddingModelProvider, TokenService tokenService) {
+        this.embeddingModelProvider = embeddingModelProvider;
+        this.tokenService = tokenService;
+    }
+
+    /**
+     * 选出与当前请求相关的工具
+     * @param candidates 全部工具回调
+     * @param userMessage 当前用户消息
+     * @param conversationContext 最近的对话内容，可为空
+     * @return 需要发送给模型的工具回调，保持原有顺序
+     */
+    public List<ToolCallback> select(List<ToolCallback> candidates, String userMessage, String conversationContext) {
+        if (!enabled || userMessage == null || userMessage.isBlank() || candidates.size() <= topK) {
+            return candidates;
+        }
+
+        String message = normalize(userMessage);
+        String context = conversationContext != null ? normalize(conversationContext) : "";
+        Set<String> messageTerms = terms(message);
+        float[] messageEmbedding = embed(userMessage);
+
+        Map<ToolCallback, Double> scores = new LinkedHashMap<>();
+        for (ToolCallback callback : candidates) {
+            scores.put(callback, score(callback, message, context, messageTerms, messageEmbedding));
+        }
+
+        Set<ToolCallback> selected = new HashSet<>();
+        for (ToolCallback callback : candidates) {
+            if (alwaysInclude.contains(callback.getToolDefinition().name())) {
+                selected.add(callback);
+            }
+        }
+        List<ToolCallback> ranked = scores.entrySet().stream()
+            .filter(e -> !selected.contains(e.getKey()) && e.getValue() > 0)
+            .sorted(Map.Entry.<ToolCallback, Double>comparingByValue(Comparator.reverseOrder()))
+            .limit(topK)
+            .map(Map.Entry::getKey)
+            .toList();
+        selected.addAll(ranked);
+
+        List<ToolCallback> result = new ArrayList<>(selected.size());
+        int saved = 0;
+        for (ToolCallback callback : candidates) {
+            if (selected.contains(callback)) {
+                result.add(callback);
+            } else {
+                saved += tokens(callback);
+            }
+        }
+
+        selections.incrementAndGet();
+        skippedTools.addAndGet(candidates.size() - result.size());
+        savedTokens.addAndGet(saved);
+        log.debug("Selected {}/{} tools, saved ~{} tokens: {}", result.size(), candidates.size(), saved,
+            result.stream().map(c -> c.getToolDefinition().name()).toList());
+        return result;
+    }
+
+    /**
+     * 获取累计统计
+     */
+    public Map<String, Object> getStats() {
+        long count = selections.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("topK", topK);
+        stats.put("selections", count);
+        stats.put("skippedTools", skippedTools.get());
+        stats.put("savedTokens", savedTokens.get());
+        stats.put("averageSavedTokens", count > 0 ? savedTokens.get() / count : 0);
+        return stats;
+    }
+
+    private double score(ToolCallback callback, String message, String context,
+                         Set<String> messageTerms, float[] messageEmbedding) {
+        String name = callback.getToolDefinition().name();
+        double score = 0;
+
+        for (String keyword : KEYWORD_RULES.getOrDefault(name, List.of())) {
+            if (matches(message, keyword)) {
+                score += KEYWORD_SCORE;
+            } else if (matches(context, keyword)) {
+                score += CONTEXT_KEYWORD_SCORE;
+            }
+        }
+
+        Set<String> descriptionTerms = toolTerms.computeIfAbsent(name, n -> terms(
+            normalize(n.replace('_', ' ') + " " + callback.getToolDefinition().description())));
+        long overlap = messageTerms.stream().filter(descriptionTerms::contains).count();
+        score += Math.min(MAX_LEXICAL_SCORE, overlap * LEXICAL_SCORE);
+
+        if (messageEmbedding != null) {
+            float[] toolEmbedding = toolEmbeddings.computeIfAbsent(name,
+                n -> embed(n.replace('_', ' ') + ": " + callback.getToolDefinition().description()));
+            if (toolEmbedding != null) {
+                score += embeddingWeight * Math.max(0, cosine(messageEmbedding, toolEmbedding));
+            }
+        }
+        return score;
+    }
+
+    private int tokens(ToolCallback callback) {
+        return toolTokens.computeIfAbsent(callback.getToolDefinition().name(), n -> tokenService.estimateTokens(
+            callback.getToolDefinition().description() + callback.getToolDefinition().inputSchema()));
+    }
+
+    private float[] embed(String text) {
+        if (!embeddingEnabled) {
+            return null;
+        }
+        EmbeddingModel embeddingModel = embeddingModelProvider.getIfAvailable();
+        if (embeddingModel == null) {
+            return null;
+        }
+        try {
+            return embeddingModel.embed(text);
+        } catch (Exception e) {
+            log.warn("Tool selection embedding failed, falling back to keyword rules: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 转为小写并把英文数字以外的字符折叠为单个空格，首尾各保留一个空格，便于按词边界匹配
+     */
+    static String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(lower.length() + 2).append(' ');
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c > 0x7F) {
+                normalized.append(c);
+            } else if (normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        if (normalized.charAt(normalized.length() - 1) != ' ') {
+            normalized.append(' ');
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * 关键词是否命中：英文关键词（含词组）按完整的词匹配，"add" 不会命中 "address"；
+     * 中文没有词边界，按子串匹配
+     * @param normalizedText 经过 {@link #normalize} 处理的文本
+     * @param keyword 关键词
+     */
+    static boolean matches(String normalizedText, String keyword) {
+        String normalizedKeyword = normalize(keyword);
+        for (int i = 0; i < keyword.length(); i++) {
+            if (keyword.charAt(i) > 0x7F) {
+                return normalizedText.contains(normalizedKeyword.strip());
+            }
+        }
+        return normalizedText.contains(normalizedKeyword);
+    }
+
+    private static Set<String> terms(String normalizedText) {
+        Set<String> terms = new HashSet<>();
+        for (String term : normalizedText.split("[^a-z0-9]+")) {
+            if (term.length() >= 4) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return normA == 0 || normB == 0 ? 0 : dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
@@ -0,0 +1,186 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 只读工具结果缓存
+ * 按一轮对话（一次请求内模型的多次工具调用）隔离，键为（工具名, 规范化后的参数），
+ * 命中时还要求目标路径的修改时间和大小未变；相同调用正在执行时直接等待同一个结果。
+ * 写入类工具执行后按路径失效相关条目：目标本身、其所在的各级目录，以及被删除目录下的条目
+ */
+@Slf4j
+@Component
+public class ToolResultCache {
+
+    private static final String NO_TARGET = "-";
+    private static final String MISSING = "missing";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, TurnCache> turns = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Value("${copilot.tool-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${copilot.tool-cache.turn-idle-seconds:600}")
+    private long turnIdleSeconds;
+
+    @Value("${copilot.tool-cache.max-entries-per-turn:256}")
+    private int maxEntriesPerTurn;
+
+    /**
+     * 获取缓存的工具结果，未命中时执行 loader
+     * @param turnKey 对话轮次标识
+     * @param toolName 工具名称
+     * @param arguments 调用参数（JSON）
+     * @param target 调用读取的路径，无法确定时为 null
+     * @param loader 实际执行工具调用
+     */
+    public String getOrCompute(String turnKey, String toolName, String arguments, Path target, Supplier<String> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        evictIdleTurns();
+
+        TurnCache turn = turns.computeIfAbsent(turnKey, k -> new TurnCache());
+        turn.lastAccess = System.currentTimeMillis();
+        if (turn.entries.size() >= maxEntriesPerTurn) {
+            turn.entries.clear();
+        }
+
+        String key = toolName + "\n" + normalize(arguments);
+        String stamp = stamp(target);
+        Entry fresh = new Entry(target, stamp, new CompletableFuture<>());
+        Entry entry = turn.entries.compute(key,
+            (k, existing) -> existing != null && existing.stamp().equals(stamp) ? existing : fresh);
+
+        if (entry != fresh) {
+            (entry.result().isDone() ? hits : coalesced).incrementAndGet();
+            try {
+                return entry.result().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            String result = loader.get();
+            fresh.result().complete(result);
+            if (isError(result)) {
+                turn.entries.remove(key, fresh);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            fresh.result().completeExceptionally(e);
+            turn.entries.remove(key, fresh);
+            throw e;
+        }
+    }
+
+    /**
+     * 使与路径相关的缓存失效
+     */
+    public void invalidate(String turnKey, Path path) {
+        TurnCache turn = turns.get(turnKey);
+        if (turn == null) {
+            return;
+        }
+        Path changed = path.toAbsolutePath().normalize();
+        turn.entries.values().removeIf(entry -> {
+            boolean affected = entry.target() == null
+                || changed.startsWith(entry.target())
+                || entry.target().startsWith(changed);
+            if (affected) {
+                invalidations.incrementAndGet();
+            }
+            return affected;
+        });
+    }
+
+    /**
+     * 清空一轮对话的全部缓存
+     */
+    public void invalidateTurn(String turnKey) {
+        TurnCache turn = turns.get(turnKey);
+        if (turn != null) {
+            invalidations.addAndGet(turn.entries.size());
+            turn.entries.clear();
+        }
+    }
+
+    /**
+     * 获取命中统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("activeTurns", turns.size());
+        stats.put("hits", hits.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("misses", misses.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private void evictIdleTurns() {
+        long deadline = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(turnIdleSeconds);
+        turns.values().removeIf(turn -> turn.lastAccess < deadline);
+    }
+
+    private String stamp(Path target) {
+        if (target == null) {
+            return NO_TARGET;
+        }
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(target, BasicFileAttributes.class);
+            return attrs.lastModifiedTime().toMillis() + ":" + attrs.size();
+        } catch (NoSuchFileException e) {
+            return MISSING;
+        } catch (IOException e) {
+            // 无法读取属性时生成唯一标记，保证不会命中
+            return "unknown:" + System.nanoTime();
+        }
+    }
+
+    private String normalize(String arguments) {
+        try {
+            return objectMapper.readTree(arguments).toString();
+        } catch (Exception e) {
+            return arguments;
+        }
+    }
+
+    private boolean isError(String result) {
+        return result == null || result.startsWith("Error") || result.startsWith("\"Error");
+    }
+
+    private record Entry(Path target, String stamp, CompletableFuture<String> result) {
+    }
+
+    private static class TurnCache {
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private volatile long lastAccess = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,361 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.FileSystemService.FileEntry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工作目录文件索引
+ * 在内存中维护工作目录下文件的路径、大小、修改时间和内容哈希，每次变更分配递增版本号。
+ * 统计查询直接读取计数器，增量列表通过版本号到路径的有序变更日志获取；
+ * 文件内容不进入索引，哈希在首次需要时才计算。
+ * <p>
+ * 删除的文件以删除标记保留，供增量列表通知客户端。调用方以某个版本拉取增量后，
+ * 该版本及之前的删除标记视为已应用并被清除；未被拉取的删除标记超过 {@value #MAX_TOMBSTONES} 条时从最旧的开始清除。
+ * 被清除的最大版本记为压缩水位，游标低于水位的请求无法得到完整增量，需要全量同步。
+ * 版本号从索引创建时刻（微秒）开始递增，索引被回收后重建不会复用旧版本号，旧游标一律低于新索引的水位
+ */
+@Slf4j
+public class WorkspaceIndex {
+
+    private static final int HASH_BUFFER_SIZE = 8192;
+    private static final int MAX_TOMBSTONES = 10_000;
+
+    private final Path root;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, String> changeLog = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, String> tombstones = new ConcurrentSkipListMap<>();
+    private final AtomicLong version;
+    private final AtomicLong totalSize = new AtomicLong();
+    private final AtomicInteger fileCount = new AtomicInteger();
+    private volatile long compactedVersion;
+    private volatile long lastAccessed = System.currentTimeMillis();
+
+    public WorkspaceIndex(Path root) {
+        this.root = root;
+        long initialVersion = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.version = new AtomicLong(initialVersion);
+        this.compactedVersion = initialVersion;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getTotalSize() {
+        return totalSize.get();
+    }
+
+    public int getFileCount() {
+        return fileCount.get();
+    }
+
+    /**
+     * 已清除的删除标记中的最大版本，低于该版本的游标需要全量同步
+     */
+    public long getCompactedVersion() {
+        return compactedVersion;
+    }
+
+    /**
+     * 记录一次访问，供空闲回收判断
+     */
+    public void touch() {
+        lastAccessed = System.currentTimeMillis();
+    }
+
+    public long getLastAccessed() {
+        return lastAccessed;
+    }
+
+    /**
+     * 游标之后的删除标记是否可能已被清除
+     */
+    public boolean requiresResync(long sinceVersion) {
+        return sinceVersion < compactedVersion;
+    }
+
+    /**
+     * 相对路径（与原 getAllFiles 返回的键一致）
+     */
+    public String relativize(Path file) {
+        return root.relativize(file).toString();
+    }
+
+    /**
+     * 列出所有未删除的文件
+     */
+    public List<String> listFiles() {
+        List<String> files = new ArrayList<>(fileCount.get());
+        entries.forEach((path, entry) -> {
+            if (!entry.deleted) {
+                files.add(path);
+            }
+        });
+        return files;
+    }
+
+    /**
+     * 获取文件索引信息，必要时计算内容哈希
+     */
+    public FileEntry get(String relativePath) {
+        Entry entry = entries.get(relativePath);
+        if (entry == null || entry.deleted) {
+            return null;
+        }
+        if (entry.hash == null) {
+            entry.hash = hash(root.resolve(relativePath));
+        }
+        return entry.toFileEntry();
+    }
+
+    /**
+     * 获取指定版本之后的变更
+     */
+    public List<FileEntry> changesSince(long sinceVersion) {
+        List<FileEntry> changes = new ArrayList<>();
+        for (String path : changeLog.tailMap(sinceVersion, false).values()) {
+            Entry entry = entries.get(path);
+            if (entry != null && entry.version > sinceVersion) {
+                changes.add(entry.toFileEntry());
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 全部未删除文件的当前状态，用于游标过旧时的全量同步
+     */
+    public List<FileEntry> snapshot() {
+        List<FileEntry> files = new ArrayList<>(fileCount.get());
+        entries.forEach((path, entry) -> {
+            if (!entry.deleted) {
+                files.add(entry.toFileEntry());
+            }
+        });
+        return files;
+    }
+
+    /**
+     * 清除版本不超过 {@code appliedVersion} 的删除标记，调用方已经拿到了这些删除
+     */
+    public synchronized void purgeTombstones(long appliedVersion) {
+        if (appliedVersion > version.get()) {
+            return;
+        }
+        NavigableMap<Long, String> applied = tombstones.headMap(appliedVersion, true);
+        while (!applied.isEmpty()) {
+            purgeTombstone(applied.firstEntry());
+        }
+    }
+
+    /**
+     * 写入直通：调用方已知内容哈希时直接登记，未知时传 null 延迟计算
+     */
+    public synchronized void recordWrite(String relativePath, long size, long lastModified, String hash) {
+        put(relativePath, size, lastModified, hash);
+    }
+
+    /**
+     * 按磁盘状态刷新单个文件，大小和修改时间未变时不产生新版本
+     */
+    public synchronized void refresh(String relativePath) {
+        Path file = root.resolve(relativePath);
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attrs.isRegularFile()) {
+                refresh(relativePath, attrs);
+            }
+        } catch (NoSuchFileException e) {
+            remove(relativePath);
+        } catch (IOException e) {
+            log.debug("Failed to stat {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除文件或目录下的全部条目
+     */
+    public synchronized void remove(String relativePath) {
+        String dirPrefix = relativePath + root.getFileSystem().getSeparator();
+        for (String path : new ArrayList<>(entries.keySet())) {
+            if (path.equals(relativePath) || path.startsWith(dirPrefix)) {
+                markDeleted(path);
+            }
+        }
+    }
+
+    /**
+     * 全量扫描，与磁盘状态对齐
+     */
+    public synchronized void rescan() {
+        Set<String> seen = new HashSet<>();
+        walk(root, seen);
+        for (String path : new ArrayList<>(entries.keySet())) {
+            if (!seen.contains(path)) {
+                markDeleted(path);
+            }
+        }
+    }
+
+    /**
+     * 扫描子目录并登记其中的文件，用于新建目录
+     */
+    public synchronized void scan(Path directory) {
+        walk(directory, new HashSet<>());
+    }
+
+    private void walk(Path start, Set<String> seen) {
+        if (!Files.isDirectory(start)) {
+            return;
+        }
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        String relativePath = relativize(file);
+                        seen.add(relativePath);
+                        refresh(relativePath, attrs);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    log.debug("Skipping unreadable path {}: {}", file, exc.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to scan workspace {}: {}", start, e.getMessage());
+        }
+    }
+
+    private void refresh(String relativePath, BasicFileAttributes attrs) {
+        long size = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        Entry current = entries.get(relativePath);
+        if (current != null && !current.deleted && current.size == size && current.lastModified == lastModified) {
+            return;
+        }
+        put(relativePath, size, lastModified, null);
+    }
+
+    private void put(String relativePath, long size, long lastModified, String hash) {
+        Entry previous = entries.get(relativePath);
+        Entry entry = new Entry(relativePath, size, lastModified, hash, version.incrementAndGet(), false);
+        entries.put(relativePath, entry);
+        changeLog.put(entry.version, relativePath);
+
+        if (previous != null) {
+            changeLog.remove(previous.version);
+            if (previous.deleted) {
+                tombstones.remove(previous.version);
+            }
+        }
+        if (previous == null || previous.deleted) {
+            fileCount.incrementAndGet();
+            totalSize.addAndGet(size);
+        } else {
+            totalSize.addAndGet(size - previous.size);
+        }
+    }
+
+    private void markDeleted(String relativePath) {
+        Entry previous = entries.get(relativePath);
+        if (previous == null || previous.deleted) {
+            return;
+        }
+        // 保留删除标记，增量列表才能通知客户端
+        Entry tombstone = new Entry(relativePath, 0, previous.lastModified, null, version.incrementAndGet(), true);
+        entries.put(relativePath, tombstone);
+        changeLog.remove(previous.version);
+        changeLog.put(tombstone.version, relativePath);
+        tombstones.put(tombstone.version, relativePath);
+        fileCount.decrementAndGet();
+        totalSize.addAndGet(-previous.size);
+        while (tombstones.size() > MAX_TOMBSTONES) {
+            purgeTombstone(tombstones.firstEntry());
+        }
+    }
+
+    private void purgeTombstone(Map.Entry<Long, String> tombstone) {
+        tombstones.remove(tombstone.getKey());
+        changeLog.remove(tombstone.getKey());
+        entries.computeIfPresent(tombstone.getValue(),
+            (path, entry) -> entry.deleted && entry.version == tombstone.getKey() ? null : entry);
+        compactedVersion = Math.max(compactedVersion, tombstone.getKey());
+    }
+
+    private static String hash(Path file) {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            log.debug("Failed to hash {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final long version;
+        private final boolean deleted;
+        private volatile String hash;
+
+        private Entry(String path, long size, long lastModified, String hash, long version, boolean deleted) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.version = version;
+            this.deleted = deleted;
+        }
+
+        private FileEntry toFileEntry() {
+            return new FileEntry(path, size, lastModified, hash, version, deleted);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.WorkspaceLifecycleReport;
+import com.alibaba.cloud.ai.copilot.service.ConversationService;
+import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceLifecycleService;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 工作目录生命周期服务实现
+ * 定时扫描 {root}/{userId}/{conversationId}：会话已从 Redis 过期且闲置超过 TTL 的工作目录直接回收；
+ * 用户总占用超过配额时，按最近修改时间由旧到新回收，保留最近使用的一个。
+ * 目录名是清洗后的用户ID与会话ID，会话查询使用用户目录中记录的原始登录ID，没有记录的用户目录不做回收。
+ * 扫描在专用的单线程中进行，每处理一个工作目录暂停一段时间，避免与请求争抢磁盘 IO；
+ * blob 回收与文件写入通过内容存储的锁串行执行
+ */
+@Slf4j
+@Service
+public class WorkspaceLifecycleServiceImpl implements WorkspaceLifecycleService {
+
+    private final ConversationService conversationService;
+    private final FileSystemService fileSystemService;
+    private final WorkspaceSnapshotService snapshotService;
+    private final ContentAddressedStore blobStore;
+
+    private final Path workspaceRoot;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long userQuotaBytes;
+    private final long throttleMillis;
+    private final int maxEvictionsPerRun;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "workspace-lifecycle");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile WorkspaceLifecycleReport lastReport;
+
+    public WorkspaceLifecycleServiceImpl(
+            @Qualifier("chatMemoryConversationService") ConversationService conversationService,
+            FileSystemService fileSystemService,
+            WorkspaceSnapshotService snapshotService,
+            ContentAddressedStore blobStore,
+            @Value("${app.workspace.root-directory:./workspace}") String workspaceRoot,
+            @Value("${app.workspace.lifecycle.enabled:true}") boolean enabled,
+            @Value("${app.workspace.lifecycle.ttl-hours:48}") long ttlHours,
+            @Value("${app.workspace.lifecycle.user-quota-mb:500}") long userQuotaMb,
+            @Value("${app.workspace.lifecycle.throttle-millis:20}") long throttleMillis,
+            @Value("${app.workspace.lifecycle.max-evictions-per-run:200}") int maxEvictionsPerRun) {
+        this.conversationService = conversationService;
+        this.fileSystemService = fileSystemService;
+        this.snapshotService = snapshotService;
+        this.blobStore = blobStore;
+        this.workspaceRoot = Paths.get(workspaceRoot).toAbsolutePath().normalize();
+        this.enabled = enabled;
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+        this.userQuotaBytes = userQuotaMb * 1024 * 1024;
+        this.throttleMillis = throttleMillis;
+        this.maxEvictionsPerRun = maxEvictionsPerRun;
+    }
+
+    @Scheduled(initialDelayString = "${app.workspace.lifecycle.initial-delay-ms:600000}",
+               fixedDelayString = "${app.workspace.lifecycle.interval-ms:3600000}")
+    public void scheduledRun() {
+        if (enabled) {
+            runAsync();
+        }
+    }
+
+    @Override
+    public boolean runAsync() {
+        if (running.get()) {
+            return false;
+        }
+        executor.execute(this::runOnce);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public WorkspaceLifecycleReport runOnce() {
+        if (!running.compareAndSet(false, true)) {
+            return lastReport;
+        }
+        try {
+            WorkspaceLifecycleReport report = new WorkspaceLifecycleReport();
+            report.setStartedAt(System.currentTimeMillis());
+
+            Map<String, List<WorkspaceUsage>> usageByUser = scan(report);
+            int evictions = 0;
+            for (Map.Entry<String, List<WorkspaceUsage>> entry : usageByUser.entrySet()) {
+                evictions += enforce(entry.getKey(), entry.getValue(), report, maxEvictionsPerRun - evictions);
+                report.getUserUsage().put(entry.getKey(),
+                    entry.getValue().stream().mapToLong(WorkspaceUsage::bytes).sum());
+                for (WorkspaceUsage workspace : entry.getValue()) {
+                    snapshotService.prune(workspace.path().toString());
+                }
+            }
+
+            // 工作目录删除后，没有其他引用（硬链接或快照）的 blob 才真正释放空间
+            try {
+                report.setReclaimedBytes(report.getReclaimedBytes()
+                    + blobStore.collectGarbage(snapshotService::referencedHashes));
+            } catch (UncheckedIOException e) {
+                log.warn("Skipped blob garbage collection: {}", e.getMessage());
+            }
+
+            report.setDurationMs(System.currentTimeMillis() - report.getStartedAt());
+            lastReport = report;
+            log.info("Workspace lifecycle finished: scanned={}, expired={}, overQuota={}, reclaimed={} bytes in {} ms",
+                report.getScannedWorkspaces(), report.getExpiredWorkspaces(), report.getQuotaEvictedWorkspaces(),
+                report.getReclaimedBytes(), report.getDurationMs());
+            return report;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Workspace lifecycle interrupted");
+            return lastReport;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public WorkspaceLifecycleReport getLastReport() {
+        return lastReport;
+    }
+
+    @Override
+    public long getUserUsage(String userId) {
+        WorkspaceLifecycleReport report = lastReport;
+        return report != null ? report.getUserUsage().getOrDefault(userId, 0L) : 0L;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 扫描所有工作目录的大小、独占大小和最近修改时间
+     */
+    private Map<String, List<WorkspaceUsage>> scan(WorkspaceLifecycleReport report) throws InterruptedException {
+        Map<String, List<WorkspaceUsage>> usageByUser = new LinkedHashMap<>();
+        if (!Files.isDirectory(workspaceRoot)) {
+            return usageByUser;
+        }
+        for (Path userDir : listDirectories(workspaceRoot)) {
+            if (userDir.getFileName().toString().startsWith(".")) {
+                continue; // .blobs / .snapshots
+            }
+            String userId = readOwner(userDir);
+            if (userId == null) {
+                log.debug("Skipping workspaces of {}: owner unknown", userDir);
+                continue;
+            }
+            List<WorkspaceUsage> workspaces = new ArrayList<>();
+            for (Path workspace : listDirectories(userDir)) {
+                workspaces.add(measure(userId, workspace));
+                report.setScannedWorkspaces(report.getScannedWorkspaces() + 1);
+                Thread.sleep(throttleMillis);
+            }
+            usageByUser.computeIfAbsent(userId, k -> new ArrayList<>()).addAll(workspaces);
+        }
+        return usageByUser;
+    }
+
+    /**
+     * 对单个用户执行 TTL 与配额策略，返回回收数量
+     */
+    private int enforce(String userId, List<WorkspaceUsage> workspaces, WorkspaceLifecycleReport report, int budget)
+            throws InterruptedException {
+        if (budget <= 0 || workspaces.isEmpty()) {
+            return 0;
+        }
+        // 工作目录名是清洗后的会话ID
+        Set<String> activeConversations = new HashSet<>();
+        for (String conversationId : conversationService.getUserConversations(userId)) {
+            activeConversations.add(FileSystemServiceImpl.sanitizePathSegment(conversationId));
+        }
+        long now = System.currentTimeMillis();
+        workspaces.sort(Comparator.comparingLong(WorkspaceUsage::lastModified));
+
+        int evicted = 0;
+        List<WorkspaceUsage> remaining = new ArrayList<>();
+        for (WorkspaceUsage workspace : workspaces) {
+            boolean expired = !activeConversations.contains(workspace.conversationId())
+                && now - workspace.lastModified() > ttlMillis;
+            if (expired && evicted < budget) {
+                evict(workspace, report);
+                report.setExpiredWorkspaces(report.getExpiredWorkspaces() + 1);
+                evicted++;
+            } else {
+                remaining.add(workspace);
+            }
+        }
+
+        // 超出配额时按 LRU 回收，最近使用的工作目录始终保留
+        long total = remaining.stream().mapToLong(WorkspaceUsage::bytes).sum();
+        while (total > userQuotaBytes && remaining.size() > 1 && evicted < budget) {
+            WorkspaceUsage oldest = remaining.remove(0);
+            evict(oldest, report);
+            report.setQuotaEvictedWorkspaces(report.getQuotaEvictedWorkspaces() + 1);
+            total -= oldest.bytes();
+            evicted++;
+        }
+        if (total > userQuotaBytes) {
+            log.warn("User {} still exceeds workspace quota: {} > {} bytes", userId, total, userQuotaBytes);
+        }
+
+        workspaces.clear();
+        workspaces.addAll(remaining);
+        return evicted;
+    }
+
+    private void evict(WorkspaceUsage workspace, WorkspaceLifecycleReport report) throws InterruptedException {
+        String path = workspace.path().toString();
+        try {
+            fileSystemService.deleteWorkspace(path);
+            snapshotService.deleteSnapshots(path);
+            report.setEvictedBytes(report.getEvictedBytes() + workspace.bytes());
+            report.setReclaimedBytes(report.getReclaimedBytes() + workspace.exclusiveBytes());
+            log.info("Evicted workspace {} ({} bytes)", path, workspace.bytes());
+        } catch (Exception e) {
+            log.warn("Failed to evict workspace {}: {}", path, e.getMessage());
+        }
+        Thread.sleep(throttleMillis);
+    }
+
+    private WorkspaceUsage measure(String userId, Path workspace) {
+        long[] totals = new long[3]; // bytes, exclusiveBytes, lastModified
+        try {
+            totals[2] = Files.getLastModifiedTime(workspace).toMillis();
+            Files.walkFileTree(workspace, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (attrs.isRegularFile()) {
+                        totals[0] += attrs.size();
+                        if (HardLinkUtils.linkCount(file) == 1) {
+                            totals[1] += attrs.size();
+                        }
+                        totals[2] = Math.max(totals[2], attrs.lastModifiedTime().toMillis());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.debug("Failed to measure workspace {}: {}", workspace, e.getMessage());
+        }
+        return new WorkspaceUsage(workspace, userId, workspace.getFileName().toString(),
+            totals[0], totals[1], totals[2]);
+    }
+
+    /**
+     * 读取用户目录中记录的原始登录ID
+     */
+    private String readOwner(Path userDir) {
+        Path owner = userDir.resolve(FileSystemServiceImpl.OWNER_FILE);
+        try {
+            return Files.exists(owner) ? Files.readString(owner, StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException e) {
+            log.warn("Failed to read owner of {}: {}", userDir, e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Path> listDirectories(Path parent) {
+        List<Path> directories = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(parent, Files::isDirectory)) {
+            stream.forEach(directories::add);
+        } catch (IOException e) {
+            log.warn("Failed to list {}: {}", parent, e.getMessage());
+        }
+        return directories;
+    }
+
+    private record WorkspaceUsage(Path path, String userId, String conversationId,
+                                  long bytes, long exclusiveBytes, long lastModified) {
+    }
+}
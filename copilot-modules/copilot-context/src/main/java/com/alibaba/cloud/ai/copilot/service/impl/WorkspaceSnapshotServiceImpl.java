@@ -0,0 +1,421 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.WorkspaceSnapshot;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 工作目录快照服务实现
+ * 快照保存在 {root}/.snapshots/{userId}/{conversationId} 下，不出现在工作目录的文件列表中：
+ * journal.log 逐行追加快照记录，objects 目录保存修改前的内容。启用去重时 objects 通过硬链接引用内容存储中的 blob，
+ * 并作为垃圾回收的根，复制模式下 blob 也不会被回收；未启用去重时 objects 保存独立副本。
+ * 每次记录只处理被修改的那个文件，与工作目录大小无关；每个工作目录的快照按数量与时长保留
+ */
+@Slf4j
+@Service
+public class WorkspaceSnapshotServiceImpl implements WorkspaceSnapshotService {
+
+    private static final String SNAPSHOT_DIRECTORY = ".snapshots";
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String OBJECTS_DIRECTORY = "objects";
+    private static final String ABSENT = "-";
+
+    private final Path workspaceRoot;
+    private final Path snapshotRoot;
+    private final ContentAddressedStore store;
+    private final boolean dedupEnabled;
+    private final int maxSnapshots;
+    private final long maxAgeMillis;
+
+    // 工作目录 → 快照日志状态，同时作为该工作目录的锁
+    private final Map<Path, JournalState> journals = new ConcurrentHashMap<>();
+
+    public WorkspaceSnapshotServiceImpl(
+            @Value("${app.workspace.root-directory:./workspace}") String workspaceRoot,
+            ContentAddressedStore store,
+            @Value("${app.workspace.dedup-enabled:true}") boolean dedupEnabled,
+            @Value("${app.workspace.snapshot.max-per-workspace:200}") int maxSnapshots,
+            @Value("${app.workspace.snapshot.max-age-hours:168}") long maxAgeHours) {
+        this.workspaceRoot = Paths.get(workspaceRoot).toAbsolutePath().normalize();
+        this.snapshotRoot = this.workspaceRoot.resolve(SNAPSHOT_DIRECTORY);
+        this.store = store;
+        this.dedupEnabled = dedupEnabled;
+        this.maxSnapshots = maxSnapshots;
+        this.maxAgeMillis = TimeUnit.HOURS.toMillis(maxAgeHours);
+    }
+
+    @Override
+    public long recordBeforeWrite(Path file, String label) {
+        return record(file, null, label, true);
+    }
+
+    @Override
+    public long recordContent(Path file, byte[] content, String label) {
+        return record(file, content, label, true);
+    }
+
+    /**
+     * @param content 修改前的内容，为 null 时读取文件当前内容
+     * @param pruneAllowed 回滚过程中不裁剪，避免删除本次回滚仍要读取的 objects
+     */
+    private long record(Path file, byte[] content, String label, boolean pruneAllowed) {
+        Path absolute = file.toAbsolutePath().normalize();
+        if (!absolute.startsWith(workspaceRoot)) {
+            return -1;
+        }
+        Path relative = workspaceRoot.relativize(absolute);
+        // 工作目录结构为 {root}/{userId}/{conversationId}/...
+        if (relative.getNameCount() < 3 || relative.getName(0).toString().startsWith(".")) {
+            return -1;
+        }
+        Path workspace = workspaceRoot.resolve(relative.subpath(0, 2));
+        String filePath = relative.subpath(2, relative.getNameCount()).toString();
+
+        JournalState state = journal(workspace);
+        synchronized (state) {
+            try {
+                String hash = ABSENT;
+                if (content != null || Files.isRegularFile(absolute)) {
+                    hash = saveObject(workspace, absolute, content);
+                }
+                long id = ++state.sequence;
+                String line = String.join("\t",
+                    String.valueOf(id),
+                    String.valueOf(System.currentTimeMillis()),
+                    hash,
+                    sanitize(label),
+                    filePath) + "\n";
+                Files.writeString(journalFile(workspace), line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (++state.entries > maxSnapshots && pruneAllowed) {
+                    prune(workspace, state);
+                }
+                return id;
+            } catch (IOException e) {
+                log.error("Error recording snapshot for {}: {}", absolute, e.getMessage());
+                throw new UncheckedIOException("Failed to record snapshot", e);
+            }
+        }
+    }
+
+    @Override
+    public List<WorkspaceSnapshot> listSnapshots(String workspacePath) {
+        return readJournal(normalize(workspacePath));
+    }
+
+    @Override
+    public int rollback(String workspacePath, long snapshotId) {
+        Path workspace = normalize(workspacePath);
+        JournalState state = journal(workspace);
+        synchronized (state) {
+            List<WorkspaceSnapshot> snapshots = readJournal(workspace);
+            if (snapshots.stream().noneMatch(s -> s.getId() == snapshotId)) {
+                throw new IllegalArgumentException("Snapshot not found or already pruned: #" + snapshotId);
+            }
+            // 每个文件取目标快照之后第一次修改前的内容，即回滚目标时刻的状态
+            Map<String, String> targetState = new LinkedHashMap<>();
+            for (WorkspaceSnapshot snapshot : snapshots) {
+                if (snapshot.getId() >= snapshotId) {
+                    targetState.putIfAbsent(snapshot.getFilePath(), snapshot.getHash());
+                }
+            }
+
+            int restored = 0;
+            try {
+                for (Map.Entry<String, String> entry : targetState.entrySet()) {
+                    Path file = workspace.resolve(entry.getKey()).normalize();
+                    if (!file.startsWith(workspace)) {
+                        continue;
+                    }
+                    record(file, null, "rollback #" + snapshotId, false);
+                    if (entry.getValue() == null) {
+                        Files.deleteIfExists(file);
+                    } else {
+                        restoreObject(workspace, entry.getValue(), file);
+                    }
+                    restored++;
+                }
+                if (state.entries > maxSnapshots) {
+                    prune(workspace, state);
+                }
+            } catch (IOException e) {
+                log.error("Error rolling back workspace {} to #{}: {}", workspacePath, snapshotId, e.getMessage());
+                throw new UncheckedIOException("Failed to roll back workspace", e);
+            }
+
+            log.info("Rolled back {} files in workspace {} to snapshot #{}", restored, workspacePath, snapshotId);
+            return restored;
+        }
+    }
+
+    @Override
+    public int prune(String workspacePath) {
+        Path workspace = normalize(workspacePath);
+        if (!Files.exists(snapshotDirectory(workspace).resolve(JOURNAL_FILE))) {
+            return 0;
+        }
+        JournalState state = journal(workspace);
+        synchronized (state) {
+            try {
+                return prune(workspace, state);
+            } catch (IOException e) {
+                log.warn("Failed to prune snapshots of {}: {}", workspacePath, e.getMessage());
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public Set<String> referencedHashes() {
+        Set<String> hashes = new HashSet<>();
+        if (!Files.isDirectory(snapshotRoot)) {
+            return hashes;
+        }
+        try (Stream<Path> paths = Files.walk(snapshotRoot)) {
+            paths.filter(path -> path.getParent() != null
+                    && OBJECTS_DIRECTORY.equals(path.getParent().getFileName().toString())
+                    && Files.isRegularFile(path))
+                .forEach(path -> hashes.add(path.getFileName().toString()));
+        } catch (IOException e) {
+            // 无法确定引用时不允许回收，交给调用方放弃本次回收
+            throw new UncheckedIOException("Failed to collect snapshot references", e);
+        }
+        return hashes;
+    }
+
+    @Override
+    public void deleteSnapshots(String workspacePath) {
+        Path workspace = normalize(workspacePath);
+        Path directory = snapshotDirectory(workspace);
+        JournalState state = journal(workspace);
+        synchronized (state) {
+            if (Files.exists(directory)) {
+                try (Stream<Path> paths = Files.walk(directory)) {
+                    for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                        Files.deleteIfExists(path);
+                    }
+                } catch (IOException e) {
+                    log.warn("Failed to delete snapshots of {}: {}", workspacePath, e.getMessage());
+                }
+            }
+            journals.remove(workspace);
+        }
+    }
+
+    /**
+     * 按数量与时长裁剪快照日志，删除不再被保留记录引用的 objects
+     * @return 删除的快照记录数
+     */
+    private int prune(Path workspace, JournalState state) throws IOException {
+        List<WorkspaceSnapshot> snapshots = readJournal(workspace);
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        int from = Math.max(0, snapshots.size() - maxSnapshots);
+        List<WorkspaceSnapshot> kept = new ArrayList<>();
+        for (int i = from; i < snapshots.size(); i++) {
+            if (snapshots.get(i).getTimestamp() >= cutoff) {
+                kept.add(snapshots.get(i));
+            }
+        }
+        state.entries = kept.size();
+        int removed = snapshots.size() - kept.size();
+        if (removed == 0) {
+            return 0;
+        }
+
+        StringBuilder journal = new StringBuilder();
+        Set<String> keptHashes = new HashSet<>();
+        for (WorkspaceSnapshot snapshot : kept) {
+            journal.append(String.join("\t",
+                String.valueOf(snapshot.getId()),
+                String.valueOf(snapshot.getTimestamp()),
+                snapshot.getHash() != null ? snapshot.getHash() : ABSENT,
+                snapshot.getLabel(),
+                snapshot.getFilePath())).append('\n');
+            if (snapshot.getHash() != null) {
+                keptHashes.add(snapshot.getHash());
+            }
+        }
+        Path file = journalFile(workspace);
+        Path temp = file.resolveSibling(JOURNAL_FILE + ".tmp");
+        Files.writeString(temp, journal, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        Path objects = snapshotDirectory(workspace).resolve(OBJECTS_DIRECTORY);
+        if (Files.isDirectory(objects)) {
+            try (Stream<Path> paths = Files.list(objects)) {
+                for (Path object : (Iterable<Path>) paths::iterator) {
+                    if (!keptHashes.contains(object.getFileName().toString())) {
+                        Files.deleteIfExists(object);
+                    }
+                }
+            }
+        }
+        log.debug("Pruned {} snapshots of {}", removed, workspace);
+        return removed;
+    }
+
+    /**
+     * 保存文件修改前的内容到 objects 目录
+     * @param content 已在内存中的内容，为 null 时读取文件
+     * @return 内容哈希
+     */
+    private String saveObject(Path workspace, Path file, byte[] content) throws IOException {
+        Path objects = snapshotDirectory(workspace).resolve(OBJECTS_DIRECTORY);
+        if (dedupEnabled) {
+            // put 与建立引用在同一次存储操作内完成，期间 blob 不会被回收
+            return store.atomically(() -> {
+                String hash = content != null ? store.put(content) : store.put(file);
+                Path object = objects.resolve(hash);
+                if (!Files.exists(object)) {
+                    store.materialize(hash, object);
+                }
+                return hash;
+            });
+        }
+
+        Files.createDirectories(objects);
+        Path temp = Files.createTempFile(objects, "object", ".tmp");
+        MessageDigest digest = sha256();
+        try (InputStream in = content != null ? new ByteArrayInputStream(content) : Files.newInputStream(file);
+             OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+            in.transferTo(out);
+        }
+        String hash = HexFormat.of().formatHex(digest.digest());
+        Path object = objects.resolve(hash);
+        if (Files.exists(object)) {
+            Files.deleteIfExists(temp);
+        } else {
+            Files.move(temp, object, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return hash;
+    }
+
+    /**
+     * 恢复文件内容：启用去重时从内容存储链接，否则从 objects 中的副本复制
+     */
+    private void restoreObject(Path workspace, String hash, Path target) throws IOException {
+        if (dedupEnabled && store.atomically(() -> {
+            if (!store.contains(hash)) {
+                return false;
+            }
+            store.materialize(hash, target);
+            return true;
+        })) {
+            return;
+        }
+        Path object = snapshotDirectory(workspace).resolve(OBJECTS_DIRECTORY).resolve(hash);
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(object.getParent(), "restore", ".tmp");
+        try {
+            Files.copy(object, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private JournalState journal(Path workspace) {
+        return journals.computeIfAbsent(workspace, w -> {
+            List<WorkspaceSnapshot> snapshots = readJournal(w);
+            JournalState state = new JournalState();
+            state.sequence = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1).getId();
+            state.entries = snapshots.size();
+            return state;
+        });
+    }
+
+    private List<WorkspaceSnapshot> readJournal(Path workspace) {
+        Path journal = snapshotDirectory(workspace).resolve(JOURNAL_FILE);
+        if (!Files.exists(journal)) {
+            return List.of();
+        }
+        List<WorkspaceSnapshot> snapshots = new ArrayList<>();
+        try (Stream<String> lines = Files.lines(journal, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                String[] parts = line.split("\t", 5);
+                if (parts.length == 5) {
+                    snapshots.add(new WorkspaceSnapshot(
+                        Long.parseLong(parts[0]),
+                        Long.parseLong(parts[1]),
+                        parts[4],
+                        ABSENT.equals(parts[2]) ? null : parts[2],
+                        parts[3]));
+                }
+            });
+        } catch (IOException e) {
+            log.error("Error reading snapshot journal {}: {}", journal, e.getMessage());
+            throw new UncheckedIOException("Failed to read snapshots", e);
+        }
+        return snapshots;
+    }
+
+    private Path journalFile(Path workspace) {
+        Path directory = snapshotDirectory(workspace);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create snapshot directory", e);
+        }
+        return directory.resolve(JOURNAL_FILE);
+    }
+
+    private Path snapshotDirectory(Path workspace) {
+        return snapshotRoot.resolve(workspaceRoot.relativize(workspace));
+    }
+
+    private Path normalize(String workspacePath) {
+        Path workspace = Paths.get(workspacePath).toAbsolutePath().normalize();
+        if (!workspace.startsWith(workspaceRoot) || workspace.equals(workspaceRoot)) {
+            throw new IllegalArgumentException("Workspace is outside root directory: " + workspacePath);
+        }
+        return workspace;
+    }
+
+    private String sanitize(String label) {
+        return label == null ? "" : label.replaceAll("[\\t\\r\\n]", " ");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 快照日志状态：当前序号与保留的记录数
+     */
+    private static class JournalState {
+        private long sequence;
+        private int entries;
+    }
+}
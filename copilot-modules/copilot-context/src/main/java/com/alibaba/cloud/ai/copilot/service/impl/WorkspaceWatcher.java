@@ -0,0 +1,149 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * 工作目录变更监听
+ * 使用单个 WatchService 线程监听所有已索引的工作目录，把工具直接写入磁盘的改动同步到 {@link WorkspaceIndex}。
+ * 依赖目录和版本库目录不注册监听，避免耗尽系统的 inotify 配额，这些目录的变化在全量扫描时同步
+ */
+@Slf4j
+public class WorkspaceWatcher implements AutoCloseable {
+
+    private static final Set<String> UNWATCHED_DIRECTORIES = Set.of("node_modules", ".git");
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Registration> registrations = new ConcurrentHashMap<>();
+    private final Thread worker;
+
+    public WorkspaceWatcher() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.worker = new Thread(this::processEvents, "workspace-watcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 递归注册工作目录
+     */
+    public void register(WorkspaceIndex index) {
+        registerTree(index, index.getRoot());
+    }
+
+    /**
+     * 取消工作目录下的全部监听
+     */
+    public void unregister(WorkspaceIndex index) {
+        registrations.entrySet().removeIf(e -> {
+            if (e.getValue().index == index) {
+                e.getKey().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 当前注册的目录数量
+     */
+    int getRegistrationCount() {
+        return registrations.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        worker.interrupt();
+        watchService.close();
+    }
+
+    private void registerTree(WorkspaceIndex index, Path start) {
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!dir.equals(start) && UNWATCHED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    WatchKey key = dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                    registrations.put(key, new Registration(index, dir));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Failed to watch workspace directory {}: {}", start, e.getMessage());
+        }
+    }
+
+    private void processEvents() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            Registration registration = registrations.get(key);
+            if (registration != null) {
+                try {
+                    handle(registration, key);
+                } catch (Exception e) {
+                    log.warn("Failed to process workspace change in {}: {}", registration.dir, e.getMessage());
+                }
+            }
+
+            if (!key.reset()) {
+                registrations.remove(key);
+            }
+        }
+    }
+
+    private void handle(Registration registration, WatchKey key) {
+        WorkspaceIndex index = registration.index;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                index.rescan();
+                continue;
+            }
+
+            Path child = registration.dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                // 新目录可能在注册前已写入文件，注册后补扫该子树
+                if (!UNWATCHED_DIRECTORIES.contains(child.getFileName().toString())) {
+                    registerTree(index, child);
+                }
+                index.scan(child);
+            } else {
+                index.refresh(index.relativize(child));
+            }
+        }
+    }
+
+    private record Registration(WorkspaceIndex index, Path dir) {
+    }
+}
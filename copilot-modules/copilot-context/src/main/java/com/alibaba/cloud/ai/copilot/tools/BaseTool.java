@@ -84,6 +84,16 @@ public abstract class BaseTool<P> {
      */
     public abstract CompletableFuture<ToolResult> execute(P params);
 
+    /**
+     * Whether the tool only reads state. Read-only tool calls from the same model turn
+     * may run concurrently; other tools are treated as mutating and run in order
+     *
+     * @return true if the tool never modifies files or other state
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
+
     /**
      * Get tool description (for AI understanding)
      *
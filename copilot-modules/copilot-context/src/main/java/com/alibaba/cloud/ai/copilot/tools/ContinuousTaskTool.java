@@ -1,17 +1,29 @@
 package com.alibaba.cloud.ai.copilot.tools;
 
 import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.tools.service.RedisTaskScheduler;
+import com.alibaba.cloud.ai.copilot.tools.service.StepGraphExecutor;
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * 连续任务执行工具
@@ -22,21 +34,43 @@ import java.util.concurrent.*;
  * 4. 任务持久化（Persist）- 保存和恢复任务状态
  * 5. 依赖管理（Dependencies）- 处理任务间的依赖关系
  * 6. 优先级调度（Priority）- 支持任务优先级和队列管理
+ *
+ * 每次调用先按优先级进入 {@link TaskScheduler}，再由固定数量的工作线程依次取出执行；
+ * 排队和执行中的调用总数有上限，超出时直接返回错误。
+ * 已结束的任务在缓存中保留一段时间后淘汰，状态以持久化存储为准；
+ * 分布式调度时任务可能在任意节点上更新，任务状态总是从共享存储读取，本地缓存只保存优先级等辅助信息
  */
-@Component
 public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutionParams> {
 
     private static final Logger logger = LoggerFactory.getLogger(ContinuousTaskTool.class);
 
+    private static final String DEFAULT_PRIORITY = "normal";
+    /**
+     * 已结束的任务状态
+     */
+    public static final Set<String> FINISHED_STATUSES = Set.of("completed", "failed", "cancelled");
+
     // 任务存储和管理
     private final TaskPersistenceManager persistenceManager;
     private final TaskDependencyManager dependencyManager;
     private final TaskScheduler taskScheduler;
-    private final ExecutorService executorService;
-
-    // 任务缓存
-    private final Map<String, TaskExecutionState> taskCache = new ConcurrentHashMap<>();
-    private final Map<String, CompletableFuture<TaskExecutionResult>> runningTasks = new ConcurrentHashMap<>();
+    private final TaskEventListener eventListener;
+    private final TaskEngineSettings settings;
+    private final ThreadPoolExecutor executorService;
+    private final ThreadPoolExecutor stepExecutorService;
+    private final StepGraphExecutor stepGraphExecutor;
+    private final ScheduledExecutorService distributedPoller;
+    private final boolean sharedState;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 任务缓存（按 TTL 淘汰）和排队/执行中的调用（执行结束即移除）
+    private final Map<String, TaskRecord> taskCache = new ConcurrentHashMap<>();
+    private final Map<String, TaskInvocation> runningTasks = new ConcurrentHashMap<>();
+    private final AtomicLong invocationSequence = new AtomicLong();
+
+    private final AtomicLong rejectedInvocations = new AtomicLong();
+    private final AtomicLong cancelledInvocations = new AtomicLong();
+    private final AtomicLong evictedTasks = new AtomicLong();
 
     public ContinuousTaskTool() {
         this(null, null, null);
@@ -45,6 +79,14 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
     public ContinuousTaskTool(TaskPersistenceManager persistenceManager,
                              TaskDependencyManager dependencyManager,
                              TaskScheduler taskScheduler) {
+        this(persistenceManager, dependencyManager, taskScheduler, null, new TaskEngineSettings());
+    }
+
+    public ContinuousTaskTool(TaskPersistenceManager persistenceManager,
+                             TaskDependencyManager dependencyManager,
+                             TaskScheduler taskScheduler,
+                             TaskEventListener eventListener,
+                             TaskEngineSettings settings) {
         super(
             "continuous_task_execution",
             "ContinuousTaskExecution",
@@ -55,7 +97,8 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
             "Inspired by Gemini CLI's write-todos tool and Manus task planning system.\n\n" +
             "Usage Guidelines:\n" +
             "1. Use 'plan' mode to break down complex tasks into steps\n" +
-            "2. Use 'execute' mode to run steps sequentially\n" +
+            "2. Use 'execute' mode to run steps sequentially, or 'execute_all' to run all pending steps " +
+            "in dependency order, running independent steps (see 'dependsOn') in parallel\n" +
             "3. Use 'check_completion' to verify all steps are done\n" +
             "4. Use 'pause'/'resume'/'cancel' for task lifecycle management\n" +
             "5. Only one task can be 'in_progress' at a time per step\n" +
@@ -70,14 +113,72 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
             dependencyManager : new SimpleDependencyManager();
         this.taskScheduler = taskScheduler != null ?
             taskScheduler : new PriorityTaskScheduler();
-        this.executorService = Executors.newFixedThreadPool(
-            Runtime.getRuntime().availableProcessors()
-        );
+        this.eventListener = eventListener != null ?
+            eventListener : new DefaultTaskEventListener();
+        this.settings = settings != null ? settings : new TaskEngineSettings();
+        this.sharedState = this.taskScheduler instanceof DistributedTaskScheduler;
+
+        // 队列里只放"取下一个任务"的信号，真正的执行顺序由 taskScheduler 的优先级决定
+        AtomicInteger threadIndex = new AtomicInteger();
+        int parallelism = this.settings.getParallelism();
+        this.executorService = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(parallelism + this.settings.getQueueCapacity()),
+            r -> {
+                Thread thread = new Thread(r, "continuous-task-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executorService.allowCoreThreadTimeOut(true);
+
+        // execute_all 模式下并行执行步骤；每张依赖图自己限制并发数，线程池按所有任务同时满载来设大小
+        AtomicInteger stepThreadIndex = new AtomicInteger();
+        int stepThreads = parallelism * this.settings.getStepParallelism();
+        this.stepExecutorService = new ThreadPoolExecutor(stepThreads, stepThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r, "continuous-task-step-" + stepThreadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.stepExecutorService.allowCoreThreadTimeOut(true);
+        this.stepGraphExecutor = new StepGraphExecutor(stepExecutorService,
+            this.settings.getStepParallelism(),
+            this.settings.getStepMaxRetries(),
+            this.settings.getStepRetryBackoff());
+
+        // 分布式调度时其他节点提交的调用不会在本节点产生执行信号，空闲时定期到共享队列中取任务
+        if (this.taskScheduler instanceof DistributedTaskScheduler distributed) {
+            distributed.addResultListener(this::onRemoteResult);
+            distributed.addCancelListener(this::cancelInvocations);
+            distributed.addLeaseLostListener(this::onLeaseLost);
+            this.distributedPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "continuous-task-poller");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long pollMillis = this.settings.getPollInterval().toMillis();
+            this.distributedPoller.scheduleWithFixedDelay(this::pollSharedQueue, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.distributedPoller = null;
+        }
 
-        logger.info("ContinuousTaskTool initialized with persistence: {}, dependency: {}, scheduler: {}",
+        logger.info("ContinuousTaskTool initialized with persistence: {}, dependency: {}, scheduler: {}, parallelism: {}",
             this.persistenceManager.getClass().getSimpleName(),
             this.dependencyManager.getClass().getSimpleName(),
-            this.taskScheduler.getClass().getSimpleName());
+            this.taskScheduler.getClass().getSimpleName(),
+            parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (distributedPoller != null) {
+            distributedPoller.shutdownNow();
+        }
+        executorService.shutdownNow();
+        stepExecutorService.shutdownNow();
+        if (taskScheduler instanceof DistributedTaskScheduler distributed) {
+            distributed.shutdown();
+        }
     }
 
     private static JsonSchema createSchema() {
@@ -86,8 +187,8 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
                 "Overall task goal or objective"
             ))
             .addProperty("mode", JsonSchema.string(
-                "Execution mode: plan, execute, check_completion, pause, resume, cancel"
-            ).enumValues("plan", "execute", "check_completion", "pause", "resume", "cancel"))
+                "Execution mode: plan, execute, execute_all, check_completion, pause, resume, cancel"
+            ).enumValues("plan", "execute", "execute_all", "check_completion", "pause", "resume", "cancel"))
             .addProperty("steps", JsonSchema.array(
                 "Task steps (required for execute and check_completion modes)",
                 createStepSchema()
@@ -120,9 +221,18 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
     private static JsonSchema createStepSchema() {
         return JsonSchema.object()
+            .addProperty("id", JsonSchema.string(
+                "Optional step id referenced by dependsOn; defaults to the step's zero-based index"))
             .addProperty("description", JsonSchema.string("Step description"))
             .addProperty("status", JsonSchema.string("Step status")
-                .enumValues("pending", "in_progress", "completed", "failed"))
+                .enumValues("pending", "in_progress", "completed", "failed", "skipped", "cancelled"))
+            .addProperty("dependsOn", JsonSchema.array(
+                "Ids of steps that must complete before this step runs",
+                JsonSchema.string("Step id")))
+            .addProperty("estimatedSeconds", JsonSchema.integer(
+                "Optional estimated duration in seconds, used for the critical path estimate").minimum(0))
+            .addProperty("maxRetries", JsonSchema.integer(
+                "Optional number of retries when the step fails in execute_all mode").minimum(0))
             .addProperty("expectedOutput", JsonSchema.string("Expected output"))
             .addProperty("verification", JsonSchema.object()
                 .addProperty("type", JsonSchema.string("Verification type")
@@ -142,67 +252,527 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
     @Override
     public CompletableFuture<ToolResult> execute(TaskExecutionParams params) {
-        return CompletableFuture.supplyAsync(() -> {
+        // 生成或使用提供的任务ID
+        String taskId = params.getTaskId() != null ? params.getTaskId() : generateTaskId();
+        params.setTaskId(taskId);
+
+        // 取消会中断正在执行的调用，必须先确认调用方是任务的所有者
+        String ownerViolation = checkOwner(params);
+        if (ownerViolation != null) {
+            return CompletableFuture.completedFuture(ToolResult.error(ownerViolation));
+        }
+
+        // 取消不进入队列，否则要排在被取消的调用后面
+        if ("cancel".equals(params.getMode())) {
+            cancelInvocations(taskId);
+            if (taskScheduler instanceof DistributedTaskScheduler distributed) {
+                distributed.requestCancel(taskId);
+            }
+            TaskInvocation invocation = new TaskInvocation(taskId + "#" + invocationSequence.incrementAndGet(), params);
+            return CompletableFuture.completedFuture(runInvocation(invocation));
+        }
+
+        if (runningTasks.size() >= settings.getParallelism() + settings.getQueueCapacity()) {
+            rejectedInvocations.incrementAndGet();
+            logger.warn("Task engine is busy, rejecting {} for task {}", params.getMode(), taskId);
+            return CompletableFuture.completedFuture(
+                ToolResult.error("Task engine is busy, please retry later"));
+        }
+
+        TaskInvocation invocation = new TaskInvocation(taskId + "#" + invocationSequence.incrementAndGet(), params);
+        runningTasks.put(invocation.key, invocation);
+        if (taskScheduler instanceof DistributedTaskScheduler distributed) {
+            String payload;
             try {
-                // 生成或使用提供的任务ID
-                String taskId = params.getTaskId() != null ? params.getTaskId() : generateTaskId();
-                params.setTaskId(taskId);
+                payload = objectMapper.writeValueAsString(params);
+            } catch (IOException e) {
+                runningTasks.remove(invocation.key);
+                return CompletableFuture.completedFuture(ToolResult.error("Invalid task parameters: " + e.getMessage()));
+            }
+            distributed.scheduleTask(invocation.key, resolvePriority(params), payload);
+        } else {
+            taskScheduler.scheduleTask(invocation.key, resolvePriority(params));
+        }
+        try {
+            executorService.execute(this::runNextInvocation);
+        } catch (RejectedExecutionException e) {
+            taskScheduler.removeTask(invocation.key);
+            runningTasks.remove(invocation.key);
+            rejectedInvocations.incrementAndGet();
+            return CompletableFuture.completedFuture(
+                ToolResult.error("Task engine is busy, please retry later"));
+        }
+        return invocation.result;
+    }
+
+    /**
+     * 从调度器取出优先级最高的调用并执行
+     */
+    private void runNextInvocation() {
+        String key = taskScheduler.getNextTask();
+        if (key == null) {
+            return;
+        }
+        DistributedTaskScheduler distributed = taskScheduler instanceof DistributedTaskScheduler d ? d : null;
+        TaskInvocation invocation = runningTasks.get(key);
+        if (invocation == null && distributed != null) {
+            // 其他节点提交的调用，从共享队列里的参数重建
+            invocation = restoreRemoteInvocation(key, distributed.getPayload(key));
+            if (invocation == null) {
+                distributed.complete(key, null);
+                return;
+            }
+            runningTasks.put(key, invocation);
+        }
+        if (invocation == null) {
+            // 排队期间已被取消
+            return;
+        }
+
+        ToolResult result = null;
+        boolean leaseLost;
+        synchronized (invocation) {
+            if (invocation.cancelled) {
+                runningTasks.remove(key);
+                if (distributed != null) {
+                    distributed.complete(key, null);
+                }
+                return;
+            }
+            // 本次取出是新的租约，之前丢失租约的标记不再适用
+            invocation.leaseLost = false;
+            invocation.worker = Thread.currentThread();
+        }
+        try {
+            result = runInvocation(invocation);
+        } catch (Throwable t) {
+            result = ToolResult.error("Task execution failed: " + t.getMessage());
+        } finally {
+            synchronized (invocation) {
+                invocation.worker = null;
+                leaseLost = invocation.leaseLost;
+                // 清除取消时可能留下的中断标记，避免影响线程上的下一个调用
+                Thread.interrupted();
+            }
+        }
 
-                logger.info("Continuous task execution: {} - mode: {} [ID: {}]",
-                    params.getGoal(), params.getMode(), taskId);
+        if (leaseLost) {
+            // 调用已由回收租约的节点重新执行，结果以新的执行者为准：本节点提交的调用继续等待其回传的结果
+            logger.warn("Task invocation {} lost its lease, discarding the local result", key);
+            if (invocation.remote) {
+                runningTasks.remove(key);
+            }
+            return;
+        }
+        runningTasks.remove(key);
+        if (result == null) {
+            result = ToolResult.error("Task execution failed");
+        }
+        invocation.result.complete(result);
+        if (distributed != null) {
+            distributed.complete(key, encodeResult(result));
+        }
+    }
 
-                // 发送任务状态事件
-                sendTaskStatusEvent(params);
+    /**
+     * 本节点执行中的调用的租约被其他节点回收：中断本地执行，调用会在新的执行者上重新执行
+     */
+    private void onLeaseLost(String key) {
+        TaskInvocation invocation = runningTasks.get(key);
+        if (invocation == null) {
+            return;
+        }
+        synchronized (invocation) {
+            if (invocation.worker != null) {
+                invocation.leaseLost = true;
+                invocation.worker.interrupt();
+            }
+        }
+    }
 
-                // 检查依赖关系
-                if (params.getDependencies() != null && !params.getDependencies().isEmpty()) {
-                    for (String depId : params.getDependencies()) {
-                        dependencyManager.addDependency(taskId, depId);
-                    }
+    private TaskInvocation restoreRemoteInvocation(String key, String payload) {
+        if (payload == null) {
+            logger.warn("Task invocation {} has no payload, dropping it", key);
+            return null;
+        }
+        try {
+            TaskInvocation invocation = new TaskInvocation(key, objectMapper.readValue(payload, TaskExecutionParams.class));
+            invocation.remote = true;
+            return invocation;
+        } catch (IOException e) {
+            logger.error("Failed to restore task invocation {}", key, e);
+            return null;
+        }
+    }
 
-                    // 检查是否可以执行
-                    if (!dependencyManager.canExecute(taskId, taskCache)) {
-                        return ToolResult.error("Task cannot execute: dependencies not satisfied");
-                    }
+    /**
+     * 其他节点执行完本节点提交的调用
+     */
+    private void onRemoteResult(String key, String encodedResult) {
+        TaskInvocation invocation = runningTasks.remove(key);
+        if (invocation != null) {
+            invocation.result.complete(decodeResult(encodedResult));
+        }
+    }
+
+    /**
+     * 有空闲工作线程时从共享队列取任务，空闲节点因此会接走其他节点排队的调用
+     */
+    private void pollSharedQueue() {
+        try {
+            int idle = settings.getParallelism() - executorService.getActiveCount() - executorService.getQueue().size();
+            int signals = Math.min(idle, taskScheduler.getQueueSize());
+            for (int i = 0; i < signals; i++) {
+                executorService.execute(this::runNextInvocation);
+            }
+        } catch (RejectedExecutionException e) {
+            // 本地队列已满，下次再取
+        } catch (Exception e) {
+            logger.warn("Failed to poll shared task queue", e);
+        }
+    }
+
+    private String encodeResult(ToolResult result) {
+        Map<String, Object> encoded = new HashMap<>();
+        encoded.put("success", result.isSuccess());
+        encoded.put("llmContent", result.getLlmContent());
+        encoded.put("errorMessage", result.getErrorMessage());
+        try {
+            return objectMapper.writeValueAsString(encoded);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private ToolResult decodeResult(String encodedResult) {
+        if (encodedResult == null) {
+            return ToolResult.error("Task was cancelled");
+        }
+        try {
+            Map<?, ?> decoded = objectMapper.readValue(encodedResult, Map.class);
+            if (Boolean.TRUE.equals(decoded.get("success"))) {
+                return ToolResult.success((String) decoded.get("llmContent"));
+            }
+            return ToolResult.error(String.valueOf(decoded.get("errorMessage")));
+        } catch (IOException e) {
+            return ToolResult.error("Failed to decode task result: " + e.getMessage());
+        }
+    }
+
+    private ToolResult runInvocation(TaskInvocation invocation) {
+        TaskExecutionParams params = invocation.params;
+        String taskId = params.getTaskId();
+        try {
+            logger.info("Continuous task execution: {} - mode: {} [ID: {}]",
+                params.getGoal(), params.getMode(), taskId);
+
+            // 排队期间任务可能已被其他用户创建，执行前再检查一次
+            String ownerViolation = checkOwner(params);
+            if (ownerViolation != null) {
+                return ToolResult.error(ownerViolation);
+            }
+
+            // 发送任务状态事件
+            sendTaskStatusEvent(params);
+
+            // 检查依赖关系
+            if (params.getDependencies() != null && !params.getDependencies().isEmpty()) {
+                for (String depId : params.getDependencies()) {
+                    dependencyManager.addDependency(taskId, depId);
                 }
 
-                TaskExecutionResult result;
-                switch (params.getMode()) {
-                    case "plan":
-                        result = planTask(params);
-                        break;
-                    case "execute":
-                        result = executeStep(params);
-                        break;
-                    case "check_completion":
-                        result = checkCompletion(params);
-                        break;
-                    case "pause":
-                        result = pauseTask(params);
-                        break;
-                    case "resume":
-                        result = resumeTask(params);
-                        break;
-                    case "cancel":
-                        result = cancelTask(params);
-                        break;
-                    default:
-                        return ToolResult.error("Unknown execution mode: " + params.getMode());
+                // 依赖任务不存在（从未创建，或结束后已超过保留时间被清理）时永远无法满足，直接报告
+                Map<String, TaskExecutionState> dependencyStates = dependencyStates(params.getDependencies());
+                List<String> missing = params.getDependencies().stream()
+                    .filter(depId -> !dependencyStates.containsKey(depId))
+                    .toList();
+                if (!missing.isEmpty()) {
+                    releaseDependencies(taskId);
+                    return ToolResult.error("Task cannot execute: dependency tasks not found " + missing
+                        + " (never created, or purged after finishing)");
                 }
 
-                // 保存任务状态
-                if (result.getTaskState() != null) {
-                    taskCache.put(taskId, result.getTaskState());
-                    persistenceManager.saveTask(taskId, result.getTaskState());
+                // 检查是否可以执行
+                if (!dependencyManager.canExecute(taskId, dependencyStates)) {
+                    return ToolResult.error("Task cannot execute: dependencies not satisfied");
                 }
+            }
+
+            TaskExecutionResult result;
+            switch (params.getMode()) {
+                case "plan":
+                    result = planTask(params);
+                    break;
+                case "execute":
+                    result = executeStep(params);
+                    break;
+                case "execute_all":
+                    result = executeAllSteps(params);
+                    break;
+                case "check_completion":
+                    result = checkCompletion(params);
+                    break;
+                case "pause":
+                    result = pauseTask(params);
+                    break;
+                case "resume":
+                    result = resumeTask(params);
+                    break;
+                case "cancel":
+                    result = cancelTask(params);
+                    break;
+                default:
+                    return ToolResult.error("Unknown execution mode: " + params.getMode());
+            }
+
+            // 保存任务状态；执行期间任务被取消时丢弃结果，保留取消状态
+            if (result.getTaskState() != null && !saveState(invocation, result)) {
+                return ToolResult.error("Task was cancelled: " + taskId);
+            }
+
+            return ToolResult.success(result.getFeedback(), result);
 
-                return ToolResult.success(result.getFeedback(), result);
+        } catch (Exception e) {
+            logger.error("Continuous task execution failed", e);
+            eventListener.onTaskFailed(taskId, e.getMessage());
+            return ToolResult.error("Task execution failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 检查调用方是否可以操作任务：没有所有者的调用一律拒绝，已存在的任务只允许其所有者操作
+     * @return 违反时的错误信息，允许时返回 null
+     */
+    private String checkOwner(TaskExecutionParams params) {
+        if (params.getOwnerId() == null) {
+            return "Task owner is required: " + params.getTaskId();
+        }
+        TaskExecutionState existing = getTaskState(params.getTaskId());
+        if (existing != null && !params.getOwnerId().equals(existing.getOwnerId())) {
+            return "Task " + params.getTaskId() + " belongs to another user";
+        }
+        return null;
+    }
+
+    /**
+     * 保存任务状态并通知监听器
+     * @return 调用已被取消或租约已丢失、状态未保存时返回 false
+     */
+    private boolean saveState(TaskInvocation invocation, TaskExecutionResult result) {
+        String taskId = invocation.params.getTaskId();
+        TaskExecutionState state = result.getTaskState();
+        TaskRecord record = taskCache.computeIfAbsent(taskId, k -> new TaskRecord());
+        String oldStatus;
+        // 与取消调用在同一把锁内检查和写入，被取消的调用不会覆盖取消状态
+        synchronized (record) {
+            if (invocation.cancelled || invocation.leaseLost) {
+                return false;
+            }
+            if (record.state == null || sharedState) {
+                record.state = persistenceManager.loadTask(taskId);
+            }
+            oldStatus = record.state != null ? record.state.getStatus() : null;
+            // 所有者以首次保存时为准，后续调用不能改写
+            state.setOwnerId(record.state != null && record.state.getOwnerId() != null
+                ? record.state.getOwnerId() : invocation.params.getOwnerId());
+            record.state = state;
+            if (invocation.params.getPriority() != null) {
+                record.priority = invocation.params.getPriority();
+            }
+            record.updatedAt = System.currentTimeMillis();
+            persistenceManager.saveTask(taskId, state);
+        }
+
+        if (!Objects.equals(oldStatus, state.getStatus())) {
+            eventListener.onTaskStateChanged(taskId, oldStatus, state.getStatus());
+            if ("completed".equals(state.getStatus())) {
+                eventListener.onTaskCompleted(taskId, result);
+            } else if ("failed".equals(state.getStatus())) {
+                eventListener.onTaskFailed(taskId, result.getFeedback());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 取消任务的所有排队和执行中的调用
+     */
+    private void cancelInvocations(String taskId) {
+        for (TaskInvocation invocation : runningTasks.values()) {
+            if (!taskId.equals(invocation.params.getTaskId())) {
+                continue;
+            }
+            synchronized (invocation) {
+                invocation.cancelled = true;
+                if (invocation.worker != null) {
+                    invocation.worker.interrupt();
+                } else {
+                    taskScheduler.removeTask(invocation.key);
+                    runningTasks.remove(invocation.key);
+                    invocation.result.complete(ToolResult.error("Task was cancelled: " + taskId));
+                }
+            }
+            cancelledInvocations.incrementAndGet();
+        }
+    }
+
+    /**
+     * 按任务ID取消任务，供任务面板等非模型调用方使用
+     * @return 任务不存在时返回 false
+     */
+    public boolean cancel(String taskId) {
+        TaskExecutionState state = getTaskState(taskId);
+        if (state == null) {
+            return false;
+        }
+        TaskExecutionParams params = new TaskExecutionParams();
+        params.setTaskId(taskId);
+        params.setGoal(state.getGoal());
+        params.setMode("cancel");
+        params.setOwnerId(state.getOwnerId());
+        params.setSteps(state.getSteps());
+        params.setCurrentStepIndex(state.getCurrentStepIndex());
+        return execute(params).join().isSuccess();
+    }
+
+    /**
+     * 任务是否属于指定用户，任务不存在或没有记录所有者时返回 false
+     */
+    public boolean isOwnedBy(String taskId, String userId) {
+        TaskExecutionState state = getTaskState(taskId);
+        return state != null && userId != null && userId.equals(state.getOwnerId());
+    }
+
+    /**
+     * 获取任务状态，缓存未命中或分布式调度时从持久化存储加载
+     */
+    public TaskExecutionState getTaskState(String taskId) {
+        if (sharedState) {
+            return persistenceManager.loadTask(taskId);
+        }
+        TaskRecord record = taskCache.get(taskId);
+        if (record != null && record.state != null) {
+            return record.state;
+        }
+        return persistenceManager.loadTask(taskId);
+    }
+
+    private Map<String, TaskExecutionState> dependencyStates(List<String> dependencyIds) {
+        Map<String, TaskExecutionState> states = new HashMap<>();
+        for (String depId : dependencyIds) {
+            TaskExecutionState state = getTaskState(depId);
+            if (state != null) {
+                states.put(depId, state);
+            }
+        }
+        return states;
+    }
+
+    private String resolvePriority(TaskExecutionParams params) {
+        if (params.getPriority() != null) {
+            return params.getPriority();
+        }
+        TaskRecord record = taskCache.get(params.getTaskId());
+        return record != null && record.priority != null ? record.priority : DEFAULT_PRIORITY;
+    }
+
+    /**
+     * 淘汰缓存中已结束超过 TTL 的任务，以及长时间没有更新的任务；
+     * 同时清理它们的依赖关系和持久化存储中过期的已结束任务
+     */
+    @Scheduled(fixedDelayString = "${copilot.task.engine.eviction-interval-ms:60000}")
+    public void evictExpiredTasks() {
+        long now = System.currentTimeMillis();
+        long finishedBefore = now - settings.getFinishedTtl().toMillis();
+        long idleBefore = now - settings.getIdleTtl().toMillis();
+
+        taskCache.entrySet().removeIf(entry -> {
+            TaskRecord record = entry.getValue();
+            boolean finished = record.state != null && FINISHED_STATUSES.contains(record.state.getStatus());
+            boolean expired = finished ? record.updatedAt < finishedBefore : record.updatedAt < idleBefore;
+            if (expired) {
+                releaseDependencies(entry.getKey());
+                evictedTasks.incrementAndGet();
+            }
+            return expired;
+        });
+
+        // 超出容量时按最后更新时间淘汰，状态仍可从持久化存储加载
+        int overflow = taskCache.size() - settings.getMaxCachedTasks();
+        if (overflow > 0) {
+            taskCache.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().updatedAt))
+                .limit(overflow)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(taskId -> {
+                    taskCache.remove(taskId);
+                    evictedTasks.incrementAndGet();
+                });
+        }
 
+        int purged = persistenceManager.purgeFinishedTasks(finishedBefore);
+        if (purged > 0) {
+            logger.info("Purged {} finished tasks from {}", purged, persistenceManager.getClass().getSimpleName());
+        }
+
+        if (taskScheduler instanceof DistributedTaskScheduler distributed) {
+            failOrphanedInvocations(distributed);
+        }
+    }
+
+    /**
+     * 本节点提交、等待其他节点回传结果的调用，如果在共享队列和执行表中都已找不到（如结果消息丢失），
+     * 连续两次检查都如此时以错误结束，释放等待方和排队名额；两次检查之间留出结果消息到达的时间
+     */
+    private void failOrphanedInvocations(DistributedTaskScheduler distributed) {
+        for (TaskInvocation invocation : runningTasks.values()) {
+            if (invocation.worker != null || invocation.result.isDone()) {
+                continue;
+            }
+            boolean pending;
+            try {
+                pending = distributed.isPending(invocation.key);
             } catch (Exception e) {
-                logger.error("Continuous task execution failed", e);
-                return ToolResult.error("Task execution failed: " + e.getMessage());
+                logger.warn("Failed to check task invocation {} on the shared queue", invocation.key, e);
+                return;
             }
-        }, executorService);
+            if (pending) {
+                invocation.orphanSuspected = false;
+            } else if (!invocation.orphanSuspected) {
+                invocation.orphanSuspected = true;
+            } else if (runningTasks.remove(invocation.key, invocation)) {
+                logger.warn("Task invocation {} is no longer on the shared queue and no result arrived", invocation.key);
+                invocation.result.complete(ToolResult.error(
+                    "Task invocation was lost by the executing node: " + invocation.params.getTaskId()));
+            }
+        }
+    }
+
+    private void releaseDependencies(String taskId) {
+        for (String depId : dependencyManager.getDependencies(taskId)) {
+            dependencyManager.removeDependency(taskId, depId);
+        }
+    }
+
+    /**
+     * 任务引擎统计
+     */
+    public Map<String, Object> getEngineStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("parallelism", settings.getParallelism());
+        stats.put("activeWorkers", executorService.getActiveCount());
+        stats.put("pendingInvocations", runningTasks.size());
+        stats.put("queuedTasks", taskScheduler.getQueueSize());
+        stats.put("cachedTasks", taskCache.size());
+        stats.put("rejectedInvocations", rejectedInvocations.get());
+        stats.put("cancelledInvocations", cancelledInvocations.get());
+        stats.put("evictedTasks", evictedTasks.get());
+        if (taskScheduler instanceof RedisTaskScheduler redisScheduler) {
+            stats.put("nodeId", redisScheduler.getNodeId());
+            stats.put("nodeLoads", redisScheduler.getNodeLoads());
+        }
+        return stats;
     }
 
     /**
@@ -288,9 +858,8 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         logger.info("Task planning completed: {} steps generated for goal: {} [ID: {}]",
                    steps.size(), goal, taskId);
 
-        // 如果设置了优先级，加入调度队列
+        // 后续调用未指定优先级时沿用规划时的优先级排队
         if (params.getPriority() != null) {
-            taskScheduler.scheduleTask(taskId, params.getPriority());
             feedback += String.format("\n\n📋 任务已加入调度队列，优先级: %s", params.getPriority());
         }
 
@@ -342,6 +911,16 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
         TaskStep currentStep = steps.get(currentIndex);
 
+        // 按顺序执行时也不能越过未完成的依赖步骤
+        List<String> unmetDependencies = unmetDependencies(steps, currentStep);
+        if (!unmetDependencies.isEmpty()) {
+            return new TaskExecutionResult(
+                "⚠️ 步骤依赖尚未完成：" + String.join(", ", unmetDependencies),
+                null,
+                "先执行依赖步骤，或使用 execute_all 模式按依赖顺序执行"
+            );
+        }
+
         // 检查是否有其他步骤正在执行
         long inProgressCount = steps.stream()
             .filter(s -> "in_progress".equals(s.getStatus()))
@@ -364,6 +943,7 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
         if (stepResult.isSuccess()) {
             currentStep.setStatus("completed");
+            eventListener.onStepCompleted(taskId, currentIndex, currentStep);
             int nextIndex = currentIndex + 1;
             boolean hasMoreSteps = nextIndex < steps.size();
 
@@ -410,6 +990,142 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         }
     }
 
+    /**
+     * 按依赖关系执行所有未完成的步骤，相互独立的步骤并行执行
+     * 已完成和已取消的步骤视为依赖已满足；失败的步骤重试用尽后，其下游步骤标记为 skipped
+     */
+    private TaskExecutionResult executeAllSteps(TaskExecutionParams params) {
+        List<TaskStep> steps = params.getSteps();
+        String taskId = params.getTaskId();
+        if (steps == null || steps.isEmpty()) {
+            return new TaskExecutionResult("⚠️ 没有可执行的步骤", null, "先使用 plan 模式生成执行计划");
+        }
+
+        // 未指定 id 的步骤以下标为 id，显式 id 与其他步骤的 id 或下标重复时无法确定依赖指向哪个步骤
+        Map<String, TaskStep> stepsById = new LinkedHashMap<>();
+        for (int i = 0; i < steps.size(); i++) {
+            String id = stepId(steps.get(i), i);
+            TaskStep existing = stepsById.putIfAbsent(id, steps.get(i));
+            if (existing != null) {
+                return new TaskExecutionResult(
+                    String.format("❌ 步骤 %d 的 id %s 与步骤 %d 重复（未指定 id 的步骤以下标作为 id）",
+                        i, id, steps.indexOf(existing)),
+                    null, "为步骤设置唯一的 id 后重试");
+            }
+        }
+
+        List<StepGraphExecutor.Node> nodes = new ArrayList<>();
+        for (Map.Entry<String, TaskStep> entry : stepsById.entrySet()) {
+            TaskStep step = entry.getValue();
+            if (isSatisfied(step)) {
+                continue;
+            }
+            List<String> dependsOn = new ArrayList<>();
+            for (String dep : step.getDependsOn() != null ? step.getDependsOn() : List.<String>of()) {
+                TaskStep depStep = stepsById.get(dep);
+                if (depStep == null) {
+                    return new TaskExecutionResult(
+                        String.format("❌ 步骤 %s 依赖的步骤 %s 不存在", entry.getKey(), dep), null, "修正步骤依赖后重试");
+                }
+                if (!isSatisfied(depStep)) {
+                    dependsOn.add(dep);
+                }
+            }
+            long estimatedMillis = TimeUnit.SECONDS.toMillis(
+                step.getEstimatedSeconds() != null ? step.getEstimatedSeconds() : 1);
+            int maxRetries = step.getMaxRetries() != null ? step.getMaxRetries() : -1;
+            nodes.add(new StepGraphExecutor.Node(entry.getKey(), dependsOn, estimatedMillis, maxRetries));
+        }
+
+        StepGraphExecutor.CriticalPath criticalPath;
+        try {
+            criticalPath = StepGraphExecutor.criticalPath(nodes, StepGraphExecutor.Node::estimatedMillis);
+        } catch (IllegalArgumentException e) {
+            return new TaskExecutionResult("❌ 步骤依赖无效：" + e.getMessage(), null, "修正步骤依赖后重试");
+        }
+
+        logger.info("Task {} executing {} steps with parallelism {}, critical path {} ({} ms of {} ms)",
+            taskId, nodes.size(), settings.getStepParallelism(), criticalPath.stepIds(),
+            criticalPath.millis(), criticalPath.sequentialMillis());
+
+        StepGraphExecutor.Report report = stepGraphExecutor.execute(nodes, (id, attempt) -> {
+            TaskStep step = stepsById.get(id);
+            step.setStatus("in_progress");
+            if (attempt > 1) {
+                logger.info("Task {} retrying step {} (attempt {})", taskId, id, attempt);
+            }
+            StepExecutionResult result = executeStepWithVerification(step, params);
+            if (result.isSuccess()) {
+                step.setStatus("completed");
+                eventListener.onStepCompleted(taskId, steps.indexOf(step), step);
+            } else {
+                step.setStatus("failed");
+                step.setDetails("执行失败: " + result.getError());
+            }
+            return result.isSuccess();
+        });
+
+        report.outcomes().forEach((id, outcome) -> {
+            TaskStep step = stepsById.get(id);
+            switch (outcome) {
+                case SKIPPED -> {
+                    step.setStatus("skipped");
+                    step.setDetails("依赖步骤失败，已跳过");
+                }
+                case CANCELLED -> step.setStatus("pending");
+                default -> { }
+            }
+        });
+
+        int nextIndex = 0;
+        while (nextIndex < steps.size() && isSatisfied(steps.get(nextIndex))) {
+            nextIndex++;
+        }
+        boolean completed = nextIndex == steps.size();
+        boolean interrupted = report.outcomes().containsValue(StepGraphExecutor.Outcome.CANCELLED);
+        String status = completed ? "completed" : interrupted ? "executing" : "failed";
+
+        TaskExecutionState state = new TaskExecutionState(
+            params.getGoal(),
+            steps,
+            nextIndex,
+            status,
+            System.currentTimeMillis(),
+            completed ? System.currentTimeMillis() : null,
+            params.getCompletionCriteria()
+        );
+
+        String feedback = generateParallelExecutionFeedback(params.getGoal(), stepsById, report, criticalPath);
+        String nextAction = completed ? "任务全部完成！" : "检查失败的步骤，调整后重新执行 execute_all";
+        return new TaskExecutionResult(feedback, state, nextAction);
+    }
+
+    private static String stepId(TaskStep step, int index) {
+        return step.getId() != null && !step.getId().isBlank() ? step.getId() : String.valueOf(index);
+    }
+
+    private static boolean isSatisfied(TaskStep step) {
+        return "completed".equals(step.getStatus()) || "cancelled".equals(step.getStatus());
+    }
+
+    private static List<String> unmetDependencies(List<TaskStep> steps, TaskStep step) {
+        if (step.getDependsOn() == null || step.getDependsOn().isEmpty()) {
+            return List.of();
+        }
+        Map<String, TaskStep> stepsById = new HashMap<>();
+        for (int i = 0; i < steps.size(); i++) {
+            stepsById.put(stepId(steps.get(i), i), steps.get(i));
+        }
+        List<String> unmet = new ArrayList<>();
+        for (String dep : step.getDependsOn()) {
+            TaskStep depStep = stepsById.get(dep);
+            if (depStep == null || !isSatisfied(depStep)) {
+                unmet.add(dep);
+            }
+        }
+        return unmet;
+    }
+
     /**
      * 执行步骤并进行验证
      */
@@ -803,6 +1519,41 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         return feedback.toString();
     }
 
+    private String generateParallelExecutionFeedback(String goal, Map<String, TaskStep> stepsById,
+                                                     StepGraphExecutor.Report report,
+                                                     StepGraphExecutor.CriticalPath criticalPath) {
+        StringBuilder feedback = new StringBuilder();
+        feedback.append("🎯 任务目标：").append(goal).append("\n\n");
+        feedback.append("📋 执行结果：\n");
+        // 按步骤顺序列出本次执行的结果，之前已完成的步骤不再列出
+        stepsById.forEach((id, step) -> {
+            StepGraphExecutor.Outcome outcome = report.outcomes().get(id);
+            if (outcome == null) {
+                return;
+            }
+            String icon = switch (outcome) {
+                case COMPLETED -> "✅";
+                case FAILED -> "❌";
+                case SKIPPED -> "⏭️";
+                case CANCELLED -> "🚫";
+            };
+            feedback.append(String.format("%s [%s] %s", icon, id, step.getDescription()));
+            int attempts = report.attempts().getOrDefault(id, 0);
+            if (attempts > 1) {
+                feedback.append(String.format("（尝试 %d 次）", attempts));
+            }
+            feedback.append("\n");
+        });
+
+        feedback.append(String.format("\n🧭 关键路径：%s，预计 %.1f 秒（顺序执行预计 %.1f 秒）\n",
+            String.join(" → ", criticalPath.stepIds()),
+            criticalPath.millis() / 1000.0, criticalPath.sequentialMillis() / 1000.0));
+        long stepMillis = report.durations().values().stream().mapToLong(Long::longValue).sum();
+        feedback.append(String.format("⏱️ 实际耗时 %.1f 秒，步骤累计耗时 %.1f 秒",
+            report.elapsedMillis() / 1000.0, stepMillis / 1000.0));
+        return feedback.toString();
+    }
+
     private String generateCompletionFeedback(String goal, List<TaskStep> steps, CompletionEvaluationResult result) {
         StringBuilder feedback = new StringBuilder();
         feedback.append("🎯 任务目标：").append(goal).append("\n\n");
@@ -834,6 +1585,7 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         switch (mode) {
             case "plan": return "任务规划";
             case "execute": return "任务执行";
+            case "execute_all": return "并行执行";
             case "check_completion": return "完成检查";
             default: return "任务处理";
         }
@@ -871,6 +1623,13 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         @JsonProperty("dependencies")
         private List<String> dependencies;
 
+        /**
+         * 提交任务的用户ID，由服务端取当前登录用户设置（见 ToolController），不在工具 Schema 中暴露；
+         * 为空的调用会被拒绝
+         */
+        @JsonProperty("ownerId")
+        private String ownerId;
+
         // Getters and setters
         public String getGoal() { return goal; }
         public void setGoal(String goal) { this.goal = goal; }
@@ -901,6 +1660,9 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
         public List<String> getDependencies() { return dependencies; }
         public void setDependencies(List<String> dependencies) { this.dependencies = dependencies; }
+
+        public String getOwnerId() { return ownerId; }
+        public void setOwnerId(String ownerId) { this.ownerId = ownerId; }
     }
 
     public static class TaskStep {
@@ -919,7 +1681,22 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         @JsonProperty("details")
         private String details;
 
-        public TaskStep(String description, String status, String details) {
+        @JsonProperty("id")
+        private String id;
+
+        @JsonProperty("dependsOn")
+        private List<String> dependsOn;
+
+        @JsonProperty("estimatedSeconds")
+        private Integer estimatedSeconds;
+
+        @JsonProperty("maxRetries")
+        private Integer maxRetries;
+
+        @JsonCreator
+        public TaskStep(@JsonProperty("description") String description,
+                        @JsonProperty("status") String status,
+                        @JsonProperty("details") String details) {
             this.description = description;
             this.status = status;
             this.details = details;
@@ -940,6 +1717,18 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
         public String getDetails() { return details; }
         public void setDetails(String details) { this.details = details; }
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public List<String> getDependsOn() { return dependsOn; }
+        public void setDependsOn(List<String> dependsOn) { this.dependsOn = dependsOn; }
+
+        public Integer getEstimatedSeconds() { return estimatedSeconds; }
+        public void setEstimatedSeconds(Integer estimatedSeconds) { this.estimatedSeconds = estimatedSeconds; }
+
+        public Integer getMaxRetries() { return maxRetries; }
+        public void setMaxRetries(Integer maxRetries) { this.maxRetries = maxRetries; }
     }
 
     public static class StepVerification {
@@ -949,7 +1738,8 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         @JsonProperty("params")
         private Object params;
 
-        public StepVerification(String type, Object params) {
+        @JsonCreator
+        public StepVerification(@JsonProperty("type") String type, @JsonProperty("params") Object params) {
             this.type = type;
             this.params = params;
         }
@@ -969,7 +1759,8 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         @JsonProperty("params")
         private Object params;
 
-        public CompletionCriteria(String type, Object params) {
+        @JsonCreator
+        public CompletionCriteria(@JsonProperty("type") String type, @JsonProperty("params") Object params) {
             this.type = type;
             this.params = params;
         }
@@ -988,12 +1779,21 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         private final int currentStepIndex;
         private final String status;
         private final long startTime;
-        private final long endTime;
+        private final Long endTime;
         private final List<CompletionCriteria> completionCriteria;
 
-        public TaskExecutionState(String goal, List<TaskStep> steps, int currentStepIndex,
-                                String status, long startTime, Long endTime,
-                                List<CompletionCriteria> completionCriteria) {
+        // 任务首次保存时记录，之后不再改变
+        @JsonProperty("ownerId")
+        private String ownerId;
+
+        @JsonCreator
+        public TaskExecutionState(@JsonProperty("goal") String goal,
+                                @JsonProperty("steps") List<TaskStep> steps,
+                                @JsonProperty("currentStepIndex") int currentStepIndex,
+                                @JsonProperty("status") String status,
+                                @JsonProperty("startTime") long startTime,
+                                @JsonProperty("endTime") Long endTime,
+                                @JsonProperty("completionCriteria") List<CompletionCriteria> completionCriteria) {
             this.goal = goal;
             this.steps = steps;
             this.currentStepIndex = currentStepIndex;
@@ -1009,8 +1809,10 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         public int getCurrentStepIndex() { return currentStepIndex; }
         public String getStatus() { return status; }
         public long getStartTime() { return startTime; }
-        public long getEndTime() { return endTime; }
+        public Long getEndTime() { return endTime; }
         public List<CompletionCriteria> getCompletionCriteria() { return completionCriteria; }
+        public String getOwnerId() { return ownerId; }
+        public void setOwnerId(String ownerId) { this.ownerId = ownerId; }
     }
 
     public static class TaskExecutionResult {
@@ -1075,6 +1877,14 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         TaskExecutionState loadTask(String taskId);
         void deleteTask(String taskId);
         List<String> listAllTaskIds();
+
+        /**
+         * 清理在指定时间之前结束的任务
+         * @return 清理的任务数；依赖存储自身过期机制的实现返回 0
+         */
+        default int purgeFinishedTasks(long finishedBefore) {
+            return 0;
+        }
     }
 
     /**
@@ -1104,13 +1914,24 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         public List<String> listAllTaskIds() {
             return new ArrayList<>(storage.keySet());
         }
+
+        @Override
+        public int purgeFinishedTasks(long finishedBefore) {
+            int before = storage.size();
+            storage.values().removeIf(state -> isFinishedBefore(state, finishedBefore));
+            return before - storage.size();
+        }
     }
 
     /**
      * 文件系统任务持久化管理器
+     * 每个任务一个 JSON 文件，先写临时文件再原子替换，进程重启后可恢复
      */
     public static class FileSystemTaskPersistenceManager implements TaskPersistenceManager {
+        private static final String FILE_SUFFIX = ".json";
+
         private final Path storageDir;
+        private final ObjectMapper objectMapper = new ObjectMapper();
 
         public FileSystemTaskPersistenceManager(String storagePath) {
             this.storageDir = Paths.get(storagePath);
@@ -1123,30 +1944,81 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
         @Override
         public void saveTask(String taskId, TaskExecutionState state) {
-            // 实现文件保存逻辑
-            logger.info("Task {} saved to file system", taskId);
+            Path file = taskFile(taskId);
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                objectMapper.writeValue(temp.toFile(), state);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.debug("Task {} saved to file system", taskId);
+            } catch (IOException e) {
+                logger.error("Failed to save task {} to {}", taskId, file, e);
+            }
         }
 
         @Override
         public TaskExecutionState loadTask(String taskId) {
-            // 实现文件加载逻辑
-            logger.info("Task {} loaded from file system", taskId);
-            return null;
+            Path file = taskFile(taskId);
+            if (!Files.exists(file)) {
+                return null;
+            }
+            try {
+                return objectMapper.readValue(file.toFile(), TaskExecutionState.class);
+            } catch (IOException e) {
+                logger.error("Failed to load task {} from {}", taskId, file, e);
+                return null;
+            }
         }
 
         @Override
         public void deleteTask(String taskId) {
-            // 实现文件删除逻辑
-            logger.info("Task {} deleted from file system", taskId);
+            try {
+                Files.deleteIfExists(taskFile(taskId));
+                logger.debug("Task {} deleted from file system", taskId);
+            } catch (IOException e) {
+                logger.error("Failed to delete task {}", taskId, e);
+            }
         }
 
         @Override
         public List<String> listAllTaskIds() {
-            // 实现文件列表逻辑
-            return new ArrayList<>();
+            List<String> taskIds = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(storageDir, "*" + FILE_SUFFIX)) {
+                for (Path file : stream) {
+                    String name = file.getFileName().toString();
+                    taskIds.add(name.substring(0, name.length() - FILE_SUFFIX.length()));
+                }
+            } catch (IOException e) {
+                logger.error("Failed to list tasks in {}", storageDir, e);
+            }
+            return taskIds;
+        }
+
+        @Override
+        public int purgeFinishedTasks(long finishedBefore) {
+            int purged = 0;
+            for (String taskId : listAllTaskIds()) {
+                if (isFinishedBefore(loadTask(taskId), finishedBefore)) {
+                    deleteTask(taskId);
+                    purged++;
+                }
+            }
+            return purged;
+        }
+
+        private Path taskFile(String taskId) {
+            // 任务ID可能来自模型输入，只保留安全字符，避免路径穿越
+            return storageDir.resolve(taskId.replaceAll("[^A-Za-z0-9_.-]", "_") + FILE_SUFFIX);
         }
     }
 
+    private static boolean isFinishedBefore(TaskExecutionState state, long finishedBefore) {
+        if (state == null || !FINISHED_STATUSES.contains(state.getStatus())) {
+            return false;
+        }
+        long finishedAt = state.getEndTime() != null ? state.getEndTime() : state.getStartTime();
+        return finishedAt < finishedBefore;
+    }
+
     /**
      * 任务依赖管理器接口
      */
@@ -1195,11 +2067,12 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
 
         @Override
         public void removeDependency(String taskId, String dependsOnTaskId) {
-            Set<String> deps = dependencies.get(taskId);
-            if (deps != null) {
+            // 依赖清空后移除整个条目，避免已结束任务的空集合一直留在内存中
+            dependencies.computeIfPresent(taskId, (k, deps) -> {
                 deps.remove(dependsOnTaskId);
-                logger.debug("Removed dependency: {} no longer depends on {}", taskId, dependsOnTaskId);
-            }
+                return deps.isEmpty() ? null : deps;
+            });
+            logger.debug("Removed dependency: {} no longer depends on {}", taskId, dependsOnTaskId);
         }
     }
 
@@ -1281,6 +2154,120 @@ public class ContinuousTaskTool extends BaseTool<ContinuousTaskTool.TaskExecutio
         }
     }
 
+    /**
+     * 跨节点共享的任务调度器
+     * 调用参数随队列项一起保存，任意节点都可以取出执行；执行结果回传给提交调用的节点
+     */
+    public interface DistributedTaskScheduler extends TaskScheduler {
+        /**
+         * 调度一次调用
+         * @param payload 调用参数（JSON），供其他节点重建调用
+         */
+        void scheduleTask(String taskId, String priority, String payload);
+
+        String getPayload(String taskId);
+
+        /**
+         * 调用是否仍在共享队列中或正被某个节点执行
+         */
+        boolean isPending(String taskId);
+
+        /**
+         * 调用执行结束，释放租约并把结果回传给提交节点
+         * @param encodedResult 编码后的结果，调用被取消时为 null
+         */
+        void complete(String taskId, String encodedResult);
+
+        void addResultListener(BiConsumer<String, String> listener);
+
+        /**
+         * 注册租约丢失监听器：本节点执行中的调用被其他节点回收后回调，参数为调用的键
+         */
+        void addLeaseLostListener(Consumer<String> listener);
+
+        /**
+         * 通知所有节点取消任务的调用
+         */
+        void requestCancel(String taskId);
+
+        void addCancelListener(Consumer<String> listener);
+
+        void shutdown();
+    }
+
+    /**
+     * 任务引擎配置
+     */
+    public static class TaskEngineSettings {
+        private int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+        private int queueCapacity = 64;
+        private Duration finishedTtl = Duration.ofMinutes(30);
+        private Duration idleTtl = Duration.ofHours(24);
+        private int maxCachedTasks = 1000;
+        private int stepParallelism = 4;
+        private int stepMaxRetries = 1;
+        private Duration stepRetryBackoff = Duration.ofMillis(500);
+        private Duration pollInterval = Duration.ofMillis(500);
+
+        public int getParallelism() { return parallelism; }
+        public void setParallelism(int parallelism) { this.parallelism = Math.max(1, parallelism); }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = Math.max(0, queueCapacity); }
+
+        public Duration getFinishedTtl() { return finishedTtl; }
+        public void setFinishedTtl(Duration finishedTtl) { this.finishedTtl = finishedTtl; }
+
+        public Duration getIdleTtl() { return idleTtl; }
+        public void setIdleTtl(Duration idleTtl) { this.idleTtl = idleTtl; }
+
+        public int getMaxCachedTasks() { return maxCachedTasks; }
+        public void setMaxCachedTasks(int maxCachedTasks) { this.maxCachedTasks = maxCachedTasks; }
+
+        public int getStepParallelism() { return stepParallelism; }
+        public void setStepParallelism(int stepParallelism) { this.stepParallelism = Math.max(1, stepParallelism); }
+
+        public int getStepMaxRetries() { return stepMaxRetries; }
+        public void setStepMaxRetries(int stepMaxRetries) { this.stepMaxRetries = Math.max(0, stepMaxRetries); }
+
+        public Duration getStepRetryBackoff() { return stepRetryBackoff; }
+        public void setStepRetryBackoff(Duration stepRetryBackoff) { this.stepRetryBackoff = stepRetryBackoff; }
+
+        public Duration getPollInterval() { return pollInterval; }
+        public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+    }
+
+    /**
+     * 一次工具调用，从进入调度队列到执行结束
+     */
+    private static class TaskInvocation {
+        final String key;
+        final TaskExecutionParams params;
+        final CompletableFuture<ToolResult> result = new CompletableFuture<>();
+        volatile Thread worker;
+        volatile boolean cancelled;
+        // 执行期间租约被其他节点回收，本地结果作废
+        volatile boolean leaseLost;
+        // 从共享队列重建的其他节点提交的调用
+        volatile boolean remote;
+        // 上次检查时已不在共享队列中
+        volatile boolean orphanSuspected;
+
+        TaskInvocation(String key, TaskExecutionParams params) {
+            this.key = key;
+            this.params = params;
+        }
+    }
+
+    /**
+     * 缓存中的任务状态
+     */
+    private static class TaskRecord {
+        volatile TaskExecutionState state;
+        volatile String priority;
+        volatile long updatedAt = System.currentTimeMillis();
+    }
+
     /**
      * 任务事件监听器接口
      */
@@ -2,10 +2,10 @@ package com.alibaba.cloud.ai.copilot.tools;
 
 import com.alibaba.cloud.ai.copilot.config.AppProperties;
 import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import com.alibaba.cloud.ai.copilot.tools.service.TextPatch;
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.github.difflib.DiffUtils;
-import com.github.difflib.UnifiedDiffUtils;
-import com.github.difflib.patch.Patch;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -15,10 +15,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -34,6 +30,9 @@ public class EditFileTool extends BaseTool<EditFileTool.EditFileParams> {
     @Autowired
     private ToolExecutionLogger executionLogger;
 
+    @Autowired
+    private WorkspaceSnapshotService snapshotService;
+
     public EditFileTool(AppProperties appProperties) {
         super(
             "edit_file",
@@ -138,14 +137,14 @@ public class EditFileTool extends BaseTool<EditFileTool.EditFileParams> {
                 }
 
                 String currentContent = Files.readString(filePath, StandardCharsets.UTF_8);
-                String newContent = performEdit(currentContent, params);
+                TextPatch patch = performEdit(currentContent, params);
 
-                if (newContent == null) {
+                if (patch == null) {
                     return null; // Edit failed, cannot preview differences
                 }
 
                 // 生成差异显示
-                String diff = generateDiff(filePath.getFileName().toString(), currentContent, newContent);
+                String diff = generateDiff(filePath.getFileName().toString(), patch);
                 String title = "Confirm Edit: " + getRelativePath(filePath);
 
                 return ToolConfirmationDetails.edit(title, filePath.getFileName().toString(), diff);
@@ -231,22 +230,20 @@ public class EditFileTool extends BaseTool<EditFileTool.EditFileParams> {
                 String originalContent = Files.readString(filePath, StandardCharsets.UTF_8);
 
                 // 执行编辑
-                String newContent = performEdit(originalContent, params);
-                if (newContent == null) {
+                TextPatch patch = performEdit(originalContent, params);
+                if (patch == null) {
                     return ToolResult.error("Could not find the specified text to replace in file: " + params.filePath);
                 }
 
                 // 创建备份
-                if (shouldCreateBackup()) {
-                    createBackup(filePath, originalContent);
-                }
+                createBackup(filePath, originalContent);
 
                 // Write new content
-                Files.writeString(filePath, newContent, StandardCharsets.UTF_8);
+                HardLinkUtils.detach(filePath);
+                patch.writeTo(filePath);
 
                 // Generate differences and results
-                String diff = generateDiff(filePath.getFileName().toString(), originalContent, newContent);
-                String relativePath = getRelativePath(filePath);
+                String diff = generateDiff(filePath.getFileName().toString(), patch);
                 String successMessage = String.format("Successfully edited file: %s", params.filePath);
 
                 return ToolResult.success(successMessage, new FileDiff(diff, filePath.getFileName().toString()));
@@ -261,106 +258,28 @@ public class EditFileTool extends BaseTool<EditFileTool.EditFileParams> {
         });
     }
 
-    private String performEdit(String content, EditFileParams params) {
-        // If line numbers are specified, use line numbers to assist in finding
-        if (params.startLine != null && params.endLine != null) {
-            return performEditWithLineNumbers(content, params);
-        } else {
-            return performSimpleEdit(content, params);
-        }
-    }
-
-    private String performSimpleEdit(String content, EditFileParams params) {
-        // Simple string replacement
-        if (!content.contains(params.oldStr)) {
-            return null; // Cannot find string to replace
-        }
-
-        // Only replace the first match to avoid unexpected multiple replacements
-        int index = content.indexOf(params.oldStr);
-        if (index == -1) {
-            return null;
-        }
-
-        return content.substring(0, index) + params.newStr + content.substring(index + params.oldStr.length());
-    }
-
-    private String performEditWithLineNumbers(String content, EditFileParams params) {
-        String[] lines = content.split("\n", -1); // -1 preserve trailing empty lines
-
-        // Validate line number range
-        if (params.startLine > lines.length || params.endLine > lines.length) {
-            return null; // Line number out of range
-        }
-
-        // Extract content from specified line range
-        StringBuilder targetContent = new StringBuilder();
-        for (int i = params.startLine - 1; i < params.endLine; i++) {
-            if (i > params.startLine - 1) {
-                targetContent.append("\n");
-            }
-            targetContent.append(lines[i]);
-        }
-
-        // 检查是否匹配
-        if (!targetContent.toString().equals(params.oldStr)) {
-            return null; // 指定行范围的内容与old_str不匹配
-        }
-
-        // 执行替换
-        StringBuilder result = new StringBuilder();
-
-        // 添加前面的行
-        for (int i = 0; i < params.startLine - 1; i++) {
-            if (i > 0) result.append("\n");
-            result.append(lines[i]);
-        }
-
-        // 添加新内容
-        if (params.startLine > 1) result.append("\n");
-        result.append(params.newStr);
-
-        // 添加后面的行
-        for (int i = params.endLine; i < lines.length; i++) {
-            result.append("\n");
-            result.append(lines[i]);
-        }
-
-        return result.toString();
+    /**
+     * 定位替换区间；指定行号时按行号范围匹配，否则替换第一次出现的 old_str
+     */
+    private TextPatch performEdit(String content, EditFileParams params) {
+        return TextPatch.locate(content, params.oldStr, params.newStr, params.startLine, params.endLine);
     }
 
-    private String generateDiff(String fileName, String oldContent, String newContent) {
+    private String generateDiff(String fileName, TextPatch patch) {
         try {
-            List<String> oldLines = Arrays.asList(oldContent.split("\n"));
-            List<String> newLines = Arrays.asList(newContent.split("\n"));
-
-            Patch<String> patch = DiffUtils.diff(oldLines, newLines);
-            List<String> unifiedDiff = UnifiedDiffUtils.generateUnifiedDiff(
-                fileName + " (Original)",
-                fileName + " (Edited)",
-                oldLines,
-                patch,
-                3 // context lines
-            );
-
-            return String.join("\n", unifiedDiff);
+            return patch.unifiedDiff(fileName + " (Original)", fileName + " (Edited)");
         } catch (Exception e) {
             logger.warn("Could not generate diff", e);
             return "Diff generation failed: " + e.getMessage();
         }
     }
 
-    private void createBackup(Path filePath, String content) throws IOException {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String backupFileName = filePath.getFileName().toString() + ".backup." + timestamp;
-        Path backupPath = filePath.getParent().resolve(backupFileName);
-
-        Files.writeString(backupPath, content, StandardCharsets.UTF_8);
-        logger.info("Created backup: {}", backupPath);
-    }
-
-    private boolean shouldCreateBackup() {
-        return true; // 总是创建备份
+    private void createBackup(Path filePath, String originalContent) {
+        // 修改前的内容保存到工作目录之外的快照中，不再在文件旁生成 .backup 副本；
+        // 直接使用已读入内存的内容，不再重新读取磁盘，快照与本次编辑的基准一致
+        long snapshotId = snapshotService.recordContent(filePath,
+            originalContent.getBytes(StandardCharsets.UTF_8), "edit_file");
+        logger.debug("Recorded snapshot #{} before writing {}", snapshotId, filePath);
     }
 
     private boolean isWithinWorkspace(Path filePath) {
@@ -2,6 +2,9 @@ package com.alibaba.cloud.ai.copilot.tools;
 
 
 import com.alibaba.cloud.ai.copilot.config.AppProperties;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import com.alibaba.cloud.ai.copilot.tools.service.LineIndexedFileReader;
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
 import com.alibaba.cloud.ai.copilot.util.PathUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,10 +32,15 @@ public class FileOperationTools {
 
     private final String rootDirectory;
     private final AppProperties appProperties;
+    private final LineIndexedFileReader lineReader;
+    private final WorkspaceSnapshotService snapshotService;
 
     // 在构造函数中
-    public FileOperationTools(AppProperties appProperties) {
+    public FileOperationTools(AppProperties appProperties, LineIndexedFileReader lineReader,
+                              WorkspaceSnapshotService snapshotService) {
         this.appProperties = appProperties;
+        this.lineReader = lineReader;
+        this.snapshotService = snapshotService;
         // 使用规范化的路径
         this.rootDirectory = PathUtils.normalizePath(appProperties.getWorkspace().getRootDirectory());
     }
@@ -67,11 +75,12 @@ public class FileOperationTools {
                 return "Error: Path is not a regular file: " + absolutePath;
             }
 
-            // 检查文件大小
+            // 检查文件大小，分页读取只加载请求的窗口，窗口内容同样不超过大小限制
+            boolean paginated = offset != null && limit != null;
             long fileSize = Files.size(filePath);
-            if (fileSize > appProperties.getWorkspace().getMaxFileSize()) {
+            if (!paginated && fileSize > appProperties.getWorkspace().getMaxFileSize()) {
                 return "Error: File too large: " + fileSize + " bytes. Maximum allowed: " +
-                    appProperties.getWorkspace().getMaxFileSize() + " bytes";
+                    appProperties.getWorkspace().getMaxFileSize() + " bytes. Use offset and limit to read it in parts";
             }
 
             // 检查文件扩展名
@@ -82,7 +91,7 @@ public class FileOperationTools {
             }
 
             // 读取文件
-            if (offset != null && limit != null) {
+            if (paginated) {
                 return readFileWithPagination(filePath, offset, limit);
             } else {
                 return readFullFile(filePath);
@@ -133,7 +142,9 @@ public class FileOperationTools {
             // 确保父目录存在
             Files.createDirectories(path.getParent());
 
-            // 写入文件
+            // 写入文件，修改前的内容保存到快照中
+            snapshotService.recordBeforeWrite(path, "write_file");
+            HardLinkUtils.detach(path);
             Files.writeString(path, content, StandardCharsets.UTF_8,
                 StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 
@@ -203,7 +214,9 @@ public class FileOperationTools {
 
             String newContent = originalContent.replace(oldText, newText);
 
-            // 写入新内容
+            // 写入新内容，修改前的内容保存到快照中
+            snapshotService.recordBeforeWrite(path, "edit_file");
+            HardLinkUtils.detach(path);
             Files.writeString(path, newContent, StandardCharsets.UTF_8);
 
             String absolutePath = path.toAbsolutePath().toString();
@@ -323,26 +336,32 @@ public class FileOperationTools {
         String absolutePath = filePath.toAbsolutePath().toString();
         String relativePath = getRelativePath(filePath);
 
+        // 直接在已读入的内容上计数，不再扫描一遍文件
         long lineCount = content.lines().count();
         return String.format("📁 Full path: %s\n📂 Relative path: %s\n📊 Stats: %d lines, %d bytes\n\n📄 Content:\n%s",
             absolutePath, relativePath, lineCount, content.getBytes(StandardCharsets.UTF_8).length, content);
     }
 
     private String readFileWithPagination(Path filePath, int offset, int limit) throws IOException {
-        List<String> allLines = Files.readAllLines(filePath, StandardCharsets.UTF_8);
+        long maxBytes = appProperties.getWorkspace().getMaxFileSize();
+        LineIndexedFileReader.LineWindow window = lineReader.readLines(filePath, offset, limit, maxBytes);
 
-        if (offset >= allLines.size()) {
-            return "Error: Offset " + offset + " is beyond file length (" + allLines.size() + " lines)";
+        if (window.lines().isEmpty()) {
+            if (window.truncated()) {
+                return "Error: Line " + (offset + 1) + " exceeds the maximum of " + maxBytes + " bytes";
+            }
+            return "Error: Offset " + offset + " is beyond file length (" + window.totalLines() + " lines)";
         }
 
-        int endIndex = Math.min(offset + limit, allLines.size());
-        List<String> selectedLines = allLines.subList(offset, endIndex);
-        String content = String.join("\n", selectedLines);
+        String content = String.join("\n", window.lines());
 
         String absolutePath = filePath.toAbsolutePath().toString();
         String relativePath = getRelativePath(filePath);
-        return String.format("📁 Full path: %s\n📂 Relative path: %s\n📊 Showing lines %d-%d of %d total\n\n📄 Content:\n%s",
-            absolutePath, relativePath, offset + 1, endIndex, allLines.size(), content);
+        String truncation = window.truncated()
+            ? String.format(" (truncated at %d bytes, continue with offset %d)", maxBytes, window.endLine())
+            : "";
+        return String.format("📁 Full path: %s\n📂 Relative path: %s\n📊 Showing lines %d-%d of %d total%s\n\n📄 Content:\n%s",
+            absolutePath, relativePath, offset + 1, window.endLine(), window.totalLines(), truncation, content);
     }
 
     private String listDirectorySimple(Path path, String absolutePath, String relativePath) throws IOException {
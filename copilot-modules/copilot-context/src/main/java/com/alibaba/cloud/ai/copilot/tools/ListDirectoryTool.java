@@ -2,6 +2,7 @@ package com.alibaba.cloud.ai.copilot.tools;
 
 import com.alibaba.cloud.ai.copilot.config.AppProperties;
 import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.tools.service.DirectoryWalker;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.stereotype.Component;
 
@@ -12,12 +13,8 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * 目录列表工具
@@ -26,6 +23,11 @@ import java.util.stream.Stream;
 @Component
 public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryParams> {
 
+    private static final int DEFAULT_PAGE_SIZE = 200;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_WALK_ENTRIES = 20000;
+
+    private final DirectoryWalker directoryWalker = new DirectoryWalker();
     private final String rootDirectory;
     private final AppProperties appProperties;
 
@@ -35,6 +37,7 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
             "ListDirectory",
             "Lists files and directories in the specified path. " +
             "Supports recursive listing and filtering. " +
+            "Respects .gitignore and skips node_modules. Large listings are paged with offset/limit. " +
             "Shows file sizes, modification times, and types. " +
             "Use absolute paths within the workspace directory.",
             createSchema()
@@ -68,9 +71,23 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
             .addProperty("show_hidden", JsonSchema.bool(
                 "Optional: Whether to show hidden files (starting with '.'). Default: false"
             ))
+            .addProperty("respect_gitignore", JsonSchema.bool(
+                "Optional: Whether to hide entries matched by .gitignore files. Default: true"
+            ))
+            .addProperty("offset", JsonSchema.integer(
+                "Optional: Number of items to skip, for paging through large listings. Default: 0"
+            ).minimum(0))
+            .addProperty("limit", JsonSchema.integer(
+                "Optional: Maximum number of items to return. Default: " + DEFAULT_PAGE_SIZE + ", Maximum: " + MAX_PAGE_SIZE
+            ).minimum(1).maximum(MAX_PAGE_SIZE))
             .required("path");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public String validateToolParams(ListDirectoryParams params) {
         String baseValidation = super.validateToolParams(params);
@@ -100,6 +117,14 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
             return "Max depth must be between 1 and 10";
         }
 
+        // 验证分页参数
+        if (params.offset != null && params.offset < 0) {
+            return "Offset must be non-negative";
+        }
+        if (params.limit != null && (params.limit < 1 || params.limit > MAX_PAGE_SIZE)) {
+            return "Limit must be between 1 and " + MAX_PAGE_SIZE;
+        }
+
         return null;
     }
 
@@ -120,19 +145,22 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
                 }
 
                 // 列出文件和目录
-                List<FileInfo> fileInfos = listFiles(dirPath, params);
+                boolean recursive = params.recursive != null && params.recursive;
+                DirectoryWalker.Options options = new DirectoryWalker.Options(
+                    recursive ? (params.maxDepth != null ? params.maxDepth : 3) : 1,
+                    params.showHidden != null && params.showHidden,
+                    params.respectGitIgnore == null || params.respectGitIgnore,
+                    MAX_WALK_ENTRIES);
+                DirectoryWalker.Listing listing = directoryWalker.walk(dirPath, options);
 
                 // 生成输出
-                String content = formatFileList(fileInfos, params);
+                String content = formatListing(listing, params);
                 String relativePath = getRelativePath(dirPath);
-                String displayMessage = String.format("Listed directory: %s (%d items)",
-                    relativePath, fileInfos.size());
+                String displayMessage = String.format("Listed directory: %s (%d items%s)",
+                    relativePath, listing.entries().size(), listing.truncated() ? ", truncated" : "");
 
                 return ToolResult.success(content, displayMessage);
 
-            } catch (IOException e) {
-                logger.error("Error listing directory: " + params.path, e);
-                return ToolResult.error("Error listing directory: " + e.getMessage());
             } catch (Exception e) {
                 logger.error("Unexpected error listing directory: " + params.path, e);
                 return ToolResult.error("Unexpected error: " + e.getMessage());
@@ -140,98 +168,24 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
         });
     }
 
-    private List<FileInfo> listFiles(Path dirPath, ListDirectoryParams params) throws IOException {
-        List<FileInfo> fileInfos = new ArrayList<>();
-
-        if (params.recursive != null && params.recursive) {
-            int maxDepth = params.maxDepth != null ? params.maxDepth : 3;
-            listFilesRecursive(dirPath, fileInfos, 0, maxDepth, params);
-        } else {
-            listFilesInDirectory(dirPath, fileInfos, params);
-        }
-
-        // 排序：目录在前，然后按名称排序
-        fileInfos.sort(Comparator
-            .comparing((FileInfo f) -> !f.isDirectory())
-            .thenComparing(FileInfo::getName));
-
-        return fileInfos;
-    }
-
-    private void listFilesInDirectory(Path dirPath, List<FileInfo> fileInfos, ListDirectoryParams params) throws IOException {
-        try (Stream<Path> stream = Files.list(dirPath)) {
-            stream.forEach(path -> {
-                try {
-                    String fileName = path.getFileName().toString();
-
-                    // 跳过隐藏文件（除非明确要求显示）
-                    if (!params.showHidden && fileName.startsWith(".")) {
-                        return;
-                    }
-
-                    FileInfo fileInfo = createFileInfo(path, dirPath);
-                    fileInfos.add(fileInfo);
-                } catch (IOException e) {
-                    logger.warn("Could not get info for file: " + path, e);
-                }
-            });
-        }
-    }
-
-    private void listFilesRecursive(Path dirPath, List<FileInfo> fileInfos, int currentDepth, int maxDepth, ListDirectoryParams params) throws IOException {
-        if (currentDepth >= maxDepth) {
-            return;
-        }
-
-        try (Stream<Path> stream = Files.list(dirPath)) {
-            List<Path> paths = stream.collect(Collectors.toList());
-
-            for (Path path : paths) {
-                String fileName = path.getFileName().toString();
-
-                // 跳过隐藏文件（除非明确要求显示）
-                if (!params.showHidden && fileName.startsWith(".")) {
-                    continue;
-                }
-
-                try {
-                    FileInfo fileInfo = createFileInfo(path, Paths.get(params.path));
-                    fileInfos.add(fileInfo);
-
-                    // 如果是目录，递归列出
-                    if (Files.isDirectory(path)) {
-                        listFilesRecursive(path, fileInfos, currentDepth + 1, maxDepth, params);
-                    }
-                } catch (IOException e) {
-                    logger.warn("Could not get info for file: " + path, e);
-                }
-            }
+    private String formatListing(DirectoryWalker.Listing listing, ListDirectoryParams params) {
+        List<DirectoryWalker.Entry> entries = listing.entries();
+        if (entries.isEmpty()) {
+            return "Directory is empty.";
         }
-    }
-
-    private FileInfo createFileInfo(Path path, Path basePath) throws IOException {
-        String name = path.getFileName().toString();
-        boolean isDirectory = Files.isDirectory(path);
-        long size = isDirectory ? 0 : Files.size(path);
-
-        LocalDateTime lastModified = LocalDateTime.ofInstant(
-            Files.getLastModifiedTime(path).toInstant(),
-            ZoneId.systemDefault()
-        );
 
-        String relativePath = basePath.relativize(path).toString();
-
-        return new FileInfo(name, relativePath, isDirectory, size, lastModified);
-    }
-
-    private String formatFileList(List<FileInfo> fileInfos, ListDirectoryParams params) {
-        if (fileInfos.isEmpty()) {
-            return "Directory is empty.";
+        int total = entries.size();
+        int offset = params.offset != null ? params.offset : 0;
+        int limit = params.limit != null ? params.limit : DEFAULT_PAGE_SIZE;
+        if (offset >= total) {
+            return String.format("Offset %d is beyond the listing (%d items).", offset, total);
         }
+        int end = Math.min(offset + limit, total);
 
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("Directory listing for: %s\n", getRelativePath(Paths.get(params.path))));
-        sb.append(String.format("Total items: %d\n\n", fileInfos.size()));
+        sb.append(String.format("Total items: %d%s, showing %d-%d\n\n",
+            total, listing.truncated() ? "+" : "", offset + 1, end));
 
         // 表头
         sb.append(String.format("%-4s %-40s %-12s %-20s %s\n",
@@ -240,20 +194,31 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
 
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-        for (FileInfo fileInfo : fileInfos) {
-            String type = fileInfo.isDirectory() ? "DIR" : "FILE";
-            String sizeStr = fileInfo.isDirectory() ? "-" : formatFileSize(fileInfo.getSize());
-            String modifiedStr = fileInfo.getLastModified().format(formatter);
+        // 只格式化当前页，逐条写入输出
+        for (DirectoryWalker.Entry entry : entries.subList(offset, end)) {
+            String type = entry.directory() ? "DIR" : "FILE";
+            String sizeStr = entry.directory() ? "-" : formatFileSize(entry.size());
+            String modifiedStr = LocalDateTime.ofInstant(entry.lastModified().toInstant(), ZoneId.systemDefault())
+                .format(formatter);
 
             sb.append(String.format("%-4s %-40s %-12s %-20s %s\n",
                 type,
-                truncate(fileInfo.getName(), 40),
+                truncate(entry.name(), 40),
                 sizeStr,
                 modifiedStr,
-                fileInfo.getRelativePath()
+                entry.relativePath()
             ));
         }
 
+        if (end < total) {
+            sb.append(String.format("\n%d more items. Call again with offset=%d to see the next page.\n",
+                total - end, end));
+        }
+        if (listing.truncated()) {
+            sb.append(String.format("\nListing stopped after %d items; use a narrower path or a smaller max_depth.\n",
+                MAX_WALK_ENTRIES));
+        }
+
         return sb.toString();
     }
 
@@ -291,32 +256,6 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
         }
     }
 
-    /**
-     * 文件信息
-     */
-    public static class FileInfo {
-        private final String name;
-        private final String relativePath;
-        private final boolean isDirectory;
-        private final long size;
-        private final LocalDateTime lastModified;
-
-        public FileInfo(String name, String relativePath, boolean isDirectory, long size, LocalDateTime lastModified) {
-            this.name = name;
-            this.relativePath = relativePath;
-            this.isDirectory = isDirectory;
-            this.size = size;
-            this.lastModified = lastModified;
-        }
-
-        // Getters
-        public String getName() { return name; }
-        public String getRelativePath() { return relativePath; }
-        public boolean isDirectory() { return isDirectory; }
-        public long getSize() { return size; }
-        public LocalDateTime getLastModified() { return lastModified; }
-    }
-
     /**
      * 列表目录参数
      */
@@ -330,6 +269,12 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
         @JsonProperty("show_hidden")
         private Boolean showHidden;
 
+        @JsonProperty("respect_gitignore")
+        private Boolean respectGitIgnore;
+
+        private Integer offset;
+        private Integer limit;
+
         // 构造器
         public ListDirectoryParams() {}
 
@@ -350,10 +295,19 @@ public class ListDirectoryTool extends BaseTool<ListDirectoryTool.ListDirectoryP
         public Boolean getShowHidden() { return showHidden; }
         public void setShowHidden(Boolean showHidden) { this.showHidden = showHidden; }
 
+        public Boolean getRespectGitIgnore() { return respectGitIgnore; }
+        public void setRespectGitIgnore(Boolean respectGitIgnore) { this.respectGitIgnore = respectGitIgnore; }
+
+        public Integer getOffset() { return offset; }
+        public void setOffset(Integer offset) { this.offset = offset; }
+
+        public Integer getLimit() { return limit; }
+        public void setLimit(Integer limit) { this.limit = limit; }
+
         @Override
         public String toString() {
-            return String.format("ListDirectoryParams{path='%s', recursive=%s, maxDepth=%d}",
-                path, recursive, maxDepth);
+            return String.format("ListDirectoryParams{path='%s', recursive=%s, maxDepth=%d, offset=%d, limit=%d}",
+                path, recursive, maxDepth, offset, limit);
         }
     }
 }
@@ -0,0 +1,507 @@
+package com.alibaba.cloud.ai.copilot.tools;
+
+import com.alibaba.cloud.ai.copilot.config.AppProperties;
+import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import com.alibaba.cloud.ai.copilot.tools.service.TextPatch;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 批量编辑工具
+ * 一次调用完成多个文件的多处替换：先读取全部文件并在内存中执行所有编辑，任何一处找不到匹配内容都不会写入；
+ * 然后并行写入同目录下的临时文件（沿用原文件的权限），最后逐个原子重命名覆盖原文件，重命名失败时恢复已提交的文件。
+ * 整批提交成功后才记录快照，每个文件只生成一段差异
+ */
+@Component
+public class MultiEditTool extends BaseTool<MultiEditTool.MultiEditParams> {
+
+    private static final int MAX_EDITS = 100;
+
+    private final String rootDirectory;
+    private final AppProperties appProperties;
+
+    @Autowired
+    private ToolExecutionLogger executionLogger;
+
+    @Autowired
+    private WorkspaceSnapshotService snapshotService;
+
+    public MultiEditTool(AppProperties appProperties) {
+        super(
+            "multi_edit",
+            "MultiEdit",
+            "Applies a batch of text replacements across one or more files in a single call. " +
+            "All edits are validated before anything is written; if any edit cannot be applied, no file is changed. " +
+            "Edits to the same file are applied in order, each on the result of the previous one. " +
+            "Returns one combined diff. Use absolute paths within the workspace directory.",
+            createSchema()
+        );
+        this.appProperties = appProperties;
+        this.rootDirectory = appProperties.getWorkspace().getRootDirectory();
+    }
+
+    private static String getWorkspaceBasePath() {
+        return Paths.get(System.getProperty("user.dir"), "workspace").toString();
+    }
+
+    private static JsonSchema createSchema() {
+        JsonSchema edit = JsonSchema.object()
+            .addProperty("file_path", JsonSchema.string(
+                "MUST be an absolute path to the file to edit. Path must be within the workspace directory (" +
+                getWorkspaceBasePath() + ")."
+            ))
+            .addProperty("old_str", JsonSchema.string(
+                "The exact string to find and replace. Must match exactly including whitespace and newlines."
+            ))
+            .addProperty("new_str", JsonSchema.string(
+                "The new string to replace the old string with. Can be empty to delete the old string."
+            ))
+            .addProperty("start_line", JsonSchema.integer(
+                "Optional: 1-based line number where the old_str starts, counted after earlier edits to the same file."
+            ).minimum(1))
+            .addProperty("end_line", JsonSchema.integer(
+                "Optional: 1-based line number where the old_str ends. Must be >= start_line."
+            ).minimum(1))
+            .required("file_path", "old_str", "new_str");
+
+        return JsonSchema.object()
+            .addProperty("edits", JsonSchema.array(
+                "The edits to apply, at most " + MAX_EDITS + ". Applied all-or-nothing.", edit))
+            .required("edits");
+    }
+
+    @Override
+    public String validateToolParams(MultiEditParams params) {
+        String baseValidation = super.validateToolParams(params);
+        if (baseValidation != null) {
+            return baseValidation;
+        }
+
+        if (params.edits == null || params.edits.isEmpty()) {
+            return "Edits cannot be empty";
+        }
+
+        if (params.edits.size() > MAX_EDITS) {
+            return "Too many edits: " + params.edits.size() + ". Maximum allowed: " + MAX_EDITS;
+        }
+
+        for (int i = 0; i < params.edits.size(); i++) {
+            String error = validateEdit(params.edits.get(i));
+            if (error != null) {
+                return "Edit #" + (i + 1) + ": " + error;
+            }
+        }
+
+        return null;
+    }
+
+    private String validateEdit(EditOperation edit) {
+        if (edit == null) {
+            return "Edit cannot be null";
+        }
+
+        // 验证路径
+        if (edit.filePath == null || edit.filePath.trim().isEmpty()) {
+            return "File path cannot be empty";
+        }
+
+        if (edit.oldStr == null) {
+            return "Old string cannot be null";
+        }
+
+        if (edit.newStr == null) {
+            return "New string cannot be null";
+        }
+
+        Path filePath = Paths.get(edit.filePath);
+
+        if (!filePath.isAbsolute()) {
+            return "File path must be absolute: " + edit.filePath;
+        }
+
+        // 验证是否在工作目录内
+        if (!isWithinWorkspace(filePath)) {
+            return "File path must be within the workspace directory (" + rootDirectory + "): " + edit.filePath;
+        }
+
+        // 验证行号
+        if (edit.startLine != null && edit.endLine != null && edit.endLine < edit.startLine) {
+            return "End line must be >= start line";
+        }
+
+        return null;
+    }
+
+    @Override
+    public CompletableFuture<ToolConfirmationDetails> shouldConfirmExecute(MultiEditParams params) {
+        // 根据审批模式决定是否需要确认
+        if (appProperties.getSecurity().getApprovalMode() == AppProperties.ApprovalMode.AUTO_EDIT ||
+            appProperties.getSecurity().getApprovalMode() == AppProperties.ApprovalMode.YOLO) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                List<FileChange> changes = prepareChanges(params.edits);
+                String title = String.format("Confirm Multi Edit: %d edits in %d files", params.edits.size(), changes.size());
+                return ToolConfirmationDetails.edit(title, "multiple files", combinedDiff(changes));
+            } catch (Exception e) {
+                logger.warn("Could not prepare multi edit preview", e);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Multi edit tool method for Spring AI integration
+     */
+    @Tool(name = "multi_edit", description = "Applies a batch of text replacements across one or more files in a single all-or-nothing operation")
+    public String multiEdit(List<EditOperation> edits) {
+        long callId = executionLogger.logToolStart("multi_edit", "批量编辑文件",
+            String.format("编辑数=%d", edits != null ? edits.size() : 0));
+        long startTime = System.currentTimeMillis();
+
+        try {
+            MultiEditParams params = new MultiEditParams(edits);
+
+            executionLogger.logToolStep(callId, "multi_edit", "参数验证", "验证全部编辑的路径和替换内容");
+
+            String validation = validateToolParams(params);
+            if (validation != null) {
+                long executionTime = System.currentTimeMillis() - startTime;
+                executionLogger.logToolError(callId, "multi_edit", "参数验证失败: " + validation, executionTime);
+                return "Error: " + validation;
+            }
+
+            ToolResult result = execute(params).join();
+
+            long executionTime = System.currentTimeMillis() - startTime;
+
+            if (result.isSuccess()) {
+                executionLogger.logToolSuccess(callId, "multi_edit", "批量编辑成功", executionTime);
+                return result.getLlmContent();
+            } else {
+                executionLogger.logToolError(callId, "multi_edit", result.getErrorMessage(), executionTime);
+                return "Error: " + result.getErrorMessage();
+            }
+
+        } catch (Exception e) {
+            long executionTime = System.currentTimeMillis() - startTime;
+            executionLogger.logToolError(callId, "multi_edit", "工具执行异常: " + e.getMessage(), executionTime);
+            logger.error("Error in multi edit tool", e);
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    @Override
+    public CompletableFuture<ToolResult> execute(MultiEditParams params) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<FileChange> changes;
+            try {
+                changes = prepareChanges(params.edits);
+            } catch (EditException e) {
+                return ToolResult.error(e.getMessage() + ". No files were changed.");
+            } catch (IOException e) {
+                logger.error("Error reading files for multi edit", e);
+                return ToolResult.error("Error reading files: " + e.getMessage() + ". No files were changed.");
+            }
+
+            try {
+                commit(changes);
+            } catch (IOException e) {
+                logger.error("Error applying multi edit", e);
+                return ToolResult.error("Error applying edits: " + e.getMessage() + ". No files were changed.");
+            }
+
+            String diff = combinedDiff(changes);
+            String successMessage = String.format("Successfully applied %d edits to %d files:\n%s",
+                params.edits.size(), changes.size(),
+                String.join("\n", changes.stream().map(c -> "- " + c.path).toList()));
+            return ToolResult.success(successMessage, new FileDiff(diff, "multiple files"));
+        });
+    }
+
+    /**
+     * 读取涉及的文件并在内存中依次执行编辑，任何一处失败即抛出异常
+     */
+    private List<FileChange> prepareChanges(List<EditOperation> edits) throws IOException {
+        long maxFileSize = appProperties.getWorkspace().getMaxFileSize();
+        Map<Path, FileChange> changes = new LinkedHashMap<>();
+        for (int i = 0; i < edits.size(); i++) {
+            EditOperation edit = edits.get(i);
+            Path filePath = Paths.get(edit.filePath).normalize();
+
+            FileChange change = changes.get(filePath);
+            if (change == null) {
+                if (!Files.isRegularFile(filePath)) {
+                    throw new EditException("Edit #" + (i + 1) + ": file not found: " + edit.filePath);
+                }
+                long size = Files.size(filePath);
+                if (size > maxFileSize) {
+                    throw new EditException("Edit #" + (i + 1) + ": file too large: " + size
+                        + " bytes. Maximum allowed: " + maxFileSize + " bytes: " + edit.filePath);
+                }
+                change = new FileChange(filePath, Files.readString(filePath, StandardCharsets.UTF_8));
+                changes.put(filePath, change);
+            }
+
+            TextPatch patch = TextPatch.locate(change.content, edit.oldStr, edit.newStr, edit.startLine, edit.endLine);
+            if (patch == null) {
+                throw new EditException("Edit #" + (i + 1) + ": could not find the specified text to replace in file: "
+                    + edit.filePath);
+            }
+            change.content = patch.apply();
+        }
+        for (FileChange change : changes.values()) {
+            if (change.content.getBytes(StandardCharsets.UTF_8).length > maxFileSize) {
+                throw new EditException("Edited content exceeds max file size of " + maxFileSize
+                    + " bytes: " + change.path);
+            }
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    /**
+     * 并行写入临时文件，再逐个原子重命名；中途失败时恢复已重命名的文件
+     */
+    private void commit(List<FileChange> changes) throws IOException {
+        try {
+            CompletableFuture.allOf(changes.stream()
+                .map(change -> CompletableFuture.runAsync(() -> writeTemp(change)))
+                .toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            changes.forEach(this::deleteTemp);
+            throw e.getCause() instanceof UncheckedIOException io ? io.getCause() : new IOException(e.getCause());
+        }
+
+        List<FileChange> committed = new ArrayList<>();
+        try {
+            for (FileChange change : changes) {
+                // 重命名替换的是目录项，不会改到与内容存储共享的 inode
+                Files.move(change.temp, change.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                committed.add(change);
+            }
+        } catch (IOException e) {
+            for (FileChange change : committed) {
+                restore(change);
+            }
+            changes.forEach(this::deleteTemp);
+            throw e;
+        }
+
+        // 整批提交成功后，把修改前的内容（已在内存中）保存到工作目录之外的快照中
+        for (FileChange change : changes) {
+            try {
+                snapshotService.recordContent(change.path,
+                    change.originalContent.getBytes(StandardCharsets.UTF_8), "multi_edit");
+            } catch (UncheckedIOException e) {
+                logger.warn("Could not record snapshot for {}: {}", change.path, e.getMessage());
+            }
+        }
+    }
+
+    private void writeTemp(FileChange change) {
+        Path temp = change.path.resolveSibling("." + change.path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.writeString(temp, change.content, StandardCharsets.UTF_8);
+            copyPermissions(change.path, temp);
+            change.temp = temp;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // 清理失败不影响错误返回
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void restore(FileChange change) {
+        try {
+            Path temp = change.path.resolveSibling("." + change.path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            Files.writeString(temp, change.originalContent, StandardCharsets.UTF_8);
+            copyPermissions(change.path, temp);
+            Files.move(temp, change.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Could not restore file after failed multi edit: " + change.path, e);
+        }
+    }
+
+    /**
+     * 重命名会替换整个文件，先把原文件的权限（如可执行位）复制到临时文件上
+     */
+    private void copyPermissions(Path source, Path target) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        if (view != null) {
+            Files.setPosixFilePermissions(target, view.readAttributes().permissions());
+            return;
+        }
+        DosFileAttributeView dos = Files.getFileAttributeView(source, DosFileAttributeView.class);
+        if (dos != null && dos.readAttributes().isReadOnly()) {
+            Files.getFileAttributeView(target, DosFileAttributeView.class).setReadOnly(true);
+        }
+    }
+
+    private void deleteTemp(FileChange change) {
+        if (change.temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(change.temp);
+        } catch (IOException e) {
+            logger.warn("Could not delete temporary file: " + change.temp, e);
+        }
+    }
+
+    /**
+     * 合并为一份多文件统一差异：每个文件一个文件头，同一文件的多次编辑合并为一次比较
+     */
+    private String combinedDiff(List<FileChange> changes) {
+        StringBuilder diff = new StringBuilder();
+        for (FileChange change : changes) {
+            if (change.content.equals(change.originalContent)) {
+                continue;
+            }
+            String name = relativeName(change.path);
+            if (diff.length() > 0) {
+                diff.append("\n");
+            }
+            diff.append(TextPatch.between(change.originalContent, change.content)
+                .unifiedDiff("a/" + name, "b/" + name));
+        }
+        return diff.toString();
+    }
+
+    private String relativeName(Path path) {
+        try {
+            return Paths.get(rootDirectory).toAbsolutePath().normalize().relativize(path.toAbsolutePath())
+                .toString().replace('\\', '/');
+        } catch (IllegalArgumentException e) {
+            return path.getFileName().toString();
+        }
+    }
+
+    private boolean isWithinWorkspace(Path filePath) {
+        try {
+            Path workspaceRoot = Paths.get(rootDirectory).toRealPath();
+            Path normalizedPath = filePath.normalize();
+            return normalizedPath.startsWith(workspaceRoot.normalize());
+        } catch (IOException e) {
+            logger.warn("Could not resolve workspace path", e);
+            return false;
+        }
+    }
+
+    /**
+     * 单个文件的待提交修改
+     */
+    private static class FileChange {
+        private final Path path;
+        private final String originalContent;
+        private String content;
+        private Path temp;
+
+        FileChange(Path path, String originalContent) {
+            this.path = path;
+            this.originalContent = originalContent;
+            this.content = originalContent;
+        }
+    }
+
+    /**
+     * 编辑无法执行，整批放弃
+     */
+    private static class EditException extends IOException {
+        EditException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 单个编辑操作
+     */
+    public static class EditOperation {
+        @JsonProperty("file_path")
+        private String filePath;
+
+        @JsonProperty("old_str")
+        private String oldStr;
+
+        @JsonProperty("new_str")
+        private String newStr;
+
+        @JsonProperty("start_line")
+        private Integer startLine;
+
+        @JsonProperty("end_line")
+        private Integer endLine;
+
+        // 构造器
+        public EditOperation() {}
+
+        public EditOperation(String filePath, String oldStr, String newStr) {
+            this.filePath = filePath;
+            this.oldStr = oldStr;
+            this.newStr = newStr;
+        }
+
+        // Getters and Setters
+        public String getFilePath() { return filePath; }
+        public void setFilePath(String filePath) { this.filePath = filePath; }
+
+        public String getOldStr() { return oldStr; }
+        public void setOldStr(String oldStr) { this.oldStr = oldStr; }
+
+        public String getNewStr() { return newStr; }
+        public void setNewStr(String newStr) { this.newStr = newStr; }
+
+        public Integer getStartLine() { return startLine; }
+        public void setStartLine(Integer startLine) { this.startLine = startLine; }
+
+        public Integer getEndLine() { return endLine; }
+        public void setEndLine(Integer endLine) { this.endLine = endLine; }
+    }
+
+    /**
+     * 批量编辑参数
+     */
+    public static class MultiEditParams {
+        private List<EditOperation> edits;
+
+        // 构造器
+        public MultiEditParams() {}
+
+        public MultiEditParams(List<EditOperation> edits) {
+            this.edits = edits;
+        }
+
+        // Getters and Setters
+        public List<EditOperation> getEdits() { return edits; }
+        public void setEdits(List<EditOperation> edits) { this.edits = edits; }
+
+        @Override
+        public String toString() {
+            return String.format("MultiEditParams{edits=%d}", edits != null ? edits.size() : 0);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.alibaba.cloud.ai.copilot.tools;
 import com.alibaba.cloud.ai.copilot.config.AppProperties;
 import com.alibaba.cloud.ai.copilot.model.ProjectType;
 import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -369,6 +370,7 @@ public class ProjectScaffoldTool extends BaseTool<ProjectScaffoldTool.ScaffoldPa
 
     private void createFile(Path path, String content, ScaffoldResult result) throws IOException {
         Files.createDirectories(path.getParent());
+        HardLinkUtils.detach(path);
         Files.writeString(path, content, StandardCharsets.UTF_8);
         result.addCreatedItem("File: " + path.getFileName());
     }
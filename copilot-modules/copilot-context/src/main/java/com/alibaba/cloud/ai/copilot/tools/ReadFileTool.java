@@ -2,6 +2,7 @@ package com.alibaba.cloud.ai.copilot.tools;
 
 import com.alibaba.cloud.ai.copilot.config.AppProperties;
 import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.tools.service.LineIndexedFileReader;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,9 @@ public class ReadFileTool extends BaseTool<ReadFileTool.ReadFileParams> {
     @Autowired
     private ToolExecutionLogger executionLogger;
 
+    @Autowired
+    private LineIndexedFileReader lineReader;
+
     public ReadFileTool(AppProperties appProperties) {
         super(
             "read_file",
@@ -68,6 +72,11 @@ public class ReadFileTool extends BaseTool<ReadFileTool.ReadFileParams> {
             .required("absolute_path");
     }
 
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
     @Override
     public String validateToolParams(ReadFileParams params) {
         String baseValidation = super.validateToolParams(params);
@@ -173,11 +182,12 @@ public class ReadFileTool extends BaseTool<ReadFileTool.ReadFileParams> {
                     return ToolResult.error("Path is not a regular file: " + params.absolutePath);
                 }
 
-                // 检查文件大小
+                // 检查文件大小，分页读取只加载请求的窗口，窗口内容同样不超过大小限制
+                boolean paginated = params.offset != null && params.limit != null;
                 long fileSize = Files.size(filePath);
-                if (fileSize > appProperties.getWorkspace().getMaxFileSize()) {
+                if (!paginated && fileSize > appProperties.getWorkspace().getMaxFileSize()) {
                     return ToolResult.error("File too large: " + fileSize + " bytes. Maximum allowed: " +
-                        appProperties.getWorkspace().getMaxFileSize() + " bytes");
+                        appProperties.getWorkspace().getMaxFileSize() + " bytes. Use offset and limit to read it in parts");
                 }
 
                 // 检查文件扩展名
@@ -188,7 +198,7 @@ public class ReadFileTool extends BaseTool<ReadFileTool.ReadFileParams> {
                 }
 
                 // 读取文件
-                if (params.offset != null && params.limit != null) {
+                if (paginated) {
                     return readFileWithPagination(filePath, params.offset, params.limit);
                 } else {
                     return readFullFile(filePath);
@@ -208,6 +218,7 @@ public class ReadFileTool extends BaseTool<ReadFileTool.ReadFileParams> {
         String content = Files.readString(filePath, StandardCharsets.UTF_8);
         String relativePath = getRelativePath(filePath);
 
+        // 直接在已读入的内容上计数，不再扫描一遍文件
         long lineCount = content.lines().count();
         String displayMessage = String.format("Read file: %s (%d lines, %d bytes)",
             relativePath, lineCount, content.getBytes(StandardCharsets.UTF_8).length);
@@ -216,19 +227,25 @@ public class ReadFileTool extends BaseTool<ReadFileTool.ReadFileParams> {
     }
 
     private ToolResult readFileWithPagination(Path filePath, int offset, int limit) throws IOException {
-        List<String> allLines = Files.readAllLines(filePath, StandardCharsets.UTF_8);
+        long maxBytes = appProperties.getWorkspace().getMaxFileSize();
+        LineIndexedFileReader.LineWindow window = lineReader.readLines(filePath, offset, limit, maxBytes);
 
-        if (offset >= allLines.size()) {
-            return ToolResult.error("Offset " + offset + " is beyond file length (" + allLines.size() + " lines)");
+        if (window.lines().isEmpty()) {
+            if (window.truncated()) {
+                return ToolResult.error("Line " + (offset + 1) + " exceeds the maximum of " + maxBytes + " bytes");
+            }
+            return ToolResult.error("Offset " + offset + " is beyond file length (" + window.totalLines() + " lines)");
         }
 
-        int endIndex = Math.min(offset + limit, allLines.size());
-        List<String> selectedLines = allLines.subList(offset, endIndex);
-        String content = String.join("\n", selectedLines);
+        String content = String.join("\n", window.lines());
 
         String relativePath = getRelativePath(filePath);
         String displayMessage = String.format("Read file: %s (lines %d-%d of %d total)",
-            relativePath, offset + 1, endIndex, allLines.size());
+            relativePath, offset + 1, window.endLine(), window.totalLines());
+        if (window.truncated()) {
+            displayMessage += String.format(". Truncated at %d bytes, continue with offset %d",
+                maxBytes, window.endLine());
+        }
 
         return ToolResult.success(content, displayMessage);
     }
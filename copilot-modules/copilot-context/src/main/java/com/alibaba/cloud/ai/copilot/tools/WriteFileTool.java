@@ -2,6 +2,8 @@ package com.alibaba.cloud.ai.copilot.tools;
 
 import com.alibaba.cloud.ai.copilot.config.AppProperties;
 import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.github.difflib.DiffUtils;
 import com.github.difflib.UnifiedDiffUtils;
@@ -16,8 +18,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -35,6 +35,9 @@ public class WriteFileTool extends BaseTool<WriteFileTool.WriteFileParams> {
     @Autowired
     private ToolExecutionLogger executionLogger;
 
+    @Autowired
+    private WorkspaceSnapshotService snapshotService;
+
     public WriteFileTool(AppProperties appProperties) {
         super(
             "write_file",
@@ -214,15 +217,14 @@ public class WriteFileTool extends BaseTool<WriteFileTool.WriteFileParams> {
                     originalContent = Files.readString(filePath, StandardCharsets.UTF_8);
                 }
 
-                // 创建备份（如果启用）
-                if (!isNewFile && shouldCreateBackup()) {
-                    createBackup(filePath, originalContent);
-                }
+                // 记录快照，新文件也记录，回滚时会被删除
+                createBackup(filePath, isNewFile ? null : originalContent);
 
                 // 确保父目录存在
                 Files.createDirectories(filePath.getParent());
 
-                // 写入文件
+                // 写入文件（先断开与内容存储共享的硬链接）
+                HardLinkUtils.detach(filePath);
                 Files.writeString(filePath, params.content, StandardCharsets.UTF_8,
                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
 
@@ -274,18 +276,13 @@ public class WriteFileTool extends BaseTool<WriteFileTool.WriteFileParams> {
         }
     }
 
-    private void createBackup(Path filePath, String content) throws IOException {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String backupFileName = filePath.getFileName().toString() + ".backup." + timestamp;
-        Path backupPath = filePath.getParent().resolve(backupFileName);
-
-        Files.writeString(backupPath, content, StandardCharsets.UTF_8);
-        logger.info("Created backup: {}", backupPath);
-    }
-
-    private boolean shouldCreateBackup() {
-        // 可以从配置中读取，这里简化为总是创建备份
-        return true;
+    private void createBackup(Path filePath, String originalContent) {
+        // 修改前的内容保存到工作目录之外的快照中，不再在文件旁生成 .backup 副本；
+        // 已有文件使用读入内存的内容，新文件记为不存在
+        long snapshotId = originalContent != null
+            ? snapshotService.recordContent(filePath, originalContent.getBytes(StandardCharsets.UTF_8), "write_file")
+            : snapshotService.recordBeforeWrite(filePath, "write_file");
+        logger.debug("Recorded snapshot #{} before writing {}", snapshotId, filePath);
     }
 
     private boolean isWithinWorkspace(Path filePath) {
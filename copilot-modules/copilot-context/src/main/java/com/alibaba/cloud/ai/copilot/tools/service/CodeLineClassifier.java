@@ -0,0 +1,659 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 代码行分类器
+ * 用一个按字符推进的词法状态机流式读取文件，一遍统计代码行、注释行、空行，以及类和函数/方法声明。
+ * 文件内容只经过一个复用的 CharBuffer，不生成行字符串，也不使用正则表达式。
+ * 注释和字符串按语言识别：块注释中的行、行尾注释、字符串中的注释符号都能正确处理；
+ * 同时包含代码和注释的行计为代码行，只有空白的行计为空行（即使位于块注释或多行字符串中）。
+ * 声明识别是基于 token 的启发式规则，只对 Java、JavaScript/TypeScript 和 Python 生效。
+ * 实例持有缓冲区，不是线程安全的，可以在同一线程中复用
+ */
+public class CodeLineClassifier {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int LOOKAHEAD = 4;
+    private static final int MAX_WORD = 16;
+    private static final int MAX_NESTING = 256;
+
+    // 代码中的词法状态
+    private static final int CODE = 0;
+    private static final int LINE_COMMENT = 1;
+    private static final int BLOCK_COMMENT = 2;
+    private static final int MARKUP_COMMENT = 3;
+    private static final int STRING = 4;
+    private static final int TRIPLE_STRING = 5;
+    private static final int TEMPLATE_STRING = 6;
+
+    // 上一个 token 的类别
+    private static final int TOKEN_NONE = 0;
+    private static final int TOKEN_IDENT = 1;
+    private static final int TOKEN_KEYWORD = 2;
+    private static final int TOKEN_TYPE_END = 3;
+    private static final int TOKEN_OTHER = 4;
+
+    // 关键字，下标即关键字编号
+    private static final char[][] KEYWORDS = {
+        "class".toCharArray(), "interface".toCharArray(), "enum".toCharArray(), "record".toCharArray(),
+        "new".toCharArray(), "return".toCharArray(), "throw".toCharArray(), "else".toCharArray(),
+        "case".toCharArray(), "extends".toCharArray(), "implements".toCharArray(), "throws".toCharArray(),
+        "instanceof".toCharArray(), "assert".toCharArray(), "yield".toCharArray(),
+        "function".toCharArray(), "async".toCharArray(), "def".toCharArray()
+    };
+    private static final int KW_CLASS = 0;
+    private static final int KW_INTERFACE = 1;
+    private static final int KW_ENUM = 2;
+    private static final int KW_RECORD = 3;
+    private static final int KW_FUNCTION = 15;
+    private static final int KW_ASYNC = 16;
+    private static final int KW_DEF = 17;
+    private static final int NOT_KEYWORD = -1;
+
+    // JavaScript 箭头函数的识别状态：name = (...) => 或 name = x =>
+    private static final int ARROW_NONE = 0;
+    private static final int ARROW_AFTER_ASSIGN = 1;
+    private static final int ARROW_PARAMS = 2;
+    private static final int ARROW_AFTER_PARAMS = 3;
+    private static final int ARROW_SINGLE_PARAM = 4;
+    private static final int ARROW_RETURN_TYPE = 5;
+
+    private final CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
+    private final char[] word = new char[MAX_WORD];
+    private final boolean[] typeBodies = new boolean[MAX_NESTING];
+
+    private Syntax syntax;
+    private Reader reader;
+    private boolean eof;
+
+    // 统计
+    private int totalLines;
+    private int codeLines;
+    private int commentLines;
+    private int blankLines;
+    private int classes;
+    private int methods;
+    private int functions;
+
+    // 当前行
+    private boolean lineHasChars;
+    private boolean lineHasCode;
+    private boolean lineHasComment;
+    private int tokensOnLine;
+
+    // 词法状态
+    private int mode;
+    private char quote;
+    private boolean afterCarriageReturn;
+    private char lastCodeChar;
+
+    // 声明识别状态
+    private int previousToken;
+    private int previousKeyword;
+    private boolean expectTypeName;
+    private boolean typeBodyPending;
+    private boolean methodNamePending;
+    private int braceDepth;
+    private int arrowState;
+    private int arrowParenDepth;
+    private int pythonDeclaration;
+
+    /**
+     * 按扩展名选择语法
+     * @param extension 带点的小写扩展名，如 .java
+     */
+    public static Syntax syntaxOf(String extension) {
+        switch (extension) {
+            case ".java": return Syntax.JAVA;
+            case ".js": case ".jsx": case ".ts": case ".tsx": return Syntax.JAVASCRIPT;
+            case ".py": return Syntax.PYTHON;
+            case ".css": return Syntax.CSS;
+            case ".html": return Syntax.HTML;
+            case ".vue": return Syntax.VUE;
+            case ".go": case ".rs": case ".cs": case ".cpp": case ".c": return Syntax.C_LIKE;
+            case ".php": return Syntax.PHP;
+            default: return Syntax.PLAIN;
+        }
+    }
+
+    /**
+     * 分类文件中的行，文件按 UTF-8 严格解码，含非法字节时抛出异常
+     */
+    public Counts classify(Path file, Syntax syntax) throws IOException {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8.newDecoder())) {
+            return classify(reader, syntax);
+        }
+    }
+
+    /**
+     * 分类读取到的所有行，行的划分规则与 BufferedReader.readLine 一致
+     */
+    public Counts classify(Reader reader, Syntax syntax) throws IOException {
+        reset(reader, syntax);
+        try {
+            while (true) {
+                // 保证当前字符之后至少有 LOOKAHEAD - 1 个字符可以预读
+                if (buffer.remaining() < LOOKAHEAD) {
+                    fill();
+                }
+                if (!buffer.hasRemaining()) {
+                    break;
+                }
+                step();
+            }
+            if (lineHasChars) {
+                endLine();
+            }
+            return new Counts(totalLines, codeLines, commentLines, blankLines, classes, methods, functions);
+        } finally {
+            this.reader = null;
+        }
+    }
+
+    /**
+     * 保留未读字符并读满缓冲区
+     * @return 缓冲区中是否还有字符
+     */
+    private boolean fill() throws IOException {
+        if (!eof) {
+            buffer.compact();
+            while (buffer.hasRemaining()) {
+                if (reader.read(buffer) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            buffer.flip();
+        }
+        return buffer.hasRemaining();
+    }
+
+    private void reset(Reader reader, Syntax syntax) {
+        this.reader = reader;
+        this.syntax = syntax;
+        eof = false;
+        buffer.clear().flip();
+        totalLines = codeLines = commentLines = blankLines = 0;
+        classes = methods = functions = 0;
+        lineHasChars = lineHasCode = lineHasComment = false;
+        tokensOnLine = 0;
+        mode = CODE;
+        afterCarriageReturn = false;
+        lastCodeChar = 0;
+        previousToken = TOKEN_NONE;
+        previousKeyword = NOT_KEYWORD;
+        expectTypeName = typeBodyPending = methodNamePending = false;
+        braceDepth = 0;
+        arrowState = ARROW_NONE;
+        arrowParenDepth = 0;
+        pythonDeclaration = NOT_KEYWORD;
+    }
+
+    /**
+     * 处理当前位置的一个词法单元，至少消费一个字符
+     */
+    private void step() throws IOException {
+        char c = buffer.get();
+        if (c == '\n' || c == '\r') {
+            if (c == '\n' && afterCarriageReturn) {
+                afterCarriageReturn = false;
+                return;
+            }
+            afterCarriageReturn = c == '\r';
+            endLine();
+            return;
+        }
+        afterCarriageReturn = false;
+        lineHasChars = true;
+
+        switch (mode) {
+            case LINE_COMMENT:
+                markComment(c);
+                return;
+            case BLOCK_COMMENT:
+                if (c == '*' && peek(0) == '/') {
+                    buffer.get();
+                    mode = CODE;
+                    lineHasComment = true;
+                } else {
+                    markComment(c);
+                }
+                return;
+            case MARKUP_COMMENT:
+                if (c == '-' && peek(0) == '-' && peek(1) == '>') {
+                    skip(2);
+                    mode = CODE;
+                    lineHasComment = true;
+                } else {
+                    markComment(c);
+                }
+                return;
+            case STRING:
+            case TRIPLE_STRING:
+            case TEMPLATE_STRING:
+                stringChar(c);
+                return;
+            default:
+                codeChar(c);
+        }
+    }
+
+    private void codeChar(char c) throws IOException {
+        if (Character.isWhitespace(c)) {
+            return;
+        }
+
+        // 注释起始
+        if (c == '/') {
+            char next = peek(0);
+            if (next == '/' && syntax.slashComments) {
+                buffer.get();
+                mode = LINE_COMMENT;
+                lineHasComment = true;
+                return;
+            }
+            if (next == '*' && syntax.blockComments) {
+                buffer.get();
+                mode = BLOCK_COMMENT;
+                lineHasComment = true;
+                return;
+            }
+        }
+        if (c == '#' && syntax.hashComments) {
+            mode = LINE_COMMENT;
+            lineHasComment = true;
+            return;
+        }
+        if (c == '<' && syntax.markupComments && peek(0) == '!' && peek(1) == '-' && peek(2) == '-') {
+            skip(3);
+            mode = MARKUP_COMMENT;
+            lineHasComment = true;
+            return;
+        }
+
+        lineHasCode = true;
+
+        // 字符串起始
+        if ((c == '"' || c == '\'') && syntax.strings) {
+            if (syntax.tripleQuotes && peek(0) == c && peek(1) == c) {
+                skip(2);
+                mode = TRIPLE_STRING;
+            } else {
+                mode = STRING;
+            }
+            quote = c;
+            onStringToken();
+            lastCodeChar = c;
+            return;
+        }
+        if (c == '`' && syntax.templateStrings) {
+            mode = TEMPLATE_STRING;
+            quote = c;
+            onStringToken();
+            lastCodeChar = c;
+            return;
+        }
+
+        // 单词
+        if (isWordStart(c) || (c >= '0' && c <= '9')) {
+            readWord(c);
+            return;
+        }
+
+        onPunctuation(c);
+        lastCodeChar = c;
+    }
+
+    private void stringChar(char c) {
+        if (!Character.isWhitespace(c)) {
+            lineHasCode = true;
+        }
+        if (c == '\\') {
+            // 转义字符；转义换行时保留换行，交给下一步按行结束处理
+            char next = peek(0);
+            if (next != '\n' && next != '\r' && buffer.hasRemaining()) {
+                buffer.get();
+            }
+            return;
+        }
+        if (c != quote) {
+            return;
+        }
+        if (mode == TRIPLE_STRING) {
+            if (peek(0) == c && peek(1) == c) {
+                skip(2);
+                mode = CODE;
+            }
+        } else {
+            mode = CODE;
+        }
+    }
+
+    private void markComment(char c) {
+        if (!Character.isWhitespace(c)) {
+            lineHasComment = true;
+        }
+    }
+
+    private void endLine() {
+        totalLines++;
+        if (lineHasCode) {
+            codeLines++;
+        } else if (lineHasComment) {
+            commentLines++;
+        } else {
+            blankLines++;
+        }
+        lineHasChars = lineHasCode = lineHasComment = false;
+        tokensOnLine = 0;
+        pythonDeclaration = NOT_KEYWORD;
+        if (mode == LINE_COMMENT || mode == STRING) {
+            // 单行字符串未闭合时在行尾结束，避免一个孤立的引号吞掉后续内容
+            mode = CODE;
+        }
+    }
+
+    private void readWord(char first) throws IOException {
+        int length = 0;
+        boolean identifier = isWordStart(first);
+        word[length++] = first;
+        // 单词可能跨越缓冲区边界，读完缓冲区后继续补充
+        while (buffer.hasRemaining() || fill()) {
+            char c = buffer.get(buffer.position());
+            if (!isWordPart(c)) {
+                break;
+            }
+            buffer.get();
+            if (length < MAX_WORD) {
+                word[length] = c;
+            }
+            length++;
+        }
+        if (identifier) {
+            onWord(length <= MAX_WORD ? keyword(length) : NOT_KEYWORD);
+        } else {
+            onToken(TOKEN_OTHER, NOT_KEYWORD);
+        }
+        lastCodeChar = first;
+    }
+
+    private int keyword(int length) {
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            char[] candidate = KEYWORDS[i];
+            if (candidate.length != length || candidate[0] != word[0]) {
+                continue;
+            }
+            int j = 1;
+            while (j < length && candidate[j] == word[j]) {
+                j++;
+            }
+            if (j == length) {
+                return i;
+            }
+        }
+        return NOT_KEYWORD;
+    }
+
+    // ---- 声明识别 ----
+
+    private void onWord(int keyword) {
+        switch (syntax) {
+            case JAVA -> javaWord(keyword);
+            case JAVASCRIPT -> javaScriptWord(keyword);
+            case PYTHON -> pythonWord(keyword);
+            default -> { }
+        }
+        if (keyword == NOT_KEYWORD) {
+            onToken(TOKEN_IDENT, NOT_KEYWORD);
+        } else {
+            onToken(TOKEN_KEYWORD, keyword);
+        }
+    }
+
+    private void onPunctuation(char c) {
+        switch (syntax) {
+            case JAVA -> javaPunctuation(c);
+            case JAVASCRIPT -> javaScriptPunctuation(c);
+            default -> { }
+        }
+        boolean typeEnd = (c == '>' && lastCodeChar != '-') || c == ']';
+        onToken(typeEnd ? TOKEN_TYPE_END : TOKEN_OTHER, NOT_KEYWORD);
+    }
+
+    private void onStringToken() {
+        expectTypeName = false;
+        methodNamePending = false;
+        if (arrowState != ARROW_PARAMS && arrowState != ARROW_RETURN_TYPE) {
+            arrowState = ARROW_NONE;
+        }
+        onToken(TOKEN_OTHER, NOT_KEYWORD);
+    }
+
+    private void onToken(int token, int keyword) {
+        previousToken = token;
+        previousKeyword = keyword;
+        tokensOnLine++;
+    }
+
+    /**
+     * Java：class/interface/enum/record 后跟名称计为类；
+     * 类体内"类型 名称("形式的成员计为方法（包括构造方法），方法体和字段初始化中的调用不计
+     */
+    private void javaWord(int keyword) {
+        methodNamePending = false;
+        if (expectTypeName) {
+            expectTypeName = false;
+            if (keyword == NOT_KEYWORD) {
+                classes++;
+                typeBodyPending = true;
+                return;
+            }
+        }
+        if (keyword == KW_CLASS || keyword == KW_INTERFACE || keyword == KW_ENUM || keyword == KW_RECORD) {
+            // Foo.class 不是声明
+            expectTypeName = lastCodeChar != '.';
+            // record 是上下文关键字，也可以用作方法名、字段名或变量名，后面不是名称时由下一个 token 取消
+            if (keyword != KW_RECORD) {
+                return;
+            }
+        }
+        if ((keyword == NOT_KEYWORD || keyword == KW_RECORD) && inTypeBody()) {
+            methodNamePending = previousToken == TOKEN_IDENT || previousToken == TOKEN_TYPE_END;
+        }
+    }
+
+    private void javaPunctuation(char c) {
+        if (c == '(' && methodNamePending) {
+            methods++;
+        }
+        methodNamePending = false;
+        expectTypeName = false;
+        braces(c);
+    }
+
+    /**
+     * JavaScript/TypeScript：function 关键字计为函数，赋给名称的箭头函数计为函数，class 后跟名称计为类
+     */
+    private void javaScriptWord(int keyword) {
+        if (expectTypeName) {
+            expectTypeName = false;
+            if (keyword == NOT_KEYWORD) {
+                classes++;
+            }
+        }
+        if (keyword == KW_CLASS && lastCodeChar != '.') {
+            expectTypeName = true;
+        }
+        if (keyword == KW_FUNCTION && lastCodeChar != '.') {
+            functions++;
+        }
+
+        switch (arrowState) {
+            case ARROW_AFTER_ASSIGN:
+                arrowState = keyword == KW_ASYNC ? ARROW_AFTER_ASSIGN : ARROW_SINGLE_PARAM;
+                break;
+            case ARROW_PARAMS:
+            case ARROW_RETURN_TYPE:
+                break;
+            default:
+                arrowState = ARROW_NONE;
+        }
+    }
+
+    private void javaScriptPunctuation(char c) {
+        expectTypeName = false;
+        if (c == '=' && peek(0) == '>') {
+            buffer.get();
+            if (arrowState == ARROW_AFTER_PARAMS || arrowState == ARROW_SINGLE_PARAM
+                || arrowState == ARROW_RETURN_TYPE) {
+                functions++;
+            }
+            arrowState = ARROW_NONE;
+            return;
+        }
+
+        switch (arrowState) {
+            case ARROW_PARAMS:
+                if (c == '(') {
+                    arrowParenDepth++;
+                } else if (c == ')' && --arrowParenDepth == 0) {
+                    arrowState = ARROW_AFTER_PARAMS;
+                }
+                return;
+            case ARROW_RETURN_TYPE:
+                if (c == '{' || c == '}' || c == ';' || c == '=') {
+                    arrowState = ARROW_NONE;
+                }
+                return;
+            case ARROW_AFTER_ASSIGN:
+                if (c == '(') {
+                    arrowState = ARROW_PARAMS;
+                    arrowParenDepth = 1;
+                    return;
+                }
+                break;
+            case ARROW_AFTER_PARAMS:
+                if (c == ':') {
+                    arrowState = ARROW_RETURN_TYPE;
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+
+        boolean assignment = c == '=' && peek(0) != '='
+            && lastCodeChar != '=' && lastCodeChar != '!' && lastCodeChar != '<' && lastCodeChar != '>';
+        if ((assignment || c == ':') && previousToken == TOKEN_IDENT) {
+            arrowState = ARROW_AFTER_ASSIGN;
+        } else {
+            arrowState = ARROW_NONE;
+        }
+    }
+
+    /**
+     * Python：行首的 class/def（可带 async）后跟名称计为类或函数
+     */
+    private void pythonWord(int keyword) {
+        if (pythonDeclaration != NOT_KEYWORD) {
+            if (keyword == NOT_KEYWORD) {
+                if (pythonDeclaration == KW_CLASS) {
+                    classes++;
+                } else {
+                    functions++;
+                }
+            }
+            pythonDeclaration = NOT_KEYWORD;
+            return;
+        }
+        boolean lineStart = tokensOnLine == 0 || (tokensOnLine == 1 && previousKeyword == KW_ASYNC);
+        if (lineStart && (keyword == KW_CLASS || keyword == KW_DEF)) {
+            pythonDeclaration = keyword;
+        }
+    }
+
+    private void braces(char c) {
+        if (c == '{') {
+            if (braceDepth < MAX_NESTING) {
+                typeBodies[braceDepth] = typeBodyPending;
+            }
+            braceDepth++;
+            typeBodyPending = false;
+        } else if (c == '}') {
+            if (braceDepth > 0) {
+                braceDepth--;
+            }
+        } else if (c == ';') {
+            typeBodyPending = false;
+        }
+    }
+
+    private boolean inTypeBody() {
+        return braceDepth > 0 && braceDepth <= MAX_NESTING && typeBodies[braceDepth - 1];
+    }
+
+    private char peek(int offset) {
+        int index = buffer.position() + offset;
+        return index < buffer.limit() ? buffer.get(index) : 0;
+    }
+
+    private void skip(int count) {
+        buffer.position(Math.min(buffer.limit(), buffer.position() + count));
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_' || c == '$';
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * 语法描述：支持哪些注释和字符串形式
+     */
+    public enum Syntax {
+        JAVA(true, true, false, false, true, true, false),
+        JAVASCRIPT(true, true, false, false, true, false, true),
+        PYTHON(false, false, true, false, true, true, false),
+        CSS(false, true, false, false, true, false, false),
+        HTML(false, false, false, true, false, false, false),
+        VUE(true, true, false, true, false, false, false),
+        C_LIKE(true, true, false, false, true, false, true),
+        PHP(true, true, true, false, true, false, false),
+        PLAIN(true, false, true, false, false, false, false);
+
+        private final boolean slashComments;
+        private final boolean blockComments;
+        private final boolean hashComments;
+        private final boolean markupComments;
+        private final boolean strings;
+        private final boolean tripleQuotes;
+        private final boolean templateStrings;
+
+        Syntax(boolean slashComments, boolean blockComments, boolean hashComments, boolean markupComments,
+               boolean strings, boolean tripleQuotes, boolean templateStrings) {
+            this.slashComments = slashComments;
+            this.blockComments = blockComments;
+            this.hashComments = hashComments;
+            this.markupComments = markupComments;
+            this.strings = strings;
+            this.tripleQuotes = tripleQuotes;
+            this.templateStrings = templateStrings;
+        }
+    }
+
+    /**
+     * 分类结果
+     */
+    public record Counts(int totalLines, int codeLines, int commentLines, int blankLines,
+                         int classes, int methods, int functions) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 目录遍历器
+ * 每个目录只遍历一层，属性来自 walkFileTree 传入的 BasicFileAttributes（每个条目一次 stat），
+ * 子目录作为独立任务在 fork/join 线程池中并行遍历。结果按先序排列：目录在前、同级按名称排序，
+ * 子目录的内容紧跟在该目录之后，因此同一棵树的结果顺序稳定，可以直接分页。
+ * 收集哪些条目、进入哪些目录由 {@link Filter} 决定，目录列表和项目扫描共用同一套遍历
+ */
+public class DirectoryWalker {
+
+    /**
+     * 始终跳过的目录
+     */
+    public static final Set<String> SKIPPED_DIRECTORIES = Set.of("node_modules", ".git");
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+        Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final Comparator<Entry> ORDER = Comparator
+        .comparing((Entry e) -> !e.directory())
+        .thenComparing(Entry::name);
+
+    /**
+     * 遍历目录
+     * 条目数超过 maxEntries 时标记为截断，只保留先序中的前 maxEntries 条，多次调用截断位置相同
+     * @param root 起始目录
+     * @param options 遍历选项
+     * @return 遍历结果
+     */
+    public Listing walk(Path root, Options options) {
+        return walk(root, options.maxDepth(), options.maxEntries(), new OptionsFilter(root, options));
+    }
+
+    /**
+     * 按自定义过滤器遍历目录
+     * @param root 起始目录
+     * @param maxDepth 最大深度，1 表示只列出起始目录的直接子项
+     * @param maxEntries 最多收集的条目数
+     * @param filter 起始目录使用的过滤器
+     * @return 遍历结果
+     */
+    public Listing walk(Path root, int maxDepth, int maxEntries, Filter filter) {
+        AtomicInteger budget = new AtomicInteger(maxEntries);
+        AtomicBoolean truncated = new AtomicBoolean(false);
+        List<Entry> entries = POOL.invoke(new DirectoryTask(root, root, 1, maxDepth, filter, budget, truncated));
+        if (truncated.get()) {
+            // 并行遍历时共享的条目预算先被哪些子目录用完取决于线程调度，
+            // 截断后改为顺序先序遍历，收集满 maxEntries 条即停止，分页调用之间结果一致
+            entries = new ArrayList<>(maxEntries);
+            new DirectoryTask(root, root, 1, maxDepth, filter, null, null).collect(entries, maxEntries);
+        }
+        return new Listing(entries, truncated.get());
+    }
+
+    /**
+     * 条目过滤器
+     */
+    public interface Filter {
+
+        /**
+         * 是否收集该条目
+         */
+        boolean accept(Path path, BasicFileAttributes attrs);
+
+        /**
+         * 是否进入已收集的目录
+         */
+        default boolean descend(Entry directory) {
+            return true;
+        }
+
+        /**
+         * 进入子目录时使用的过滤器，例如叠加子目录的 .gitignore
+         */
+        default Filter enter(Path directory) {
+            return this;
+        }
+    }
+
+    /**
+     * 按遍历选项过滤：隐藏条目、始终跳过的目录和 .gitignore
+     */
+    private static final class OptionsFilter implements Filter {
+
+        private final Path root;
+        private final Options options;
+        private final GitIgnoreRules rules;
+
+        OptionsFilter(Path root, Options options) {
+            this(root, options, options.respectGitIgnore() ? GitIgnoreRules.EMPTY.load(root, root) : GitIgnoreRules.EMPTY);
+        }
+
+        private OptionsFilter(Path root, Options options, GitIgnoreRules rules) {
+            this.root = root;
+            this.options = options;
+            this.rules = rules;
+        }
+
+        @Override
+        public boolean accept(Path path, BasicFileAttributes attrs) {
+            String name = path.getFileName().toString();
+            if (!options.showHidden() && name.startsWith(".")) {
+                return false;
+            }
+            if (attrs.isDirectory() && SKIPPED_DIRECTORIES.contains(name)) {
+                return false;
+            }
+            return !rules.isIgnored(root.relativize(path), attrs.isDirectory());
+        }
+
+        @Override
+        public Filter enter(Path directory) {
+            return options.respectGitIgnore() ? new OptionsFilter(root, options, rules.load(directory, root)) : this;
+        }
+    }
+
+    private static final class DirectoryTask extends RecursiveTask<List<Entry>> {
+
+        private final Path root;
+        private final Path directory;
+        private final int depth;
+        private final int maxDepth;
+        private final Filter filter;
+        /**
+         * 并行遍历共享的条目预算，顺序遍历时为 null
+         */
+        private final AtomicInteger budget;
+        private final AtomicBoolean truncated;
+
+        DirectoryTask(Path root, Path directory, int depth, int maxDepth, Filter filter,
+                      AtomicInteger budget, AtomicBoolean truncated) {
+            this.root = root;
+            this.directory = directory;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.filter = filter;
+            this.budget = budget;
+            this.truncated = truncated;
+        }
+
+        @Override
+        protected List<Entry> compute() {
+            List<Entry> children = listChildren();
+            children.sort(ORDER);
+
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            if (depth < maxDepth) {
+                for (Entry child : children) {
+                    if (child.directory() && filter.descend(child)) {
+                        subtasks.add(new DirectoryTask(root, child.path(), depth + 1, maxDepth,
+                            filter.enter(child.path()), budget, truncated));
+                    }
+                }
+                invokeAll(subtasks);
+            }
+
+            List<Entry> result = new ArrayList<>(children.size());
+            int next = 0;
+            for (Entry child : children) {
+                result.add(child);
+                if (next < subtasks.size() && subtasks.get(next).directory.equals(child.path())) {
+                    result.addAll(subtasks.get(next++).join());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 顺序先序遍历，收集满 maxEntries 条后停止，截断位置只取决于目录内容
+         * @return 是否已收集满
+         */
+        boolean collect(List<Entry> out, int maxEntries) {
+            List<Entry> children = listChildren();
+            children.sort(ORDER);
+            for (Entry child : children) {
+                if (out.size() >= maxEntries) {
+                    return true;
+                }
+                out.add(child);
+                if (depth < maxDepth && child.directory() && filter.descend(child)) {
+                    DirectoryTask subtask = new DirectoryTask(root, child.path(), depth + 1, maxDepth,
+                        filter.enter(child.path()), null, null);
+                    if (subtask.collect(out, maxEntries)) {
+                        return true;
+                    }
+                }
+            }
+            return out.size() >= maxEntries;
+        }
+
+        private List<Entry> listChildren() {
+            List<Entry> children = new ArrayList<>();
+            try {
+                Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                        if (!filter.accept(path, attrs)) {
+                            return FileVisitResult.CONTINUE;
+                        }
+                        if (budget != null && budget.decrementAndGet() < 0) {
+                            truncated.set(true);
+                            return FileVisitResult.TERMINATE;
+                        }
+                        children.add(new Entry(path, root.relativize(path), path.getFileName().toString(),
+                            attrs.isDirectory(), attrs.isDirectory() ? 0 : attrs.size(), attrs.lastModifiedTime(), depth));
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path path, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                // 无法读取的目录按空目录处理
+            }
+            return children;
+        }
+    }
+
+    /**
+     * 目录条目
+     */
+    public record Entry(Path path, Path relativePath, String name, boolean directory,
+                        long size, FileTime lastModified, int depth) {
+    }
+
+    /**
+     * 遍历选项
+     * @param maxDepth 最大深度，1 表示只列出起始目录的直接子项
+     * @param showHidden 是否包含以 . 开头的条目
+     * @param respectGitIgnore 是否按 .gitignore 过滤
+     * @param maxEntries 最多收集的条目数
+     */
+    public record Options(int maxDepth, boolean showHidden, boolean respectGitIgnore, int maxEntries) {
+    }
+
+    /**
+     * 遍历结果
+     */
+    public record Listing(List<Entry> entries, boolean truncated) {
+    }
+}
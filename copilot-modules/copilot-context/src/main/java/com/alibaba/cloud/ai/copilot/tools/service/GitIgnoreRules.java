@@ -0,0 +1,143 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * .gitignore 规则
+ * 支持通配符（*、**、?）、取反（!）、仅匹配目录（结尾 /）和以 / 锚定到 .gitignore 所在目录的规则。
+ * 子目录的规则追加在父目录规则之后，按 git 的语义由最后一条匹配的规则决定是否忽略
+ */
+public class GitIgnoreRules {
+
+    public static final GitIgnoreRules EMPTY = new GitIgnoreRules(List.of());
+
+    private final List<Rule> rules;
+
+    private GitIgnoreRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 读取目录下的 .gitignore，与父目录规则合并；没有 .gitignore 时直接返回父规则
+     * @param directory 目录
+     * @param root 遍历根目录，规则中的路径相对于它匹配
+     */
+    public GitIgnoreRules load(Path directory, Path root) {
+        Path file = directory.resolve(".gitignore");
+        if (!Files.isRegularFile(file)) {
+            return this;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return this;
+        }
+
+        String base = toUnixPath(root.relativize(directory));
+        List<Rule> merged = new ArrayList<>(rules);
+        for (String line : lines) {
+            Rule rule = Rule.parse(line, base);
+            if (rule != null) {
+                merged.add(rule);
+            }
+        }
+        return merged.size() == rules.size() ? this : new GitIgnoreRules(merged);
+    }
+
+    /**
+     * 判断路径是否被忽略
+     * @param relativePath 相对遍历根目录的路径
+     * @param directory 是否为目录
+     */
+    public boolean isIgnored(Path relativePath, boolean directory) {
+        if (rules.isEmpty()) {
+            return false;
+        }
+        String path = toUnixPath(relativePath);
+        boolean ignored = false;
+        for (Rule rule : rules) {
+            if (rule.matches(path, directory)) {
+                ignored = !rule.negated;
+            }
+        }
+        return ignored;
+    }
+
+    private static String toUnixPath(Path path) {
+        return path.toString().replace('\\', '/');
+    }
+
+    private record Rule(Pattern pattern, boolean negated, boolean directoryOnly) {
+
+        static Rule parse(String line, String base) {
+            String text = line.strip();
+            if (text.isEmpty() || text.startsWith("#")) {
+                return null;
+            }
+            boolean negated = text.startsWith("!");
+            if (negated) {
+                text = text.substring(1);
+            }
+            boolean directoryOnly = text.endsWith("/");
+            if (directoryOnly) {
+                text = text.substring(0, text.length() - 1);
+            }
+            if (text.isEmpty()) {
+                return null;
+            }
+
+            // 含有中间斜杠的规则相对 .gitignore 所在目录锚定，否则匹配任意层级的同名条目
+            boolean anchored = text.startsWith("/") || text.contains("/");
+            if (text.startsWith("/")) {
+                text = text.substring(1);
+            }
+            String prefix = base.isEmpty() ? "" : Pattern.quote(base + "/");
+            String regex = anchored
+                ? prefix + globToRegex(text)
+                : prefix + "(?:.*/)?" + globToRegex(text);
+            return new Rule(Pattern.compile(regex), negated, directoryOnly);
+        }
+
+        boolean matches(String path, boolean directory) {
+            return (!directoryOnly || directory) && pattern.matcher(path).matches();
+        }
+
+        private static String globToRegex(String glob) {
+            StringBuilder regex = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '*') {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        boolean slash = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                        regex.append(slash ? "(?:.*/)?" : ".*");
+                        i += slash ? 2 : 1;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                } else if (c == '[') {
+                    int end = glob.indexOf(']', i + 1);
+                    if (end > i) {
+                        regex.append(glob, i, end + 1);
+                        i = end;
+                    } else {
+                        regex.append("\\[");
+                    }
+                } else if ("\\.^$+{}()|".indexOf(c) >= 0) {
+                    regex.append('\\').append(c);
+                } else {
+                    regex.append(c);
+                }
+            }
+            return regex.toString();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按行区间读取文件
+ * 首次读取时扫描一遍文件，每隔 {@link #CHECKPOINT_INTERVAL} 行记录一次字节偏移，并记下总行数；
+ * 索引按文件路径缓存，文件修改时间或大小变化后重建。之后的区间读取从最近的检查点定位，
+ * 通过 FileChannel 只读取请求的窗口，内存占用与文件大小无关。
+ * 行结束符与 String.lines() 相同：\n、\r 或 \r\n，返回的行不包含结束符
+ */
+@Service
+public class LineIndexedFileReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(LineIndexedFileReader.class);
+
+    private static final int CHECKPOINT_INTERVAL = 256;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_CACHED_INDEXES = 256;
+
+    private final Map<Path, LineIndex> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, LineIndex> eldest) {
+            return size() > MAX_CACHED_INDEXES;
+        }
+    };
+
+    /**
+     * 获取文件总行数，与 String.lines() 的计数规则一致
+     */
+    public long countLines(Path file) throws IOException {
+        return index(file).lineCount;
+    }
+
+    /**
+     * 读取从 offset 开始的最多 limit 行
+     * @param file 文件路径
+     * @param offset 起始行号（从 0 开始）
+     * @param limit 最多读取的行数
+     * @return 读取结果；offset 超出文件行数时 lines 为空
+     */
+    public LineWindow readLines(Path file, long offset, int limit) throws IOException {
+        return readLines(file, offset, limit, Long.MAX_VALUE);
+    }
+
+    /**
+     * 读取从 offset 开始的最多 limit 行，读取的内容不超过 maxBytes 字节
+     * @param file 文件路径
+     * @param offset 起始行号（从 0 开始）
+     * @param limit 最多读取的行数
+     * @param maxBytes 窗口内容的字节上限，超出时在上一行结束处截断
+     * @return 读取结果；offset 超出文件行数时 lines 为空，单行超过上限时 lines 为空且 truncated 为 true
+     */
+    public LineWindow readLines(Path file, long offset, int limit, long maxBytes) throws IOException {
+        LineIndex index = index(file);
+        if (offset >= index.lineCount || limit <= 0) {
+            return new LineWindow(List.of(), offset, index.lineCount, false);
+        }
+
+        int checkpoint = (int) (offset / CHECKPOINT_INTERVAL);
+        long skip = offset - (long) checkpoint * CHECKPOINT_INTERVAL;
+        long position = index.checkpoints[checkpoint];
+
+        List<String> lines = new ArrayList<>(Math.min(limit, 1024));
+        ByteArrayOutputStream current = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long windowBytes = 0;
+        boolean truncated = false;
+        boolean afterCr = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (lines.size() < limit && !truncated) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+                buffer.flip();
+
+                int start = 0;
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read && lines.size() < limit; i++) {
+                    byte b = bytes[i];
+                    if (b == '\n' && afterCr) {
+                        // \r\n 中的 \n，所在行已在 \r 处结束
+                        afterCr = false;
+                        start = i + 1;
+                        continue;
+                    }
+                    afterCr = b == '\r';
+                    if (b != '\n' && b != '\r') {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        windowBytes += current.size() + (i - start);
+                        if (windowBytes > maxBytes) {
+                            truncated = true;
+                            break;
+                        }
+                        current.write(bytes, start, i - start);
+                        lines.add(decodeLine(current));
+                    }
+                    start = i + 1;
+                }
+                if (!truncated && skip == 0 && lines.size() < limit && start < read) {
+                    if (windowBytes + current.size() + (read - start) > maxBytes) {
+                        truncated = true;
+                    } else {
+                        current.write(bytes, start, read - start);
+                    }
+                }
+            }
+        }
+        // 文件末尾没有换行符的最后一行
+        if (!truncated && lines.size() < limit && current.size() > 0) {
+            lines.add(decodeLine(current));
+        }
+        return new LineWindow(lines, offset, index.lineCount, truncated);
+    }
+
+    private LineIndex index(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        long modified = attrs.lastModifiedTime().toMillis();
+        synchronized (indexes) {
+            LineIndex cached = indexes.get(key);
+            if (cached != null && cached.size == attrs.size() && cached.modified == modified) {
+                return cached;
+            }
+        }
+
+        LineIndex built = build(key, attrs.size(), modified);
+        synchronized (indexes) {
+            indexes.put(key, built);
+        }
+        return built;
+    }
+
+    private LineIndex build(Path file, long size, long modified) throws IOException {
+        long started = System.currentTimeMillis();
+        long[] checkpoints = new long[16];
+        int checkpointCount = 1; // 第 0 行从偏移 0 开始
+        long newlines = 0;
+        long position = 0;
+        byte last = '\n';
+        boolean afterCr = false;
+        boolean checkpointAfterCr = false;
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                byte[] bytes = buffer.array();
+                for (int i = 0; i < read; i++) {
+                    byte b = bytes[i];
+                    if (b == '\n' && afterCr) {
+                        // \r\n：行已在 \r 处计数，检查点移到 \n 之后
+                        if (checkpointAfterCr) {
+                            checkpoints[checkpointCount - 1]++;
+                        }
+                        afterCr = false;
+                        checkpointAfterCr = false;
+                        continue;
+                    }
+                    afterCr = b == '\r';
+                    checkpointAfterCr = false;
+                    if (b == '\n' || b == '\r') {
+                        newlines++;
+                        if (newlines % CHECKPOINT_INTERVAL == 0) {
+                            if (checkpointCount == checkpoints.length) {
+                                checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                            }
+                            checkpoints[checkpointCount++] = position + i + 1;
+                            checkpointAfterCr = afterCr;
+                        }
+                    }
+                }
+                last = bytes[read - 1];
+                position += read;
+                buffer.clear();
+            }
+        }
+
+        long lineCount = newlines + (position > 0 && last != '\n' && last != '\r' ? 1 : 0);
+        logger.debug("Indexed {} lines of {} in {} ms", lineCount, file, System.currentTimeMillis() - started);
+        return new LineIndex(size, modified, lineCount, Arrays.copyOf(checkpoints, checkpointCount));
+    }
+
+    private String decodeLine(ByteArrayOutputStream line) {
+        byte[] bytes = line.toByteArray();
+        line.reset();
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 行偏移索引
+     */
+    private record LineIndex(long size, long modified, long lineCount, long[] checkpoints) {
+    }
+
+    /**
+     * 行区间读取结果
+     * @param lines 读取到的行
+     * @param offset 起始行号（从 0 开始）
+     * @param totalLines 文件总行数
+     * @param truncated 是否因字节上限在 limit 行之前截断
+     */
+    public record LineWindow(List<String> lines, long offset, long totalLines, boolean truncated) {
+
+        public long endLine() {
+            return offset + lines.size();
+        }
+    }
+}
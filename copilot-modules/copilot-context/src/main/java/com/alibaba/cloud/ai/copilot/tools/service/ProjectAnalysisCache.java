@@ -0,0 +1,449 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import com.alibaba.cloud.ai.copilot.model.ProjectContext;
+import com.alibaba.cloud.ai.copilot.model.ProjectStructure;
+import com.alibaba.cloud.ai.copilot.model.ProjectType;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 项目分析缓存
+ * 按（相对路径, 修改时间, 大小）缓存每个代码文件的统计结果，并维护项目级的汇总统计：
+ * 再次分析时只重新读取发生变化的文件，从汇总中减去旧结果、加上新结果。
+ * 文件级结果持久化到缓存目录，重启后仍然有效；项目类型、结构、依赖和配置文件只缓存在内存中，
+ * 分别在根目录条目或目录布局的指纹变化后重新计算。
+ * 缓存文件记录所属的项目根目录，工作目录删除时一并清理；定时清理根目录已不存在或长期未使用的缓存文件，
+ * 旧版本或无法读取的缓存文件在启动时清理一次
+ */
+@Component
+public class ProjectAnalysisCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectAnalysisCache.class);
+
+    /**
+     * 缓存格式版本，统计规则变化时递增，旧版本的缓存会被丢弃
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path cacheDirectory;
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final Map<Path, Entry> entries;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public ProjectAnalysisCache(
+            @Value("${copilot.analysis-cache.enabled:true}") boolean enabled,
+            @Value("${copilot.analysis-cache.directory:./analysis-cache}") String cacheDirectory,
+            @Value("${copilot.analysis-cache.max-projects:32}") int maxProjects,
+            @Value("${copilot.analysis-cache.max-age-hours:168}") long maxAgeHours) {
+        this.enabled = enabled;
+        this.maxAgeMillis = TimeUnit.HOURS.toMillis(maxAgeHours);
+        this.cacheDirectory = Paths.get(cacheDirectory).toAbsolutePath().normalize();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+                return size() > maxProjects;
+            }
+        });
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 项目的锁，按项目根目录分段
+     * 条目可能在使用期间被 LRU 淘汰，锁不随条目淘汰，同一项目的读取、更新和保存始终互斥
+     */
+    public Lock lockFor(Path projectRoot) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        return locks[Math.floorMod(root.hashCode(), locks.length)];
+    }
+
+    /**
+     * 获取项目的缓存条目，首次访问时从缓存目录加载文件级结果
+     * 调用方在读写条目和保存期间需要持有 {@link #lockFor(Path)} 返回的锁。
+     * 加载只持有项目锁，不持有 entries 的锁，读取大项目的缓存文件时不阻塞其他项目
+     */
+    public Entry entry(Path projectRoot) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        if (!enabled) {
+            return new Entry();
+        }
+        Lock lock = lockFor(root);
+        lock.lock();
+        try {
+            Entry entry = entries.get(root);
+            if (entry == null) {
+                entry = load(root);
+                Entry existing = entries.putIfAbsent(root, entry);
+                if (existing != null) {
+                    entry = existing;
+                }
+            }
+            return entry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 把有变化的条目写回缓存目录
+     */
+    public void save(Path projectRoot, Entry entry) {
+        if (!enabled || !entry.dirty) {
+            return;
+        }
+        Path file = cacheFile(projectRoot.toAbsolutePath().normalize());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(cacheDirectory);
+            objectMapper.writeValue(temp.toFile(),
+                new StoredCache(FORMAT_VERSION, projectRoot.toAbsolutePath().normalize().toString(), entry.files));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            entry.dirty = false;
+        } catch (IOException e) {
+            logger.warn("Failed to save analysis cache for {}", projectRoot, e);
+        }
+    }
+
+    /**
+     * 丢弃目录及其子目录下所有项目的缓存，用于工作目录被删除或回收时
+     * 只删除记录的根目录位于该目录下的缓存文件和该目录自身键对应的缓存文件，不影响其他项目
+     */
+    public void invalidate(Path directory) {
+        Path prefix = directory.toAbsolutePath().normalize();
+        List<Path> cached;
+        synchronized (entries) {
+            cached = entries.keySet().stream().filter(root -> root.startsWith(prefix)).toList();
+        }
+        for (Path root : cached) {
+            Lock lock = lockFor(root);
+            lock.lock();
+            try {
+                entries.remove(root);
+            } finally {
+                lock.unlock();
+            }
+        }
+        deleteCacheFiles(root -> root != null && root.startsWith(prefix), 0);
+
+        // 该目录自身的缓存文件可能是旧版本，无法按记录的根目录匹配，按键直接删除
+        Lock lock = lockFor(prefix);
+        lock.lock();
+        try {
+            Files.deleteIfExists(cacheFile(prefix));
+        } catch (IOException e) {
+            logger.warn("Failed to delete analysis cache for {}", prefix, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 启动时清理一次旧版本或无法读取的缓存文件
+     * 这些文件无法判断所属项目，运行期间不会再产生，无需在定时清理或按目录失效时处理
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void removeLegacyFiles() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = deleteCacheFiles(root -> root == null, 0);
+        if (deleted > 0) {
+            logger.info("Removed {} legacy analysis cache files", deleted);
+        }
+    }
+
+    /**
+     * 定时清理缓存目录：删除根目录已不存在或超过最大闲置时间且不在内存中的缓存文件
+     */
+    @Scheduled(fixedDelayString = "${copilot.analysis-cache.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = deleteCacheFiles(root -> root != null && !Files.isDirectory(root), maxAgeMillis);
+        if (deleted > 0) {
+            logger.info("Removed {} stale analysis cache files", deleted);
+        }
+    }
+
+    /**
+     * 删除缓存目录中满足条件的缓存文件
+     * @param orphan 按文件中记录的项目根目录判断是否删除，无法读取时传入 null
+     * @param maxAgeMillis 大于 0 时，超过该时间未更新且不在内存中的缓存文件也会被删除
+     * @return 删除的文件数
+     */
+    private int deleteCacheFiles(Predicate<Path> orphan, long maxAgeMillis) {
+        if (!Files.isDirectory(cacheDirectory)) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        int deleted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory, "*.{json,tmp}")) {
+            for (Path file : stream) {
+                try {
+                    boolean stale = maxAgeMillis > 0 && Files.getLastModifiedTime(file).toMillis() < cutoff;
+                    if (file.getFileName().toString().endsWith(".tmp")) {
+                        // 写入中断留下的临时文件
+                        if (stale && Files.deleteIfExists(file)) {
+                            deleted++;
+                        }
+                        continue;
+                    }
+                    Path root = readRoot(file);
+                    Lock lock = root != null ? lockFor(root) : null;
+                    if (lock != null) {
+                        lock.lock();
+                    }
+                    try {
+                        boolean inUse = root != null && entries.containsKey(root);
+                        if ((orphan.test(root) || (stale && !inUse)) && Files.deleteIfExists(file)) {
+                            if (root != null) {
+                                entries.remove(root);
+                            }
+                            deleted++;
+                        }
+                    } finally {
+                        if (lock != null) {
+                            lock.unlock();
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.warn("Failed to clean analysis cache file {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list analysis cache directory {}", cacheDirectory, e);
+        }
+        return deleted;
+    }
+
+    /**
+     * 只读取缓存文件中记录的项目根目录，不解析文件级结果；旧版本或无法读取的文件返回 null
+     */
+    private Path readRoot(Path file) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Integer version = null;
+            String root = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("version".equals(field)) {
+                    version = parser.getIntValue();
+                } else if ("root".equals(field)) {
+                    root = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+                if (version != null && root != null) {
+                    break;
+                }
+            }
+            return version != null && version == FORMAT_VERSION && root != null ? Paths.get(root) : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    Entry load(Path root) {
+        Entry entry = new Entry();
+        Path file = cacheFile(root);
+        if (!Files.exists(file)) {
+            return entry;
+        }
+        try {
+            StoredCache stored = objectMapper.readValue(file.toFile(), StoredCache.class);
+            if (stored.version() == FORMAT_VERSION && stored.files() != null) {
+                stored.files().forEach(entry::put);
+                logger.debug("Loaded analysis cache for {} with {} files", root, stored.files().size());
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable analysis cache for {}", root, e);
+        }
+        return entry;
+    }
+
+    private Path cacheFile(Path root) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(root.toString().getBytes(StandardCharsets.UTF_8));
+            return cacheDirectory.resolve(HexFormat.of().formatHex(digest, 0, 16) + ".json");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 单个项目的缓存
+     */
+    public static class Entry {
+        private final Map<String, FileStats> files = new HashMap<>();
+        private final ProjectContext.CodeStatistics totals = new ProjectContext.CodeStatistics();
+        private boolean dirty;
+
+        private Long rootFingerprint;
+        private Long layoutFingerprint;
+        private ProjectType projectType;
+        private ProjectStructure structure;
+        private List<ProjectContext.DependencyInfo> dependencies;
+        private List<ProjectContext.ConfigFile> configFiles;
+
+        /**
+         * 用本次扫描到的代码文件更新缓存
+         * @param scanned 扫描到的代码文件
+         * @param analyzer 分析单个文件，读取失败时返回 null
+         * @return 重新分析的文件数
+         */
+        public int update(List<ScannedFile> scanned, Function<ScannedFile, FileStats> analyzer) {
+            Map<String, ScannedFile> current = new HashMap<>();
+            for (ScannedFile file : scanned) {
+                current.put(file.relativePath(), file);
+            }
+
+            int removed = 0;
+            for (String relativePath : List.copyOf(files.keySet())) {
+                if (!current.containsKey(relativePath)) {
+                    remove(relativePath);
+                    removed++;
+                }
+            }
+
+            int analyzed = 0;
+            for (ScannedFile file : scanned) {
+                FileStats cached = files.get(file.relativePath());
+                if (cached != null && cached.lastModified() == file.lastModified() && cached.size() == file.size()) {
+                    continue;
+                }
+                remove(file.relativePath());
+                FileStats stats = analyzer.apply(file);
+                if (stats != null) {
+                    put(file.relativePath(), stats);
+                }
+                analyzed++;
+            }
+            if (removed > 0 || analyzed > 0) {
+                dirty = true;
+            }
+            return analyzed;
+        }
+
+        /**
+         * 当前汇总统计的副本
+         */
+        public ProjectContext.CodeStatistics codeStatistics() {
+            ProjectContext.CodeStatistics copy = new ProjectContext.CodeStatistics();
+            copy.setTotalLines(totals.getTotalLines());
+            copy.setCodeLines(totals.getCodeLines());
+            copy.setCommentLines(totals.getCommentLines());
+            copy.setBlankLines(totals.getBlankLines());
+            copy.setTotalClasses(totals.getTotalClasses());
+            copy.setTotalMethods(totals.getTotalMethods());
+            copy.setTotalFunctions(totals.getTotalFunctions());
+            totals.getLanguageLines().forEach(copy::addLanguageLines);
+            return copy;
+        }
+
+        public int fileCount() {
+            return files.size();
+        }
+
+        private void put(String relativePath, FileStats stats) {
+            files.put(relativePath, stats);
+            apply(stats, 1);
+        }
+
+        private void remove(String relativePath) {
+            FileStats stats = files.remove(relativePath);
+            if (stats != null) {
+                apply(stats, -1);
+            }
+        }
+
+        private void apply(FileStats stats, int sign) {
+            totals.setTotalLines(totals.getTotalLines() + sign * stats.totalLines());
+            totals.setCodeLines(totals.getCodeLines() + sign * stats.codeLines());
+            totals.setCommentLines(totals.getCommentLines() + sign * stats.commentLines());
+            totals.setBlankLines(totals.getBlankLines() + sign * stats.blankLines());
+            totals.setTotalClasses(totals.getTotalClasses() + sign * stats.classes());
+            totals.setTotalMethods(totals.getTotalMethods() + sign * stats.methods());
+            totals.setTotalFunctions(totals.getTotalFunctions() + sign * stats.functions());
+            totals.getLanguageLines().merge(stats.language(), sign * stats.totalLines(), Integer::sum);
+            totals.getLanguageLines().remove(stats.language(), 0);
+        }
+
+        public Long getRootFingerprint() { return rootFingerprint; }
+        public void setRootFingerprint(Long rootFingerprint) { this.rootFingerprint = rootFingerprint; }
+
+        public Long getLayoutFingerprint() { return layoutFingerprint; }
+        public void setLayoutFingerprint(Long layoutFingerprint) { this.layoutFingerprint = layoutFingerprint; }
+
+        public ProjectType getProjectType() { return projectType; }
+        public void setProjectType(ProjectType projectType) { this.projectType = projectType; }
+
+        public ProjectStructure getStructure() { return structure; }
+        public void setStructure(ProjectStructure structure) { this.structure = structure; }
+
+        public List<ProjectContext.DependencyInfo> getDependencies() { return dependencies; }
+        public void setDependencies(List<ProjectContext.DependencyInfo> dependencies) { this.dependencies = dependencies; }
+
+        public List<ProjectContext.ConfigFile> getConfigFiles() { return configFiles; }
+        public void setConfigFiles(List<ProjectContext.ConfigFile> configFiles) { this.configFiles = configFiles; }
+    }
+
+    /**
+     * 扫描到的代码文件
+     */
+    public record ScannedFile(Path path, String relativePath, long lastModified, long size) {
+    }
+
+    /**
+     * 单个代码文件的统计结果
+     */
+    public record FileStats(long lastModified, long size, String language,
+                            int totalLines, int codeLines, int commentLines, int blankLines,
+                            int classes, int methods, int functions) {
+    }
+
+    private record StoredCache(int version, String root, Map<String, FileStats> files) {
+    }
+}
@@ -9,12 +9,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
 
 /**
  * 项目上下文分析器
@@ -31,6 +32,12 @@ public class ProjectContextAnalyzer {
     @Autowired
     public ProjectDiscoveryService projectDiscoveryService;
 
+    @Autowired
+    public ProjectAnalysisCache analysisCache;
+
+    @Autowired
+    public ProjectScanner projectScanner;
+
     /**
      * 分析项目并生成完整上下文
      * @param projectRoot 项目根目录
@@ -42,36 +49,75 @@ public class ProjectContextAnalyzer {
         ProjectContext context = new ProjectContext(projectRoot);
 
         try {
-            // 1. 检测项目类型
-            ProjectType projectType = projectTypeDetector.detectProjectType(projectRoot);
-            context.setProjectType(projectType);
-            logger.debug("Detected project type: {}", projectType);
-
-            // 2. 分析项目结构
-            ProjectStructure structure = projectDiscoveryService.analyzeProjectStructure(projectRoot);
-            context.setProjectStructure(structure);
-            logger.debug("Analyzed project structure with {} directories",
-                structure.getDirectories().size());
-
-            // 3. 分析依赖关系
-            List<ProjectContext.DependencyInfo> dependencies =
-                projectDiscoveryService.analyzeDependencies(projectRoot);
-            context.setDependencies(dependencies);
-            logger.debug("Found {} dependencies", dependencies.size());
-
-            // 4. 查找配置文件
-            List<ProjectContext.ConfigFile> configFiles =
-                projectDiscoveryService.findConfigurationFiles(projectRoot);
-            context.setConfigFiles(configFiles);
-            logger.debug("Found {} configuration files", configFiles.size());
-
-            // 5. 分析代码统计
-            ProjectContext.CodeStatistics codeStats = analyzeCodeStatistics(projectRoot, projectType);
-            context.setCodeStatistics(codeStats);
-            logger.debug("Code statistics: {} total lines", codeStats.getTotalLines());
+            // 只遍历一次目录，后续各项分析都基于这次扫描结果
+            ProjectScanner.ProjectSnapshot snapshot = projectScanner.scan(projectRoot);
+
+            // 按项目加锁而不是对条目加锁：条目可能在分析期间被 LRU 淘汰，重新加载的条目不能与之并发更新
+            Lock lock = analysisCache.lockFor(projectRoot);
+            lock.lock();
+            try {
+                ProjectAnalysisCache.Entry entry = analysisCache.entry(projectRoot);
+                boolean rootChanged = !Objects.equals(entry.getRootFingerprint(), snapshot.rootFingerprint());
+                boolean layoutChanged = rootChanged
+                    || !Objects.equals(entry.getLayoutFingerprint(), snapshot.layoutFingerprint());
+
+                // 1. 检测项目类型（只依赖根目录下的文件）
+                if (rootChanged) {
+                    entry.setProjectType(projectTypeDetector.detectProjectType(snapshot));
+                }
+                ProjectType projectType = entry.getProjectType();
+                context.setProjectType(projectType);
+                logger.debug("Detected project type: {}", projectType);
+
+                // 2. 分析项目结构（目录布局或文件大小变化后重新分析），和代码文件收集在同一次遍历中完成
+                CodeFileCollector codeFiles = new CodeFileCollector();
+                if (layoutChanged) {
+                    ProjectDiscoveryService.StructureCollector structureCollector =
+                        projectDiscoveryService.structureCollector(snapshot, projectType);
+                    snapshot.accept(codeFiles, structureCollector);
+                    entry.setStructure(structureCollector.getStructure());
+                } else {
+                    snapshot.accept(codeFiles);
+                }
+                ProjectStructure structure = entry.getStructure();
+                context.setProjectStructure(structure);
+                logger.debug("Analyzed project structure with {} directories",
+                    structure.getDirectories().size());
+
+                // 3. 分析依赖关系
+                if (rootChanged) {
+                    entry.setDependencies(projectDiscoveryService.analyzeDependencies(projectRoot, projectType));
+                }
+                List<ProjectContext.DependencyInfo> dependencies = new ArrayList<>(entry.getDependencies());
+                context.setDependencies(dependencies);
+                logger.debug("Found {} dependencies", dependencies.size());
+
+                // 4. 查找配置文件
+                if (rootChanged) {
+                    entry.setConfigFiles(projectDiscoveryService.findConfigurationFiles(snapshot, projectType));
+                }
+                List<ProjectContext.ConfigFile> configFiles = new ArrayList<>(entry.getConfigFiles());
+                context.setConfigFiles(configFiles);
+                logger.debug("Found {} configuration files", configFiles.size());
+
+                entry.setRootFingerprint(snapshot.rootFingerprint());
+                entry.setLayoutFingerprint(snapshot.layoutFingerprint());
+
+                // 5. 分析代码统计（只重新读取新增或修改过的文件）
+                CodeLineClassifier classifier = new CodeLineClassifier();
+                int analyzed = entry.update(codeFiles.files, file -> analyzeCodeFile(file, classifier));
+                ProjectContext.CodeStatistics codeStats = entry.codeStatistics();
+                context.setCodeStatistics(codeStats);
+                logger.debug("Code statistics: {} total lines, re-analyzed {} of {} files",
+                    codeStats.getTotalLines(), analyzed, codeFiles.files.size());
+
+                analysisCache.save(projectRoot, entry);
+            } finally {
+                lock.unlock();
+            }
 
             // 6. 收集项目元数据
-            Map<String, Object> metadata = collectProjectMetadata(projectRoot, projectType);
+            Map<String, Object> metadata = collectProjectMetadata(snapshot, context.getProjectType());
             context.setMetadata(metadata);
 
             // 7. 生成上下文摘要
@@ -89,154 +135,50 @@ public class ProjectContextAnalyzer {
     }
 
     /**
-     * 分析代码统计信息
+     * 收集前 4 层的代码文件
      */
-    private ProjectContext.CodeStatistics analyzeCodeStatistics(Path projectRoot, ProjectType projectType) {
-        logger.debug("Analyzing code statistics for: {}", projectRoot);
-
-        ProjectContext.CodeStatistics stats = new ProjectContext.CodeStatistics();
-
-        try {
-            analyzeCodeInDirectory(projectRoot, stats, projectType, 0, 3);
-        } catch (Exception e) {
-            logger.warn("Error analyzing code statistics", e);
-        }
-
-        return stats;
-    }
+    private class CodeFileCollector implements ProjectScanner.Visitor {
 
-    /**
-     * 递归分析目录中的代码
-     */
-    private void analyzeCodeInDirectory(Path directory, ProjectContext.CodeStatistics stats,
-                                      ProjectType projectType, int currentDepth, int maxDepth) {
-        if (currentDepth > maxDepth) {
-            return;
-        }
+        private final List<ProjectAnalysisCache.ScannedFile> files = new ArrayList<>();
 
-        try (Stream<Path> paths = Files.list(directory)) {
-            paths.forEach(path -> {
-                try {
-                    if (Files.isDirectory(path)) {
-                        String dirName = path.getFileName().toString();
-                        // 跳过不需要分析的目录
-                        if (!shouldSkipDirectory(dirName)) {
-                            analyzeCodeInDirectory(path, stats, projectType, currentDepth + 1, maxDepth);
-                        }
-                    } else if (Files.isRegularFile(path)) {
-                        analyzeCodeFile(path, stats, projectType);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error processing path during code analysis: " + path, e);
-                }
-            });
-        } catch (IOException e) {
-            logger.warn("Error listing directory: " + directory, e);
+        @Override
+        public void visitFile(ProjectScanner.Entry file) {
+            if (file.depth() <= ProjectScanner.ANALYSIS_DEPTH
+                    && isCodeFile(getFileExtension(file.name()).toLowerCase())) {
+                files.add(new ProjectAnalysisCache.ScannedFile(file.path(), file.relativePath(),
+                    file.lastModified(), file.size()));
+            }
         }
     }
 
     /**
      * 分析单个代码文件
+     * @return 文件统计结果
      */
-    private void analyzeCodeFile(Path filePath, ProjectContext.CodeStatistics stats, ProjectType projectType) {
-        String fileName = filePath.getFileName().toString();
-        String extension = getFileExtension(fileName).toLowerCase();
-
-        // 只分析代码文件
-        if (!isCodeFile(extension, projectType)) {
-            return;
-        }
+    private ProjectAnalysisCache.FileStats analyzeCodeFile(ProjectAnalysisCache.ScannedFile file,
+                                                           CodeLineClassifier classifier) {
+        Path filePath = file.path();
+        String extension = getFileExtension(filePath.getFileName().toString()).toLowerCase();
+        String language = getLanguageByExtension(extension);
 
         try {
-            List<String> lines = Files.readAllLines(filePath);
-            int totalLines = lines.size();
-            int codeLines = 0;
-            int commentLines = 0;
-            int blankLines = 0;
-
-            for (String line : lines) {
-                String trimmedLine = line.trim();
-                if (trimmedLine.isEmpty()) {
-                    blankLines++;
-                } else if (isCommentLine(trimmedLine, extension)) {
-                    commentLines++;
-                } else {
-                    codeLines++;
-                }
-            }
-
-            // 更新统计信息
-            stats.setTotalLines(stats.getTotalLines() + totalLines);
-            stats.setCodeLines(stats.getCodeLines() + codeLines);
-            stats.setCommentLines(stats.getCommentLines() + commentLines);
-            stats.setBlankLines(stats.getBlankLines() + blankLines);
-
-            // 按语言统计
-            String language = getLanguageByExtension(extension);
-            stats.addLanguageLines(language, totalLines);
-
-            // 分析类和方法（简单实现）
-            if (extension.equals(".java")) {
-                analyzeJavaFile(lines, stats);
-            } else if (extension.equals(".js") || extension.equals(".ts")) {
-                analyzeJavaScriptFile(lines, stats);
-            } else if (extension.equals(".py")) {
-                analyzePythonFile(lines, stats);
-            }
-
+            CodeLineClassifier.Counts counts = classifier.classify(filePath, CodeLineClassifier.syntaxOf(extension));
+            return new ProjectAnalysisCache.FileStats(file.lastModified(), file.size(), language,
+                counts.totalLines(), counts.codeLines(), counts.commentLines(), counts.blankLines(),
+                counts.classes(), counts.methods(), counts.functions());
         } catch (IOException e) {
+            // 读取失败的文件不计入统计，按当前修改时间和大小缓存空结果，文件变化后再重新读取
             logger.warn("Error reading file for code analysis: " + filePath, e);
-        }
-    }
-
-    /**
-     * 分析Java文件
-     */
-    private void analyzeJavaFile(List<String> lines, ProjectContext.CodeStatistics stats) {
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-            if (trimmedLine.matches(".*\\bclass\\s+\\w+.*")) {
-                stats.setTotalClasses(stats.getTotalClasses() + 1);
-            }
-            if (trimmedLine.matches(".*\\b(public|private|protected)\\s+.*\\s+\\w+\\s*\\(.*\\).*")) {
-                stats.setTotalMethods(stats.getTotalMethods() + 1);
-            }
-        }
-    }
-
-    /**
-     * 分析JavaScript文件
-     */
-    private void analyzeJavaScriptFile(List<String> lines, ProjectContext.CodeStatistics stats) {
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-            if (trimmedLine.matches(".*\\bfunction\\s+\\w+.*") ||
-                trimmedLine.matches(".*\\w+\\s*:\\s*function.*") ||
-                trimmedLine.matches(".*\\w+\\s*=\\s*\\(.*\\)\\s*=>.*")) {
-                stats.setTotalFunctions(stats.getTotalFunctions() + 1);
-            }
-        }
-    }
-
-    /**
-     * 分析Python文件
-     */
-    private void analyzePythonFile(List<String> lines, ProjectContext.CodeStatistics stats) {
-        for (String line : lines) {
-            String trimmedLine = line.trim();
-            if (trimmedLine.matches("^class\\s+\\w+.*:")) {
-                stats.setTotalClasses(stats.getTotalClasses() + 1);
-            }
-            if (trimmedLine.matches("^def\\s+\\w+.*:")) {
-                stats.setTotalFunctions(stats.getTotalFunctions() + 1);
-            }
+            return new ProjectAnalysisCache.FileStats(file.lastModified(), file.size(),
+                language, 0, 0, 0, 0, 0, 0, 0);
         }
     }
 
     /**
      * 收集项目元数据
      */
-    private Map<String, Object> collectProjectMetadata(Path projectRoot, ProjectType projectType) {
+    private Map<String, Object> collectProjectMetadata(ProjectScanner.ProjectSnapshot snapshot, ProjectType projectType) {
+        Path projectRoot = snapshot.root();
         Map<String, Object> metadata = new HashMap<>();
 
         metadata.put("projectName", projectRoot.getFileName().toString());
@@ -246,19 +188,19 @@ public class ProjectContextAnalyzer {
         metadata.put("analysisTimestamp", System.currentTimeMillis());
 
         // 检查版本控制
-        if (Files.exists(projectRoot.resolve(".git"))) {
+        if (snapshot.hasRootEntry(".git")) {
             metadata.put("versionControl", "Git");
         }
 
         // 检查CI/CD配置
-        if (Files.exists(projectRoot.resolve(".github"))) {
+        if (snapshot.hasRootEntry(".github")) {
             metadata.put("cicd", "GitHub Actions");
-        } else if (Files.exists(projectRoot.resolve(".gitlab-ci.yml"))) {
+        } else if (snapshot.hasRootEntry(".gitlab-ci.yml")) {
             metadata.put("cicd", "GitLab CI");
         }
 
         // 检查Docker支持
-        if (Files.exists(projectRoot.resolve("Dockerfile"))) {
+        if (snapshot.hasRootEntry("Dockerfile")) {
             metadata.put("containerization", "Docker");
         }
 
@@ -282,19 +224,12 @@ public class ProjectContextAnalyzer {
     }
 
     // 辅助方法
-    private boolean shouldSkipDirectory(String dirName) {
-        return dirName.equals(".git") || dirName.equals("node_modules") ||
-               dirName.equals("target") || dirName.equals("build") ||
-               dirName.equals("dist") || dirName.equals("__pycache__") ||
-               dirName.startsWith(".");
-    }
-
     private String getFileExtension(String fileName) {
         int lastDot = fileName.lastIndexOf('.');
         return lastDot > 0 ? fileName.substring(lastDot) : "";
     }
 
-    private boolean isCodeFile(String extension, ProjectType projectType) {
+    private boolean isCodeFile(String extension) {
         return extension.equals(".java") || extension.equals(".js") || extension.equals(".ts") ||
                extension.equals(".py") || extension.equals(".html") || extension.equals(".css") ||
                extension.equals(".jsx") || extension.equals(".tsx") || extension.equals(".vue") ||
@@ -302,24 +237,6 @@ public class ProjectContextAnalyzer {
                extension.equals(".cs") || extension.equals(".cpp") || extension.equals(".c");
     }
 
-    private boolean isCommentLine(String line, String extension) {
-        switch (extension) {
-            case ".java":
-            case ".js":
-            case ".ts":
-            case ".jsx":
-            case ".tsx":
-            case ".css":
-                return line.startsWith("//") || line.startsWith("/*") || line.startsWith("*");
-            case ".py":
-                return line.startsWith("#");
-            case ".html":
-                return line.startsWith("<!--");
-            default:
-                return line.startsWith("#") || line.startsWith("//");
-        }
-    }
-
     private String getLanguageByExtension(String extension) {
         switch (extension) {
             case ".java": return "Java";
@@ -336,4 +253,5 @@ public class ProjectContextAnalyzer {
             default: return "Other";
         }
     }
+
 }
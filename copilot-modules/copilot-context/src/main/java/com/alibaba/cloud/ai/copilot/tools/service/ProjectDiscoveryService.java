@@ -14,8 +14,9 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
 
 /**
  * 项目发现和分析服务
@@ -29,6 +30,9 @@ public class ProjectDiscoveryService {
     @Autowired
     private ProjectTypeDetector projectTypeDetector;
 
+    @Autowired
+    private ProjectScanner projectScanner;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -37,96 +41,83 @@ public class ProjectDiscoveryService {
      * @return 项目结构信息
      */
     public ProjectStructure analyzeProjectStructure(Path projectRoot) {
-        logger.debug("Analyzing project structure for: {}", projectRoot);
-
-        ProjectType projectType = projectTypeDetector.detectProjectType(projectRoot);
-        ProjectStructure structure = new ProjectStructure(projectRoot, projectType);
-
-        try {
-            analyzeDirectoryStructure(projectRoot, structure, 0, 3); // 最大深度3层
-            structure.markImportantDirectories();
+        ProjectScanner.ProjectSnapshot snapshot = projectScanner.scan(projectRoot);
+        return analyzeProjectStructure(snapshot, projectTypeDetector.detectProjectType(snapshot));
+    }
 
-            logger.info("Project structure analysis completed for: {}", projectRoot);
-            return structure;
+    /**
+     * 基于已有的扫描结果分析项目结构
+     * @param snapshot 项目扫描结果
+     * @param projectType 项目类型
+     * @return 项目结构信息
+     */
+    public ProjectStructure analyzeProjectStructure(ProjectScanner.ProjectSnapshot snapshot, ProjectType projectType) {
+        StructureCollector collector = structureCollector(snapshot, projectType);
+        snapshot.accept(collector);
+        return collector.getStructure();
+    }
 
-        } catch (IOException e) {
-            logger.error("Error analyzing project structure for: " + projectRoot, e);
-            return structure; // 返回部分分析结果
-        }
+    /**
+     * 创建项目结构收集器，可以和其他访问者在同一次遍历中一起使用
+     */
+    public StructureCollector structureCollector(ProjectScanner.ProjectSnapshot snapshot, ProjectType projectType) {
+        logger.debug("Analyzing project structure for: {}", snapshot.root());
+        return new StructureCollector(new ProjectStructure(snapshot.root(), projectType));
     }
 
     /**
-     * 递归分析目录结构
+     * 项目结构收集器
+     * 记录前 4 层的目录及其中的文件名，统计前 4 层的文件类型、数量和大小
      */
-    private void analyzeDirectoryStructure(Path currentPath, ProjectStructure structure,
-                                         int currentDepth, int maxDepth) throws IOException {
-        if (currentDepth > maxDepth) {
-            return;
+    public class StructureCollector implements ProjectScanner.Visitor {
+
+        private final ProjectStructure structure;
+        private final Map<String, ProjectStructure.DirectoryInfo> directories = new HashMap<>();
+
+        private StructureCollector(ProjectStructure structure) {
+            this.structure = structure;
         }
 
-        try (Stream<Path> paths = Files.list(currentPath)) {
-            paths.forEach(path -> {
-                try {
-                    if (Files.isDirectory(path)) {
-                        String dirName = path.getFileName().toString();
-                        String relativePath = structure.getProjectRoot().relativize(path).toString();
-
-                        // 跳过常见的忽略目录
-                        if (shouldIgnoreDirectory(dirName)) {
-                            return;
-                        }
-
-                        ProjectStructure.DirectoryInfo dirInfo =
-                            new ProjectStructure.DirectoryInfo(dirName, relativePath);
-
-                        // 分析目录中的文件
-                        analyzeDirectoryFiles(path, dirInfo);
-                        structure.addDirectory(dirInfo);
-
-                        // 递归分析子目录
-                        if (currentDepth < maxDepth) {
-                            analyzeDirectoryStructure(path, structure, currentDepth + 1, maxDepth);
-                        }
-
-                    } else if (Files.isRegularFile(path)) {
-                        // 处理根目录下的文件
-                        String fileName = path.getFileName().toString();
-                        String extension = getFileExtension(fileName);
-
-                        structure.addFileType(extension, 1);
-                        structure.setTotalFiles(structure.getTotalFiles() + 1);
-
-                        // 检查是否为关键文件
-                        if (isKeyFile(fileName, structure.getProjectType())) {
-                            structure.addKeyFile(fileName);
-                        }
-
-                        // 累计文件大小
-                        try {
-                            structure.setTotalSize(structure.getTotalSize() + Files.size(path));
-                        } catch (IOException e) {
-                            logger.warn("Could not get size for file: {}", path);
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error processing path: " + path, e);
-                }
-            });
+        @Override
+        public void visitDirectory(ProjectScanner.Entry directory) {
+            if (directory.depth() > ProjectScanner.ANALYSIS_DEPTH) {
+                return;
+            }
+            ProjectStructure.DirectoryInfo dirInfo =
+                new ProjectStructure.DirectoryInfo(directory.name(), directory.relativePath());
+            directories.put(directory.relativePath(), dirInfo);
+            structure.addDirectory(dirInfo);
         }
-    }
 
-    /**
-     * 分析目录中的文件
-     */
-    private void analyzeDirectoryFiles(Path directory, ProjectStructure.DirectoryInfo dirInfo) {
-        try (Stream<Path> files = Files.list(directory)) {
-            files.filter(Files::isRegularFile)
-                 .forEach(file -> {
-                     String fileName = file.getFileName().toString();
-                     dirInfo.addFile(fileName);
-                 });
-        } catch (IOException e) {
-            logger.warn("Error analyzing files in directory: {}", directory);
+        @Override
+        public void visitFile(ProjectScanner.Entry file) {
+            Path parent = file.path().getParent();
+            ProjectStructure.DirectoryInfo dirInfo = file.depth() > 1
+                ? directories.get(structure.getProjectRoot().relativize(parent).toString())
+                : null;
+            if (dirInfo != null) {
+                dirInfo.addFile(file.name());
+            }
+            if (file.depth() > ProjectScanner.ANALYSIS_DEPTH) {
+                return;
+            }
+
+            structure.addFileType(getFileExtension(file.name()), 1);
+            structure.setTotalFiles(structure.getTotalFiles() + 1);
+
+            // 检查是否为关键文件
+            if (isKeyFile(file.name(), structure.getProjectType())) {
+                structure.addKeyFile(file.name());
+            }
+
+            // 累计文件大小
+            structure.setTotalSize(structure.getTotalSize() + file.size());
+        }
+
+        public ProjectStructure getStructure() {
+            structure.markImportantDirectories();
+            logger.info("Project structure analysis completed for: {}", structure.getProjectRoot());
+            return structure;
         }
     }
 
@@ -134,10 +125,16 @@ public class ProjectDiscoveryService {
      * 分析项目依赖
      */
     public List<ProjectContext.DependencyInfo> analyzeDependencies(Path projectRoot) {
+        return analyzeDependencies(projectRoot, projectTypeDetector.detectProjectType(projectRoot));
+    }
+
+    /**
+     * 按已检测的项目类型分析项目依赖
+     */
+    public List<ProjectContext.DependencyInfo> analyzeDependencies(Path projectRoot, ProjectType projectType) {
         logger.debug("Analyzing dependencies for: {}", projectRoot);
 
         List<ProjectContext.DependencyInfo> dependencies = new ArrayList<>();
-        ProjectType projectType = projectTypeDetector.detectProjectType(projectRoot);
 
         try {
             switch (projectType) {
@@ -277,38 +274,47 @@ public class ProjectDiscoveryService {
      * 查找配置文件
      */
     public List<ProjectContext.ConfigFile> findConfigurationFiles(Path projectRoot) {
+        ProjectScanner.ProjectSnapshot snapshot = projectScanner.scan(projectRoot, 1);
+        return findConfigurationFiles(snapshot, projectTypeDetector.detectProjectType(snapshot));
+    }
+
+    /**
+     * 基于已有的扫描结果查找配置文件
+     */
+    public List<ProjectContext.ConfigFile> findConfigurationFiles(ProjectScanner.ProjectSnapshot snapshot,
+                                                                  ProjectType projectType) {
+        Path projectRoot = snapshot.root();
         logger.debug("Finding configuration files for: {}", projectRoot);
 
         List<ProjectContext.ConfigFile> configFiles = new ArrayList<>();
-        ProjectType projectType = projectTypeDetector.detectProjectType(projectRoot);
 
         try {
             // 通用配置文件
-            addConfigFileIfExists(configFiles, projectRoot, "application.properties", "properties");
-            addConfigFileIfExists(configFiles, projectRoot, "application.yml", "yaml");
-            addConfigFileIfExists(configFiles, projectRoot, "application.yaml", "yaml");
-            addConfigFileIfExists(configFiles, projectRoot, "config.json", "json");
+            addConfigFileIfExists(configFiles, snapshot, "application.properties", "properties");
+            addConfigFileIfExists(configFiles, snapshot, "application.yml", "yaml");
+            addConfigFileIfExists(configFiles, snapshot, "application.yaml", "yaml");
+            addConfigFileIfExists(configFiles, snapshot, "config.json", "json");
 
             // 项目类型特定的配置文件
             switch (projectType) {
                 case JAVA_MAVEN:
                 case SPRING_BOOT:
-                    addConfigFileIfExists(configFiles, projectRoot, "pom.xml", "xml");
+                    addConfigFileIfExists(configFiles, snapshot, "pom.xml", "xml");
                     break;
                 case NODE_JS:
                 case REACT:
                 case VUE:
                 case ANGULAR:
                 case NEXT_JS:
-                    addConfigFileIfExists(configFiles, projectRoot, "package.json", "json");
-                    addConfigFileIfExists(configFiles, projectRoot, "webpack.config.js", "javascript");
+                    addConfigFileIfExists(configFiles, snapshot, "package.json", "json");
+                    addConfigFileIfExists(configFiles, snapshot, "webpack.config.js", "javascript");
                     break;
                 case PYTHON:
                 case DJANGO:
                 case FLASK:
                 case FASTAPI:
-                    addConfigFileIfExists(configFiles, projectRoot, "requirements.txt", "text");
-                    addConfigFileIfExists(configFiles, projectRoot, "setup.py", "python");
+                    addConfigFileIfExists(configFiles, snapshot, "requirements.txt", "text");
+                    addConfigFileIfExists(configFiles, snapshot, "setup.py", "python");
                     break;
             }
 
@@ -324,10 +330,10 @@ public class ProjectDiscoveryService {
      * 添加配置文件（如果存在）
      */
     private void addConfigFileIfExists(List<ProjectContext.ConfigFile> configFiles,
-                                     Path projectRoot, String fileName, String fileType) {
-        Path configPath = projectRoot.resolve(fileName);
-        if (Files.exists(configPath)) {
-            String relativePath = projectRoot.relativize(configPath).toString();
+                                     ProjectScanner.ProjectSnapshot snapshot, String fileName, String fileType) {
+        ProjectScanner.Entry entry = snapshot.rootEntries().get(fileName);
+        if (entry != null) {
+            String relativePath = entry.relativePath();
             ProjectContext.ConfigFile configFile =
                 new ProjectContext.ConfigFile(fileName, relativePath, fileType);
 
@@ -341,17 +347,6 @@ public class ProjectDiscoveryService {
         }
     }
 
-    /**
-     * 检查是否应该忽略目录
-     */
-    private boolean shouldIgnoreDirectory(String dirName) {
-        return dirName.equals(".git") || dirName.equals(".svn") ||
-               dirName.equals("node_modules") || dirName.equals("target") ||
-               dirName.equals("build") || dirName.equals("dist") ||
-               dirName.equals("__pycache__") || dirName.equals(".idea") ||
-               dirName.equals(".vscode") || dirName.startsWith(".");
-    }
-
     /**
      * 获取文件扩展名
      */
@@ -0,0 +1,168 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 项目扫描器
+ * 项目类型检测、结构分析和代码统计共用的一次目录遍历。忽略规则只在这里判断一次：
+ * 被忽略的目录会记录为条目（类型检测需要看到 target、node_modules 等目录）但不进入。
+ * 遍历由 {@link DirectoryWalker} 按 {@link #FILTER} 完成，结果按先序排列。
+ * 各项分析以 {@link Visitor} 的形式在同一次遍历结果上依次收集，不再各自读取目录
+ */
+@Component
+public class ProjectScanner {
+
+    /**
+     * 默认遍历深度：项目分析统计到第 4 层，第 5 层只用于列出第 4 层目录中的文件
+     */
+    public static final int DEFAULT_DEPTH = 5;
+
+    /**
+     * 统计文件和代码的最大深度
+     */
+    public static final int ANALYSIS_DEPTH = 4;
+
+    private static final Set<String> IGNORED_DIRECTORIES = Set.of(
+        "node_modules", "target", "build", "dist", "__pycache__");
+
+    /**
+     * 收集目录和普通文件，被忽略的目录只记录不进入
+     */
+    private static final DirectoryWalker.Filter FILTER = new DirectoryWalker.Filter() {
+        @Override
+        public boolean accept(Path path, BasicFileAttributes attrs) {
+            return attrs.isDirectory() || attrs.isRegularFile();
+        }
+
+        @Override
+        public boolean descend(DirectoryWalker.Entry directory) {
+            return !isIgnoredDirectory(directory.name());
+        }
+    };
+
+    private final DirectoryWalker directoryWalker = new DirectoryWalker();
+
+    /**
+     * 按默认深度扫描项目
+     */
+    public ProjectSnapshot scan(Path projectRoot) {
+        return scan(projectRoot, DEFAULT_DEPTH);
+    }
+
+    /**
+     * 扫描项目
+     * @param projectRoot 项目根目录
+     * @param maxDepth 最大深度，1 表示只扫描根目录的直接子项
+     */
+    public ProjectSnapshot scan(Path projectRoot, int maxDepth) {
+        List<Entry> entries = directoryWalker.walk(projectRoot, maxDepth, Integer.MAX_VALUE, FILTER).entries().stream()
+            .map(ProjectScanner::toEntry)
+            .toList();
+
+        Map<String, Entry> rootEntries = new HashMap<>();
+        long rootFingerprint = 0;
+        long layoutFingerprint = 0;
+        for (Entry entry : entries) {
+            if (entry.depth() == 1) {
+                rootEntries.put(entry.name(), entry);
+                rootFingerprint += fingerprint(entry.relativePath(), entry.lastModified(), entry.size());
+            }
+            if (!entry.ignored()) {
+                // 目录取修改时间以感知其中条目的增删，文件取大小
+                layoutFingerprint += entry.directory()
+                    ? fingerprint(entry.relativePath(), entry.lastModified(), -1)
+                    : fingerprint(entry.relativePath(), 0, entry.size());
+            }
+        }
+        return new ProjectSnapshot(projectRoot, entries, rootEntries, rootFingerprint, layoutFingerprint);
+    }
+
+    /**
+     * 是否为分析时忽略的目录
+     */
+    public static boolean isIgnoredDirectory(String dirName) {
+        return dirName.startsWith(".") || IGNORED_DIRECTORIES.contains(dirName);
+    }
+
+    private static Entry toEntry(DirectoryWalker.Entry entry) {
+        return new Entry(entry.path(), entry.relativePath().toString(), entry.name(), entry.directory(),
+            entry.directory() && isIgnoredDirectory(entry.name()), entry.size(), entry.lastModified().toMillis(),
+            entry.depth());
+    }
+
+    /**
+     * 单个条目的指纹，各条目的指纹相加得到与遍历顺序无关的目录指纹
+     */
+    private static long fingerprint(String relativePath, long lastModified, long size) {
+        long hash = relativePath.hashCode();
+        hash = hash * 0x9E3779B97F4A7C15L + lastModified;
+        hash = hash * 0x9E3779B97F4A7C15L + size;
+        hash ^= hash >>> 31;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * 扫描结果的访问者
+     * 条目按先序送达：目录先于其中的文件和子目录，被忽略的目录不会送达
+     */
+    public interface Visitor {
+
+        default void visitDirectory(Entry directory) {
+        }
+
+        default void visitFile(Entry file) {
+        }
+    }
+
+    /**
+     * 扫描条目
+     * @param ignored 被忽略的目录，只记录不进入
+     * @param depth 深度，根目录的直接子项为 1
+     */
+    public record Entry(Path path, String relativePath, String name, boolean directory, boolean ignored,
+                        long size, long lastModified, int depth) {
+    }
+
+    /**
+     * 一次扫描的结果
+     * @param rootEntries 根目录的直接子项，包括被忽略的目录
+     * @param rootFingerprint 根目录直接子项（名称、修改时间、大小）的指纹，变化说明类型检测、依赖或配置文件可能变化
+     * @param layoutFingerprint 未忽略部分的目录布局和文件大小的指纹，变化说明项目结构可能变化
+     */
+    public record ProjectSnapshot(Path root, List<Entry> entries, Map<String, Entry> rootEntries,
+                                  long rootFingerprint, long layoutFingerprint) {
+
+        /**
+         * 根目录下是否存在该名称的文件或目录
+         */
+        public boolean hasRootEntry(String name) {
+            return rootEntries.containsKey(name);
+        }
+
+        /**
+         * 把未忽略的条目依次交给各个访问者
+         */
+        public void accept(Visitor... visitors) {
+            for (Entry entry : entries) {
+                if (entry.ignored()) {
+                    continue;
+                }
+                for (Visitor visitor : visitors) {
+                    if (entry.directory()) {
+                        visitor.visitDirectory(entry);
+                    } else {
+                        visitor.visitFile(entry);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -5,13 +5,13 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.stream.Stream;
 
 /**
  * 项目类型检测器
@@ -23,6 +23,9 @@ public class ProjectTypeDetector {
     private static final Logger logger = LoggerFactory.getLogger(ProjectTypeDetector.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Autowired
+    private ProjectScanner projectScanner;
+
     /**
      * 检测项目类型
      * @param projectRoot 项目根目录
@@ -33,19 +36,29 @@ public class ProjectTypeDetector {
             logger.warn("Project root does not exist or is not a directory: {}", projectRoot);
             return ProjectType.UNKNOWN;
         }
+        // 类型检测只看根目录的直接子项
+        return detectProjectType(projectScanner.scan(projectRoot, 1));
+    }
 
+    /**
+     * 基于已有的扫描结果检测项目类型
+     * @param snapshot 项目扫描结果
+     * @return 检测到的项目类型
+     */
+    public ProjectType detectProjectType(ProjectScanner.ProjectSnapshot snapshot) {
+        Path projectRoot = snapshot.root();
         try {
             logger.debug("Detecting project type for: {}", projectRoot);
 
             // 按优先级检测项目类型
-            ProjectType detectedType = detectByKeyFiles(projectRoot);
+            ProjectType detectedType = detectByKeyFiles(snapshot);
             if (detectedType != ProjectType.UNKNOWN) {
                 logger.info("Detected project type: {} for {}", detectedType, projectRoot);
                 return detectedType;
             }
 
             // 如果关键文件检测失败，尝试基于目录结构检测
-            detectedType = detectByDirectoryStructure(projectRoot);
+            detectedType = detectByDirectoryStructure(snapshot);
             if (detectedType != ProjectType.UNKNOWN) {
                 logger.info("Detected project type by structure: {} for {}", detectedType, projectRoot);
                 return detectedType;
@@ -63,9 +76,11 @@ public class ProjectTypeDetector {
     /**
      * 基于关键文件检测项目类型
      */
-    private ProjectType detectByKeyFiles(Path projectRoot) throws IOException {
+    private ProjectType detectByKeyFiles(ProjectScanner.ProjectSnapshot snapshot) {
+        Path projectRoot = snapshot.root();
+
         // Java Maven项目
-        if (Files.exists(projectRoot.resolve("pom.xml"))) {
+        if (snapshot.hasRootEntry("pom.xml")) {
             // 检查是否为Spring Boot项目
             if (isSpringBootProject(projectRoot)) {
                 return ProjectType.SPRING_BOOT;
@@ -74,48 +89,46 @@ public class ProjectTypeDetector {
         }
 
         // Java Gradle项目
-        if (Files.exists(projectRoot.resolve("build.gradle")) ||
-            Files.exists(projectRoot.resolve("build.gradle.kts"))) {
+        if (snapshot.hasRootEntry("build.gradle") ||
+            snapshot.hasRootEntry("build.gradle.kts")) {
             return ProjectType.JAVA_GRADLE;
         }
 
         // Node.js项目
-        if (Files.exists(projectRoot.resolve("package.json"))) {
+        if (snapshot.hasRootEntry("package.json")) {
             return analyzeNodeJsProject(projectRoot);
         }
 
         // Python项目
-        if (Files.exists(projectRoot.resolve("requirements.txt")) ||
-            Files.exists(projectRoot.resolve("setup.py")) ||
-            Files.exists(projectRoot.resolve("pyproject.toml"))) {
-            return analyzePythonProject(projectRoot);
+        if (snapshot.hasRootEntry("requirements.txt") ||
+            snapshot.hasRootEntry("setup.py") ||
+            snapshot.hasRootEntry("pyproject.toml")) {
+            return analyzePythonProject(snapshot);
         }
 
         // .NET项目
-        try (Stream<Path> files = Files.list(projectRoot)) {
-            if (files.anyMatch(path -> path.toString().endsWith(".csproj") ||
-                                     path.toString().endsWith(".sln"))) {
-                return ProjectType.DOTNET;
-            }
+        if (snapshot.rootEntries().keySet().stream()
+                .anyMatch(name -> name.endsWith(".csproj") || name.endsWith(".sln"))) {
+            return ProjectType.DOTNET;
         }
 
         // Go项目
-        if (Files.exists(projectRoot.resolve("go.mod"))) {
+        if (snapshot.hasRootEntry("go.mod")) {
             return ProjectType.GO;
         }
 
         // Rust项目
-        if (Files.exists(projectRoot.resolve("Cargo.toml"))) {
+        if (snapshot.hasRootEntry("Cargo.toml")) {
             return ProjectType.RUST;
         }
 
         // PHP项目
-        if (Files.exists(projectRoot.resolve("composer.json"))) {
+        if (snapshot.hasRootEntry("composer.json")) {
             return ProjectType.PHP;
         }
 
         // 静态HTML项目
-        if (Files.exists(projectRoot.resolve("index.html"))) {
+        if (snapshot.hasRootEntry("index.html")) {
             return ProjectType.HTML_STATIC;
         }
 
@@ -182,20 +195,22 @@ public class ProjectTypeDetector {
     /**
      * 分析Python项目类型
      */
-    private ProjectType analyzePythonProject(Path projectRoot) {
+    private ProjectType analyzePythonProject(ProjectScanner.ProjectSnapshot snapshot) {
+        Path projectRoot = snapshot.root();
+
         // 检查Django项目
-        if (Files.exists(projectRoot.resolve("manage.py"))) {
+        if (snapshot.hasRootEntry("manage.py")) {
             return ProjectType.DJANGO;
         }
 
         // 检查Flask项目
-        if (Files.exists(projectRoot.resolve("app.py")) ||
-            Files.exists(projectRoot.resolve("application.py"))) {
+        if (snapshot.hasRootEntry("app.py") ||
+            snapshot.hasRootEntry("application.py")) {
             return ProjectType.FLASK;
         }
 
         // 检查FastAPI项目
-        if (Files.exists(projectRoot.resolve("main.py"))) {
+        if (snapshot.hasRootEntry("main.py")) {
             try {
                 String content = Files.readString(projectRoot.resolve("main.py"));
                 if (content.contains("from fastapi import") || content.contains("import fastapi")) {
@@ -211,36 +226,32 @@ public class ProjectTypeDetector {
 
     /**
      * 基于目录结构检测项目类型
+     * 被忽略的目录（target、node_modules 等）也作为特征
      */
-    private ProjectType detectByDirectoryStructure(Path projectRoot) {
-        try {
-            List<String> directories = Files.list(projectRoot)
-                .filter(Files::isDirectory)
-                .map(path -> path.getFileName().toString().toLowerCase())
-                .toList();
-
-            // Java项目特征目录
-            if (directories.contains("src") &&
-                (directories.contains("target") || directories.contains("build"))) {
-                return ProjectType.JAVA_MAVEN; // 默认为Maven
-            }
-
-            // Node.js项目特征目录
-            if (directories.contains("node_modules") ||
-                directories.contains("public") ||
-                directories.contains("dist")) {
-                return ProjectType.NODE_JS;
-            }
+    private ProjectType detectByDirectoryStructure(ProjectScanner.ProjectSnapshot snapshot) {
+        List<String> directories = snapshot.rootEntries().values().stream()
+            .filter(ProjectScanner.Entry::directory)
+            .map(entry -> entry.name().toLowerCase())
+            .toList();
+
+        // Java项目特征目录
+        if (directories.contains("src") &&
+            (directories.contains("target") || directories.contains("build"))) {
+            return ProjectType.JAVA_MAVEN; // 默认为Maven
+        }
 
-            // Python项目特征目录
-            if (directories.contains("venv") ||
-                directories.contains("env") ||
-                directories.contains("__pycache__")) {
-                return ProjectType.PYTHON;
-            }
+        // Node.js项目特征目录
+        if (directories.contains("node_modules") ||
+            directories.contains("public") ||
+            directories.contains("dist")) {
+            return ProjectType.NODE_JS;
+        }
 
-        } catch (IOException e) {
-            logger.warn("Error analyzing directory structure", e);
+        // Python项目特征目录
+        if (directories.contains("venv") ||
+            directories.contains("env") ||
+            directories.contains("__pycache__")) {
+            return ProjectType.PYTHON;
         }
 
         return ProjectType.UNKNOWN;
@@ -0,0 +1,97 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskExecutionState;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskPersistenceManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 任务持久化管理器
+ * 每个任务一个 JSON 字符串键，并维护任务ID集合；已结束的任务设置过期时间，由 Redis 自动清理
+ */
+public class RedisTaskPersistenceManager implements TaskPersistenceManager {
+    private static final Logger logger = LoggerFactory.getLogger(RedisTaskPersistenceManager.class);
+
+    private static final String TASK_KEY_PREFIX = "copilot:task:state:";
+    private static final String TASK_IDS_KEY = "copilot:task:ids";
+
+    private final RedissonClient redissonClient;
+    private final Duration finishedTtl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public RedisTaskPersistenceManager(RedissonClient redissonClient, Duration finishedTtl) {
+        this.redissonClient = redissonClient;
+        this.finishedTtl = finishedTtl;
+    }
+
+    @Override
+    public void saveTask(String taskId, TaskExecutionState state) {
+        try {
+            RBucket<String> bucket = redissonClient.getBucket(TASK_KEY_PREFIX + taskId);
+            String json = objectMapper.writeValueAsString(state);
+            if (ContinuousTaskTool.FINISHED_STATUSES.contains(state.getStatus())) {
+                bucket.set(json, finishedTtl.toMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                bucket.set(json);
+            }
+            redissonClient.getSet(TASK_IDS_KEY).add(taskId);
+            logger.debug("Task {} saved to redis", taskId);
+        } catch (IOException e) {
+            logger.error("Failed to serialize task {}", taskId, e);
+        }
+    }
+
+    @Override
+    public TaskExecutionState loadTask(String taskId) {
+        RBucket<String> bucket = redissonClient.getBucket(TASK_KEY_PREFIX + taskId);
+        String json = bucket.get();
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, TaskExecutionState.class);
+        } catch (IOException e) {
+            logger.error("Failed to deserialize task {}", taskId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void deleteTask(String taskId) {
+        redissonClient.getBucket(TASK_KEY_PREFIX + taskId).delete();
+        redissonClient.getSet(TASK_IDS_KEY).remove(taskId);
+        logger.debug("Task {} deleted from redis", taskId);
+    }
+
+    @Override
+    public List<String> listAllTaskIds() {
+        List<String> taskIds = new ArrayList<>();
+        for (Object id : redissonClient.getSet(TASK_IDS_KEY).readAll()) {
+            taskIds.add(String.valueOf(id));
+        }
+        return taskIds;
+    }
+
+    @Override
+    public int purgeFinishedTasks(long finishedBefore) {
+        // 任务键由过期时间清理，这里只移除集合中已失效的ID
+        int purged = 0;
+        for (String taskId : listAllTaskIds()) {
+            if (!redissonClient.getBucket(TASK_KEY_PREFIX + taskId).isExists()) {
+                redissonClient.getSet(TASK_IDS_KEY).remove(taskId);
+                purged++;
+            }
+        }
+        return purged;
+    }
+}
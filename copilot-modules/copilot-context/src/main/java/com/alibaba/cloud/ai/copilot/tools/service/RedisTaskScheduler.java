@@ -0,0 +1,379 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.DistributedTaskScheduler;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 的分布式任务调度器
+ * <ul>
+ *   <li>所有节点共用一个按（优先级, 提交时间）排序的有序集合，工作线程空闲的节点才会取任务，负载因此按处理能力分布</li>
+ *   <li>取任务、记录执行者和租约在同一个 Lua 脚本中完成，节点在任意时刻宕机都不会丢失调用</li>
+ *   <li>每次取出递增调用的纪元号，执行者记为"节点ID|纪元"；续租、完成和交还都先比较执行者，
+ *       租约已被回收的旧执行者无法覆盖新执行者的状态</li>
+ *   <li>租约过期超过 recoverDelay 的调用按原来的分数放回队列，优先级和提交顺序不变</li>
+ *   <li>提交时间和租约的到期、回收时间都在脚本中用 Redis TIME 计算，不依赖各节点的时钟</li>
+ *   <li>续租时发现租约已被回收，通知租约丢失监听器中断本地仍在执行的调用</li>
+ *   <li>结果和取消通过 Topic 在节点间传递</li>
+ * </ul>
+ * 所有键使用同一个 hash tag，Redis 集群下 Lua 脚本访问的键位于同一个槽
+ */
+public class RedisTaskScheduler implements DistributedTaskScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(RedisTaskScheduler.class);
+
+    private static final String KEY_PREFIX = "{copilot:task}:";
+    private static final String READY_KEY = KEY_PREFIX + "ready";
+    private static final String SCORES_KEY = KEY_PREFIX + "scores";
+    private static final String ORIGINS_KEY = KEY_PREFIX + "origins";
+    private static final String PARAMS_KEY = KEY_PREFIX + "params";
+    private static final String OWNERS_KEY = KEY_PREFIX + "owners";
+    private static final String LEASES_KEY = KEY_PREFIX + "lease-expiry";
+    private static final String EPOCHS_KEY = KEY_PREFIX + "epochs";
+    private static final String NODES_KEY = "copilot:task:nodes";
+    private static final String RESULT_TOPIC_PREFIX = "copilot:task:results:";
+    private static final String CANCEL_TOPIC = "copilot:task:cancel";
+
+    // 分数 = (最高优先级 - 优先级) * 步长 + 提交时间，步长大于任何毫秒时间戳，且结果在 double 精确表示的范围内
+    private static final int MAX_PRIORITY = 4;
+    private static final long PRIORITY_STRIDE = 10_000_000_000_000L;
+    private static final int RECOVER_BATCH = 100;
+
+    // Redis 服务器当前时间（毫秒），所有节点以同一个时钟计算分数和租约；格式化为整数，避免 Lua 数字转字符串时丢失精度
+    private static final String NOW =
+        "local time = redis.call('TIME') "
+        + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) ";
+
+    // KEYS: ready, scores, origins, params  ARGV: key, priority offset, origin, payload
+    static final String ENQUEUE_SCRIPT = NOW
+        + "local score = string.format('%.0f', tonumber(ARGV[2]) + now) "
+        + "if ARGV[4] ~= '' then redis.call('HSET', KEYS[4], ARGV[1], ARGV[4]) end "
+        + "redis.call('HSET', KEYS[2], ARGV[1], score) "
+        + "redis.call('HSET', KEYS[3], ARGV[1], ARGV[3]) "
+        + "redis.call('ZADD', KEYS[1], score, ARGV[1]) "
+        + "return 1";
+
+    // KEYS: ready, owners, leases, epochs  ARGV: nodeId, lease millis
+    static final String CLAIM_SCRIPT = NOW
+        + "local head = redis.call('ZRANGE', KEYS[1], 0, 0) "
+        + "if #head == 0 then return nil end "
+        + "local key = head[1] "
+        + "redis.call('ZREM', KEYS[1], key) "
+        + "local epoch = redis.call('HINCRBY', KEYS[4], key, 1) "
+        + "local token = ARGV[1] .. '|' .. epoch "
+        + "redis.call('HSET', KEYS[2], key, token) "
+        + "redis.call('ZADD', KEYS[3], string.format('%.0f', now + tonumber(ARGV[2])), key) "
+        + "return {key, token}";
+
+    // KEYS: owners, leases  ARGV: lease millis, key1, token1, key2, token2 ...  返回已不属于本节点的键
+    static final String RENEW_SCRIPT = NOW
+        + "local expiry = string.format('%.0f', now + tonumber(ARGV[1])) "
+        + "local lost = {} "
+        + "for i = 2, #ARGV, 2 do "
+        + "  if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then "
+        + "    redis.call('ZADD', KEYS[2], expiry, ARGV[i]) "
+        + "  else table.insert(lost, ARGV[i]) end "
+        + "end "
+        + "return lost";
+
+    // KEYS: owners, leases, params, scores, origins, epochs  ARGV: key, token  返回提交节点，执行者不符时返回 false
+    static final String COMPLETE_SCRIPT =
+        "if redis.call('HGET', KEYS[1], ARGV[1]) ~= ARGV[2] then return false end "
+        + "local origin = redis.call('HGET', KEYS[5], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[1], ARGV[1]) "
+        + "redis.call('ZREM', KEYS[2], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[3], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[4], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[5], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[6], ARGV[1]) "
+        + "return origin or ''";
+
+    // KEYS: owners, leases, scores, ready  ARGV: key, token  执行者相符时把调用按原分数放回队列
+    static final String RELEASE_SCRIPT =
+        "if redis.call('HGET', KEYS[1], ARGV[1]) ~= ARGV[2] then return 0 end "
+        + "redis.call('HDEL', KEYS[1], ARGV[1]) "
+        + "redis.call('ZREM', KEYS[2], ARGV[1]) "
+        + "local score = redis.call('HGET', KEYS[3], ARGV[1]) "
+        + "if score then redis.call('ZADD', KEYS[4], score, ARGV[1]) end "
+        + "return 1";
+
+    // KEYS: leases, owners, scores, ready  ARGV: recover delay millis, limit  返回放回队列的键
+    static final String RECOVER_SCRIPT = NOW
+        + "local cutoff = string.format('%.0f', now - tonumber(ARGV[1])) "
+        + "local expired = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', cutoff, 'LIMIT', 0, ARGV[2]) "
+        + "for _, key in ipairs(expired) do "
+        + "  redis.call('ZREM', KEYS[1], key) "
+        + "  redis.call('HDEL', KEYS[2], key) "
+        + "  local score = redis.call('HGET', KEYS[3], key) "
+        + "  if score then redis.call('ZADD', KEYS[4], score, key) end "
+        + "end "
+        + "return expired";
+
+    // KEYS: ready, scores, origins, params, epochs  ARGV: key  只移除仍在排队的调用
+    static final String REMOVE_SCRIPT =
+        "if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then return 0 end "
+        + "redis.call('HDEL', KEYS[2], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[3], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[4], ARGV[1]) "
+        + "redis.call('HDEL', KEYS[5], ARGV[1]) "
+        + "return 1";
+
+    // KEYS: ready, owners  ARGV: key
+    static final String PENDING_SCRIPT =
+        "if redis.call('ZSCORE', KEYS[1], ARGV[1]) then return 1 end "
+        + "return redis.call('HEXISTS', KEYS[2], ARGV[1])";
+
+    private final Map<String, Integer> priorityMap = Map.of(
+        "urgent", 4,
+        "high", 3,
+        "normal", 2,
+        "low", 1
+    );
+
+    private final RedissonClient redissonClient;
+    private final RScript script;
+    private final String nodeId;
+    private final Duration lease;
+    private final Duration recoverDelay;
+    private final RScoredSortedSet<String> ready;
+    private final RMap<String, String> params;
+    private final RMapCache<String, Integer> nodes;
+    private final RTopic resultTopic;
+    private final RTopic cancelTopic;
+    private final int resultListenerId;
+    private final int cancelListenerId;
+    // 本节点持有的调用 -> 执行者令牌（节点ID|纪元）
+    private final Map<String, String> owned = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, String>> resultListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> cancelListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> leaseLostListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService heartbeat;
+
+    public RedisTaskScheduler(RedissonClient redissonClient, Duration lease, Duration recoverDelay) {
+        this.redissonClient = redissonClient;
+        this.nodeId = ManagementFactory.getRuntimeMXBean().getName()
+            + ":" + UUID.randomUUID().toString().substring(0, 8);
+        this.lease = lease;
+        this.recoverDelay = recoverDelay;
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+        this.ready = redissonClient.getScoredSortedSet(READY_KEY, StringCodec.INSTANCE);
+        this.params = redissonClient.getMap(PARAMS_KEY, StringCodec.INSTANCE);
+        this.nodes = redissonClient.getMapCache(NODES_KEY);
+
+        this.resultTopic = redissonClient.getTopic(RESULT_TOPIC_PREFIX + nodeId);
+        this.resultListenerId = resultTopic.addListener(String.class, (channel, message) -> {
+            int separator = message.indexOf('\n');
+            String key = message.substring(0, separator);
+            String result = separator + 1 < message.length() ? message.substring(separator + 1) : null;
+            resultListeners.forEach(listener -> listener.accept(key, result));
+        });
+        this.cancelTopic = redissonClient.getTopic(CANCEL_TOPIC);
+        this.cancelListenerId = cancelTopic.addListener(String.class, (channel, message) -> {
+            int separator = message.indexOf('\n');
+            if (!nodeId.equals(message.substring(0, separator))) {
+                String taskId = message.substring(separator + 1);
+                cancelListeners.forEach(listener -> listener.accept(taskId));
+            }
+        });
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "continuous-task-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, lease.toMillis() / 3);
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, 0, interval, TimeUnit.MILLISECONDS);
+        logger.info("RedisTaskScheduler started on node {} with lease {}", nodeId, lease);
+    }
+
+    @Override
+    public void scheduleTask(String taskId, String priority) {
+        scheduleTask(taskId, priority, null);
+    }
+
+    @Override
+    public void scheduleTask(String taskId, String priority, String payload) {
+        int priorityValue = priorityMap.getOrDefault(priority, 2);
+        long priorityOffset = (MAX_PRIORITY - priorityValue) * PRIORITY_STRIDE;
+        eval(ENQUEUE_SCRIPT, RScript.ReturnType.INTEGER, List.of(READY_KEY, SCORES_KEY, ORIGINS_KEY, PARAMS_KEY),
+            taskId, String.valueOf(priorityOffset), nodeId, payload != null ? payload : "");
+        logger.debug("Task {} scheduled on shared queue with priority {}", taskId, priority);
+    }
+
+    @Override
+    public String getNextTask() {
+        List<Object> claimed = eval(CLAIM_SCRIPT, RScript.ReturnType.MULTI,
+            List.of(READY_KEY, OWNERS_KEY, LEASES_KEY, EPOCHS_KEY),
+            nodeId, String.valueOf(lease.toMillis()));
+        if (claimed == null || claimed.size() < 2) {
+            return null;
+        }
+        String taskId = String.valueOf(claimed.get(0));
+        owned.put(taskId, String.valueOf(claimed.get(1)));
+        return taskId;
+    }
+
+    @Override
+    public void removeTask(String taskId) {
+        eval(REMOVE_SCRIPT, RScript.ReturnType.INTEGER,
+            List.of(READY_KEY, SCORES_KEY, ORIGINS_KEY, PARAMS_KEY, EPOCHS_KEY), taskId);
+    }
+
+    @Override
+    public int getQueueSize() {
+        return ready.size();
+    }
+
+    @Override
+    public String getPayload(String taskId) {
+        return params.get(taskId);
+    }
+
+    @Override
+    public boolean isPending(String taskId) {
+        Long pending = eval(PENDING_SCRIPT, RScript.ReturnType.INTEGER, List.of(READY_KEY, OWNERS_KEY), taskId);
+        return pending != null && pending > 0;
+    }
+
+    @Override
+    public void complete(String taskId, String encodedResult) {
+        String token = owned.remove(taskId);
+        if (token == null) {
+            logger.warn("Task {} completed on node {} without holding it", taskId, nodeId);
+            return;
+        }
+        String origin = eval(COMPLETE_SCRIPT, RScript.ReturnType.VALUE,
+            List.of(OWNERS_KEY, LEASES_KEY, PARAMS_KEY, SCORES_KEY, ORIGINS_KEY, EPOCHS_KEY), taskId, token);
+        if (origin == null) {
+            // 租约已被回收，调用由新的执行者负责，本次结果丢弃
+            logger.warn("Task {} lease was lost by node {}, discarding its result", taskId, nodeId);
+            return;
+        }
+        if (!origin.isEmpty() && !nodeId.equals(origin)) {
+            redissonClient.getTopic(RESULT_TOPIC_PREFIX + origin)
+                .publish(taskId + "\n" + (encodedResult != null ? encodedResult : ""));
+        }
+    }
+
+    @Override
+    public void addResultListener(BiConsumer<String, String> listener) {
+        resultListeners.add(listener);
+    }
+
+    @Override
+    public void addLeaseLostListener(Consumer<String> listener) {
+        leaseLostListeners.add(listener);
+    }
+
+    @Override
+    public void requestCancel(String taskId) {
+        cancelTopic.publish(nodeId + "\n" + taskId);
+    }
+
+    @Override
+    public void addCancelListener(Consumer<String> listener) {
+        cancelListeners.add(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        resultTopic.removeListener(resultListenerId);
+        cancelTopic.removeListener(cancelListenerId);
+        nodes.fastRemove(nodeId);
+        // 正常停机时直接把未完成的调用交还队列，不必等租约过期
+        for (Map.Entry<String, String> entry : owned.entrySet()) {
+            try {
+                eval(RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                    List.of(OWNERS_KEY, LEASES_KEY, SCORES_KEY, READY_KEY), entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                logger.warn("Failed to release task {} on shutdown, it will be recovered after its lease expires",
+                    entry.getKey(), e);
+            }
+        }
+        owned.clear();
+    }
+
+    /**
+     * 续期本节点持有的租约，上报节点负载，并回收租约已过期的调用
+     */
+    void heartbeat() {
+        try {
+            renewLeases();
+            nodes.fastPut(nodeId, owned.size(), lease.toMillis(), TimeUnit.MILLISECONDS);
+            recoverExpired();
+        } catch (Exception e) {
+            logger.warn("Task scheduler heartbeat failed on node {}", nodeId, e);
+        }
+    }
+
+    private void renewLeases() {
+        if (owned.isEmpty()) {
+            return;
+        }
+        // 以发送给脚本的令牌为准，续租期间本节点重新取到同一调用时不会误删新的令牌
+        Map<String, String> renewing = Map.copyOf(owned);
+        List<Object> args = new ArrayList<>();
+        args.add(String.valueOf(lease.toMillis()));
+        renewing.forEach((taskId, token) -> {
+            args.add(taskId);
+            args.add(token);
+        });
+        List<Object> lost = eval(RENEW_SCRIPT, RScript.ReturnType.MULTI, List.of(OWNERS_KEY, LEASES_KEY), args.toArray());
+        if (lost == null) {
+            return;
+        }
+        for (Object lostKey : lost) {
+            String taskId = String.valueOf(lostKey);
+            if (owned.remove(taskId, renewing.get(taskId))) {
+                logger.warn("Task {} lease was recovered by another node while running on node {}, interrupting it",
+                    taskId, nodeId);
+                leaseLostListeners.forEach(listener -> listener.accept(taskId));
+            }
+        }
+    }
+
+    private void recoverExpired() {
+        List<Object> recovered = eval(RECOVER_SCRIPT, RScript.ReturnType.MULTI,
+            List.of(LEASES_KEY, OWNERS_KEY, SCORES_KEY, READY_KEY),
+            String.valueOf(recoverDelay.toMillis()), String.valueOf(RECOVER_BATCH));
+        if (recovered != null && !recovered.isEmpty()) {
+            logger.warn("Leases of tasks {} expired, requeued by node {}", recovered, nodeId);
+        }
+    }
+
+    private <R> R eval(String lua, RScript.ReturnType returnType, List<Object> keys, Object... values) {
+        return script.eval(READY_KEY, RScript.Mode.READ_WRITE, lua, returnType, keys, values);
+    }
+
+    /**
+     * 集群中存活的节点及其正在执行的调用数
+     */
+    public Map<String, Integer> getNodeLoads() {
+        return nodes.readAllMap();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,299 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.function.ToLongFunction;
+
+/**
+ * 步骤依赖图执行器
+ * 按依赖关系拓扑执行步骤，没有相互依赖的步骤在 executor 上并发执行，同一张图同时执行的步骤数不超过 parallelism。
+ * 失败的步骤按指数退避重试（重试次数不超过 {@link #MAX_RETRIES}，单次等待不超过 {@link #MAX_BACKOFF}），
+ * 重试用尽后其所有下游步骤标记为跳过，其余分支继续执行。
+ * 调用线程被中断时取消正在执行的步骤，尚未完成的步骤标记为取消
+ */
+public class StepGraphExecutor {
+
+    /**
+     * 单个步骤的最大重试次数，步骤自带的重试次数来自模型，超出时按此截断
+     */
+    public static final int MAX_RETRIES = 5;
+
+    /**
+     * 单次重试前的最长等待时间
+     */
+    public static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int defaultMaxRetries;
+    private final Duration retryBackoff;
+
+    public StepGraphExecutor(Executor executor, int parallelism, int defaultMaxRetries, Duration retryBackoff) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.defaultMaxRetries = Math.min(Math.max(0, defaultMaxRetries), MAX_RETRIES);
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * 校验依赖图并返回拓扑顺序
+     * @throws IllegalArgumentException 存在重复ID、未知依赖或循环依赖时
+     */
+    public static List<String> topologicalOrder(List<Node> nodes) {
+        Map<String, Node> byId = index(nodes);
+        Map<String, Integer> indegree = new HashMap<>();
+        Map<String, List<String>> dependents = dependents(nodes);
+        for (Node node : nodes) {
+            for (String dep : node.dependsOn()) {
+                if (!byId.containsKey(dep)) {
+                    throw new IllegalArgumentException("Step " + node.id() + " depends on unknown step " + dep);
+                }
+            }
+            indegree.put(node.id(), node.dependsOn().size());
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        for (Node node : nodes) {
+            if (node.dependsOn().isEmpty()) {
+                ready.add(node.id());
+            }
+        }
+        List<String> order = new ArrayList<>(nodes.size());
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            order.add(id);
+            for (String dependent : dependents.get(id)) {
+                if (indegree.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() != nodes.size()) {
+            throw new IllegalArgumentException("Step dependencies contain a cycle");
+        }
+        return order;
+    }
+
+    /**
+     * 计算关键路径（权重之和最大的依赖链）
+     * @param weight 每个步骤的耗时权重
+     */
+    public static CriticalPath criticalPath(List<Node> nodes, ToLongFunction<Node> weight) {
+        Map<String, Node> byId = index(nodes);
+        Map<String, Long> finish = new HashMap<>();
+        Map<String, String> predecessor = new HashMap<>();
+        String last = null;
+        for (String id : topologicalOrder(nodes)) {
+            Node node = byId.get(id);
+            long start = 0;
+            for (String dep : node.dependsOn()) {
+                if (finish.get(dep) > start) {
+                    start = finish.get(dep);
+                    predecessor.put(id, dep);
+                }
+            }
+            finish.put(id, start + weight.applyAsLong(node));
+            if (last == null || finish.get(id) > finish.get(last)) {
+                last = id;
+            }
+        }
+
+        List<String> path = new ArrayList<>();
+        for (String id = last; id != null; id = predecessor.get(id)) {
+            path.add(id);
+        }
+        Collections.reverse(path);
+        long total = nodes.stream().mapToLong(weight).sum();
+        return new CriticalPath(path, last != null ? finish.get(last) : 0, total);
+    }
+
+    /**
+     * 执行依赖图，阻塞直到所有步骤结束
+     * @param nodes 步骤节点，依赖必须都在 nodes 内
+     * @param action 步骤执行动作
+     */
+    public Report execute(List<Node> nodes, StepAction action) {
+        topologicalOrder(nodes);
+        long startedAt = System.currentTimeMillis();
+
+        Map<String, Node> byId = index(nodes);
+        Map<String, List<String>> dependents = dependents(nodes);
+        Map<String, Integer> waiting = new HashMap<>();
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        Map<String, Integer> attempts = new HashMap<>();
+        Map<String, Long> durations = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (Node node : nodes) {
+            waiting.put(node.id(), node.dependsOn().size());
+            if (node.dependsOn().isEmpty()) {
+                ready.add(node.id());
+            }
+        }
+
+        CompletionService<StepRun> completion = new ExecutorCompletionService<>(executor);
+        Map<String, Future<StepRun>> inFlight = new HashMap<>();
+        try {
+            while (!ready.isEmpty() || !inFlight.isEmpty()) {
+                while (!ready.isEmpty() && inFlight.size() < parallelism) {
+                    Node node = byId.get(ready.poll());
+                    inFlight.put(node.id(), completion.submit(() -> runWithRetry(node, action)));
+                }
+
+                StepRun run = completion.take().get();
+                inFlight.remove(run.id());
+                attempts.put(run.id(), run.attempts());
+                durations.put(run.id(), run.durationMillis());
+                if (run.success()) {
+                    outcomes.put(run.id(), Outcome.COMPLETED);
+                    for (String dependent : dependents.get(run.id())) {
+                        if (waiting.merge(dependent, -1, Integer::sum) == 0 && !outcomes.containsKey(dependent)) {
+                            ready.add(dependent);
+                        }
+                    }
+                } else {
+                    outcomes.put(run.id(), Outcome.FAILED);
+                    skipDependents(run.id(), dependents, outcomes);
+                }
+            }
+        } catch (InterruptedException e) {
+            inFlight.values().forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // runWithRetry 捕获了步骤异常，到这里只可能是执行器本身出错
+            inFlight.values().forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Step graph execution failed", e.getCause());
+        }
+
+        for (Node node : nodes) {
+            outcomes.putIfAbsent(node.id(), Outcome.CANCELLED);
+        }
+        return new Report(outcomes, attempts, durations, System.currentTimeMillis() - startedAt);
+    }
+
+    private StepRun runWithRetry(Node node, StepAction action) {
+        int maxRetries = node.maxRetries() >= 0 ? Math.min(node.maxRetries(), MAX_RETRIES) : defaultMaxRetries;
+        long startedAt = System.currentTimeMillis();
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            boolean success;
+            try {
+                success = action.run(node.id(), attempt);
+            } catch (Exception e) {
+                success = false;
+            }
+            if (success || attempt > maxRetries || Thread.currentThread().isInterrupted()) {
+                return new StepRun(node.id(), success, attempt, System.currentTimeMillis() - startedAt);
+            }
+            try {
+                Thread.sleep(backoffMillis(retryBackoff, attempt));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new StepRun(node.id(), false, attempt, System.currentTimeMillis() - startedAt);
+            }
+        }
+    }
+
+    /**
+     * 第 attempt 次尝试失败后的等待时间：base * 2^(attempt-1)，不超过 {@link #MAX_BACKOFF}
+     */
+    static long backoffMillis(Duration base, int attempt) {
+        long baseMillis = Math.max(0, base.toMillis());
+        long maxMillis = MAX_BACKOFF.toMillis();
+        int shift = Math.max(0, attempt - 1);
+        // 先比较再移位，避免左移溢出为负数
+        if (baseMillis == 0 || shift >= Long.numberOfLeadingZeros(baseMillis) - 1 || baseMillis > maxMillis >> shift) {
+            return baseMillis == 0 ? 0 : maxMillis;
+        }
+        return baseMillis << shift;
+    }
+
+    private void skipDependents(String id, Map<String, List<String>> dependents, Map<String, Outcome> outcomes) {
+        Deque<String> pending = new ArrayDeque<>(dependents.get(id));
+        while (!pending.isEmpty()) {
+            String dependent = pending.poll();
+            if (outcomes.putIfAbsent(dependent, Outcome.SKIPPED) == null) {
+                pending.addAll(dependents.get(dependent));
+            }
+        }
+    }
+
+    private static Map<String, Node> index(List<Node> nodes) {
+        Map<String, Node> byId = new HashMap<>();
+        for (Node node : nodes) {
+            if (byId.put(node.id(), node) != null) {
+                throw new IllegalArgumentException("Duplicate step id: " + node.id());
+            }
+        }
+        return byId;
+    }
+
+    private static Map<String, List<String>> dependents(List<Node> nodes) {
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (Node node : nodes) {
+            dependents.putIfAbsent(node.id(), new ArrayList<>());
+            for (String dep : node.dependsOn()) {
+                dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(node.id());
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * 步骤执行动作
+     */
+    @FunctionalInterface
+    public interface StepAction {
+        /**
+         * @param id 步骤ID
+         * @param attempt 第几次尝试，从 1 开始
+         * @return 是否成功
+         */
+        boolean run(String id, int attempt) throws Exception;
+    }
+
+    /**
+     * 步骤结果
+     */
+    public enum Outcome {
+        COMPLETED, FAILED, SKIPPED, CANCELLED
+    }
+
+    /**
+     * 依赖图节点
+     * @param maxRetries 最大重试次数，小于 0 时使用执行器的默认值
+     */
+    public record Node(String id, List<String> dependsOn, long estimatedMillis, int maxRetries) {
+    }
+
+    /**
+     * 关键路径
+     * @param stepIds 路径上的步骤
+     * @param millis 关键路径耗时，即充分并行时的总耗时
+     * @param sequentialMillis 顺序执行全部步骤的耗时
+     */
+    public record CriticalPath(List<String> stepIds, long millis, long sequentialMillis) {
+    }
+
+    /**
+     * 执行报告
+     */
+    public record Report(Map<String, Outcome> outcomes, Map<String, Integer> attempts,
+                         Map<String, Long> durations, long elapsedMillis) {
+    }
+
+    private record StepRun(String id, boolean success, int attempts, long durationMillis) {
+    }
+}
@@ -0,0 +1,215 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.UnifiedDiffUtils;
+import com.github.difflib.patch.Patch;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 单处文本替换
+ * 原内容只扫描一次定位替换区间，结果按"前缀 + 新文本 + 后缀"三段表示，写入时逐段输出，
+ * 不拼接完整的新字符串；差异只在被修改的行及前后上下文行上计算，与文件总长度无关
+ */
+public class TextPatch {
+
+    private static final int CONTEXT_LINES = 3;
+    private static final Pattern HUNK_HEADER = Pattern.compile("^@@ -(\\d+)(,\\d+)? \\+(\\d+)(,\\d+)? @@(.*)$");
+
+    private final String original;
+    private final int start;
+    private final int end;
+    private final String replacement;
+
+    private TextPatch(String original, int start, int end, String replacement) {
+        this.original = original;
+        this.start = start;
+        this.end = end;
+        this.replacement = replacement;
+    }
+
+    /**
+     * 定位替换区间
+     * 指定了行号时，要求该行范围的内容与 oldStr 完全一致；否则替换 oldStr 的第一次出现
+     * @return 替换对象，找不到匹配内容时返回 null
+     */
+    public static TextPatch locate(String content, String oldStr, String newStr, Integer startLine, Integer endLine) {
+        if (startLine != null && endLine != null) {
+            return locateLines(content, oldStr, newStr, startLine, endLine);
+        }
+        int index = content.indexOf(oldStr);
+        return index < 0 ? null : new TextPatch(content, index, index + oldStr.length(), newStr);
+    }
+
+    /**
+     * 两个版本之间的单处替换：去掉公共前缀与公共后缀，中间部分作为替换内容，
+     * 同一文件的多次编辑可以合并成一份差异
+     */
+    public static TextPatch between(String original, String revised) {
+        int limit = Math.min(original.length(), revised.length());
+        int prefix = 0;
+        while (prefix < limit && original.charAt(prefix) == revised.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && original.charAt(original.length() - 1 - suffix) == revised.charAt(revised.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return new TextPatch(original, prefix, original.length() - suffix,
+            revised.substring(prefix, revised.length() - suffix));
+    }
+
+    private static TextPatch locateLines(String content, String oldStr, String newStr, int startLine, int endLine) {
+        int lineStart = offsetOfLine(content, 0, 1, startLine);
+        if (lineStart < 0) {
+            return null;
+        }
+        int lastLineStart = offsetOfLine(content, lineStart, startLine, endLine);
+        if (lastLineStart < 0) {
+            return null;
+        }
+        int lineEnd = content.indexOf('\n', lastLineStart);
+        if (lineEnd < 0) {
+            lineEnd = content.length();
+        }
+        if (lineEnd - lineStart != oldStr.length() || !content.regionMatches(lineStart, oldStr, 0, oldStr.length())) {
+            return null; // 指定行范围的内容与 old_str 不匹配
+        }
+        return new TextPatch(content, lineStart, lineEnd, newStr);
+    }
+
+    /**
+     * 从 from（位于第 fromLine 行行首）开始向后查找第 line 行的行首偏移，行不存在时返回 -1
+     */
+    private static int offsetOfLine(String content, int from, int fromLine, int line) {
+        int offset = from;
+        for (int current = fromLine; current < line; current++) {
+            int newline = content.indexOf('\n', offset);
+            if (newline < 0) {
+                return -1;
+            }
+            offset = newline + 1;
+        }
+        return offset;
+    }
+
+    /**
+     * 生成完整的新内容
+     */
+    public String apply() {
+        return new StringBuilder(original.length() - (end - start) + replacement.length())
+            .append(original, 0, start)
+            .append(replacement)
+            .append(original, end, original.length())
+            .toString();
+    }
+
+    /**
+     * 将新内容逐段写入文件
+     */
+    public void writeTo(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeTo(writer);
+        }
+    }
+
+    /**
+     * 将新内容逐段写入输出流
+     */
+    public void writeTo(Writer writer) throws IOException {
+        writer.write(original, 0, start);
+        writer.write(replacement);
+        writer.write(original, end, original.length() - end);
+    }
+
+    /**
+     * 只针对被修改的区域生成统一格式差异，行号与整个文件对齐
+     */
+    public String unifiedDiff(String originalName, String revisedName) {
+        // 扩展到完整行，再向前后各扩展若干上下文行
+        int hunkStart = lineStartBefore(start, CONTEXT_LINES);
+        int hunkEnd = lineEndAfter(end, CONTEXT_LINES);
+
+        List<String> oldLines = splitLines(original.substring(hunkStart, hunkEnd));
+        List<String> newLines = splitLines(original.substring(hunkStart, start) + replacement + original.substring(end, hunkEnd));
+
+        Patch<String> patch = DiffUtils.diff(oldLines, newLines);
+        List<String> unifiedDiff = UnifiedDiffUtils.generateUnifiedDiff(
+            originalName, revisedName, oldLines, patch, CONTEXT_LINES);
+
+        int lineOffset = countNewlines(0, hunkStart);
+        List<String> shifted = new ArrayList<>(unifiedDiff.size());
+        for (String line : unifiedDiff) {
+            shifted.add(shiftHunkHeader(line, lineOffset));
+        }
+        return String.join("\n", shifted);
+    }
+
+    public int getStart() { return start; }
+    public int getEnd() { return end; }
+    public String getReplacement() { return replacement; }
+
+    private int lineStartBefore(int offset, int contextLines) {
+        int position = original.lastIndexOf('\n', offset - 1);
+        for (int i = 0; i < contextLines && position >= 0; i++) {
+            position = original.lastIndexOf('\n', position - 1);
+        }
+        return position + 1;
+    }
+
+    private int lineEndAfter(int offset, int contextLines) {
+        int position = original.indexOf('\n', offset);
+        for (int i = 0; i < contextLines && position >= 0; i++) {
+            position = original.indexOf('\n', position + 1);
+        }
+        return position < 0 ? original.length() : position;
+    }
+
+    private int countNewlines(int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (original.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int from = 0;
+        int newline;
+        while ((newline = text.indexOf('\n', from)) >= 0) {
+            lines.add(text.substring(from, newline));
+            from = newline + 1;
+        }
+        lines.add(text.substring(from));
+        return lines;
+    }
+
+    private static String shiftHunkHeader(String line, int lineOffset) {
+        if (lineOffset == 0 || !line.startsWith("@@")) {
+            return line;
+        }
+        Matcher matcher = HUNK_HEADER.matcher(line);
+        if (!matcher.matches()) {
+            return line;
+        }
+        return "@@ -" + (Integer.parseInt(matcher.group(1)) + lineOffset) + nullToEmpty(matcher.group(2))
+            + " +" + (Integer.parseInt(matcher.group(3)) + lineOffset) + nullToEmpty(matcher.group(4))
+            + " @@" + matcher.group(5);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
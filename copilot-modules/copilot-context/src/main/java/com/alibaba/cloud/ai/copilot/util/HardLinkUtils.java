@@ -0,0 +1,60 @@
+package com.alibaba.cloud.ai.copilot.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 硬链接处理工具类
+ * 工作目录中的文件可能是内容存储的硬链接，原地写入会同时改掉其他工作目录里的同一份内容，
+ * 所以原地修改文件前需要先断开链接
+ */
+public class HardLinkUtils {
+
+    /**
+     * 无法获取硬链接数（如 Windows 上没有 unix 属性）
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * 获取文件的硬链接数
+     * @param path 文件路径
+     * @return 硬链接数，文件系统不支持 unix 属性时返回 {@link #UNKNOWN}
+     */
+    public static int linkCount(Path path) throws IOException {
+        try {
+            Object count = Files.getAttribute(path, "unix:nlink");
+            return count instanceof Integer value ? value : UNKNOWN;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * 文件是否可能与其他路径共享 inode，无法判断时按共享处理
+     * @param path 文件路径
+     */
+    public static boolean isShared(Path path) throws IOException {
+        int count = linkCount(path);
+        return count == UNKNOWN || count > 1;
+    }
+
+    /**
+     * 如果文件可能与其他路径共享 inode，先复制出一份独立的文件并原子替换当前路径（写时复制），
+     * 之后的原地写入不会影响其他路径
+     * @param path 即将被写入的文件
+     */
+    public static void detach(Path path) throws IOException {
+        if (!Files.isRegularFile(path) || !isShared(path)) {
+            return;
+        }
+        Path copy = Files.createTempFile(path.toAbsolutePath().getParent(), ".detach", ".tmp");
+        try {
+            Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.move(copy, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.alibaba.cloud.ai.copilot.context.application;
+
+import com.alibaba.cloud.ai.copilot.context.api.ContextStore;
+import com.alibaba.cloud.ai.copilot.context.domain.ContextScope;
+import com.alibaba.cloud.ai.copilot.context.domain.ConversationContext;
+import com.alibaba.cloud.ai.copilot.context.infrastructure.InMemoryContextStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 上下文管理器测试类
+ */
+public class ContextManagerImplTest {
+
+    private ContextStore contextStore;
+
+    private ContextManagerImpl contextManager;
+
+    @BeforeEach
+    public void setUp() {
+        contextStore = new InMemoryContextStore();
+        contextManager = new ContextManagerImpl(contextStore, Duration.ofMinutes(30), Duration.ofHours(2));
+    }
+
+    @Test
+    public void testSetDataOnSnapshotCopiesOnWrite() {
+        String contextId = contextManager.createContext("session", "user", ContextScope.SESSION);
+        contextManager.updateContext(contextId, "key", "value");
+
+        ConversationContext snapshot = contextManager.getContext(contextId);
+        snapshot.setData("other", 1);
+        snapshot.setVariable("name", "copilot");
+
+        // 修改的是副本，存储中的快照不受影响
+        assertEquals(1, snapshot.getData("other"));
+        assertEquals("copilot", snapshot.getVariable("name"));
+        assertNull(contextManager.getContext(contextId).getData("other"));
+        assertEquals("value", contextManager.getContext(contextId).getData("key"));
+    }
+
+    @Test
+    public void testEvictExpiredRemovesUnaccessedTemporaryContexts() {
+        ContextManagerImpl shortLived = new ContextManagerImpl(contextStore, Duration.ofMillis(-1), Duration.ofHours(2));
+        String temporary = shortLived.createContext("session", "user", ContextScope.TEMPORARY);
+        String session = shortLived.createContext("session", "user", ContextScope.SESSION);
+
+        assertEquals(1, shortLived.evictExpired());
+        assertNull(contextStore.load(temporary));
+        assertNotNull(contextStore.load(session));
+        assertEquals(1, shortLived.getContextStats(session).get("activeContexts"));
+    }
+
+    @Test
+    public void testEvictExpiredForgetsContextsDeletedByStore() {
+        ContextManagerImpl shortLived = new ContextManagerImpl(contextStore, Duration.ofMillis(-1), Duration.ofHours(2));
+        String temporary = shortLived.createContext("session", "user", ContextScope.TEMPORARY);
+
+        // 模拟 Redis TTL 已经删除了上下文
+        contextStore.delete(temporary);
+
+        assertEquals(1, shortLived.evictExpired());
+        Map<String, Object> stats = shortLived.getContextStats(temporary);
+        assertEquals(0, stats.get("activeContexts"));
+        assertEquals(false, stats.get("exists"));
+    }
+
+    @Test
+    public void testClearContextDecrementsActiveContextsOnce() {
+        String contextId = contextManager.createContext("session", "user", ContextScope.SESSION);
+        contextManager.clearContext(contextId);
+        contextManager.clearContext(contextId);
+
+        assertEquals(0, contextManager.getContextStats(contextId).get("activeContexts"));
+    }
+
+    @Test
+    public void testEvictExpiredRemovesIdleSessionContexts() {
+        ContextManagerImpl idle = new ContextManagerImpl(contextStore, Duration.ofMinutes(30), Duration.ofMillis(-1));
+        String session = idle.createContext("session", "user", ContextScope.SESSION);
+        String project = idle.createContext("session", "user", ContextScope.PROJECT);
+
+        assertEquals(1, idle.evictExpired());
+        assertNull(contextStore.load(session));
+        assertNotNull(contextStore.load(project));
+        assertEquals(1, idle.getContextStats(project).get("activeContexts"));
+    }
+
+    @Test
+    public void testActiveContextsTrackedAcrossCreateEvictAndDelete() {
+        ContextManagerImpl manager = new ContextManagerImpl(contextStore, Duration.ofMillis(-1), Duration.ofMillis(-1));
+        String temporary = manager.createContext("session", "user", ContextScope.TEMPORARY);
+        String first = manager.createContext("session", "user", ContextScope.SESSION);
+        String second = manager.createContext("session", "user", ContextScope.SESSION);
+        String project = manager.createContext("session", "user", ContextScope.PROJECT);
+        assertEquals(4, manager.getContextStats(project).get("activeContexts"));
+
+        // 读取时过期的临时上下文
+        assertNull(manager.getContext(temporary));
+        assertEquals(3, manager.getContextStats(project).get("activeContexts"));
+
+        // 空闲的会话上下文
+        assertEquals(2, manager.evictExpired());
+        assertNull(contextStore.load(first));
+        assertNull(contextStore.load(second));
+        assertEquals(1, manager.getContextStats(project).get("activeContexts"));
+
+        manager.clearContext(project);
+        assertEquals(0, manager.evictExpired());
+        assertEquals(0, manager.getContextStats(project).get("activeContexts"));
+    }
+
+    @Test
+    public void testEvictExpiredDropsCountersOfRemoteContexts() {
+        String contextId = contextManager.createContext("session", "user", ContextScope.SESSION);
+        // 另一个节点读取该上下文，只建立本地计数器
+        ContextManagerImpl remote = new ContextManagerImpl(contextStore, Duration.ofMinutes(30), Duration.ofMillis(-1));
+        remote.getContext(contextId);
+        assertEquals(1L, remote.getContextStats(contextId).get("reads"));
+        assertEquals(0, remote.getContextStats(contextId).get("activeContexts"));
+
+        // 空闲后只移除本地计数器，不删除其他节点的上下文
+        assertEquals(0, remote.evictExpired());
+        assertNotNull(contextStore.load(contextId));
+        assertEquals(0L, remote.getContextStats(contextId).get("reads"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.alibaba.cloud.ai.copilot.controller;
+
+import cn.dev33.satoken.stp.StpUtil;
+import com.alibaba.cloud.ai.copilot.exception.GlobalExceptionHandler;
+import com.alibaba.cloud.ai.copilot.service.ChatMemoryMigrationService;
+import com.alibaba.cloud.ai.copilot.service.ContentCompressionService;
+import com.alibaba.cloud.ai.copilot.service.ConversationService;
+import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.service.SimpleChatMemoryService;
+import com.alibaba.cloud.ai.copilot.service.impl.BranchingChatMemory;
+import com.alibaba.cloud.ai.copilot.service.impl.ConversationBranchServiceImpl;
+import com.alibaba.cloud.ai.copilot.service.impl.ConversationBranchStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 会话记忆控制器分支所有权测试类
+ */
+public class ChatMemoryControllerTest {
+
+    private ConversationService conversationService;
+
+    private ConversationBranchStore branchStore;
+
+    private BranchingChatMemory chatMemory;
+
+    private MockedStatic<StpUtil> stpUtil;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        conversationService = mock(ConversationService.class);
+        branchStore = mock(ConversationBranchStore.class);
+        chatMemory = mock(BranchingChatMemory.class);
+        when(conversationService.getUserConversations("alice")).thenReturn(List.of("conv_alice_1"));
+        when(conversationService.getUserConversations("bob")).thenReturn(List.of("conv_bob_1"));
+        ConversationBranchServiceImpl branchService = new ConversationBranchServiceImpl(
+                conversationService, branchStore, chatMemory, mock(FileSystemService.class));
+        ChatMemoryController controller = new ChatMemoryController(conversationService,
+                mock(SimpleChatMemoryService.class), new ObjectMapper(), mock(ContentCompressionService.class),
+                mock(ChatMemoryMigrationService.class), branchService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        stpUtil = mockStatic(StpUtil.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stpUtil.close();
+    }
+
+    @Test
+    public void testOwnerCanListBranches() throws Exception {
+        loginAs("alice");
+        when(branchStore.getChildren("conv_alice_1")).thenReturn(Set.of());
+
+        mockMvc.perform(get("/api/chat/memory/conversations/conv_alice_1/branches"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].branchId").value("conv_alice_1"));
+    }
+
+    @Test
+    public void testOtherUserCannotForkListOrSwitch() throws Exception {
+        loginAs("bob");
+
+        mockMvc.perform(post("/api/chat/memory/conversations/conv_alice_1/branches")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"forkIndex\":0}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/chat/memory/conversations/conv_alice_1/branches"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/chat/memory/branches/conv_alice_1/switch"))
+                .andExpect(status().isForbidden());
+
+        verify(conversationService, never()).createNewConversation(anyString());
+        verify(conversationService, never()).switchConversation(anyString(), anyString());
+        verifyNoInteractions(branchStore);
+    }
+
+    private void loginAs(String loginId) {
+        stpUtil.when(StpUtil::getLoginIdAsString).thenReturn(loginId);
+    }
+}
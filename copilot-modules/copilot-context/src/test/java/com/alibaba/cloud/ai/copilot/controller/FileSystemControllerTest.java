@@ -0,0 +1,111 @@
+package com.alibaba.cloud.ai.copilot.controller;
+
+import com.alibaba.cloud.ai.copilot.service.impl.FileSystemServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 文件系统控制器原始文件下载测试类
+ */
+public class FileSystemControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileSystemServiceImpl fileSystemService;
+
+    private MockMvc mockMvc;
+
+    private String rawUrl;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        fileSystemService = new FileSystemServiceImpl();
+        ReflectionTestUtils.setField(fileSystemService, "workspaceRoot", tempDir.toString());
+        ReflectionTestUtils.setField(fileSystemService, "watchEnabled", false);
+        FileSystemController controller = new FileSystemController();
+        ReflectionTestUtils.setField(controller, "fileSystemService", fileSystemService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        Path workspace = Files.createDirectories(tempDir.resolve("user").resolve("conv"));
+        Files.writeString(workspace.resolve("hello.txt"), "hello world");
+        rawUrl = "/api/files/workspace/" + workspace.toString().replace("/", "|") + "/raw/hello.txt";
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        fileSystemService.shutdown();
+    }
+
+    @Test
+    public void testDownloadReturnsContentWithValidators() throws Exception {
+        MvcResult result = mockMvc.perform(get(rawUrl))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andExpect(content().string("hello world"))
+            .andReturn();
+
+        assertTrue(result.getResponse().getHeader(HttpHeaders.ETAG).startsWith("\"b-"));
+    }
+
+    @Test
+    public void testIfNoneMatchReturnsNotModified() throws Exception {
+        String etag = mockMvc.perform(get(rawUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult result = mockMvc.perform(get(rawUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testIfModifiedSinceReturnsNotModified() throws Exception {
+        String lastModified = mockMvc.perform(get(rawUrl)).andReturn().getResponse()
+            .getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get(rawUrl).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testChangedFileIsReturnedAgain() throws Exception {
+        String etag = mockMvc.perform(get(rawUrl)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Path file = tempDir.resolve("user").resolve("conv").resolve("hello.txt");
+        Files.writeString(file, "hello again!");
+
+        mockMvc.perform(get(rawUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(content().string("hello again!"));
+    }
+
+    @Test
+    public void testRangeReturnsPartialContent() throws Exception {
+        mockMvc.perform(get(rawUrl).header(HttpHeaders.RANGE, "bytes=6-10"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 6-10/11"))
+            .andExpect(content().string("world"));
+    }
+
+    @Test
+    public void testMissingFileReturnsNotFound() throws Exception {
+        mockMvc.perform(get(rawUrl.replace("hello.txt", "missing.txt")))
+            .andExpect(status().isNotFound());
+    }
+}
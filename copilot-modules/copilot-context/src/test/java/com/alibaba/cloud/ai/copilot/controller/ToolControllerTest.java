@@ -0,0 +1,113 @@
+package com.alibaba.cloud.ai.copilot.controller;
+
+import cn.dev33.satoken.stp.StpUtil;
+import com.alibaba.cloud.ai.copilot.exception.GlobalExceptionHandler;
+import com.alibaba.cloud.ai.copilot.service.ToolOrchestrationService;
+import com.alibaba.cloud.ai.copilot.service.impl.SseTaskEventListener;
+import com.alibaba.cloud.ai.copilot.service.impl.ToolResultCache;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 工具编排控制器任务所有权测试类
+ */
+public class ToolControllerTest {
+
+    private ContinuousTaskTool taskTool;
+
+    private MockedStatic<StpUtil> stpUtil;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        taskTool = new ContinuousTaskTool();
+        ObjectProvider<ContinuousTaskTool> taskToolProvider = mock(ObjectProvider.class);
+        when(taskToolProvider.getIfAvailable()).thenReturn(taskTool);
+        ToolController controller = new ToolController(mock(ToolOrchestrationService.class), new ToolResultCache(),
+            taskToolProvider, mock(ObjectProvider.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+        stpUtil = mockStatic(StpUtil.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stpUtil.close();
+        taskTool.shutdown();
+    }
+
+    @Test
+    public void testCreatedTaskIsOwnedByLoggedInUser() throws Exception {
+        loginAs("sys_user:1");
+
+        // 请求体中伪造的 ownerId 不生效
+        submit("{\"taskId\":\"task_1\",\"goal\":\"创建项目\",\"mode\":\"plan\",\"ownerId\":\"sys_user:2\"}")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(true))
+            .andExpect(jsonPath("$.taskId").value("task_1"));
+
+        assertTrue(taskTool.isOwnedBy("task_1", "sys_user:1"));
+        assertFalse(taskTool.isOwnedBy("task_1", "sys_user:2"));
+
+        mockMvc.perform(post("/api/tools/tasks/task_1/cancel"))
+            .andExpect(status().isOk());
+        assertEquals("cancelled", taskTool.getTaskState("task_1").getStatus());
+    }
+
+    @Test
+    public void testOtherUserIsForbidden() throws Exception {
+        loginAs("sys_user:1");
+        submit("{\"taskId\":\"task_1\",\"goal\":\"创建项目\",\"mode\":\"plan\"}")
+            .andExpect(status().isOk());
+
+        loginAs("sys_user:2");
+        mockMvc.perform(post("/api/tools/tasks/task_1/cancel"))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/tools/tasks")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"taskId\":\"task_1\",\"goal\":\"创建项目\",\"mode\":\"pause\"}"))
+            .andExpect(status().isForbidden());
+
+        assertEquals("planned", taskTool.getTaskState("task_1").getStatus());
+        assertTrue(taskTool.isOwnedBy("task_1", "sys_user:1"));
+    }
+
+    @Test
+    public void testCancelUnknownTaskReturnsNotFound() throws Exception {
+        loginAs("sys_user:1");
+
+        mockMvc.perform(post("/api/tools/tasks/task_missing/cancel"))
+            .andExpect(status().isNotFound());
+    }
+
+    private void loginAs(String userId) {
+        stpUtil.when(StpUtil::getLoginIdAsString).thenReturn(userId);
+    }
+
+    private ResultActions submit(String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/tools/tasks")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
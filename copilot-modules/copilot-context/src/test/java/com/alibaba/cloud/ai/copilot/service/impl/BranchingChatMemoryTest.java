@@ -0,0 +1,166 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.ConversationBranch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分支聊天记忆测试类
+ */
+public class BranchingChatMemoryTest {
+
+    private static final int WINDOW = 4;
+
+    private InMemoryChatMemoryRepository repository;
+
+    private InMemoryBranchStore branchStore;
+
+    private BranchingChatMemory chatMemory;
+
+    @BeforeEach
+    public void setUp() {
+        repository = new InMemoryChatMemoryRepository();
+        branchStore = new InMemoryBranchStore();
+        chatMemory = new BranchingChatMemory(repository, branchStore, WINDOW);
+    }
+
+    @Test
+    public void testUnsharedSegmentIsWindowed() {
+        chatMemory.add("root", messages("m", 6));
+
+        assertEquals(texts("m", 2, 6), textsOf(repository.findByConversationId("root")));
+        assertEquals(texts("m", 2, 6), textsOf(chatMemory.get("root")));
+    }
+
+    @Test
+    public void testBranchSharesParentPrefix() {
+        chatMemory.add("root", messages("m", 3));
+        fork("root", "child", 2);
+        chatMemory.add("child", messages("c", 1));
+
+        assertEquals(List.of("m0", "m1", "c0"), textsOf(chatMemory.get("child")));
+        assertEquals(3, chatMemory.historyLength("child"));
+        assertEquals(1, repository.findByConversationId("child").size());
+    }
+
+    @Test
+    public void testSharedSegmentAppendsToTailChunkOnly() {
+        chatMemory.add("root", messages("m", 3));
+        fork("root", "child", 3);
+
+        chatMemory.add("root", messages("a", 1));
+        chatMemory.add("root", messages("b", 2));
+
+        // 第 0 块写满后新建块，已有块不再重写
+        assertEquals(List.of("m0", "m1", "m2", "a0"), textsOf(repository.findByConversationId("root")));
+        assertEquals(List.of("b0", "b1"), textsOf(repository.findByConversationId("root#1")));
+        assertEquals(6, chatMemory.historyLength("root"));
+        assertEquals(List.of("m2", "a0", "b0", "b1"), textsOf(chatMemory.get("root")));
+        assertEquals(List.of("m0", "m1", "m2"), textsOf(chatMemory.get("child")));
+    }
+
+    @Test
+    public void testClearKeepsPrefixReferencedByBranches() {
+        chatMemory.add("root", messages("m", 3));
+        fork("root", "child", 2);
+        chatMemory.add("root", messages("a", 3));
+
+        chatMemory.clear("root");
+
+        assertEquals(List.of("m0", "m1"), textsOf(chatMemory.get("root")));
+        assertEquals(2, chatMemory.historyLength("root"));
+        assertTrue(repository.findByConversationId("root#1").isEmpty());
+        assertEquals(List.of("m0", "m1"), textsOf(chatMemory.get("child")));
+    }
+
+    @Test
+    public void testClearWithoutBranchesDeletesSegment() {
+        chatMemory.add("root", messages("m", 3));
+
+        chatMemory.clear("root");
+
+        assertTrue(chatMemory.get("root").isEmpty());
+        assertTrue(repository.findConversationIds().isEmpty());
+    }
+
+    private void fork(String parentId, String branchId, int forkIndex) {
+        ConversationBranch parent = branchStore.get(parentId);
+        String rootId = parent != null ? parent.getRootId() : parentId;
+        branchStore.save(new ConversationBranch(branchId, parentId, rootId, forkIndex, null, LocalDateTime.now()));
+    }
+
+    private static List<Message> messages(String prefix, int count) {
+        return IntStream.range(0, count).<Message>mapToObj(i -> new UserMessage(prefix + i)).toList();
+    }
+
+    private static List<String> texts(String prefix, int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> prefix + i).toList();
+    }
+
+    private static List<String> textsOf(List<Message> messages) {
+        return messages.stream().map(Message::getText).toList();
+    }
+
+    /**
+     * 基于内存的分支元数据存储
+     */
+    private static class InMemoryBranchStore extends ConversationBranchStore {
+
+        private final Map<String, ConversationBranch> branches = new HashMap<>();
+        private final Map<String, Set<String>> children = new HashMap<>();
+        private final Map<String, SegmentInfo> segments = new HashMap<>();
+
+        InMemoryBranchStore() {
+            super(null, 30);
+        }
+
+        @Override
+        public ConversationBranch get(String conversationId) {
+            return branches.get(conversationId);
+        }
+
+        @Override
+        public void save(ConversationBranch branch) {
+            branches.put(branch.getBranchId(), branch);
+            children.computeIfAbsent(branch.getParentId(), k -> new HashSet<>()).add(branch.getBranchId());
+        }
+
+        @Override
+        public Set<String> getChildren(String conversationId) {
+            return children.getOrDefault(conversationId, Set.of());
+        }
+
+        @Override
+        public boolean hasChildren(String conversationId) {
+            return !getChildren(conversationId).isEmpty();
+        }
+
+        @Override
+        public SegmentInfo getSegment(String conversationId) {
+            return segments.get(conversationId);
+        }
+
+        @Override
+        public void saveSegment(String conversationId, SegmentInfo segment) {
+            segments.put(conversationId, segment);
+        }
+
+        @Override
+        public void deleteSegment(String conversationId) {
+            segments.remove(conversationId);
+        }
+    }
+}
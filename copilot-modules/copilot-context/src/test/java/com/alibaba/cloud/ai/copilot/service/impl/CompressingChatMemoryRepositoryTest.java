@@ -0,0 +1,64 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 带压缩的聊天记忆仓库测试类
+ */
+public class CompressingChatMemoryRepositoryTest {
+
+    private ChatMemoryRepository delegate;
+
+    private ContentCompressionServiceImpl compressionService;
+
+    private CompressingChatMemoryRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = new InMemoryChatMemoryRepository();
+        compressionService = new ContentCompressionServiceImpl(true, 16);
+        repository = new CompressingChatMemoryRepository(delegate, compressionService);
+    }
+
+    @Test
+    public void testRoundTripKeepsTextAndMetadata() {
+        String text = "<boltArtifact id=\"demo\">".repeat(20);
+        Message message = UserMessage.builder().text(text).metadata(Map.of("messageId", "m-1")).build();
+
+        repository.saveAll("c1", List.of(message));
+
+        Message stored = delegate.findByConversationId("c1").get(0);
+        assertTrue(compressionService.isCompressed(stored.getText()));
+        assertEquals("m-1", stored.getMetadata().get("messageId"));
+
+        Message loaded = repository.findByConversationId("c1").get(0);
+        assertEquals(text, loaded.getText());
+        assertEquals("m-1", loaded.getMetadata().get("messageId"));
+    }
+
+    @Test
+    public void testCompressExistingThroughChatMemory() {
+        String text = "function add(a, b) { return a + b; }\n".repeat(10);
+        delegate.saveAll("c1", List.of(new UserMessage(text), new UserMessage("short")));
+
+        BranchingChatMemory memory = new BranchingChatMemory(repository, mock(ConversationBranchStore.class), 20);
+
+        assertEquals(1, memory.compressExisting("c1"));
+        assertEquals(0, memory.compressExisting("c1"));
+        List<Message> messages = memory.get("c1");
+        assertEquals(2, messages.size());
+        assertEquals(text, messages.get(0).getText());
+        assertEquals("short", messages.get(1).getText());
+    }
+}
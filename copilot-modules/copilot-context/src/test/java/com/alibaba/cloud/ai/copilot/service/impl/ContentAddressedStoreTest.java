@@ -0,0 +1,131 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.util.HardLinkUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 内容寻址存储测试类
+ */
+public class ContentAddressedStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ContentAddressedStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        store = new ContentAddressedStore(tempDir.resolve(".blobs"));
+    }
+
+    @Test
+    public void testPutDeduplicatesContent() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "hello");
+
+        String first = store.put("hello".getBytes(StandardCharsets.UTF_8));
+        String second = store.put(file);
+
+        assertEquals(first, second);
+        assertTrue(store.contains(first));
+        assertFalse(store.contains(null));
+    }
+
+    @Test
+    public void testMaterializeReplacesTarget() throws IOException {
+        Files.createDirectories(tempDir.resolve("ws"));
+        Path target = Files.writeString(tempDir.resolve("ws/a.txt"), "old");
+        String hash = store.put("new".getBytes(StandardCharsets.UTF_8));
+
+        store.materialize(hash, target);
+
+        assertEquals("new", Files.readString(target));
+    }
+
+    @Test
+    public void testCollectGarbageKeepsReferencedBlobs() throws IOException {
+        String referenced = store.put("referenced".getBytes(StandardCharsets.UTF_8));
+        String orphan = store.put("orphan".getBytes(StandardCharsets.UTF_8));
+        Path target = tempDir.resolve("ws/a.txt");
+        store.materialize(referenced, target);
+        int links = HardLinkUtils.linkCount(target);
+
+        store.collectGarbage();
+
+        if (links == 2) {
+            assertTrue(store.contains(referenced));
+            assertFalse(store.contains(orphan));
+        } else if (links == HardLinkUtils.UNKNOWN) {
+            // 无法判断引用时一律保留
+            assertTrue(store.contains(referenced));
+            assertTrue(store.contains(orphan));
+        }
+        assertEquals("referenced", Files.readString(target));
+    }
+
+    @Test
+    public void testCollectGarbageWaitsForAtomicOperation() throws Exception {
+        CountDownLatch stored = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Path target = tempDir.resolve("ws/a.txt");
+
+        CompletableFuture<String> writer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.atomically(() -> {
+                    String hash = store.put("content".getBytes(StandardCharsets.UTF_8));
+                    stored.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                    store.materialize(hash, target);
+                    return hash;
+                });
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(stored.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Long> collector = CompletableFuture.supplyAsync(store::collectGarbage);
+        Thread.sleep(100);
+        assertFalse(collector.isDone());
+
+        release.countDown();
+        String hash = writer.get(5, TimeUnit.SECONDS);
+        collector.get(5, TimeUnit.SECONDS);
+
+        assertEquals("content", Files.readString(target));
+        if (HardLinkUtils.linkCount(target) == 2) {
+            assertTrue(store.contains(hash));
+        }
+    }
+
+    @Test
+    public void testDetachBreaksHardLink() throws IOException {
+        String hash = store.put("shared".getBytes(StandardCharsets.UTF_8));
+        Path target = tempDir.resolve("ws/a.txt");
+        store.materialize(hash, target);
+
+        HardLinkUtils.detach(target);
+        Files.writeString(target, "changed");
+
+        // 存储中的内容不受工作目录写入影响
+        Path other = tempDir.resolve("ws/b.txt");
+        store.materialize(hash, other);
+        assertEquals("shared", Files.readString(other));
+    }
+}
@@ -0,0 +1,69 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.ConversationBranch;
+import com.alibaba.cloud.ai.copilot.service.ConversationService;
+import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 会话分支服务测试类
+ */
+public class ConversationBranchServiceImplTest {
+
+    private ConversationService conversationService;
+
+    private ConversationBranchStore branchStore;
+
+    private BranchingChatMemory chatMemory;
+
+    private ConversationBranchServiceImpl branchService;
+
+    @BeforeEach
+    public void setUp() {
+        conversationService = mock(ConversationService.class);
+        branchStore = mock(ConversationBranchStore.class);
+        chatMemory = mock(BranchingChatMemory.class);
+        branchService = new ConversationBranchServiceImpl(
+                conversationService, branchStore, chatMemory, mock(FileSystemService.class));
+    }
+
+    @Test
+    public void testListBranchesOfOwnConversation() {
+        ConversationBranch child = new ConversationBranch(
+                "conv_alice_2", "conv_alice_1", "conv_alice_1", 2, "fork", LocalDateTime.now());
+        when(conversationService.getUserConversations("alice")).thenReturn(List.of("conv_alice_1", "conv_alice_2"));
+        when(chatMemory.getBranch("conv_alice_2")).thenReturn(child);
+        when(branchStore.getChildren("conv_alice_1")).thenReturn(Set.of("conv_alice_2"));
+        when(branchStore.getChildren("conv_alice_2")).thenReturn(Set.of());
+
+        List<ConversationBranch> branches = branchService.listBranches("alice", "conv_alice_2");
+
+        assertEquals(List.of("conv_alice_1", "conv_alice_2"),
+                branches.stream().map(ConversationBranch::getBranchId).toList());
+    }
+
+    @Test
+    public void testListBranchesRejectsOtherUsersConversation() {
+        when(conversationService.getUserConversations("mallory")).thenReturn(List.of("conv_mallory_1"));
+
+        assertThrows(SecurityException.class, () -> branchService.listBranches("mallory", "conv_alice_1"));
+        verifyNoInteractions(branchStore);
+    }
+
+    @Test
+    public void testIdPrefixDoesNotGrantOwnership() {
+        // 用户 a 的前缀 conv_a_ 同时是用户 a_b 的会话ID前缀
+        when(conversationService.getUserConversations("a")).thenReturn(List.of("conv_a_1"));
+
+        assertThrows(SecurityException.class, () -> branchService.switchBranch("a", "conv_a_b_1"));
+        verify(conversationService, never()).switchConversation(anyString(), anyString());
+    }
+}
@@ -0,0 +1,187 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.service.FileSystemService.FileEntry;
+import com.alibaba.cloud.ai.copilot.tools.service.ProjectAnalysisCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 文件系统服务测试类
+ */
+public class FileSystemServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileSystemServiceImpl fileSystemService;
+
+    private Path workspace;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        fileSystemService = new FileSystemServiceImpl();
+        ReflectionTestUtils.setField(fileSystemService, "workspaceRoot", tempDir.resolve("root").toString());
+        ReflectionTestUtils.setField(fileSystemService, "watchEnabled", false);
+        ReflectionTestUtils.setField(fileSystemService, "blobStore",
+            new ContentAddressedStore(tempDir.resolve("root").resolve(".blobs")));
+        workspace = Files.createDirectories(tempDir.resolve("root").resolve("user").resolve("conv"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        fileSystemService.shutdown();
+    }
+
+    @Test
+    public void testImportArchive() throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("src/App.java", "class App {}");
+        files.put("README.md", "# demo");
+
+        int imported = fileSystemService.importArchive(workspace.toString(), zip(files));
+
+        assertEquals(2, imported);
+        assertEquals("class App {}", Files.readString(workspace.resolve("src/App.java")));
+        assertEquals("# demo", Files.readString(workspace.resolve("README.md")));
+    }
+
+    @Test
+    public void testImportArchiveRejectsTooManyEntries() throws Exception {
+        ReflectionTestUtils.setField(fileSystemService, "maxArchiveEntries", 2);
+        Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            files.put("file" + i + ".txt", "content");
+        }
+
+        assertThrows(IllegalArgumentException.class,
+            () -> fileSystemService.importArchive(workspace.toString(), zip(files)));
+
+        // 失败返回时已开始的写入都已结束，之后不再出现新文件
+        List<Path> afterReturn = listFiles(workspace);
+        Thread.sleep(100);
+        assertEquals(afterReturn, listFiles(workspace));
+    }
+
+    @Test
+    public void testImportArchiveRejectsOversizedContent() throws IOException {
+        ReflectionTestUtils.setField(fileSystemService, "maxArchiveTotalSize", 100L);
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("a.txt", "a".repeat(80));
+        files.put("b.txt", "b".repeat(80));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> fileSystemService.importArchive(workspace.toString(), zip(files)));
+    }
+
+    @Test
+    public void testImportArchiveRejectsSymbolicLinkTarget() throws IOException {
+        Path outside = Files.writeString(tempDir.resolve("outside.txt"), "original");
+        try {
+            Files.createSymbolicLink(workspace.resolve("link.txt"), outside);
+        } catch (UnsupportedOperationException | IOException e) {
+            // 不支持符号链接的文件系统无需校验
+            return;
+        }
+
+        assertThrows(SecurityException.class,
+            () -> fileSystemService.importArchive(workspace.toString(), zip(Map.of("link.txt", "overwritten"))));
+        assertEquals("original", Files.readString(outside));
+    }
+
+    @Test
+    public void testDeleteWorkspaceInvalidatesAnalysisCache() throws IOException {
+        Path cacheDirectory = tempDir.resolve("analysis-cache");
+        ProjectAnalysisCache analysisCache = new ProjectAnalysisCache(true, cacheDirectory.toString(), 32, 168);
+        ReflectionTestUtils.setField(fileSystemService, "analysisCache", analysisCache);
+        Path project = Files.createDirectories(workspace.resolve("app"));
+        ProjectAnalysisCache.Entry entry = analysisCache.entry(project);
+        entry.update(List.of(new ProjectAnalysisCache.ScannedFile(project.resolve("App.java"), "App.java", 1L, 12L)),
+            file -> new ProjectAnalysisCache.FileStats(1L, 12L, "Java", 1, 1, 0, 0, 1, 0, 0));
+        analysisCache.save(project, entry);
+
+        fileSystemService.deleteWorkspace(workspace.toString());
+
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertEquals(0, files.count());
+        }
+        assertEquals(0, analysisCache.entry(project).fileCount());
+    }
+
+    @Test
+    public void testEvictIdleIndexesCancelsWatchKeys() throws IOException {
+        ReflectionTestUtils.setField(fileSystemService, "watchEnabled", true);
+        Files.createDirectories(workspace.resolve("src"));
+        fileSystemService.getWorkspaceInfo(workspace.toString());
+        WorkspaceWatcher watcher = (WorkspaceWatcher) ReflectionTestUtils.getField(fileSystemService, "watcher");
+        assertNotNull(watcher);
+        assertTrue(watcher.getRegistrationCount() > 0);
+
+        assertEquals(0, fileSystemService.evictIdleIndexes());
+
+        ReflectionTestUtils.setField(fileSystemService, "indexIdleMinutes", -1L);
+        assertEquals(1, fileSystemService.evictIdleIndexes());
+        assertEquals(0, watcher.getRegistrationCount());
+    }
+
+    @Test
+    public void testChangesSinceStaleCursorRequestsResync() {
+        fileSystemService.saveFile(workspace.toString(), "a.txt", "a");
+        long cursor = fileSystemService.getChangesSince(workspace.toString(), 0).getCurrentVersion();
+        fileSystemService.saveFile(workspace.toString(), "b.txt", "b");
+
+        FileSystemService.WorkspaceChanges stale = fileSystemService.getChangesSince(workspace.toString(), 0);
+        assertTrue(stale.isResync());
+        assertEquals(2, stale.getChanges().size());
+
+        FileSystemService.WorkspaceChanges changes = fileSystemService.getChangesSince(workspace.toString(), cursor);
+        assertFalse(changes.isResync());
+        assertEquals(List.of("b.txt"), changes.getChanges().stream().map(FileEntry::getPath).toList());
+    }
+
+    @Test
+    public void testAllFilesCachesLoadedContent() throws IOException {
+        fileSystemService.saveFile(workspace.toString(), "a.txt", "cached");
+        Map<String, String> files = fileSystemService.getAllFiles(workspace.toString());
+
+        assertEquals("cached", files.get("a.txt"));
+        Files.writeString(workspace.resolve("a.txt"), "changed");
+        assertEquals("cached", files.get("a.txt"));
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static ByteArrayInputStream zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,251 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.ToolOrchestrationService;
+import com.alibaba.cloud.ai.copilot.tools.BaseTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 并行工具调用管理器测试类
+ */
+public class ParallelToolCallingManagerTest {
+
+    private static final String ROOT = "/tmp/copilot-workspace";
+
+    private ToolOrchestrationService toolOrchestrationService;
+
+    private ParallelToolCallingManager manager;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    public void setUp() {
+        toolOrchestrationService = mock(ToolOrchestrationService.class);
+        manager = new ParallelToolCallingManager(toolOrchestrationService, new ToolResultCache(), ROOT, 4, 16);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void testReadOnlyCallsRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ToolCallback read = callback("read_file", true, args -> {
+            bothStarted.countDown();
+            // 两个只读调用都开始后才返回，顺序执行时第一个调用会等待超时
+            return await(bothStarted) ? "concurrent" : "sequential";
+        });
+
+        List<String> results = results(execute(List.of(read),
+            call("1", "read_file", "{\"path\":\"a\"}"),
+            call("2", "read_file", "{\"path\":\"b\"}")));
+
+        assertEquals(List.of("concurrent", "concurrent"), results);
+    }
+
+    @Test
+    public void testResultsKeepModelOrder() {
+        CountDownLatch secondDone = new CountDownLatch(1);
+        ToolCallback read = callback("read_file", true, args -> {
+            if (args.contains("slow")) {
+                await(secondDone);
+                return "slow";
+            }
+            secondDone.countDown();
+            return "fast";
+        });
+
+        ToolExecutionResult result = execute(List.of(read),
+            call("1", "read_file", "{\"path\":\"slow\"}"),
+            call("2", "read_file", "{\"path\":\"fast\"}"));
+
+        ToolResponseMessage response = toolResponse(result);
+        assertEquals(List.of("1", "2"), response.getResponses().stream().map(ToolResponseMessage.ToolResponse::id).toList());
+        assertEquals(List.of("slow", "fast"), results(result));
+        List<Message> history = result.conversationHistory();
+        assertInstanceOf(AssistantMessage.class, history.get(history.size() - 2));
+    }
+
+    @Test
+    public void testWritesInSameWorkspaceRunSequentially() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        ToolCallback write = callback("write_file", false, args -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            sleep(20);
+            active.decrementAndGet();
+            return "ok";
+        });
+
+        execute(List.of(write),
+            call("1", "write_file", "{\"path\":\"" + ROOT + "/alice/c1/a.txt\"}"),
+            call("2", "write_file", "{\"path\":\"" + ROOT + "/alice/c1/b.txt\"}"),
+            call("3", "write_file", "{\"path\":\"" + ROOT + "/alice/c1/c.txt\"}"));
+
+        assertEquals(1, maxActive.get());
+        assertEquals(List.of("write_file:" + ROOT + "/alice/c1/a.txt", "write_file:" + ROOT + "/alice/c1/b.txt",
+            "write_file:" + ROOT + "/alice/c1/c.txt"), events);
+    }
+
+    @Test
+    public void testWritesInDifferentWorkspacesRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        ToolCallback write = callback("write_file", false, args -> {
+            bothStarted.countDown();
+            return await(bothStarted) ? "concurrent" : "sequential";
+        });
+
+        List<String> results = results(execute(List.of(write),
+            call("1", "write_file", "{\"path\":\"" + ROOT + "/alice/c1/a.txt\"}"),
+            call("2", "write_file", "{\"path\":\"" + ROOT + "/bob/c2/a.txt\"}")));
+
+        assertEquals(List.of("concurrent", "concurrent"), results);
+    }
+
+    @Test
+    public void testSegmentsKeepReadWriteOrder() {
+        ToolCallback read = callback("read_file", true, args -> {
+            sleep(20);
+            return "read";
+        });
+        ToolCallback write = callback("write_file", false, args -> "written");
+
+        execute(List.of(read, write),
+            call("1", "read_file", "{\"path\":\"a\"}"),
+            call("2", "read_file", "{\"path\":\"b\"}"),
+            call("3", "write_file", "{\"path\":\"a\"}"),
+            call("4", "read_file", "{\"path\":\"a\"}"));
+
+        assertEquals(4, events.size());
+        assertEquals("write_file:a", events.get(2));
+        assertEquals("read_file:a", events.get(3));
+    }
+
+    @Test
+    public void testToolExecutionExceptionBecomesResult() {
+        ToolCallback read = callback("read_file", true, args -> {
+            if (args.contains("broken")) {
+                throw new ToolExecutionException(definition("read_file"), new IllegalStateException("disk error"));
+            }
+            return "ok";
+        });
+
+        List<String> results = results(execute(List.of(read),
+            call("1", "read_file", "{\"path\":\"broken\"}"),
+            call("2", "read_file", "{\"path\":\"fine\"}")));
+
+        assertEquals("disk error", results.get(0));
+        assertEquals("ok", results.get(1));
+    }
+
+    @Test
+    public void testUnexpectedExceptionPropagatesFromConcurrentCalls() {
+        ToolCallback read = callback("read_file", true, args -> {
+            if (args.contains("broken")) {
+                throw new IllegalArgumentException("bad arguments");
+            }
+            return "ok";
+        });
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> execute(List.of(read),
+            call("1", "read_file", "{\"path\":\"fine\"}"),
+            call("2", "read_file", "{\"path\":\"broken\"}")));
+        assertEquals("bad arguments", e.getMessage());
+    }
+
+    @Test
+    public void testUnknownToolFailsBeforeAnyCall() {
+        ToolCallback read = callback("read_file", true, args -> "ok");
+
+        assertThrows(IllegalStateException.class, () -> execute(List.of(read),
+            call("1", "read_file", "{\"path\":\"a\"}"),
+            call("2", "delete_file", "{\"path\":\"a\"}")));
+        assertTrue(events.isEmpty());
+    }
+
+    private ToolExecutionResult execute(List<ToolCallback> callbacks, AssistantMessage.ToolCall... toolCalls) {
+        Prompt prompt = new Prompt(List.of(new UserMessage("do it")),
+            ToolCallingChatOptions.builder().toolCallbacks(callbacks).build());
+        AssistantMessage assistantMessage = AssistantMessage.builder().content("").toolCalls(List.of(toolCalls)).build();
+        return manager.executeToolCalls(prompt, new ChatResponse(List.of(new Generation(assistantMessage))));
+    }
+
+    private ToolCallback callback(String name, boolean readOnly, Function<String, String> body) {
+        BaseTool<?> tool = mock(BaseTool.class);
+        when(tool.isReadOnly()).thenReturn(readOnly);
+        doReturn(tool).when(toolOrchestrationService).getTool(name);
+        ToolDefinition definition = definition(name);
+        return new ToolCallback() {
+            @Override
+            public ToolDefinition getToolDefinition() {
+                return definition;
+            }
+
+            @Override
+            public String call(String arguments) {
+                events.add(name + ":" + arguments.replaceAll(".*\"path\":\"([^\"]*)\".*", "$1"));
+                return body.apply(arguments);
+            }
+        };
+    }
+
+    private static ToolDefinition definition(String name) {
+        return ToolDefinition.builder().name(name).description(name).inputSchema("{}").build();
+    }
+
+    private static AssistantMessage.ToolCall call(String id, String name, String arguments) {
+        return new AssistantMessage.ToolCall(id, "function", name, arguments);
+    }
+
+    private static ToolResponseMessage toolResponse(ToolExecutionResult result) {
+        List<Message> history = result.conversationHistory();
+        return (ToolResponseMessage) history.get(history.size() - 1);
+    }
+
+    private static List<String> results(ToolExecutionResult result) {
+        return toolResponse(result).getResponses().stream().map(ToolResponseMessage.ToolResponse::responseData).toList();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.dto.ChatHistoryPage;
+import com.alibaba.cloud.ai.copilot.model.ChatMessage;
+import com.alibaba.cloud.ai.copilot.service.ConversationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 简单聊天记忆服务测试类
+ */
+public class SimpleChatMemoryServiceImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ContentCompressionServiceImpl compressionService;
+
+    private SimpleChatMemoryServiceImpl service;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        ConversationService conversationService = mock(ConversationService.class);
+        when(conversationService.getOrCreateConversationId("user")).thenReturn("c1");
+        compressionService = new ContentCompressionServiceImpl(true, 16);
+        service = new SimpleChatMemoryServiceImpl(jdbcTemplate, conversationService, compressionService);
+    }
+
+    @Test
+    public void testAddMessageStoresOriginalLength() {
+        String content = "<boltArtifact id=\"demo\">".repeat(20);
+
+        service.addUserMessage("user", content);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO chat_messages"), args.capture());
+        Object[] values = args.getValue();
+        assertTrue(compressionService.isCompressed((String) values[2]));
+        assertEquals(content.length(), values[3]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProjectedPageReportsOriginalLengthOfCompressedContent() throws SQLException {
+        String content = "<boltArtifact id=\"demo\">".repeat(20);
+        String stored = compressionService.compress(content);
+        assertTrue(stored.length() < content.length());
+
+        ArgumentCaptor<RowMapper<ChatMessage>> mapper = ArgumentCaptor.forClass(RowMapper.class);
+        when(jdbcTemplate.query(anyString(), mapper.capture(), any(Object[].class))).thenAnswer(invocation -> {
+            RowMapper<ChatMessage> rowMapper = invocation.getArgument(1);
+            return List.of(
+                rowMapper.mapRow(row(2L, content.length(), null), 0),
+                // 旧数据没有记录长度，解压后计算
+                rowMapper.mapRow(row(1L, null, stored), 1));
+        });
+
+        ChatHistoryPage page = service.getConversationHistoryPage("user", null, null, 10, false);
+
+        List<ChatMessage> messages = page.getMessages();
+        assertEquals(2, messages.size());
+        for (ChatMessage message : messages) {
+            assertEquals(content.length(), message.getContentLength());
+            assertNull(message.getContent());
+        }
+    }
+
+    @Test
+    public void testContentLengthCountsCodePoints() {
+        assertEquals(3, SimpleChatMemoryServiceImpl.contentLength("a😀b"));
+        assertNull(SimpleChatMemoryServiceImpl.contentLength(null));
+    }
+
+    private ResultSet row(long id, Integer contentLength, String legacyContent) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("conversation_id")).thenReturn("c1");
+        when(rs.getString("role")).thenReturn("user");
+        when(rs.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(LocalDateTime.now()));
+        when(rs.getInt("content_length")).thenReturn(contentLength != null ? contentLength : 0);
+        when(rs.wasNull()).thenReturn(contentLength == null);
+        when(rs.getString("legacy_content")).thenReturn(legacyContent);
+        return rs;
+    }
+}
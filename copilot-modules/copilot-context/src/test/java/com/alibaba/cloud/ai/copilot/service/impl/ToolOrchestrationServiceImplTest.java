@@ -0,0 +1,78 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.schema.JsonSchema;
+import com.alibaba.cloud.ai.copilot.tools.BaseTool;
+import com.alibaba.cloud.ai.copilot.tools.ToolResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.context.ApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 工具编排服务测试类
+ */
+public class ToolOrchestrationServiceImplTest {
+
+    private ToolOrchestrationServiceImpl orchestrationService;
+
+    @BeforeEach
+    public void setUp() {
+        Map<String, BaseTool> tools = new LinkedHashMap<>();
+        tools.put("annotated", new AnnotatedTool());
+        tools.put("plain", new PlainTool());
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBeansOfType(BaseTool.class)).thenReturn(tools);
+        orchestrationService = new ToolOrchestrationServiceImpl(applicationContext, mock(ToolRelevanceRanker.class));
+    }
+
+    @Test
+    public void testToolsWithoutCallbacksAreStillRegistered() {
+        assertEquals(2, orchestrationService.getAllToolNames().size());
+        assertNotNull(orchestrationService.getTool("plain_tool"));
+        assertNotNull(orchestrationService.getTool("annotated_tool"));
+        assertEquals(1, orchestrationService.getAllToolCallbacks().size());
+        assertTrue(orchestrationService.getToolSchemas().containsKey("annotated_tool"));
+    }
+
+    /**
+     * 带 @Tool 方法的工具
+     */
+    static class AnnotatedTool extends BaseTool<Object> {
+
+        AnnotatedTool() {
+            super("annotated_tool", "Annotated", "Tool with a callback", JsonSchema.object());
+        }
+
+        @Tool(name = "annotated_tool", description = "Echoes its input")
+        public String echo(String input) {
+            return input;
+        }
+
+        @Override
+        public CompletableFuture<ToolResult> execute(Object params) {
+            return CompletableFuture.completedFuture(ToolResult.success("ok"));
+        }
+    }
+
+    /**
+     * 只通过 execute 调用、没有 @Tool 方法的工具
+     */
+    static class PlainTool extends BaseTool<Object> {
+
+        PlainTool() {
+            super("plain_tool", "Plain", "Tool without callbacks", JsonSchema.object());
+        }
+
+        @Override
+        public CompletableFuture<ToolResult> execute(Object params) {
+            return CompletableFuture.completedFuture(ToolResult.success("ok"));
+        }
+    }
+}
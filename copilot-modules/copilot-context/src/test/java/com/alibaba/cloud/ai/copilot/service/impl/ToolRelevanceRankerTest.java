@@ -0,0 +1,174 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.config.AppProperties;
+import com.alibaba.cloud.ai.copilot.service.TokenService;
+import com.alibaba.cloud.ai.copilot.tools.BaseTool;
+import com.alibaba.cloud.ai.copilot.tools.EditFileTool;
+import com.alibaba.cloud.ai.copilot.tools.MultiEditTool;
+import com.alibaba.cloud.ai.copilot.tools.ProjectScaffoldTool;
+import com.alibaba.cloud.ai.copilot.tools.ReadFileTool;
+import com.alibaba.cloud.ai.copilot.tools.SmartEditTool;
+import com.alibaba.cloud.ai.copilot.tools.WriteFileTool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 工具相关度排序测试类
+ */
+public class ToolRelevanceRankerTest {
+
+    private ToolRelevanceRanker ranker;
+
+    private List<ToolCallback> candidates;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.estimateTokens(anyString())).thenReturn(100);
+        ranker = new ToolRelevanceRanker(mock(ObjectProvider.class), tokenService);
+        ReflectionTestUtils.setField(ranker, "enabled", true);
+        ReflectionTestUtils.setField(ranker, "topK", 1);
+        ReflectionTestUtils.setField(ranker, "alwaysInclude", List.of("read_file", "write_file", "edit_file", "multi_edit"));
+        ReflectionTestUtils.setField(ranker, "embeddingEnabled", false);
+
+        candidates = new ArrayList<>();
+        candidates.add(callback("read_file", "Return the text of a file"));
+        candidates.add(callback("write_file", "Write text to a path"));
+        candidates.add(callback("edit_file", "Replace a snippet in a file"));
+        candidates.add(callback("multi_edit", "Apply several replacements atomically"));
+        candidates.add(callback("scaffold_project", "Generate a starter layout from a template"));
+        candidates.add(callback("smart_edit", "Plan changes from a natural language description"));
+    }
+
+    @Test
+    public void testCoreEditToolsAlwaysIncluded() {
+        List<String> selected = names(ranker.select(candidates, "login page throws NPE on submit", null));
+
+        assertTrue(selected.contains("edit_file"));
+        assertTrue(selected.contains("multi_edit"));
+    }
+
+    @Test
+    public void testSelectsTopScoredTool() {
+        List<String> selected = names(ranker.select(candidates, "scaffold a new project from a template", null));
+
+        assertEquals(List.of("read_file", "write_file", "edit_file", "multi_edit", "scaffold_project"), selected);
+        assertEquals(1L, ranker.getStats().get("skippedTools"));
+    }
+
+    @Test
+    public void testSendsMatchedToolsEvenWhenFewerThanTopK() {
+        ReflectionTestUtils.setField(ranker, "topK", 2);
+
+        List<String> selected = names(ranker.select(candidates, "scaffold it", null));
+
+        assertEquals(List.of("read_file", "write_file", "edit_file", "multi_edit", "scaffold_project"), selected);
+    }
+
+    @Test
+    public void testSendsOnlyAlwaysIncludedToolsWhenNothingMatches() {
+        ReflectionTestUtils.setField(ranker, "topK", 3);
+
+        List<String> selected = names(ranker.select(candidates, "login page throws NPE on submit", null));
+
+        assertEquals(List.of("read_file", "write_file", "edit_file", "multi_edit"), selected);
+        assertEquals(2L, ranker.getStats().get("skippedTools"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testShippedConfigFiltersRealToolSet() throws IOException {
+        Properties config = loadShippedConfig();
+        TokenService tokenService = mock(TokenService.class);
+        when(tokenService.estimateTokens(anyString())).thenReturn(100);
+        ToolRelevanceRanker shipped = new ToolRelevanceRanker(mock(ObjectProvider.class), tokenService);
+        ReflectionTestUtils.setField(shipped, "enabled",
+            Boolean.parseBoolean(config.getProperty("copilot.tool-selection.enabled")));
+        ReflectionTestUtils.setField(shipped, "topK",
+            Integer.parseInt(config.getProperty("copilot.tool-selection.top-k")));
+        ReflectionTestUtils.setField(shipped, "alwaysInclude",
+            Arrays.stream(config.getProperty("copilot.tool-selection.always-include").split(",")).map(String::trim).toList());
+        ReflectionTestUtils.setField(shipped, "embeddingEnabled", false);
+
+        AppProperties appProperties = new AppProperties();
+        Map<String, BaseTool> tools = new LinkedHashMap<>();
+        tools.put("readFileTool", new ReadFileTool(appProperties));
+        tools.put("writeFileTool", new WriteFileTool(appProperties));
+        tools.put("editFileTool", new EditFileTool(appProperties));
+        tools.put("multiEditTool", new MultiEditTool(appProperties));
+        tools.put("projectScaffoldTool", new ProjectScaffoldTool(appProperties));
+        tools.put("smartEditTool", new SmartEditTool(appProperties));
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBeansOfType(BaseTool.class)).thenReturn(tools);
+        ToolOrchestrationServiceImpl orchestrationService = new ToolOrchestrationServiceImpl(applicationContext, shipped);
+        assertEquals(6, orchestrationService.getAllToolCallbacks().size());
+
+        List<String> bugFix = names(orchestrationService.selectToolCallbacks("login page throws NPE on submit", null));
+        assertEquals(List.of("read_file", "write_file", "edit_file", "multi_edit"), bugFix);
+
+        List<String> scaffold = names(orchestrationService.selectToolCallbacks("scaffold a new project", null));
+        assertEquals(List.of("read_file", "write_file", "edit_file", "multi_edit", "scaffold_project"), scaffold);
+
+        assertEquals(3L, shipped.getStats().get("skippedTools"));
+    }
+
+    @Test
+    public void testKeywordsMatchWholeWords() {
+        assertFalse(ToolRelevanceRanker.matches(ToolRelevanceRanker.normalize("Fix the address field"), "add"));
+        assertFalse(ToolRelevanceRanker.matches(ToolRelevanceRanker.normalize("initial state is wrong"), "init"));
+        assertFalse(ToolRelevanceRanker.matches(ToolRelevanceRanker.normalize("everything is broken"), "every"));
+        assertTrue(ToolRelevanceRanker.matches(ToolRelevanceRanker.normalize("Add a button"), "add"));
+        assertTrue(ToolRelevanceRanker.matches(ToolRelevanceRanker.normalize("create a new-file here"), "new file"));
+        assertTrue(ToolRelevanceRanker.matches(ToolRelevanceRanker.normalize("make it project wide"), "project-wide"));
+        assertTrue(ToolRelevanceRanker.matches(ToolRelevanceRanker.normalize("请修复登录页"), "修复"));
+    }
+
+    private static ToolCallback callback(String name, String description) {
+        ToolCallback callback = mock(ToolCallback.class);
+        when(callback.getToolDefinition()).thenReturn(ToolDefinition.builder()
+            .name(name)
+            .description(description)
+            .inputSchema("{}")
+            .build());
+        return callback;
+    }
+
+    /**
+     * 读取 copilot-admin 中随应用发布的配置，Maven 资源过滤的 @xxx@ 占位符替换为普通字符串
+     */
+    private static Properties loadShippedConfig() throws IOException {
+        String content = Files.readString(Path.of("../../copilot-admin/src/main/resources/application.yml"))
+            .replaceAll("@([\\w.-]+)@", "\"$1\"");
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)));
+        Properties properties = yaml.getObject();
+        assertNotNull(properties.getProperty("copilot.tool-selection.top-k"));
+        return properties;
+    }
+
+    private static List<String> names(List<ToolCallback> callbacks) {
+        return callbacks.stream().map(c -> c.getToolDefinition().name()).toList();
+    }
+}
@@ -0,0 +1,110 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.service.FileSystemService.FileEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 工作目录文件索引测试类
+ */
+public class WorkspaceIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testChangesSinceReportsWritesAndDeletions() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "a");
+        Files.writeString(tempDir.resolve("b.txt"), "b");
+        WorkspaceIndex index = new WorkspaceIndex(tempDir);
+        index.rescan();
+        long cursor = index.getVersion();
+
+        Files.delete(tempDir.resolve("a.txt"));
+        index.refresh("a.txt");
+        index.recordWrite("c.txt", 1, 1L, null);
+
+        List<FileEntry> changes = index.changesSince(cursor);
+        assertEquals(2, changes.size());
+        assertTrue(changes.stream().anyMatch(e -> e.getPath().equals("a.txt") && e.isDeleted()));
+        assertTrue(changes.stream().anyMatch(e -> e.getPath().equals("c.txt") && !e.isDeleted()));
+        assertEquals(2, index.getFileCount());
+        assertFalse(index.requiresResync(cursor));
+    }
+
+    @Test
+    public void testAppliedTombstonesArePurged() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "a");
+        WorkspaceIndex index = new WorkspaceIndex(tempDir);
+        index.rescan();
+        long beforeDelete = index.getVersion();
+
+        index.remove("a.txt");
+        long afterDelete = index.getVersion();
+        index.purgeTombstones(afterDelete);
+
+        assertTrue(index.changesSince(beforeDelete).isEmpty());
+        // 删除标记已清除，更早的游标需要全量同步
+        assertTrue(index.requiresResync(beforeDelete));
+        assertFalse(index.requiresResync(afterDelete));
+        assertTrue(index.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testPurgeKeepsTombstonesNewerThanCursor() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "a");
+        Files.writeString(tempDir.resolve("b.txt"), "b");
+        WorkspaceIndex index = new WorkspaceIndex(tempDir);
+        index.rescan();
+
+        index.remove("a.txt");
+        long cursor = index.getVersion();
+        index.remove("b.txt");
+        index.purgeTombstones(cursor);
+
+        List<FileEntry> changes = index.changesSince(cursor);
+        assertEquals(1, changes.size());
+        assertEquals("b.txt", changes.get(0).getPath());
+        assertTrue(changes.get(0).isDeleted());
+    }
+
+    @Test
+    public void testRecreatedFileAfterPurgeIsReported() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "a");
+        WorkspaceIndex index = new WorkspaceIndex(tempDir);
+        index.rescan();
+        index.remove("a.txt");
+        index.purgeTombstones(index.getVersion());
+        long cursor = index.getVersion();
+
+        index.refresh("a.txt");
+
+        List<FileEntry> changes = index.changesSince(cursor);
+        assertEquals(1, changes.size());
+        assertFalse(changes.get(0).isDeleted());
+        assertEquals(1, index.getFileCount());
+    }
+
+    @Test
+    public void testRebuiltIndexInvalidatesOldCursors() throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("a.txt"), "a");
+        WorkspaceIndex evicted = new WorkspaceIndex(tempDir);
+        evicted.rescan();
+        long oldCursor = evicted.getVersion();
+
+        Thread.sleep(2);
+        WorkspaceIndex rebuilt = new WorkspaceIndex(tempDir);
+        rebuilt.rescan();
+
+        assertTrue(rebuilt.getVersion() > oldCursor);
+        assertTrue(rebuilt.requiresResync(oldCursor));
+        assertTrue(rebuilt.requiresResync(0));
+    }
+}
@@ -0,0 +1,95 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.WorkspaceLifecycleReport;
+import com.alibaba.cloud.ai.copilot.service.ConversationService;
+import com.alibaba.cloud.ai.copilot.service.FileSystemService;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 工作目录生命周期服务测试类
+ */
+public class WorkspaceLifecycleServiceImplTest {
+
+    private static final String LOGIN_ID = "sys_user:1";
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    private ConversationService conversationService;
+
+    private FileSystemService fileSystemService;
+
+    private WorkspaceLifecycleServiceImpl lifecycleService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        root = tempDir.resolve("root");
+        conversationService = mock(ConversationService.class);
+        fileSystemService = mock(FileSystemService.class);
+        WorkspaceSnapshotService snapshotService = mock(WorkspaceSnapshotService.class);
+        when(snapshotService.referencedHashes()).thenReturn(Set.of());
+        lifecycleService = new WorkspaceLifecycleServiceImpl(conversationService, fileSystemService, snapshotService,
+            new ContentAddressedStore(root.resolve(".blobs")), root.toString(), true, 0, 500, 0, 200);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        lifecycleService.shutdown();
+    }
+
+    @Test
+    public void testActiveConversationIsLookedUpByLoginId() throws IOException {
+        Path userDir = Files.createDirectories(root.resolve("sys_user_1"));
+        Files.writeString(userDir.resolve(FileSystemServiceImpl.OWNER_FILE), LOGIN_ID);
+        Path active = workspace(userDir, "conv_sys_user_1_20260101000000_aaaa");
+        Path expired = workspace(userDir, "conv_sys_user_1_20250101000000_bbbb");
+        when(conversationService.getUserConversations(LOGIN_ID))
+            .thenReturn(List.of("conv_sys_user:1_20260101000000_aaaa"));
+
+        WorkspaceLifecycleReport report = lifecycleService.runOnce();
+
+        assertEquals(2, report.getScannedWorkspaces());
+        assertEquals(1, report.getExpiredWorkspaces());
+        verify(fileSystemService).deleteWorkspace(expired.toString());
+        verify(fileSystemService, never()).deleteWorkspace(active.toString());
+        assertTrue(lifecycleService.getUserUsage(LOGIN_ID) > 0);
+    }
+
+    @Test
+    public void testUserDirectoryWithoutOwnerIsSkipped() throws IOException {
+        Path userDir = Files.createDirectories(root.resolve("legacy_user"));
+        workspace(userDir, "conv_legacy");
+
+        WorkspaceLifecycleReport report = lifecycleService.runOnce();
+
+        assertEquals(0, report.getScannedWorkspaces());
+        verify(fileSystemService, never()).deleteWorkspace(anyString());
+        verify(conversationService, never()).getUserConversations(anyString());
+    }
+
+    private static Path workspace(Path userDir, String name) throws IOException {
+        Path workspace = Files.createDirectories(userDir.resolve(name));
+        Path file = Files.writeString(workspace.resolve("App.java"), "class App {}");
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 3_600_000);
+        Files.setLastModifiedTime(file, old);
+        Files.setLastModifiedTime(workspace, old);
+        return workspace;
+    }
+}
@@ -0,0 +1,103 @@
+package com.alibaba.cloud.ai.copilot.service.impl;
+
+import com.alibaba.cloud.ai.copilot.model.WorkspaceSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 工作目录快照服务测试类
+ */
+public class WorkspaceSnapshotServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    private Path workspace;
+
+    private ContentAddressedStore store;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        root = tempDir.resolve("root");
+        workspace = Files.createDirectories(root.resolve("user").resolve("conv"));
+        store = new ContentAddressedStore(root.resolve(".blobs"));
+    }
+
+    @Test
+    public void testRollbackRestoresContentAndDeletesNewFiles() throws IOException {
+        WorkspaceSnapshotServiceImpl snapshotService = newService(true, 200);
+        Path existing = Files.writeString(workspace.resolve("App.java"), "v1");
+        Path created = workspace.resolve("New.java");
+
+        long first = snapshotService.recordBeforeWrite(existing, "edit_file");
+        Files.writeString(existing, "v2");
+        snapshotService.recordBeforeWrite(created, "write_file");
+        Files.writeString(created, "new");
+
+        assertEquals(2, snapshotService.rollback(workspace.toString(), first));
+        assertEquals("v1", Files.readString(existing));
+        assertFalse(Files.exists(created));
+    }
+
+    @Test
+    public void testSnapshotReferencesSurviveGarbageCollectionInCopyMode() throws IOException {
+        ReflectionTestUtils.setField(store, "linkSupported", false);
+        WorkspaceSnapshotServiceImpl snapshotService = newService(true, 200);
+        Path file = Files.writeString(workspace.resolve("App.java"), "original");
+
+        long id = snapshotService.recordBeforeWrite(file, "edit_file");
+        Files.writeString(file, "changed");
+        store.collectGarbage(snapshotService::referencedHashes);
+
+        assertEquals(1, snapshotService.referencedHashes().size());
+        snapshotService.rollback(workspace.toString(), id);
+        assertEquals("original", Files.readString(file));
+    }
+
+    @Test
+    public void testRollbackWithoutDedupUsesPrivateCopies() throws IOException {
+        WorkspaceSnapshotServiceImpl snapshotService = newService(false, 200);
+        Path file = Files.writeString(workspace.resolve("App.java"), "original");
+
+        long id = snapshotService.recordBeforeWrite(file, "edit_file");
+        Files.writeString(file, "changed");
+
+        assertFalse(Files.exists(root.resolve(".blobs").resolve(snapshotService.referencedHashes()
+            .iterator().next().substring(0, 2))));
+        snapshotService.rollback(workspace.toString(), id);
+        assertEquals("original", Files.readString(file));
+    }
+
+    @Test
+    public void testRetentionKeepsNewestSnapshots() throws IOException {
+        WorkspaceSnapshotServiceImpl snapshotService = newService(true, 2);
+        Path file = workspace.resolve("App.java");
+        for (int i = 0; i < 4; i++) {
+            Files.writeString(file, "v" + i);
+            snapshotService.recordBeforeWrite(file, "edit_file");
+        }
+
+        List<WorkspaceSnapshot> snapshots = snapshotService.listSnapshots(workspace.toString());
+        assertEquals(List.of(3L, 4L), snapshots.stream().map(WorkspaceSnapshot::getId).toList());
+        assertEquals(2, snapshotService.referencedHashes().size());
+        assertThrows(IllegalArgumentException.class, () -> snapshotService.rollback(workspace.toString(), 1));
+
+        snapshotService.rollback(workspace.toString(), 3);
+        assertEquals("v2", Files.readString(file));
+    }
+
+    private WorkspaceSnapshotServiceImpl newService(boolean dedupEnabled, int maxSnapshots) {
+        return new WorkspaceSnapshotServiceImpl(root.toString(), store, dedupEnabled, maxSnapshots, 168);
+    }
+}
@@ -0,0 +1,292 @@
+package com.alibaba.cloud.ai.copilot.tools;
+
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.DistributedTaskScheduler;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskEngineSettings;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskExecutionParams;
+import com.alibaba.cloud.ai.copilot.tools.ContinuousTaskTool.TaskStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 连续任务工具测试类
+ */
+public class ContinuousTaskToolTest {
+
+    private ContinuousTaskTool taskTool;
+
+    @BeforeEach
+    public void setUp() {
+        taskTool = new ContinuousTaskTool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        taskTool.shutdown();
+    }
+
+    @Test
+    public void testOwnerRecordedOnFirstSave() {
+        ToolResult result = taskTool.execute(plan("task_owned", "sys_user:1")).join();
+
+        assertTrue(result.isSuccess());
+        assertTrue(taskTool.isOwnedBy("task_owned", "sys_user:1"));
+        assertFalse(taskTool.isOwnedBy("task_owned", "sys_user:2"));
+        assertFalse(taskTool.isOwnedBy("task_missing", "sys_user:1"));
+    }
+
+    @Test
+    public void testOtherUserCannotTakeOverTask() {
+        taskTool.execute(plan("task_owned", "sys_user:1")).join();
+
+        ToolResult result = taskTool.execute(plan("task_owned", "sys_user:2")).join();
+
+        assertFalse(result.isSuccess());
+        assertTrue(taskTool.isOwnedBy("task_owned", "sys_user:1"));
+    }
+
+    @Test
+    public void testInvocationWithoutOwnerIsRejected() {
+        taskTool.execute(plan("task_owned", "sys_user:1")).join();
+
+        ToolResult anonymous = taskTool.execute(plan("task_anonymous", null)).join();
+        assertFalse(anonymous.isSuccess());
+        assertNull(taskTool.getTaskState("task_anonymous"));
+
+        TaskExecutionParams cancel = plan("task_owned", null);
+        cancel.setMode("cancel");
+        assertFalse(taskTool.execute(cancel).join().isSuccess());
+        assertEquals("planned", taskTool.getTaskState("task_owned").getStatus());
+    }
+
+    @Test
+    public void testOtherUserCannotCancelTask() {
+        taskTool.execute(plan("task_owned", "sys_user:1")).join();
+        TaskExecutionParams cancel = plan("task_owned", "sys_user:2");
+        cancel.setMode("cancel");
+
+        assertFalse(taskTool.execute(cancel).join().isSuccess());
+        assertTrue(taskTool.cancel("task_owned"));
+        assertEquals("cancelled", taskTool.getTaskState("task_owned").getStatus());
+    }
+
+    @Test
+    public void testMissingDependencyIsReported() {
+        TaskExecutionParams params = plan("task_dependent", "sys_user:1");
+        params.setDependencies(List.of("task_purged"));
+
+        ToolResult result = taskTool.execute(params).join();
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.getErrorMessage().contains("task_purged"));
+    }
+
+    @Test
+    public void testDuplicateStepIdsRejected() {
+        List<TaskStep> steps = List.of(step("build", "pending"), step("build", "pending"));
+
+        ToolResult result = taskTool.execute(executeAll("task_duplicate", steps)).join();
+
+        assertTrue(result.getLlmContent().contains("重复"));
+        assertTrue(steps.stream().allMatch(s -> "pending".equals(s.getStatus())));
+    }
+
+    @Test
+    public void testExplicitIdCollidingWithIndexRejected() {
+        // 第二个步骤没有 id，默认 id 为下标 "1"，与第一个步骤的显式 id 冲突
+        List<TaskStep> steps = List.of(step("1", "pending"), step(null, "pending"));
+
+        ToolResult result = taskTool.execute(executeAll("task_collision", steps)).join();
+
+        assertTrue(result.getLlmContent().contains("重复"));
+        assertTrue(steps.stream().allMatch(s -> "pending".equals(s.getStatus())));
+    }
+
+    @Test
+    public void testInvalidStepDependenciesRejected() {
+        TaskStep first = step("a", "pending");
+        first.setDependsOn(List.of("b"));
+        TaskStep second = step("b", "pending");
+        second.setDependsOn(List.of("a"));
+
+        ToolResult cyclic = taskTool.execute(executeAll("task_cycle", List.of(first, second))).join();
+        assertTrue(cyclic.getLlmContent().contains("步骤依赖无效"));
+
+        TaskStep orphan = step("c", "pending");
+        orphan.setDependsOn(List.of("missing"));
+        ToolResult unknown = taskTool.execute(executeAll("task_unknown", List.of(orphan))).join();
+        assertTrue(unknown.getLlmContent().contains("不存在"));
+    }
+
+    @Test
+    public void testCompletedStepsAreNotRerun() {
+        List<TaskStep> steps = List.of(step("a", "completed"), step("b", "cancelled"));
+
+        ToolResult result = taskTool.execute(executeAll("task_done", steps)).join();
+
+        assertTrue(result.isSuccess());
+        assertEquals("completed", taskTool.getTaskState("task_done").getStatus());
+    }
+
+    @Test
+    public void testLostLeaseInterruptsLocalExecution() throws Exception {
+        FakeDistributedScheduler scheduler = new FakeDistributedScheduler();
+        ContinuousTaskTool distributedTool = new ContinuousTaskTool(null, null, scheduler, null, new TaskEngineSettings());
+        try {
+            List<TaskStep> steps = IntStream.range(0, 40).mapToObj(i -> step("s" + i, "pending")).toList();
+            CompletableFuture<ToolResult> future = distributedTool.execute(executeAll("task_lease", steps));
+            String key = scheduler.awaitClaim();
+            Thread.sleep(200);
+
+            scheduler.loseLease(key);
+
+            // 全部步骤约需 1 秒；中断后本地不保存状态、不回报完成，本节点提交的调用继续等待新执行者的结果
+            Thread.sleep(1500);
+            assertFalse(future.isDone());
+            assertNull(distributedTool.getTaskState("task_lease"));
+            assertTrue(scheduler.completed.isEmpty());
+            assertTrue(steps.stream().anyMatch(s -> "pending".equals(s.getStatus())));
+
+            scheduler.deliverResult(key, "{\"success\":true,\"llmContent\":\"done elsewhere\"}");
+            ToolResult result = future.get(1, TimeUnit.SECONDS);
+            assertEquals("done elsewhere", result.getLlmContent());
+        } finally {
+            distributedTool.shutdown();
+        }
+    }
+
+    private static TaskExecutionParams executeAll(String taskId, List<TaskStep> steps) {
+        TaskExecutionParams params = new TaskExecutionParams();
+        params.setTaskId(taskId);
+        params.setGoal("构建项目");
+        params.setMode("execute_all");
+        params.setSteps(steps);
+        params.setOwnerId("sys_user:1");
+        return params;
+    }
+
+    private static TaskStep step(String id, String status) {
+        TaskStep step = new TaskStep("step " + id, status, null);
+        step.setId(id);
+        return step;
+    }
+
+    private static TaskExecutionParams plan(String taskId, String ownerId) {
+        TaskExecutionParams params = new TaskExecutionParams();
+        params.setTaskId(taskId);
+        params.setGoal("创建一个 Spring Boot 项目");
+        params.setMode("plan");
+        params.setOwnerId(ownerId);
+        return params;
+    }
+
+    /**
+     * 内存中的分布式调度器，模拟租约丢失和其他节点回传结果
+     */
+    private static class FakeDistributedScheduler implements DistributedTaskScheduler {
+        private final Deque<String> queue = new ArrayDeque<>();
+        private final Map<String, String> payloads = new ConcurrentHashMap<>();
+        private final List<String> claimed = new CopyOnWriteArrayList<>();
+        private final List<String> completed = new CopyOnWriteArrayList<>();
+        private final List<BiConsumer<String, String>> resultListeners = new ArrayList<>();
+        private final List<Consumer<String>> leaseLostListeners = new ArrayList<>();
+
+        @Override
+        public synchronized void scheduleTask(String taskId, String priority, String payload) {
+            queue.add(taskId);
+            payloads.put(taskId, payload);
+        }
+
+        @Override
+        public void scheduleTask(String taskId, String priority) {
+            scheduleTask(taskId, priority, null);
+        }
+
+        @Override
+        public synchronized String getNextTask() {
+            String key = queue.poll();
+            if (key != null) {
+                claimed.add(key);
+            }
+            return key;
+        }
+
+        @Override
+        public synchronized void removeTask(String taskId) {
+            queue.remove(taskId);
+        }
+
+        @Override
+        public synchronized int getQueueSize() {
+            return queue.size();
+        }
+
+        @Override
+        public String getPayload(String taskId) {
+            return payloads.get(taskId);
+        }
+
+        @Override
+        public boolean isPending(String taskId) {
+            return true;
+        }
+
+        @Override
+        public void complete(String taskId, String encodedResult) {
+            completed.add(taskId);
+        }
+
+        @Override
+        public void addResultListener(BiConsumer<String, String> listener) {
+            resultListeners.add(listener);
+        }
+
+        @Override
+        public void addLeaseLostListener(Consumer<String> listener) {
+            leaseLostListeners.add(listener);
+        }
+
+        @Override
+        public void requestCancel(String taskId) {
+        }
+
+        @Override
+        public void addCancelListener(Consumer<String> listener) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        String awaitClaim() throws InterruptedException {
+            for (int i = 0; i < 100 && claimed.isEmpty(); i++) {
+                Thread.sleep(20);
+            }
+            assertFalse(claimed.isEmpty());
+            return claimed.get(0);
+        }
+
+        void loseLease(String key) {
+            leaseLostListeners.forEach(listener -> listener.accept(key));
+        }
+
+        void deliverResult(String key, String encodedResult) {
+            resultListeners.forEach(listener -> listener.accept(key, encodedResult));
+        }
+    }
+}
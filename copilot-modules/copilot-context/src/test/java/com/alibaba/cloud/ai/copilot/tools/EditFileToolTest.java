@@ -0,0 +1,66 @@
+package com.alibaba.cloud.ai.copilot.tools;
+
+import com.alibaba.cloud.ai.copilot.config.AppProperties;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文件编辑工具测试类
+ */
+public class EditFileToolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private WorkspaceSnapshotService snapshotService;
+
+    private EditFileTool editFileTool;
+
+    @BeforeEach
+    public void setUp() {
+        AppProperties appProperties = new AppProperties();
+        appProperties.getWorkspace().setRootDirectory(tempDir.toString());
+        snapshotService = mock(WorkspaceSnapshotService.class);
+        editFileTool = new EditFileTool(appProperties);
+        ReflectionTestUtils.setField(editFileTool, "snapshotService", snapshotService);
+    }
+
+    @Test
+    public void testSnapshotUsesContentReadForTheEdit() throws IOException {
+        String original = "int a = 1;\nint b = 2;\n";
+        Path file = Files.writeString(tempDir.resolve("App.java"), original);
+
+        ToolResult result = editFileTool.execute(
+            new EditFileTool.EditFileParams(file.toString(), "int a = 1;", "int a = 10;")).join();
+
+        assertTrue(result.isSuccess());
+        assertEquals("int a = 10;\nint b = 2;\n", Files.readString(file));
+        verify(snapshotService).recordContent(eq(file), eq(original.getBytes(StandardCharsets.UTF_8)), eq("edit_file"));
+        verify(snapshotService, never()).recordBeforeWrite(any(), anyString());
+    }
+
+    @Test
+    public void testNoSnapshotWhenTextIsMissing() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("App.java"), "int a = 1;\n");
+
+        ToolResult result = editFileTool.execute(
+            new EditFileTool.EditFileParams(file.toString(), "int c = 3;", "int c = 30;")).join();
+
+        assertFalse(result.isSuccess());
+        verifyNoInteractions(snapshotService);
+    }
+}
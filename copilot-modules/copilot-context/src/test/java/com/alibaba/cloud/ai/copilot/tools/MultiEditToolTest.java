@@ -0,0 +1,122 @@
+package com.alibaba.cloud.ai.copilot.tools;
+
+import com.alibaba.cloud.ai.copilot.config.AppProperties;
+import com.alibaba.cloud.ai.copilot.service.WorkspaceSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量编辑工具测试类
+ */
+public class MultiEditToolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AppProperties appProperties;
+
+    private WorkspaceSnapshotService snapshotService;
+
+    private MultiEditTool multiEditTool;
+
+    @BeforeEach
+    public void setUp() {
+        appProperties = new AppProperties();
+        appProperties.getWorkspace().setRootDirectory(tempDir.toString());
+        snapshotService = mock(WorkspaceSnapshotService.class);
+        multiEditTool = new MultiEditTool(appProperties);
+        ReflectionTestUtils.setField(multiEditTool, "snapshotService", snapshotService);
+    }
+
+    @Test
+    public void testEditsProduceOneDiffPerFile() throws IOException {
+        Path app = Files.writeString(tempDir.resolve("App.java"), "int a = 1;\nint b = 2;\n");
+        Path util = Files.writeString(tempDir.resolve("Util.java"), "class Util {}\n");
+
+        ToolResult result = execute(
+            edit(app, "int a = 1;", "int a = 10;"),
+            edit(app, "int b = 2;", "int b = 20;"),
+            edit(util, "Util", "Utils"));
+
+        assertTrue(result.isSuccess());
+        assertEquals("int a = 10;\nint b = 20;\n", Files.readString(app));
+        assertEquals("class Utils {}\n", Files.readString(util));
+        String diff = ((FileDiff) result.getReturnDisplay()).getFileDiff();
+        assertEquals(1, countOccurrences(diff, "--- a/App.java"));
+        assertEquals(1, countOccurrences(diff, "--- a/Util.java"));
+        verify(snapshotService).recordContent(eq(app.normalize()),
+            eq("int a = 1;\nint b = 2;\n".getBytes(StandardCharsets.UTF_8)), eq("multi_edit"));
+        verify(snapshotService, times(2)).recordContent(any(), any(), eq("multi_edit"));
+    }
+
+    @Test
+    public void testFailedEditChangesNothing() throws IOException {
+        Path app = Files.writeString(tempDir.resolve("App.java"), "int a = 1;\n");
+
+        ToolResult result = execute(
+            edit(app, "int a = 1;", "int a = 2;"),
+            edit(app, "missing", "x"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("int a = 1;\n", Files.readString(app));
+        verify(snapshotService, never()).recordContent(any(), any(), anyString());
+        verify(snapshotService, never()).recordBeforeWrite(any(), anyString());
+    }
+
+    @Test
+    public void testFileLargerThanMaxSizeIsRejected() throws IOException {
+        appProperties.getWorkspace().setMaxFileSize(16);
+        Path app = Files.writeString(tempDir.resolve("App.java"), "x".repeat(32));
+
+        ToolResult result = execute(edit(app, "x", "y"));
+
+        assertFalse(result.isSuccess());
+        assertEquals("x".repeat(32), Files.readString(app));
+    }
+
+    @Test
+    public void testPermissionsArePreserved() throws IOException {
+        Path script = Files.writeString(tempDir.resolve("run.sh"), "echo one\n");
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+        try {
+            Files.setPosixFilePermissions(script, permissions);
+        } catch (UnsupportedOperationException e) {
+            // 非 POSIX 文件系统无需校验
+            return;
+        }
+
+        assertTrue(execute(edit(script, "one", "two")).isSuccess());
+
+        assertEquals("echo two\n", Files.readString(script));
+        assertEquals(permissions, Files.getPosixFilePermissions(script));
+    }
+
+    private ToolResult execute(MultiEditTool.EditOperation... edits) {
+        return multiEditTool.execute(new MultiEditTool.MultiEditParams(List.of(edits))).join();
+    }
+
+    private static MultiEditTool.EditOperation edit(Path file, String oldStr, String newStr) {
+        return new MultiEditTool.EditOperation(file.toString(), oldStr, newStr);
+    }
+
+    private static int countOccurrences(String text, String token) {
+        return text.split(java.util.regex.Pattern.quote(token), -1).length - 1;
+    }
+}
@@ -0,0 +1,312 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import com.alibaba.cloud.ai.copilot.tools.service.CodeLineClassifier.Counts;
+import com.alibaba.cloud.ai.copilot.tools.service.CodeLineClassifier.Syntax;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 代码行分类器测试类
+ */
+public class CodeLineClassifierTest {
+
+    /**
+     * 分类器内部缓冲区大小
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private CodeLineClassifier classifier;
+
+    @BeforeEach
+    public void setUp() {
+        classifier = new CodeLineClassifier();
+    }
+
+    @Test
+    public void testBlockCommentStartAcrossBufferBoundary() throws IOException {
+        // 让 "/*" 和 "//" 的两个字符分别落在缓冲区边界两侧及其附近
+        for (int offset = BUFFER_SIZE - 4; offset <= BUFFER_SIZE + 4; offset++) {
+            String content = "x".repeat(offset - 1) + "\n"
+                + "/* comment\n"
+                + "still comment */\n"
+                + "// line comment\n"
+                + "int y;\n";
+
+            Counts counts = classifier.classify(new StringReader(content), Syntax.JAVA);
+
+            assertEquals(5, counts.totalLines(), "offset " + offset);
+            assertEquals(2, counts.codeLines(), "offset " + offset);
+            assertEquals(3, counts.commentLines(), "offset " + offset);
+        }
+    }
+
+    @Test
+    public void testBlockCommentEndAcrossBufferBoundary() throws IOException {
+        for (int offset = BUFFER_SIZE - 4; offset <= BUFFER_SIZE + 4; offset++) {
+            // "/*\n" 占 3 个字符，"*/" 从 offset 处开始
+            String content = "/*\n" + "c".repeat(offset - 3) + "*/\n" + "int y;\n";
+
+            Counts counts = classifier.classify(new StringReader(content), Syntax.JAVA);
+
+            assertEquals(3, counts.totalLines(), "offset " + offset);
+            assertEquals(1, counts.codeLines(), "offset " + offset);
+            assertEquals(2, counts.commentLines(), "offset " + offset);
+        }
+    }
+
+    @Test
+    public void testKeywordAcrossBufferBoundary() throws IOException {
+        for (int offset = BUFFER_SIZE - 6; offset <= BUFFER_SIZE + 1; offset++) {
+            String content = "//" + "x".repeat(offset - 3) + "\nclass Foo {}\n";
+
+            Counts counts = classifier.classify(new StringReader(content), Syntax.JAVA);
+
+            assertEquals(1, counts.classes(), "offset " + offset);
+        }
+    }
+
+    @Test
+    public void testCommentMarkersInsideStrings() throws IOException {
+        String java = "String url = \"http://example.com\"; // trailing\n"
+            + "String open = \"/* not a comment\";\n"
+            + "char slash = '/';\n"
+            + "int x = 1;\n";
+        Counts javaCounts = classifier.classify(new StringReader(java), Syntax.JAVA);
+        assertEquals(4, javaCounts.codeLines());
+        assertEquals(0, javaCounts.commentLines());
+
+        String python = "s = \"# not a comment\"\n"
+            + "t = 'it\\'s # still text'\n"
+            + "# real comment\n";
+        Counts pythonCounts = classifier.classify(new StringReader(python), Syntax.PYTHON);
+        assertEquals(2, pythonCounts.codeLines());
+        assertEquals(1, pythonCounts.commentLines());
+
+        String js = "const url = `http://${host}/*path*/`;\n"
+            + "const re = \"<!-- text -->\";\n";
+        Counts jsCounts = classifier.classify(new StringReader(js), Syntax.JAVASCRIPT);
+        assertEquals(2, jsCounts.codeLines());
+        assertEquals(0, jsCounts.commentLines());
+    }
+
+    @Test
+    public void testJavaTextBlock() throws IOException {
+        String content = "String sql = \"\"\"\n"
+            + "    // not a comment\n"
+            + "\n"
+            + "    /* \"quoted\" text\n"
+            + "    \"\"\";\n"
+            + "class After {}\n";
+
+        Counts counts = classifier.classify(new StringReader(content), Syntax.JAVA);
+
+        assertEquals(6, counts.totalLines());
+        assertEquals(5, counts.codeLines());
+        assertEquals(0, counts.commentLines());
+        assertEquals(1, counts.blankLines());
+        assertEquals(1, counts.classes());
+    }
+
+    @Test
+    public void testPythonTripleQuotes() throws IOException {
+        String content = "def load():\n"
+            + "    \"\"\"Docstring with # hash\n"
+            + "    def not_a_function():\n"
+            + "    \"\"\"\n"
+            + "    text = '''single # quotes\n"
+            + "    class NotAClass:'''\n"
+            + "    return text\n"
+            + "\n"
+            + "class Loader:\n"
+            + "    async def run(self):  # comment\n"
+            + "        pass\n";
+
+        Counts counts = classifier.classify(new StringReader(content), Syntax.PYTHON);
+
+        assertEquals(11, counts.totalLines());
+        assertEquals(10, counts.codeLines());
+        assertEquals(0, counts.commentLines());
+        assertEquals(1, counts.classes());
+        assertEquals(2, counts.functions());
+    }
+
+    @Test
+    public void testJavaScriptFunctions() throws IOException {
+        String content = "const add = (a, b) => a + b;\n"
+            + "const inc = x => x + 1;\n"
+            + "const load = async () => {};\n"
+            + "const typed = (a: number): number => a;\n"
+            + "function named() {}\n"
+            + "const obj = { handler: () => 1, other: function () {} };\n"
+            + "items.map(x => x * 2);\n"
+            + "if (a >= b) { run(); }\n"
+            + "class Widget extends Base {}\n";
+
+        Counts counts = classifier.classify(new StringReader(content), Syntax.JAVASCRIPT);
+
+        // add、inc、load、typed、named、handler、other；传给 map 的回调不是具名函数
+        assertEquals(7, counts.functions());
+        assertEquals(1, counts.classes());
+    }
+
+    @Test
+    public void testJavaDeclarations() throws IOException {
+        String content = "public class Outer {\n"
+            + "    private final Class<?> type = Foo.class;\n"
+            + "    private int record = 0;\n"
+            + "    public record Point(int x, int y) {}\n"
+            + "    public Outer() { record = 1; }\n"
+            + "    void run() { helper(record); }\n"
+            + "    String name() { return Foo.class.getName(); }\n"
+            + "    void record(int value) { }\n"
+            + "    enum Color { RED, GREEN }\n"
+            + "}\n";
+
+        Counts counts = classifier.classify(new StringReader(content), Syntax.JAVA);
+
+        // Outer、Point、Color；Foo.class 和名为 record 的字段不是声明
+        assertEquals(3, counts.classes());
+        // Outer()、run()、name()、record(int)；方法体中的 helper(record) 和 getName() 是调用
+        assertEquals(4, counts.methods());
+    }
+
+    @Test
+    public void testLineEndings() throws IOException {
+        Counts counts = classifier.classify(new StringReader("int a;\r\n\r\n// c\rint b;"), Syntax.JAVA);
+
+        assertEquals(4, counts.totalLines());
+        assertEquals(2, counts.codeLines());
+        assertEquals(1, counts.commentLines());
+        assertEquals(1, counts.blankLines());
+    }
+
+    @Test
+    public void testMatchesRegexClassificationOnPlainCode() throws IOException {
+        // 没有跨行注释、字符串中的注释符号等情况时，与原来按行前缀和正则统计的结果一致
+        String content = plainJava(2000);
+        Path file = Files.writeString(tempDir.resolve("Service.java"), content);
+
+        Counts lexer = classifier.classify(file, Syntax.JAVA);
+        Counts regex = regexCounts(Files.readAllLines(file));
+
+        assertEquals(regex, lexer);
+        assertTrue(content.length() > 4 * BUFFER_SIZE);
+    }
+
+    @Test
+    public void testFasterThanRegexBaseline() throws IOException {
+        // 计时对比：同一文件分别按词法分析和原来的逐行正则统计，各预热后取多轮中的最短耗时
+        Path file = Files.writeString(tempDir.resolve("Service.java"), plainJava(5000));
+        long lexerNanos = Long.MAX_VALUE;
+        long regexNanos = Long.MAX_VALUE;
+        for (int round = 0; round < 8; round++) {
+            long start = System.nanoTime();
+            Counts lexer = classifier.classify(file, Syntax.JAVA);
+            long lexerEnd = System.nanoTime();
+            Counts regex = regexCounts(Files.readAllLines(file));
+            long regexEnd = System.nanoTime();
+            assertEquals(regex, lexer);
+            if (round >= 3) {
+                lexerNanos = Math.min(lexerNanos, lexerEnd - start);
+                regexNanos = Math.min(regexNanos, regexEnd - lexerEnd);
+            }
+        }
+
+        assertTrue(lexerNanos < regexNanos,
+            "lexer " + lexerNanos / 1_000_000 + " ms, regex " + regexNanos / 1_000_000 + " ms");
+    }
+
+    @Test
+    public void testDiffersFromRegexWhereRegexWasWrong() throws IOException {
+        String content = "public class Job {\n"
+            + "    /*\n"
+            + "       commented out code();\n"
+            + "    */\n"
+            + "    String label = \"class Foo\";\n"
+            + "    public void run() {\n"
+            + "        // public void notAMethod(int x)\n"
+            + "    }\n"
+            + "}\n";
+
+        Counts lexer = classifier.classify(new StringReader(content), Syntax.JAVA);
+        Counts regex = regexCounts(content.lines().toList());
+
+        // 块注释中不以 * 开头的行，原来的规则计为代码行
+        assertEquals(4, lexer.commentLines());
+        assertEquals(3, regex.commentLines());
+        // 字符串中的 class 和注释中的方法签名，原来的规则也会计入
+        assertEquals(1, lexer.classes());
+        assertEquals(2, regex.classes());
+        assertEquals(1, lexer.methods());
+        assertEquals(2, regex.methods());
+    }
+
+    @Test
+    public void testInvalidUtf8Rejected() throws IOException {
+        Path file = Files.write(tempDir.resolve("bad.java"), new byte[]{'i', 'n', 't', ' ', (byte) 0xC3, '\n'});
+
+        assertThrows(IOException.class, () -> classifier.classify(file, Syntax.JAVA));
+    }
+
+    /**
+     * 生成不含跨行注释和字符串注释符号的 Java 代码，每个类 12 行
+     */
+    private static String plainJava(int classes) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < classes; i++) {
+            content.append("/**\n")
+                .append(" * Service ").append(i).append('\n')
+                .append(" */\n")
+                .append("public class Service").append(i).append(" {\n")
+                .append("\n")
+                .append("    // counter\n")
+                .append("    private int count = ").append(i).append(";\n")
+                .append("\n")
+                .append("    public int next(int step) {\n")
+                .append("        return count + step;\n")
+                .append("    }\n")
+                .append("}\n");
+        }
+        return content.toString();
+    }
+
+    /**
+     * 改用词法分析之前的统计规则：按行前缀识别注释，按正则识别类和方法
+     */
+    private static Counts regexCounts(List<String> lines) {
+        int code = 0;
+        int comment = 0;
+        int blank = 0;
+        int classes = 0;
+        int methods = 0;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                blank++;
+            } else if (trimmed.startsWith("//") || trimmed.startsWith("/*") || trimmed.startsWith("*")) {
+                comment++;
+            } else {
+                code++;
+            }
+            if (trimmed.matches(".*\\bclass\\s+\\w+.*")) {
+                classes++;
+            }
+            if (trimmed.matches(".*\\b(public|private|protected)\\s+.*\\s+\\w+\\s*\\(.*\\).*")) {
+                methods++;
+            }
+        }
+        return new Counts(lines.size(), code, comment, blank, classes, methods, 0);
+    }
+}
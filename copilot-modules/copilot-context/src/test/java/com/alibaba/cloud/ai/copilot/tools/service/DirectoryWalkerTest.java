@@ -0,0 +1,148 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 目录遍历器测试类
+ */
+public class DirectoryWalkerTest {
+
+    @TempDir
+    Path root;
+
+    private DirectoryWalker walker;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        walker = new DirectoryWalker();
+        Files.createDirectories(root.resolve("src/main"));
+        Files.createDirectories(root.resolve("node_modules/lib"));
+        Files.createDirectories(root.resolve("target"));
+        Files.writeString(root.resolve("b.txt"), "b");
+        Files.writeString(root.resolve("a.txt"), "a");
+        Files.writeString(root.resolve(".env"), "secret");
+        Files.writeString(root.resolve("src/App.java"), "class App {}");
+        Files.writeString(root.resolve("src/main/Main.java"), "class Main {}");
+        Files.writeString(root.resolve("src/main/debug.log"), "log");
+        Files.writeString(root.resolve("target/App.class"), "bytes");
+    }
+
+    @Test
+    public void testPreOrderWithDirectoriesFirst() {
+        DirectoryWalker.Listing listing = walker.walk(root, new DirectoryWalker.Options(10, false, false, 100));
+
+        assertEquals(List.of("src", "src/main", "src/main/Main.java", "src/main/debug.log", "src/App.java",
+                "target", "target/App.class", "a.txt", "b.txt"), paths(listing));
+        assertFalse(listing.truncated());
+    }
+
+    @Test
+    public void testRespectsGitIgnoreAndHiddenFiles() throws IOException {
+        Files.writeString(root.resolve(".gitignore"), "target/\n*.log\n");
+
+        DirectoryWalker.Listing listing = walker.walk(root, new DirectoryWalker.Options(10, false, true, 100));
+        assertEquals(List.of("src", "src/main", "src/main/Main.java", "src/App.java", "a.txt", "b.txt"),
+                paths(listing));
+
+        List<String> withHidden = paths(walker.walk(root, new DirectoryWalker.Options(10, true, true, 100)));
+        assertTrue(withHidden.contains(".env"));
+        assertTrue(withHidden.contains(".gitignore"));
+        assertFalse(withHidden.contains("node_modules"));
+    }
+
+    @Test
+    public void testMaxDepth() {
+        DirectoryWalker.Listing listing = walker.walk(root, new DirectoryWalker.Options(1, false, false, 100));
+
+        assertEquals(List.of("src", "target", "a.txt", "b.txt"), paths(listing));
+        assertTrue(listing.entries().stream().allMatch(e -> e.depth() == 1));
+    }
+
+    @Test
+    public void testStopsAtMaxEntries() {
+        DirectoryWalker.Listing listing = walker.walk(root, new DirectoryWalker.Options(10, false, false, 3));
+
+        assertEquals(3, listing.entries().size());
+        assertTrue(listing.truncated());
+    }
+
+    @Test
+    public void testTruncatedListingPagesAreStable() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            for (int j = 0; j < 20; j++) {
+                Files.writeString(Files.createDirectories(root.resolve("many/d" + i + "/e" + j)).resolve("f.txt"), "x");
+            }
+        }
+        DirectoryWalker.Options options = new DirectoryWalker.Options(10, false, false, 500);
+        List<String> full = paths(walker.walk(root, new DirectoryWalker.Options(10, false, false, 10_000)));
+
+        // 与工具分页一样，每一页都重新遍历
+        List<String> firstPass = pageThrough(options, 64);
+        List<String> secondPass = pageThrough(options, 64);
+
+        assertEquals(500, firstPass.size());
+        assertEquals(firstPass, secondPass);
+        assertEquals(full.subList(0, 500), firstPass);
+    }
+
+    @Test
+    public void testNestedGitIgnoreAppliesBelowItsDirectory() throws IOException {
+        Files.writeString(root.resolve("src/.gitignore"), "*.java\n");
+
+        List<String> paths = paths(walker.walk(root, new DirectoryWalker.Options(10, false, true, 100)));
+
+        assertFalse(paths.contains("src/App.java"));
+        assertFalse(paths.contains("src/main/Main.java"));
+        assertTrue(paths.contains("src/main/debug.log"));
+    }
+
+    @Test
+    public void testCustomFilterRecordsDirectoriesWithoutDescending() {
+        DirectoryWalker.Filter filter = new DirectoryWalker.Filter() {
+            @Override
+            public boolean accept(Path path, BasicFileAttributes attrs) {
+                return !path.getFileName().toString().endsWith(".log");
+            }
+
+            @Override
+            public boolean descend(DirectoryWalker.Entry directory) {
+                return !directory.name().equals("node_modules") && !directory.name().equals("target");
+            }
+        };
+
+        DirectoryWalker.Listing listing = walker.walk(root, 10, Integer.MAX_VALUE, filter);
+
+        assertEquals(List.of("node_modules", "src", "src/main", "src/main/Main.java", "src/App.java",
+                "target", ".env", "a.txt", "b.txt"), paths(listing));
+    }
+
+    private List<String> pageThrough(DirectoryWalker.Options options, int limit) {
+        List<String> pages = new ArrayList<>();
+        for (int offset = 0; ; offset += limit) {
+            DirectoryWalker.Listing listing = walker.walk(root, options);
+            assertTrue(listing.truncated());
+            List<String> paths = paths(listing);
+            if (offset >= paths.size()) {
+                return pages;
+            }
+            pages.addAll(paths.subList(offset, Math.min(offset + limit, paths.size())));
+        }
+    }
+
+    private List<String> paths(DirectoryWalker.Listing listing) {
+        return listing.entries().stream()
+                .map(e -> e.relativePath().toString().replace('\\', '/'))
+                .toList();
+    }
+}
@@ -0,0 +1,107 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * .gitignore 规则测试类
+ */
+public class GitIgnoreRulesTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void testUnanchoredPatternMatchesAnyLevel() throws IOException {
+        GitIgnoreRules rules = load("*.log\nbuild\n");
+
+        assertTrue(rules.isIgnored(Path.of("app.log"), false));
+        assertTrue(rules.isIgnored(Path.of("a/b/app.log"), false));
+        assertTrue(rules.isIgnored(Path.of("build"), true));
+        assertTrue(rules.isIgnored(Path.of("module/build"), true));
+        assertFalse(rules.isIgnored(Path.of("app.log.txt"), false));
+        assertFalse(rules.isIgnored(Path.of("builder"), true));
+    }
+
+    @Test
+    public void testNegationReincludesLaterMatch() throws IOException {
+        GitIgnoreRules rules = load("*.log\n!keep.log\n");
+
+        assertTrue(rules.isIgnored(Path.of("debug.log"), false));
+        assertFalse(rules.isIgnored(Path.of("keep.log"), false));
+        assertFalse(rules.isIgnored(Path.of("logs/keep.log"), false));
+    }
+
+    @Test
+    public void testLastMatchingRuleWins() throws IOException {
+        GitIgnoreRules rules = load("!keep.log\n*.log\n");
+
+        assertTrue(rules.isIgnored(Path.of("keep.log"), false));
+    }
+
+    @Test
+    public void testDirectoryOnlyPattern() throws IOException {
+        GitIgnoreRules rules = load("out/\n");
+
+        assertTrue(rules.isIgnored(Path.of("out"), true));
+        assertTrue(rules.isIgnored(Path.of("a/out"), true));
+        assertFalse(rules.isIgnored(Path.of("out"), false));
+    }
+
+    @Test
+    public void testAnchoredPattern() throws IOException {
+        GitIgnoreRules rules = load("/dist\ndocs/*.md\n");
+
+        assertTrue(rules.isIgnored(Path.of("dist"), true));
+        assertFalse(rules.isIgnored(Path.of("web/dist"), true));
+        assertTrue(rules.isIgnored(Path.of("docs/readme.md"), false));
+        assertFalse(rules.isIgnored(Path.of("web/docs/readme.md"), false));
+        assertFalse(rules.isIgnored(Path.of("docs/api/readme.md"), false));
+    }
+
+    @Test
+    public void testDoubleStarPatterns() throws IOException {
+        GitIgnoreRules rules = load("**/tmp\nlogs/**\na/**/b\n");
+
+        assertTrue(rules.isIgnored(Path.of("tmp"), true));
+        assertTrue(rules.isIgnored(Path.of("x/y/tmp"), true));
+        assertTrue(rules.isIgnored(Path.of("logs/2024/app.txt"), false));
+        assertFalse(rules.isIgnored(Path.of("x/logs/app.txt"), false));
+        assertTrue(rules.isIgnored(Path.of("a/b"), true));
+        assertTrue(rules.isIgnored(Path.of("a/x/y/b"), true));
+        assertFalse(rules.isIgnored(Path.of("a/xb"), true));
+    }
+
+    @Test
+    public void testNestedGitIgnoreIsRelativeToItsDirectory() throws IOException {
+        Path sub = Files.createDirectories(root.resolve("sub"));
+        Files.writeString(root.resolve(".gitignore"), "*.log\n");
+        Files.writeString(sub.resolve(".gitignore"), "/generated\n!important.log\n");
+
+        GitIgnoreRules rules = GitIgnoreRules.EMPTY.load(root, root).load(sub, root);
+
+        assertTrue(rules.isIgnored(Path.of("sub/generated"), true));
+        assertFalse(rules.isIgnored(Path.of("generated"), true));
+        assertFalse(rules.isIgnored(Path.of("sub/important.log"), false));
+        assertTrue(rules.isIgnored(Path.of("important.log"), false));
+    }
+
+    @Test
+    public void testCommentsAndBlankLinesAreIgnored() throws IOException {
+        GitIgnoreRules rules = load("# *.java\n\n   \n");
+
+        assertSame(GitIgnoreRules.EMPTY, rules);
+        assertFalse(rules.isIgnored(Path.of("Main.java"), false));
+    }
+
+    private GitIgnoreRules load(String content) throws IOException {
+        Files.writeString(root.resolve(".gitignore"), content);
+        return GitIgnoreRules.EMPTY.load(root, root);
+    }
+}
@@ -0,0 +1,98 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按行区间读取文件测试类
+ */
+public class LineIndexedFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LineIndexedFileReader reader;
+
+    @BeforeEach
+    public void setUp() {
+        reader = new LineIndexedFileReader();
+    }
+
+    @Test
+    public void testReadWindowAcrossCheckpoints() throws IOException {
+        String content = IntStream.range(0, 1000).mapToObj(i -> "line" + i).collect(Collectors.joining("\n"));
+        Path file = Files.writeString(tempDir.resolve("a.txt"), content);
+
+        LineIndexedFileReader.LineWindow window = reader.readLines(file, 255, 3);
+
+        assertEquals(List.of("line255", "line256", "line257"), window.lines());
+        assertEquals(1000, window.totalLines());
+        assertEquals(content.lines().count(), reader.countLines(file));
+        assertFalse(window.truncated());
+        assertEquals(List.of("line999"), reader.readLines(file, 999, 10).lines());
+        assertTrue(reader.readLines(file, 1000, 10).lines().isEmpty());
+    }
+
+    @Test
+    public void testLineTerminatorsMatchStringLines() throws IOException {
+        String[] terminators = {"\r\n", "\r", "\n"};
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append(i % 7 == 0 ? "" : "line" + i).append(terminators[i % terminators.length]);
+        }
+        content.append("\r\n\rlast");
+        Path file = Files.writeString(tempDir.resolve("crlf.txt"), content);
+        List<String> expected = content.toString().lines().toList();
+
+        assertEquals(expected.size(), reader.countLines(file));
+        assertEquals(expected, reader.readLines(file, 0, Integer.MAX_VALUE).lines());
+        for (int offset : new int[] {255, 256, 257, 511, 512, 768, expected.size() - 1}) {
+            assertEquals(expected.subList(offset, Math.min(offset + 3, expected.size())), reader.readLines(file, offset, 3).lines(),
+                    "offset " + offset);
+        }
+    }
+
+    @Test
+    public void testCrlfFileCountsLikeStringLines() throws IOException {
+        for (String content : new String[] {"a\r\nb\r\n", "a\r\nb", "a\rb\r", "\r\n", "\r", "a\r\r\nb"}) {
+            Path file = Files.writeString(tempDir.resolve("a.txt"), content);
+            List<String> expected = content.lines().toList();
+
+            assertEquals(expected.size(), reader.countLines(file), content);
+            assertEquals(expected, reader.readLines(file, 0, 10).lines(), content);
+        }
+    }
+
+    @Test
+    public void testWindowIsBoundedByBytes() throws IOException {
+        String content = IntStream.range(0, 100).mapToObj(i -> "0123456789").collect(Collectors.joining("\n"));
+        Path file = Files.writeString(tempDir.resolve("a.txt"), content);
+
+        LineIndexedFileReader.LineWindow window = reader.readLines(file, 0, Integer.MAX_VALUE, 35);
+
+        assertEquals(3, window.lines().size());
+        assertTrue(window.truncated());
+        assertEquals(3, window.endLine());
+    }
+
+    @Test
+    public void testSingleLineLargerThanLimit() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "x".repeat(200_000) + "\nshort");
+
+        LineIndexedFileReader.LineWindow window = reader.readLines(file, 0, 10, 1024);
+
+        assertTrue(window.lines().isEmpty());
+        assertTrue(window.truncated());
+        assertEquals(List.of("short"), reader.readLines(file, 1, 10, 1024).lines());
+    }
+}
@@ -0,0 +1,199 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import com.alibaba.cloud.ai.copilot.tools.service.ProjectAnalysisCache.FileStats;
+import com.alibaba.cloud.ai.copilot.tools.service.ProjectAnalysisCache.ScannedFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 项目分析缓存测试类
+ */
+public class ProjectAnalysisCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path cacheDirectory;
+
+    private Path workspace;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        cacheDirectory = tempDir.resolve("cache");
+        workspace = Files.createDirectories(tempDir.resolve("workspace").resolve("user").resolve("conv"));
+    }
+
+    @Test
+    public void testEntryReloadedFromDisk() throws IOException {
+        Path project = Files.createDirectories(workspace.resolve("app"));
+        save(newCache(), project);
+
+        ProjectAnalysisCache reloaded = newCache();
+        assertEquals(1, reloaded.entry(project).fileCount());
+        assertEquals(10, reloaded.entry(project).codeStatistics().getTotalLines());
+    }
+
+    @Test
+    public void testInvalidateRemovesProjectsUnderDirectory() throws IOException {
+        Path nested = Files.createDirectories(workspace.resolve("app").resolve("module"));
+        Path other = Files.createDirectories(tempDir.resolve("workspace").resolve("user").resolve("other"));
+        ProjectAnalysisCache cache = newCache();
+        save(cache, workspace);
+        save(cache, nested);
+        save(cache, other);
+
+        cache.invalidate(workspace);
+
+        assertEquals(1, cacheFiles().size());
+        assertEquals(0, cache.entry(nested).fileCount());
+        assertEquals(1, newCache().entry(other).fileCount());
+    }
+
+    @Test
+    public void testInvalidateKeepsLegacyFilesOfOtherProjects() throws IOException {
+        Files.createDirectories(cacheDirectory);
+        Path legacy = Files.writeString(cacheDirectory.resolve("legacy.json"), "{\"version\":2,\"files\":{}}");
+        Path unreadable = Files.writeString(cacheDirectory.resolve("broken.json"), "not json");
+        ProjectAnalysisCache cache = newCache();
+        save(cache, workspace);
+        // 本工作目录的旧版本缓存文件按键删除
+        Path ownLegacy = cacheFiles().stream().filter(file -> !file.equals(legacy) && !file.equals(unreadable))
+            .findFirst().orElseThrow();
+        Files.writeString(ownLegacy, "{\"version\":2,\"files\":{}}");
+
+        cache.invalidate(workspace);
+
+        assertEquals(List.of(unreadable, legacy), cacheFiles().stream().sorted().toList());
+    }
+
+    @Test
+    public void testRemoveLegacyFilesKeepsCurrentFiles() throws IOException {
+        Path project = Files.createDirectories(workspace.resolve("app"));
+        ProjectAnalysisCache cache = newCache();
+        save(cache, project);
+        Files.writeString(cacheDirectory.resolve("legacy.json"), "{\"version\":2,\"files\":{}}");
+        Files.writeString(cacheDirectory.resolve("broken.json"), "not json");
+
+        cache.removeLegacyFiles();
+
+        assertEquals(1, cacheFiles().size());
+        assertEquals(1, newCache().entry(project).fileCount());
+    }
+
+    @Test
+    public void testCleanupRemovesOrphanedAndIdleFiles() throws IOException {
+        Path deleted = Files.createDirectories(workspace.resolve("deleted"));
+        Path idle = Files.createDirectories(workspace.resolve("idle"));
+        Path active = Files.createDirectories(workspace.resolve("active"));
+        save(newCache(), deleted);
+        save(newCache(), idle);
+        ProjectAnalysisCache cache = newCache();
+        save(cache, active);
+        Files.delete(deleted);
+        for (Path file : cacheFiles()) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 48 * 3600_000L));
+        }
+
+        cache.cleanup();
+
+        // 仍在内存中的项目即使超过最大闲置时间也保留
+        assertEquals(1, cacheFiles().size());
+        assertEquals(1, newCache().entry(active).fileCount());
+    }
+
+    @Test
+    public void testLoadDoesNotBlockOtherProjects() throws Exception {
+        Path slow = Files.createDirectories(workspace.resolve("slow"));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProjectAnalysisCache cache = new ProjectAnalysisCache(true, cacheDirectory.toString(), 32, 24) {
+            @Override
+            Entry load(Path root) {
+                if (root.equals(slow)) {
+                    // 模拟读取大项目的缓存文件
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.load(root);
+            }
+        };
+        Path fast = Files.createDirectories(otherStripe(cache, slow, "fast"));
+        Path other = otherStripe(cache, slow, "other");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ProjectAnalysisCache.Entry> slowEntry = executor.submit(() -> cache.entry(slow));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            // 另一个项目的加载和失效不等待正在加载的项目
+            Future<ProjectAnalysisCache.Entry> fastEntry = CompletableFuture.supplyAsync(() -> {
+                ProjectAnalysisCache.Entry entry = cache.entry(fast);
+                cache.invalidate(other);
+                return entry;
+            });
+            assertNotNull(fastEntry.get(5, TimeUnit.SECONDS));
+            assertFalse(slowEntry.isDone());
+
+            release.countDown();
+            assertSame(slowEntry.get(5, TimeUnit.SECONDS), cache.entry(slow));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLockSharedByProjectRoot() {
+        ProjectAnalysisCache cache = newCache();
+
+        assertSame(cache.lockFor(workspace), cache.lockFor(workspace.resolve("app").resolve("..")));
+    }
+
+    /**
+     * 与指定项目不共用分段锁的路径
+     */
+    private Path otherStripe(ProjectAnalysisCache cache, Path project, String prefix) {
+        for (int i = 0; ; i++) {
+            Path candidate = workspace.resolve(prefix + i);
+            if (cache.lockFor(candidate) != cache.lockFor(project)) {
+                return candidate;
+            }
+        }
+    }
+
+    private ProjectAnalysisCache newCache() {
+        return new ProjectAnalysisCache(true, cacheDirectory.toString(), 32, 24);
+    }
+
+    private static void save(ProjectAnalysisCache cache, Path project) {
+        ProjectAnalysisCache.Entry entry = cache.entry(project);
+        entry.update(List.of(new ScannedFile(project.resolve("App.java"), "App.java", 1L, 100L)),
+            file -> new FileStats(file.lastModified(), file.size(), "Java", 10, 7, 2, 1, 1, 2, 0));
+        cache.save(project, entry);
+    }
+
+    private List<Path> cacheFiles() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.toList();
+        }
+    }
+}
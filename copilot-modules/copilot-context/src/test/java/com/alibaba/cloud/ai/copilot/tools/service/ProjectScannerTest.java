@@ -0,0 +1,102 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 项目扫描器测试类
+ */
+public class ProjectScannerTest {
+
+    @TempDir
+    Path root;
+
+    private ProjectScanner scanner;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        scanner = new ProjectScanner();
+        Files.createDirectories(root.resolve("src/main/java"));
+        Files.createDirectories(root.resolve("node_modules/lib"));
+        Files.createDirectories(root.resolve(".git/objects"));
+        Files.createDirectories(root.resolve("target/classes"));
+        Files.writeString(root.resolve("pom.xml"), "<project/>");
+        Files.writeString(root.resolve(".env"), "secret");
+        Files.writeString(root.resolve("src/main/java/App.java"), "class App {}");
+        Files.writeString(root.resolve("node_modules/lib/index.js"), "module.exports = {}");
+        Files.writeString(root.resolve("target/classes/App.class"), "bytes");
+    }
+
+    @Test
+    public void testIgnoredDirectoriesAreRecordedButNotEntered() {
+        ProjectScanner.ProjectSnapshot snapshot = scanner.scan(root);
+
+        assertEquals(List.of(".git", "node_modules", "src", "src/main", "src/main/java", "src/main/java/App.java",
+                "target", ".env", "pom.xml"), paths(snapshot.entries()));
+        assertEquals(List.of(".git", "node_modules", "target"), snapshot.entries().stream()
+                .filter(ProjectScanner.Entry::ignored).map(ProjectScanner.Entry::name).toList());
+        assertTrue(snapshot.hasRootEntry("node_modules"));
+        assertTrue(snapshot.hasRootEntry(".git"));
+        assertEquals(1, snapshot.rootEntries().get("src").depth());
+        assertEquals("class App {}".length(), snapshot.entries().stream()
+                .filter(e -> e.name().equals("App.java")).findFirst().orElseThrow().size());
+    }
+
+    @Test
+    public void testVisitorsSkipIgnoredDirectories() {
+        List<String> directories = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+
+        scanner.scan(root).accept(new ProjectScanner.Visitor() {
+            @Override
+            public void visitDirectory(ProjectScanner.Entry directory) {
+                directories.add(directory.relativePath().replace('\\', '/'));
+            }
+
+            @Override
+            public void visitFile(ProjectScanner.Entry file) {
+                files.add(file.relativePath().replace('\\', '/'));
+            }
+        });
+
+        assertEquals(List.of("src", "src/main", "src/main/java"), directories);
+        assertEquals(List.of("src/main/java/App.java", ".env", "pom.xml"), files);
+    }
+
+    @Test
+    public void testMaxDepth() {
+        ProjectScanner.ProjectSnapshot snapshot = scanner.scan(root, 1);
+
+        assertEquals(List.of(".git", "node_modules", "src", "target", ".env", "pom.xml"), paths(snapshot.entries()));
+    }
+
+    @Test
+    public void testFingerprintsTrackChanges() throws IOException {
+        ProjectScanner.ProjectSnapshot before = scanner.scan(root);
+        assertEquals(before.layoutFingerprint(), scanner.scan(root).layoutFingerprint());
+
+        // 被忽略目录中的变化不影响布局指纹
+        Files.writeString(root.resolve("node_modules/lib/index.js"), "module.exports = { changed: true }");
+        assertEquals(before.layoutFingerprint(), scanner.scan(root).layoutFingerprint());
+
+        Files.writeString(root.resolve("src/main/java/App.java"), "class App { int x; }");
+        ProjectScanner.ProjectSnapshot afterSource = scanner.scan(root);
+        assertNotEquals(before.layoutFingerprint(), afterSource.layoutFingerprint());
+
+        Files.writeString(root.resolve("pom.xml"), "<project><modules/></project>");
+        assertNotEquals(afterSource.rootFingerprint(), scanner.scan(root).rootFingerprint());
+    }
+
+    private static List<String> paths(List<ProjectScanner.Entry> entries) {
+        return entries.stream().map(e -> e.relativePath().replace('\\', '/')).toList();
+    }
+}
@@ -0,0 +1,175 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapCache;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Redis 分布式任务调度器测试类
+ * 脚本调用由假的 RScript 记录并按脚本返回预设结果，验证调度器传给脚本的键、令牌、优先级和租约时长
+ */
+public class RedisTaskSchedulerTest {
+
+    private RedissonClient redissonClient;
+
+    private RTopic topic;
+
+    private RScoredSortedSet<String> ready;
+
+    private final List<ScriptCall> calls = new CopyOnWriteArrayList<>();
+
+    private final Map<String, Object> replies = new ConcurrentHashMap<>();
+
+    private RedisTaskScheduler scheduler;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redissonClient = mock(RedissonClient.class);
+        topic = mock(RTopic.class);
+        ready = mock(RScoredSortedSet.class);
+        RScript script = mock(RScript.class, invocation -> {
+            Object[] args = invocation.getArguments();
+            String lua = (String) args[2];
+            calls.add(new ScriptCall(lua, (List<Object>) args[4], List.of(args).subList(5, args.length)));
+            return replies.get(lua);
+        });
+        when(redissonClient.getScript(any(Codec.class))).thenReturn(script);
+        when(redissonClient.getScoredSortedSet(anyString(), any(Codec.class))).thenReturn((RScoredSortedSet) ready);
+        when(redissonClient.getMap(anyString(), any(Codec.class))).thenReturn(mock(RMap.class));
+        when(redissonClient.getMapCache(anyString())).thenReturn(mock(RMapCache.class));
+        when(redissonClient.getTopic(anyString())).thenReturn(topic);
+
+        scheduler = new RedisTaskScheduler(redissonClient, Duration.ofSeconds(30), Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testHigherPriorityGetsLowerScore() {
+        scheduler.scheduleTask("low#1", "low", "{}");
+        scheduler.scheduleTask("urgent#2", "urgent", null);
+
+        List<ScriptCall> enqueues = calls(RedisTaskScheduler.ENQUEUE_SCRIPT);
+        assertEquals(2, enqueues.size());
+        long lowOffset = Long.parseLong((String) enqueues.get(0).values().get(1));
+        long urgentOffset = Long.parseLong((String) enqueues.get(1).values().get(1));
+        assertTrue(urgentOffset < lowOffset);
+        assertEquals("", enqueues.get(1).values().get(3));
+    }
+
+    @Test
+    public void testScriptsUseRedisTimeAndSendDurations() {
+        replies.put(RedisTaskScheduler.CLAIM_SCRIPT, List.of("task#1", "node-a|1"));
+        replies.put(RedisTaskScheduler.RENEW_SCRIPT, List.of());
+        scheduler.scheduleTask("task#1", "normal", "{}");
+        scheduler.getNextTask();
+
+        scheduler.heartbeat();
+
+        // 提交时间和到期时间由脚本用 Redis TIME 计算，节点只发送优先级偏移和时长
+        assertEquals("20000000000000", calls(RedisTaskScheduler.ENQUEUE_SCRIPT).get(0).values().get(1));
+        assertEquals("30000", calls(RedisTaskScheduler.CLAIM_SCRIPT).get(0).values().get(1));
+        assertEquals(List.of("30000", "task#1", "node-a|1"), calls(RedisTaskScheduler.RENEW_SCRIPT).get(0).values());
+        assertEquals("1000", calls(RedisTaskScheduler.RECOVER_SCRIPT).get(0).values().get(0));
+        for (String lua : List.of(RedisTaskScheduler.ENQUEUE_SCRIPT, RedisTaskScheduler.CLAIM_SCRIPT,
+                RedisTaskScheduler.RENEW_SCRIPT, RedisTaskScheduler.RECOVER_SCRIPT)) {
+            assertTrue(lua.contains("redis.call('TIME')"));
+        }
+    }
+
+    @Test
+    public void testLostLeaseNotifiesListenerAndSkipsComplete() {
+        List<String> lost = new CopyOnWriteArrayList<>();
+        scheduler.addLeaseLostListener(lost::add);
+        replies.put(RedisTaskScheduler.CLAIM_SCRIPT, List.of("task#1", "node-a|3"));
+        replies.put(RedisTaskScheduler.RENEW_SCRIPT, List.of("task#1"));
+        scheduler.getNextTask();
+
+        scheduler.heartbeat();
+        scheduler.complete("task#1", "stale result");
+
+        assertEquals(List.of("task#1"), lost);
+        assertTrue(calls(RedisTaskScheduler.COMPLETE_SCRIPT).isEmpty());
+        verify(topic, never()).publish(any());
+    }
+
+    @Test
+    public void testCompleteUsesFencingTokenAndReturnsResultToOrigin() {
+        replies.put(RedisTaskScheduler.CLAIM_SCRIPT, List.of("task#1", "node-a|3"));
+        replies.put(RedisTaskScheduler.COMPLETE_SCRIPT, "origin-node");
+
+        assertEquals("task#1", scheduler.getNextTask());
+        scheduler.complete("task#1", "result");
+
+        ScriptCall complete = calls(RedisTaskScheduler.COMPLETE_SCRIPT).get(0);
+        assertEquals(List.of("task#1", "node-a|3"), complete.values());
+        verify(redissonClient).getTopic("copilot:task:results:origin-node");
+        verify(topic).publish("task#1\nresult");
+    }
+
+    @Test
+    public void testCompleteAfterLostLeaseDiscardsResult() {
+        replies.put(RedisTaskScheduler.CLAIM_SCRIPT, List.of("task#1", "node-a|3"));
+
+        scheduler.getNextTask();
+        scheduler.complete("task#1", "result");
+
+        assertEquals(1, calls(RedisTaskScheduler.COMPLETE_SCRIPT).size());
+        verify(topic, never()).publish(any());
+    }
+
+    @Test
+    public void testEmptyQueueReturnsNull() {
+        assertNull(scheduler.getNextTask());
+        assertTrue(calls(RedisTaskScheduler.COMPLETE_SCRIPT).isEmpty());
+    }
+
+    @Test
+    public void testShutdownReleasesOwnedTasksWithToken() {
+        replies.put(RedisTaskScheduler.CLAIM_SCRIPT, List.of("task#1", "node-a|7"));
+        scheduler.getNextTask();
+
+        scheduler.shutdown();
+
+        ScriptCall release = calls(RedisTaskScheduler.RELEASE_SCRIPT).get(0);
+        assertEquals(List.of("task#1", "node-a|7"), release.values());
+    }
+
+    @Test
+    public void testIsPending() {
+        replies.put(RedisTaskScheduler.PENDING_SCRIPT, 1L);
+        assertTrue(scheduler.isPending("task#1"));
+
+        replies.put(RedisTaskScheduler.PENDING_SCRIPT, 0L);
+        assertFalse(scheduler.isPending("task#1"));
+    }
+
+    private List<ScriptCall> calls(String lua) {
+        return calls.stream().filter(call -> call.lua().equals(lua)).toList();
+    }
+
+    private record ScriptCall(String lua, List<Object> keys, List<Object> values) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import com.alibaba.cloud.ai.copilot.tools.service.StepGraphExecutor.Node;
+import com.alibaba.cloud.ai.copilot.tools.service.StepGraphExecutor.Outcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 步骤依赖图执行器测试类
+ */
+public class StepGraphExecutorTest {
+
+    private ExecutorService executor;
+
+    private StepGraphExecutor graphExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        graphExecutor = new StepGraphExecutor(executor, 2, 0, Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testIndependentStepsRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        List<String> finished = new CopyOnWriteArrayList<>();
+
+        StepGraphExecutor.Report report = graphExecutor.execute(List.of(
+            node("a"), node("b"), node("c", "a", "b")), (id, attempt) -> {
+                if (!"c".equals(id)) {
+                    bothStarted.countDown();
+                    // 两个步骤都开始后才返回，串行执行时会超时失败
+                    if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                        return false;
+                    }
+                }
+                finished.add(id);
+                return true;
+            });
+
+        assertEquals(Map.of("a", Outcome.COMPLETED, "b", Outcome.COMPLETED, "c", Outcome.COMPLETED), report.outcomes());
+        assertEquals("c", finished.get(2));
+    }
+
+    @Test
+    public void testFailureSkipsDependentsOnly() {
+        StepGraphExecutor.Report report = graphExecutor.execute(List.of(
+            node("a"), node("b", "a"), node("c", "b"), node("d")), (id, attempt) -> !"a".equals(id));
+
+        assertEquals(Outcome.FAILED, report.outcomes().get("a"));
+        assertEquals(Outcome.SKIPPED, report.outcomes().get("b"));
+        assertEquals(Outcome.SKIPPED, report.outcomes().get("c"));
+        assertEquals(Outcome.COMPLETED, report.outcomes().get("d"));
+    }
+
+    @Test
+    public void testFailedStepIsRetried() {
+        StepGraphExecutor.Report report = graphExecutor.execute(
+            List.of(new Node("a", List.of(), 1, 1)), (id, attempt) -> attempt > 1);
+
+        assertEquals(Outcome.COMPLETED, report.outcomes().get("a"));
+        assertEquals(2, report.attempts().get("a"));
+    }
+
+    @Test
+    public void testRetriesFromModelAreClamped() {
+        StepGraphExecutor.Report report = graphExecutor.execute(
+            List.of(new Node("a", List.of(), 1, Integer.MAX_VALUE)), (id, attempt) -> false);
+
+        assertEquals(Outcome.FAILED, report.outcomes().get("a"));
+        assertEquals(StepGraphExecutor.MAX_RETRIES + 1, report.attempts().get("a"));
+    }
+
+    @Test
+    public void testBackoffIsCappedAndNeverNegative() {
+        long max = StepGraphExecutor.MAX_BACKOFF.toMillis();
+
+        assertEquals(500, StepGraphExecutor.backoffMillis(Duration.ofMillis(500), 1));
+        assertEquals(2000, StepGraphExecutor.backoffMillis(Duration.ofMillis(500), 3));
+        assertEquals(max, StepGraphExecutor.backoffMillis(Duration.ofMillis(500), 20));
+        assertEquals(max, StepGraphExecutor.backoffMillis(Duration.ofMillis(500), 64));
+        assertEquals(max, StepGraphExecutor.backoffMillis(Duration.ofMillis(500), Integer.MAX_VALUE));
+        assertEquals(max, StepGraphExecutor.backoffMillis(Duration.ofDays(1), 1));
+        assertEquals(0, StepGraphExecutor.backoffMillis(Duration.ZERO, 40));
+    }
+
+    @Test
+    public void testCriticalPath() {
+        StepGraphExecutor.CriticalPath path = StepGraphExecutor.criticalPath(List.of(
+            new Node("a", List.of(), 3, -1),
+            new Node("b", List.of(), 1, -1),
+            new Node("c", List.of("a", "b"), 1, -1)), Node::estimatedMillis);
+
+        assertEquals(List.of("a", "c"), path.stepIds());
+        assertEquals(4, path.millis());
+        assertEquals(5, path.sequentialMillis());
+    }
+
+    @Test
+    public void testInvalidGraphsRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> StepGraphExecutor.topologicalOrder(List.of(node("a", "b"), node("b", "a"))));
+        assertThrows(IllegalArgumentException.class,
+            () -> StepGraphExecutor.topologicalOrder(List.of(node("a"), node("a"))));
+        assertThrows(IllegalArgumentException.class,
+            () -> StepGraphExecutor.topologicalOrder(List.of(node("a", "missing"))));
+    }
+
+    private static Node node(String id, String... dependsOn) {
+        return new Node(id, List.of(dependsOn), 1, -1);
+    }
+}
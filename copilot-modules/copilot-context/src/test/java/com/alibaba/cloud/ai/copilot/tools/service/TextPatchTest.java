@@ -0,0 +1,65 @@
+package com.alibaba.cloud.ai.copilot.tools.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单处文本替换测试类
+ */
+public class TextPatchTest {
+
+    @Test
+    public void testLocateFirstOccurrence() {
+        TextPatch patch = TextPatch.locate("a b a", "a", "x", null, null);
+
+        assertNotNull(patch);
+        assertEquals("x b a", patch.apply());
+        assertNull(TextPatch.locate("a b a", "c", "x", null, null));
+    }
+
+    @Test
+    public void testLocateByLineRange() {
+        String content = "one\ntwo\nthree\ntwo\n";
+
+        TextPatch patch = TextPatch.locate(content, "two", "TWO", 4, 4);
+
+        assertNotNull(patch);
+        assertEquals("one\ntwo\nthree\nTWO\n", patch.apply());
+        // 指定行的内容与 old_str 不一致
+        assertNull(TextPatch.locate(content, "two", "TWO", 3, 3));
+        assertNull(TextPatch.locate(content, "two", "TWO", 9, 9));
+    }
+
+    @Test
+    public void testBetweenKeepsOnlyChangedRegion() {
+        String original = "a\nb\nc\nd\n";
+        String revised = "a\nB\nc\nD\n";
+
+        TextPatch patch = TextPatch.between(original, revised);
+
+        assertEquals(2, patch.getStart());
+        assertEquals("B\nc\nD", patch.getReplacement());
+        assertEquals(revised, patch.apply());
+        assertEquals("same", TextPatch.between("same", "same").apply());
+        assertEquals("abc", TextPatch.between("ac", "abc").apply());
+        assertEquals("ac", TextPatch.between("abc", "ac").apply());
+    }
+
+    @Test
+    public void testUnifiedDiffLineNumbersAlignWithFile() {
+        String original = IntStream.rangeClosed(1, 20).mapToObj(i -> "line" + i).collect(Collectors.joining("\n"));
+        String revised = original.replace("line15", "changed");
+
+        String diff = TextPatch.between(original, revised).unifiedDiff("a/App.java", "b/App.java");
+
+        assertTrue(diff.startsWith("--- a/App.java\n+++ b/App.java\n"));
+        assertTrue(diff.contains("@@ -12,7 +12,7 @@"));
+        assertTrue(diff.contains("-line15"));
+        assertTrue(diff.contains("+changed"));
+        assertEquals(1, diff.split("\n--- ", -1).length);
+    }
+}
@@ -62,6 +62,22 @@ CREATE TABLE `sys_user`  (
   PRIMARY KEY (`user_id`) USING BTREE
 ) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '用户信息表' ROW_FORMAT = DYNAMIC;
 
+-- ============================================
+-- 表结构：chat_messages (聊天消息表)
+-- content 可能以压缩形式保存，content_length 记录原文字符数
+-- 已有部署执行：ALTER TABLE chat_messages ADD COLUMN content_length INT NULL AFTER content;
+-- 旧数据的 content_length 由聊天记忆迁移任务补齐
+-- ============================================
+CREATE TABLE IF NOT EXISTS chat_messages (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    conversation_id VARCHAR(100) NOT NULL COMMENT '会话ID',
+    role VARCHAR(20) NOT NULL COMMENT '消息角色',
+    content LONGTEXT COMMENT '消息内容（可能已压缩）',
+    content_length INT NULL COMMENT '原文字符数',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    INDEX idx_conversation_id (conversation_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='聊天消息表';
+
 -- ============================================
 -- 初始数据：model_config
 -- ============================================